@@ -9,11 +9,33 @@ import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
 import danogl.gui.rendering.Camera;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.replay.InputSession;
+import pepse.replay.SessionHeader;
+import pepse.save.QuickSave;
+import pepse.save.RewindBuffer;
+import pepse.save.SnapshotWriter;
+import pepse.util.CollisionPolicy;
+import pepse.util.FixedTimestep;
+import pepse.util.FrameProfiler;
+import pepse.util.FrameSpikeWatchdog;
+import pepse.util.GameStat;
+import pepse.util.GameStateBus;
 import pepse.util.HtmlTableGenerator;
+import pepse.util.RandomStreams;
+import pepse.util.RenderInterpolator;
+import pepse.util.StateHasher;
+import pepse.util.jfr.ColumnGeneratedEvent;
+import pepse.util.jfr.NoteTablePersistedEvent;
+import pepse.util.jfr.ObjectsEvictedEvent;
+import pepse.util.jfr.ProjectileRemovedEvent;
+import pepse.util.metrics.GameMetrics;
+import pepse.util.metrics.MetricsServer;
 import pepse.world.*;
 import pepse.world.ui.BoardInfo;
+import pepse.world.ui.DialogOverlay;
+import pepse.world.ui.HudPanel;
+import pepse.world.ui.ProfilerOverlay;
 import pepse.world.ui.deadUI.Kills;
 import pepse.world.ui.energy.Energy;
 import pepse.world.ui.lifeTime.LifeTime;
@@ -22,12 +44,39 @@ import pepse.world.ui.lives.NumericLifeCounter;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
+import pepse.world.bullet.Bullet;
+import pepse.world.bullet.BulletInterface;
+import pepse.world.bullet.BulletPlane;
+import pepse.world.trees.Leaf;
 import pepse.world.trees.Tree;
+import pepse.world.zombies.ZombieAiScheduler;
+import pepse.world.zombies.KillRegistry;
+import pepse.world.zombies.Zombie;
+import pepse.world.zombies.ZombieHorde;
+import pepse.world.zombies.ZombiePool;
 import pepse.world.zombies.Zombies;
 
 import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * This is a Java class called "PepseGameManager" that extends the "GameManager" class. The class has a number of
@@ -40,6 +89,7 @@ import java.util.Map;
 
 public class PepseGameManager extends GameManager {
     private static final String STRING_SEED = "Series";
+    private static final String SEED_TABLE_FILE = "seed.html";
     private static final int HEART_DIMENSIONS = 20;
     private static final float SCALE_TIME_SUN = 30;
     private static final Color SUN_AURA_COLOR = new Color(255, 255, 0, 20);
@@ -60,6 +110,7 @@ public class PepseGameManager extends GameManager {
     private static final int LEAF_LAYER = Layer.STATIC_OBJECTS + 2;
     private static final int ZOMBIES_LAYER = Layer.STATIC_OBJECTS + 3;
     private static final int ZOMBIE_LAYER = Layer.STATIC_OBJECTS + 4;
+    private static final int CORPSE_LAYER = Layer.STATIC_OBJECTS + 5;
     private static final int AVATAR_LAYER = Layer.DEFAULT;
     private static final int BULLET_LAYER = AVATAR_LAYER + 2;
     private static final float FRAME_OUT_WINDOW_INFINITY = 5 * Block.SIZE;
@@ -67,6 +118,65 @@ public class PepseGameManager extends GameManager {
     private static final int NUM_LIVES = 3;
     private static final int MAX_LIFE_TIME = 60;
     private static final int KILLS_LAYER = Layer.UI;
+    private static final int ENERGY_LAYER = Layer.UI;
+    private static final int HUD_PANEL_LAYER = Layer.UI;
+    // When true the HUD is painted by a single HudPanel instead of a game object per element.
+    private static final boolean USE_HUD_PANEL = true;
+    // When true the zombies are simulated by a single ZombieHorde instead of a game object per zombie. Experimental
+    // and off by default: it has not been measured to be faster on the real engine, and the horde is drawn at its
+    // stepped positions rather than interpolated between timesteps like the other game objects.
+    private static final boolean USE_ZOMBIE_HORDE = false;
+    // When true "Play again" restarts the game in place, keeping what it loaded and generated, instead of having the
+    // window initialize a new game.
+    private static final boolean USE_WARM_RESTART = true;
+    private static final int DIALOG_LAYER = Layer.UI + 1; // Above the HUD and the profiler
+    // Number of frames between two decisions of a zombie, and the time all the decisions of a frame may take.
+    private static final int ZOMBIE_AI_BUCKETS = 8;
+    private static final long ZOMBIE_AI_BUDGET_NANOS = 500_000;
+    private static final int MAX_POOLED_ZOMBIES = 64;
+    // The game is simulated in fixed steps of 1/DEFAULT_SIMULATION_HZ seconds unless the system property is set.
+    private static final String SIMULATION_HZ_PROPERTY = "pepse.simulationHz";
+    private static final int DEFAULT_SIMULATION_HZ = 60;
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    private static final int[] INTERPOLATED_LAYERS = {AVATAR_LAYER, ZOMBIE_LAYER, CORPSE_LAYER, BULLET_LAYER,
+            LEAF_LAYER};
+    // Layers whose objects are counted for benchmarks and diagnostics, with their names
+    private static final String[] COUNTED_LAYER_NAMES = {"background", "topTerrain", "terrain", "tree", "leaf",
+            "zombies", "zombie", "corpse", "avatar", "bullet", "foreground", "ui"};
+    private static final int[] COUNTED_LAYERS = {Layer.BACKGROUND, TOP_TERRAIN_BLOCKS_LAYER, TERRAIN_LAYER,
+            TREE_LAYER, LEAF_LAYER, ZOMBIES_LAYER, ZOMBIE_LAYER, CORPSE_LAYER, AVATAR_LAYER, BULLET_LAYER,
+            NIGHT_LAYER, Layer.UI};
+    // Key that shows and hides the profiler overlay, and the number of frames the profiler keeps.
+    private static final int PROFILER_KEY = KeyEvent.VK_F3;
+    private static final int PROFILER_FRAMES = 240;
+    // When the property is true the profiler times every frame, so the records of the spikes hold their phases.
+    private static final String PROFILE_PROPERTY = "pepse.profile";
+    // A frame SPIKE_FACTOR times longer than the median, and longer than SPIKE_MIN_MILLIS, is recorded to the file
+    // of the property, at most once every SPIKE_INTERVAL_MILLIS.
+    private static final String SPIKE_LOG_PROPERTY = "pepse.spikeLog";
+    private static final String DEFAULT_SPIKE_LOG = "frame-spikes.jsonl";
+    private static final double SPIKE_FACTOR = 3;
+    private static final long SPIKE_MIN_MILLIS = 10;
+    private static final long SPIKE_INTERVAL_MILLIS = 5000;
+    // When the property is set the metrics are served on that port of the loopback interface, and the counts of
+    // the world are sampled every METRICS_SAMPLE_FRAMES frames.
+    private static final String METRICS_PORT_PROPERTY = "pepse.metricsPort";
+    private static final int METRICS_SAMPLE_FRAMES = 60;
+    // When a property is set the input of the game is recorded to its file, or replayed from it.
+    private static final String RECORD_PROPERTY = "pepse.record";
+    private static final String REPLAY_PROPERTY = "pepse.replay";
+    // Keys that save the game to the file of the property and load it back.
+    private static final int QUICK_SAVE_KEY = KeyEvent.VK_F5;
+    private static final int QUICK_LOAD_KEY = KeyEvent.VK_F9;
+    private static final String QUICK_SAVE_PROPERTY = "pepse.quickSave";
+    private static final String DEFAULT_QUICK_SAVE = "quicksave.bin";
+    private static final int STATS_SNAPSHOT_BYTES = 4 * Integer.BYTES + Float.BYTES; // Stats and timer in a save
+    // Key that rewinds the game up to REWIND_SECONDS seconds back, to a state of the ring recorded every step.
+    private static final int REWIND_KEY = KeyEvent.VK_R;
+    private static final int REWIND_SECONDS = 10;
+    private static final int REWIND_KEYFRAME_STEPS = 30; // Maximal number of steps between two keyframes
+    private static final byte PROJECTILE_BULLET = 0; // Kind of a Bullet in a snapshot
+    private static final byte PROJECTILE_PLANE = 1; // Kind of a BulletPlane in a snapshot
     private Vector2 windowDimensions;
     private GameObject skyObject;
     private GameObject nightObject;
@@ -76,22 +186,68 @@ public class PepseGameManager extends GameManager {
     private Tree treeObject;
     private GameObject avatarObject;
     private ImageReader imageReader;
-    private UserInputListener inputListener;
+    private UserInputListener inputListener; // Keys of the game, replayed from the input session when replaying
+    private UserInputListener keyboard; // Keys of the window
     private WindowController windowController;
     private Vector2 initialAvatarLocation;
     private float minCurrWindow;
     private float maxCurrWindow;
     private Zombies zombiesObject;
-    private Counter livesCounter;
+    private TerrainHeightfield heightfield;
+    private ZombieHorde zombieHorde;
+    private ZombieAiScheduler zombieAi;
+    private ZombiePool zombiePool;
+    private KillRegistry killRegistry;
+    private CollisionPolicy collisionPolicy;
+    private GameStateBus gameState;
+    private int simulationHz; // Steps of the simulation per second
+    private FixedTimestep simulationTimestep;
+    private RenderInterpolator renderInterpolator;
+    private FrameProfiler profiler;
+    private ProfilerOverlay profilerOverlay;
+    private boolean profilerKeyWasPressed; // Whether the key of the profiler was held in the last frame
+    private boolean profileAlways; // Whether the profiler times the frames while the overlay is hidden
+    private boolean profilerOverlayShown; // Whether the profiler overlay is in the game
+    private FrameSpikeWatchdog spikeWatchdog;
+    private GameMetrics metrics; // Metrics of the game, kept across the restarts
+    private MetricsServer metricsServer; // Exporter of the metrics, null unless its port is set
+    private int framesSinceMetricsSample;
+    private InputSession inputSession; // Source of the input, kept across the restarts
+    private boolean inputSessionBegun; // Whether the random streams of the session were installed
+    private QuickSave quickSave; // Buffer of the quick-save, kept across the restarts
+    private boolean quickSaveKeyWasPressed; // Whether the key of the quick-save was held in the last frame
+    private boolean quickLoadKeyWasPressed; // Whether the key of the quick-load was held in the last frame
+    private RewindBuffer rewindBuffer; // States of the last steps, kept across the restarts
+    private boolean rewindKeyWasPressed; // Whether the key of the rewind was held in the last frame
+    private GameObject lifeTimerOwner; // Object the timer of the game is attached to
+    private Transition<Float> lifeTimer; // Timer of the game
+    private float lifeTimeElapsed; // Seconds of the game the timer counted
+    private String endGamePrompt;
+    private DialogOverlay dialogOverlay; // Dialogs of the game, drawn over the world
+    private boolean askingPlayAgain; // Whether the dialog asks the player to play again
+    private int dialogsOpened; // Number of dialogs the game asked, across the restarts
     private GraphicLifeCounter graphicLifeCounter;
     private NumericLifeCounter numericLifeCounter;
-    private Counter lifeTimeCounter;
-    private Counter killsCounter;
     private int MAX_KILLS = 10;
     private Map<String, ArrayList<String>> dataTable;
     private ArrayList<String> seedArray;
     private String strSeed;
+    private final WorldSettings worldSettings; // Densities of the generated world
 
+    /**
+     * Constructs the game with the default densities of the world.
+     */
+    public PepseGameManager() {
+        this(WorldSettings.DEFAULT);
+    }
+
+    /**
+     * Constructs the game with the given densities of the world, for benchmarks that scale the world.
+     * @param worldSettings the densities of the world.
+     */
+    public PepseGameManager(WorldSettings worldSettings) {
+        this.worldSettings = worldSettings;
+    }
 
     /**
      * Main static void that runs the program.
@@ -119,28 +275,35 @@ public class PepseGameManager extends GameManager {
                                UserInputListener inputListener,
                                WindowController windowController) {
         this.imageReader = imageReader;
-        this.inputListener = inputListener;
         this.windowController = windowController;
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        initializeInputSession(inputListener);
         windowDimensions = windowController.getWindowDimensions();
         minCurrWindow = 0 - FRAME_OUT_WINDOW_INFINITY;
         maxCurrWindow = windowDimensions.x() + FRAME_OUT_WINDOW_INFINITY;
-        livesCounter = new Counter(NUM_LIVES);
+        initializeSimulationLoop();
+        initializeProfiler();
+        initializeMetrics();
+        initializeQuickSave();
+        initializeRewind();
+        initializeGameState();
         initializeSeedTable();
+        initializeKillRegistry();
+        beginInputSession();
+        initializeCollisionPolicy();
+        initializeDialogOverlay();
         initializeSky();
         initializeSun();
         initializeSunAura();
         initializeTerrain((int) minCurrWindow, (int) maxCurrWindow);
+        initializeHeightfield();
         initializeTrees((int) minCurrWindow, (int) maxCurrWindow);
-        initializeBoardInfo();
-        initializeLifeTime();
-        initializeKills();
+        initializeHud();
+        initializeZombieAi();
         initializeZombies((int) minCurrWindow, (int) maxCurrWindow);
         initializeAvatar();
         initializeNight();
         initializeInfiniteWorld();
-        initializeNumericLifeCounter();
-        initializeHearts();
     }
 
     /**
@@ -151,7 +314,19 @@ public class PepseGameManager extends GameManager {
     private void initializeSeedTable() {
         int hash = STRING_SEED.hashCode();
         seed = Math.abs(hash) % MAXIMUM_SEED + 1;
-        dataTable = HtmlTableGenerator.readTable("seed.html");
+        if(inputSession.isDeterministic() && seedArray != null) {
+            // The notes of a recorded session are kept in memory across its games, as the replay can't read them
+            return;
+        }
+        if(inputSession.isReplaying()) {
+            SessionHeader header = inputSession.replayedHeader();
+            seed = header.worldSeed();
+            seedArray = new ArrayList<>(header.notes());
+            dataTable = new HashMap<>();
+            dataTable.put(STRING_SEED, seedArray);
+            return;
+        }
+        dataTable = HtmlTableGenerator.readTable(SEED_TABLE_FILE);
         seedArray = dataTable.get(STRING_SEED);
         if(seedArray == null) {
             seedArray = new ArrayList<String>();
@@ -160,11 +335,35 @@ public class PepseGameManager extends GameManager {
     }
 
 
+    /**
+     * Starts the game with an empty kill registry, or, in the first game of a replay, with the registry the recorded
+     * session started with.
+     */
+    private void initializeKillRegistry() {
+        if(inputSession.isReplaying() && !inputSessionBegun) {
+            killRegistry = inputSession.replayedHeader().killRegistry();
+            return;
+        }
+        killRegistry = new KillRegistry();
+    }
+
     /**
      * Updates the modified data in the seed table by generating a new "seed.html" file.
      */
     private void updateSeedTable() {
-        HtmlTableGenerator.generateTable(dataTable, "seed.html");
+        if(inputSession.isReplaying()) return;
+        NoteTablePersistedEvent event = new NoteTablePersistedEvent();
+        event.begin();
+        long start = System.nanoTime();
+        HtmlTableGenerator.generateTable(dataTable, SEED_TABLE_FILE);
+        metrics.noteTableWritten(System.nanoTime() - start);
+        event.end();
+        if(event.shouldCommit()) {
+            event.file = SEED_TABLE_FILE;
+            event.rows = seedArray.size();
+            event.bytes = new File(SEED_TABLE_FILE).length();
+            event.commit();
+        }
     }
 
     /**
@@ -175,123 +374,953 @@ public class PepseGameManager extends GameManager {
     }
 
     /**
-     * Initializes the kills counter and creates a new Kills object, adding it to the gameObjects list.
+     * Creates a new Kills object, adding it to the gameObjects list.
      */
     private void initializeKills() {
-        killsCounter = new Counter(0);
-        Kills.create(gameObjects(), imageReader, KILLS_LAYER, killsCounter, MAX_KILLS);
+        Kills.create(gameObjects(), imageReader, KILLS_LAYER, gameState.kills(), MAX_KILLS);
+    }
+
+    /**
+     * Creates the HUD: a single HudPanel when USE_HUD_PANEL is on, otherwise a game object per board, label, bar,
+     * heart and text. Then starts the timer of the game on the HUD.
+     */
+    private void initializeHud() {
+        GameObject timerOwner;
+        if(USE_HUD_PANEL) {
+            timerOwner = HudPanel.create(gameObjects(), imageReader, HUD_PANEL_LAYER, gameState, MAX_ENERGY,
+                    MAX_LIFE_TIME, MAX_KILLS);
+        }
+        else {
+            initializeBoardInfo();
+            timerOwner = initializeLifeTime();
+            initializeKills();
+            initializeEnergy();
+            initializeNumericLifeCounter();
+            initializeHearts();
+        }
+        startLifeTimeTimer(timerOwner, 0);
+    }
+
+    /**
+     * Creates a new Energy object that shows the energy of the avatar, adding it to the gameObjects list.
+     */
+    private void initializeEnergy() {
+        Energy.create(gameObjects(), imageReader, ENERGY_LAYER, gameState.energy(), MAX_ENERGY);
     }
 
     /**
-     * Initializes the life time counter and creates a new LifeTime object, adding it to the gameObjects list.
-     * Then, creates a transition that decrements the life time counter every second until it reaches zero.
+     * Creates a new LifeTime object, adding it to the gameObjects list.
+     * @return the LifeTime object.
      */
-    private void initializeLifeTime() {
-        lifeTimeCounter = new Counter(MAX_LIFE_TIME);
-        GameObject lifeTime = LifeTime.create(gameObjects(),
+    private GameObject initializeLifeTime() {
+        return LifeTime.create(gameObjects(),
                 imageReader,
                 LIFE_TIME_LAYER,
-                lifeTimeCounter,
+                gameState.lifeTime(),
                 MAX_LIFE_TIME);
+    }
+
+    /**
+     * Creates a transition that decrements the life time counter every second until it reaches zero.
+     * @param owner the game object the transition is attached to.
+     * @param elapsed the seconds of the game already counted, 0 unless a save is loaded.
+     */
+    private void startLifeTimeTimer(GameObject owner, float elapsed) {
+        lifeTimerOwner = owner;
+        lifeTimeElapsed = elapsed;
         // Simulates a timer of TIME_LIFE_GAME seconds.
-        new Transition<>(lifeTime,
+        lifeTimer = new Transition<>(owner,
                 (t) -> {
-                if(TIME_LIFE_GAME - Math.ceil(t) < lifeTimeCounter.value()) {lifeTimeCounter.decrement();}
+                lifeTimeElapsed = t;
+                if(TIME_LIFE_GAME - Math.ceil(t) < gameState.lifeTime().value()) {gameState.lifeTime().decrement();}
                 },
-                0f,
+                elapsed,
                 TIME_LIFE_GAME,
                 Transition.LINEAR_INTERPOLATOR_FLOAT,
-                TIME_LIFE_GAME,
+                TIME_LIFE_GAME - elapsed,
                 Transition.TransitionType.TRANSITION_ONCE,
                 null);
     }
 
     /**
-     * Set the collisions according to respective layers
+     * Declares the pairs of layers that collide, each gated by the layers that must hold objects first. A pair stays
+     * on once it was turned on, like the matrix of the engine did before the policy.
+     */
+    private void initializeCollisionPolicy() {
+        collisionPolicy = new CollisionPolicy(gameObjects());
+        collisionPolicy.declareSticky(LEAF_LAYER, TOP_TERRAIN_BLOCKS_LAYER, LEAF_LAYER);
+        collisionPolicy.declareSticky(ZOMBIE_LAYER, TOP_TERRAIN_BLOCKS_LAYER, ZOMBIE_LAYER);
+        collisionPolicy.declareSticky(ZOMBIE_LAYER, AVATAR_LAYER, ZOMBIE_LAYER);
+        collisionPolicy.declareSticky(ZOMBIE_LAYER, BULLET_LAYER, ZOMBIE_LAYER, BULLET_LAYER);
+        // Gated on the bullets only: with the horde the zombies live in ZOMBIES_LAYER and ZOMBIE_LAYER stays empty
+        collisionPolicy.declareSticky(TOP_TERRAIN_BLOCKS_LAYER, BULLET_LAYER, BULLET_LAYER);
+        collisionPolicy.declareSticky(TREE_LAYER, BULLET_LAYER, BULLET_LAYER);
+        collisionPolicy.declareSticky(AVATAR_LAYER, TREE_LAYER, AVATAR_LAYER, TREE_LAYER);
+        collisionPolicy.declareSticky(AVATAR_LAYER, TOP_TERRAIN_BLOCKS_LAYER, AVATAR_LAYER);
+    }
+
+    /**
+     * Set the collisions according to respective layers. The policy only calls the engine when a pair changes.
      */
     private void handleCollisions() {
-        if(!gameObjects().isLayerEmpty(LEAF_LAYER)) {
-            gameObjects().layers().shouldLayersCollide(LEAF_LAYER, TOP_TERRAIN_BLOCKS_LAYER, true);
-        }
-        if(!gameObjects().isLayerEmpty(ZOMBIE_LAYER)) {
-            gameObjects().layers().shouldLayersCollide(ZOMBIE_LAYER, TOP_TERRAIN_BLOCKS_LAYER, true);
-            gameObjects().layers().shouldLayersCollide(ZOMBIE_LAYER, AVATAR_LAYER, true);
-            if(!gameObjects().isLayerEmpty(BULLET_LAYER)) {
-                gameObjects().layers().shouldLayersCollide(ZOMBIE_LAYER, BULLET_LAYER, true);
-                gameObjects().layers().shouldLayersCollide(TOP_TERRAIN_BLOCKS_LAYER, BULLET_LAYER, true);
-                gameObjects().layers().shouldLayersCollide(TREE_LAYER, BULLET_LAYER, true);
-            }
-        }
-        if(!gameObjects().isLayerEmpty(AVATAR_LAYER)) {
-            if(!gameObjects().isLayerEmpty(TREE_LAYER)) {
-                gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, TREE_LAYER, true);
-            }
-            gameObjects().layers().shouldLayersCollide(AVATAR_LAYER, TOP_TERRAIN_BLOCKS_LAYER, true);
-        }
+        collisionPolicy.update();
+    }
+
+    /**
+     * @return the collision policy, whose toString shows the pairs of layers the engine tests.
+     */
+    public CollisionPolicy collisionPolicy() {
+        return collisionPolicy;
     }
 
     /**
      * Responsible for initializing the zombies.
      */
     private void initializeZombies(int min, int max) {
-        zombiesObject = new Zombies(gameObjects(), ZOMBIES_LAYER, terrainObject::groundHeightAt, seed,
-                imageReader, livesCounter, killsCounter);
+        createZombiesGenerator();
         zombiesObject.createInRange(min, max);
     }
 
+    /**
+     * Creates the generator of the zombies, and the horde the first time when USE_ZOMBIE_HORDE is on.
+     */
+    private void createZombiesGenerator() {
+        if(USE_ZOMBIE_HORDE) {
+            if(zombieHorde == null) {
+                zombieHorde = ZombieHorde.create(heightfield,
+                        () -> gameObjects().objectsInLayer(BULLET_LAYER),
+                        imageReader,
+                        gameState.lives(),
+                        gameState.kills(),
+                        zombieAi,
+                        killRegistry);
+                gameObjects().addGameObject(zombieHorde, ZOMBIES_LAYER);
+            }
+            zombiesObject = new Zombies(zombieHorde, terrainObject::groundHeightAt, seed, killRegistry,
+                    worldSettings);
+            return;
+        }
+        zombiesObject = new Zombies(gameObjects(), ZOMBIES_LAYER, terrainObject::groundHeightAt, seed,
+                imageReader, gameState.lives(), gameState.kills(), heightfield, zombieAi, zombiePool, CORPSE_LAYER,
+                killRegistry, worldSettings);
+    }
+
+    /**
+     * Initializes the scheduler that spreads the decisions of the zombies over the frames, and the pool that
+     * recycles the zombies that left the world. The horde of the last game is dropped, since it holds the stats
+     * and the scheduler of that game, and the objects of a new game don't hold it.
+     */
+    private void initializeZombieAi() {
+        zombieHorde = null;
+        // The budget depends on the speed of the machine, a recorded session decides every due zombie
+        zombieAi = new ZombieAiScheduler(ZOMBIE_AI_BUCKETS,
+                inputSession.isDeterministic() ? Long.MAX_VALUE : ZOMBIE_AI_BUDGET_NANOS);
+        zombiePool = new ZombiePool(MAX_POOLED_ZOMBIES);
+    }
+
     private void initializeInfiniteWorld() {
 //        Vector2 deltaRelativeToObject = windowDimensions.mult(0.5f).add(initialAvatarLocation.mult(-1));
-        setCamera(new Camera(avatarObject, Vector2.ZERO, windowDimensions, windowDimensions));
+        Camera camera = new Camera(avatarObject, Vector2.ZERO, windowDimensions, windowDimensions);
+        setCamera(camera);
+        if(zombieHorde != null) {
+            zombieHorde.setCamera(camera);
+        }
     }
 
     @Override
     public void update(float deltaTime) {
-        super.update(deltaTime);
-        handleInfiniteWorld();
-        handleCollisions();
+        deltaTime = inputSession.beginFrame(deltaTime, keyboard);
+        if(inputSession.isFinished()) {
+            endReplay();
+            return;
+        }
+        profiler.beginFrame();
+        handleProfilerKey();
+        long start = profiler.start();
+        renderInterpolator.restore();
+        profiler.stop(FrameProfiler.Phase.INTERPOLATION, start);
+        // The state of the dialogs goes through the session, a replay doesn't open the dialogs opened by the mouse
+        if(!inputSession.dialogOpen(dialogOverlay.isOpen())) {
+            handleQuickSaveKeys();
+            handleRewindKey();
+        }
+        dialogOverlay.handleKeys(keyboard, deltaTime);
+        // While a dialog pauses the world its frames are not simulated, so the world resumes without a jump
+        boolean paused = inputSession.worldPaused(dialogOverlay.pausesWorld());
+        int steps = simulationTimestep.advance(paused ? 0 : deltaTime);
+        for(int step = 0; step < steps; step++) {
+            start = profiler.start();
+            renderInterpolator.capture(gameObjects()::objectsInLayer);
+            profiler.stop(FrameProfiler.Phase.INTERPOLATION, start);
+            simulate(simulationTimestep.step());
+        }
+        start = profiler.start();
+        renderInterpolator.apply(gameObjects()::objectsInLayer, simulationTimestep.alpha());
+        if(camera() != null) {
+            // The camera follows the interpolated avatar, which moves even on the frames that simulate no step
+            camera().update(0);
+        }
+        profiler.stop(FrameProfiler.Phase.INTERPOLATION, start);
         checkEndGame();
+        profiler.endFrame();
+        spikeWatchdog.endFrame();
+        metrics.endFrame();
+        if(metricsServer != null && ++framesSinceMetricsSample >= METRICS_SAMPLE_FRAMES) {
+            framesSinceMetricsSample = 0;
+            sampleMetrics();
+        }
+        inputSession.endFrame(this::stateChecksum);
     }
 
-    private void checkEndGame() {
-        String prompt = "";
-        if(killsCounter.value() >= MAX_KILLS) {
-            prompt = "You win!";
+    /**
+     * Creates the input session once, from the record and replay properties, and wraps the keyboard with it.
+     * @param keyboard the input listener of the window.
+     */
+    private void initializeInputSession(UserInputListener keyboard) {
+        this.keyboard = keyboard;
+        if(inputSession == null) {
+            inputSession = InputSession.live();
+            try {
+                String replayFile = System.getProperty(REPLAY_PROPERTY);
+                String recordFile = System.getProperty(RECORD_PROPERTY);
+                if(replayFile != null) {
+                    inputSession = InputSession.replay(replayFile);
+                }
+                else if(recordFile != null) {
+                    inputSession = InputSession.record(recordFile);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        inputListener = inputSession.listener(keyboard);
+    }
+
+    /**
+     * Installs the random streams of the gameplay, once per session: from a new seed, written to the header of a
+     * recorded session, or from the seed of the header of a replayed one. The world has its own streams, derived
+     * from the seed of the world.
+     */
+    private void beginInputSession() {
+        if(inputSessionBegun) return;
+        inputSessionBegun = true;
+        long randomSeed;
+        if(inputSession.isReplaying()) {
+            SessionHeader header = inputSession.replayedHeader();
+            randomSeed = header.randomSeed();
+            if(header.windowWidth() != windowDimensions.x() || header.windowHeight() != windowDimensions.y()) {
+                System.err.printf("Replaying a session recorded in a %.0fx%.0f window in a %.0fx%.0f window, " +
+                        "the replay will diverge%n", header.windowWidth(), header.windowHeight(),
+                        windowDimensions.x(), windowDimensions.y());
+            }
         }
-        if (livesCounter.value() <= 0 || lifeTimeCounter.value() <= 0) {
-            prompt = "You Lose!";
+        else {
+            randomSeed = new Random().nextLong();
+            inputSession.begin(new SessionHeader(seed, simulationHz, windowDimensions.x(),
+                    windowDimensions.y(), randomSeed, seedArray, killRegistry));
         }
-        if(!prompt.isEmpty()) {
-            prompt += " Play again?";
-            if(windowController.openYesNoDialog(prompt)) {
-                windowController.resetGame();
+        RandomStreams.install(new RandomStreams(randomSeed));
+    }
+
+    /**
+     * Ends a replay that reached the end of its log: prints whether the state of the game matched the recorded
+     * one and closes the window.
+     */
+    private void endReplay() {
+        System.out.printf("Replayed %d frames: %d checksums verified, %d mismatches", inputSession.frames() - 1,
+                inputSession.checksumsVerified(), inputSession.mismatches());
+        if(inputSession.mismatches() > 0) {
+            System.out.printf(", first at frame %d", inputSession.firstMismatchFrame());
+        }
+        System.out.println();
+        inputSession.close();
+        windowController.closeWindow();
+    }
+
+    /**
+     * Hashes the state of the game: the position and velocity of the objects of the world, the stats and the
+     * horde, so a replay can be compared with its recording.
+     * @return the hash of the state.
+     */
+    public long stateChecksum() {
+        StateHasher hasher = new StateHasher();
+        for(int layer : COUNTED_LAYERS) {
+            if(layer == Layer.UI) continue;
+            for(GameObject obj : gameObjects().objectsInLayer(layer)) {
+                hasher.add(obj.getTopLeftCorner().x()).add(obj.getTopLeftCorner().y());
+                hasher.add(obj.getVelocity().x()).add(obj.getVelocity().y());
+            }
+        }
+        hasher.add(gameState.lives().value()).add(gameState.kills().value());
+        hasher.add(gameState.energy().value()).add(gameState.lifeTime().value());
+        if(zombieHorde != null) {
+            zombieHorde.hashState(hasher);
+        }
+        return hasher.value();
+    }
+
+    /**
+     * Creates the buffer of the quick-save, once, so its memory is reused by the saves of every game.
+     */
+    private void initializeQuickSave() {
+        if(quickSave == null) {
+            quickSave = new QuickSave();
+        }
+        quickSaveKeyWasPressed = false;
+        quickLoadKeyWasPressed = false;
+    }
+
+    /**
+     * Saves the game when the key of the quick-save is pressed, and loads it back when the key of the quick-load is
+     * pressed. Runs before the steps of the frame, when the objects are at their simulated positions.
+     */
+    private void handleQuickSaveKeys() {
+        boolean savePressed = inputListener.isKeyPressed(QUICK_SAVE_KEY);
+        boolean loadPressed = inputListener.isKeyPressed(QUICK_LOAD_KEY);
+        if(savePressed && !quickSaveKeyWasPressed) {
+            quickSave();
+        }
+        else if(loadPressed && !quickLoadKeyWasPressed) {
+            quickLoad();
+        }
+        quickSaveKeyWasPressed = savePressed;
+        quickLoadKeyWasPressed = loadPressed;
+    }
+
+    /**
+     * Saves a snapshot of the game to the file of the quick-save: the avatar, the stats and the timer, the zombies
+     * the leaves and the kill registry. The terrain and the trees are not saved, a quick-load generates them again
+     * from the seed.
+     * While replaying, the snapshot is only kept in memory, so a replay never overwrites the save of the player.
+     * @return the size of the snapshot, in bytes, or -1 if it couldn't be written.
+     */
+    public int quickSave() {
+        quickSave.begin(seed, minCurrWindow, maxCurrWindow, zombieHorde != null ? QuickSave.FLAG_HORDE : 0);
+        writeKillRegistry(quickSave);
+        writePlayerState(quickSave);
+        writeZombies(quickSave);
+        ByteBuffer out = quickSave.reserve(Integer.BYTES);
+        int countPosition = out.position();
+        out.putInt(0);
+        int leaves = 0;
+        for(GameObject obj : gameObjects().objectsInLayer(LEAF_LAYER)) {
+            out = quickSave.reserve(Leaf.SNAPSHOT_BYTES);
+            ((Leaf) obj).writeTo(out);
+            leaves++;
+        }
+        out.putInt(countPosition, leaves);
+        int bytes = quickSave.end();
+        if(!inputSession.isReplaying()) {
+            try {
+                quickSave.writeTo(Paths.get(System.getProperty(QUICK_SAVE_PROPERTY, DEFAULT_QUICK_SAVE)));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return -1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Loads the quick-save: removes the world, generates the terrain and the trees of the saved range again from
+     * the seed, and restores the saved avatar, stats, timer, zombies, leaves and kill registry on it, so the zombies
+     * killed since the save come back. A save of another world or kind of zombies, or one whose sections are
+     * damaged, is refused before anything is removed.
+     * @return whether the save was loaded.
+     */
+    public boolean quickLoad() {
+        ByteBuffer in;
+        try {
+            in = inputSession.isReplaying() ? quickSave.reread() :
+                    quickSave.readFrom(Paths.get(System.getProperty(QUICK_SAVE_PROPERTY, DEFAULT_QUICK_SAVE)));
+        } catch (IOException e) {
+            System.err.println("Can't quick-load: " + e.getMessage());
+            return false;
+        }
+        if(quickSave.seed() != seed) {
+            System.err.printf("Can't quick-load the world of seed %d in the world of seed %d%n", quickSave.seed(),
+                    seed);
+            return false;
+        }
+        if(((quickSave.flags() & QuickSave.FLAG_HORDE) != 0) != (zombieHorde != null)) {
+            System.err.println("Can't quick-load a save of the other kind of zombies");
+            return false;
+        }
+        if(!hasWholeSections(in.duplicate())) {
+            System.err.println("Can't quick-load: the sections of the save are damaged");
+            return false;
+        }
+        KillRegistry savedKills;
+        try {
+            savedKills = readKillRegistry(in);
+        } catch (IOException e) {
+            System.err.println("Can't quick-load the kill registry: " + e.getMessage());
+            return false;
+        }
+        // The engine may remove the objects at the end of the frame, so the old leaves are told apart by identity
+        Set<GameObject> oldLeaves = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(GameObject obj : gameObjects().objectsInLayer(LEAF_LAYER)) {
+            oldLeaves.add(obj);
+        }
+        removeActors();
+        removeTerrainAndTrees();
+        killRegistry.replaceWith(savedKills);
+        regenerateWorld(quickSave.minX(), quickSave.maxX());
+        readPlayerState(in);
+        readZombies(in);
+        Map<Long, Leaf> leaves = new HashMap<>();
+        for(GameObject obj : gameObjects().objectsInLayer(LEAF_LAYER)) {
+            if(!oldLeaves.contains(obj)) {
+                leaves.put(((Leaf) obj).positionKey(), (Leaf) obj);
+            }
+        }
+        int savedLeaves = in.getInt();
+        for(int i = 0; i < savedLeaves; i++) {
+            Leaf.restore(in, leaves);
+        }
+        rewindBuffer.clear();
+        afterWorldRestored();
+        return true;
+    }
+
+    /**
+     * Walks the sections of a quick-save without restoring them, so a save that would run out of bytes in the
+     * middle of a quick-load is refused before the world is removed.
+     * @param in the sections of the save, which are read.
+     * @return whether every section has all its bytes and nothing follows the last one.
+     */
+    private static boolean hasWholeSections(ByteBuffer in) {
+        try {
+            skip(in, in.getInt()); // Kill registry
+            skip(in, Avatar.SNAPSHOT_BYTES + STATS_SNAPSHOT_BYTES);
+            skip(in, (long) in.getInt() * ZombieHorde.SNAPSHOT_BYTES);
+            skip(in, (long) in.getInt() * Leaf.SNAPSHOT_BYTES);
+            return !in.hasRemaining();
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Moves a buffer forward over a number of bytes.
+     * @throws BufferUnderflowException if the buffer has fewer bytes remaining, or the number is negative.
+     */
+    private static void skip(ByteBuffer in, long bytes) {
+        if(bytes < 0 || bytes > in.remaining()) throw new BufferUnderflowException();
+        in.position(in.position() + (int) bytes);
+    }
+
+    /**
+     * Creates the ring of the states of the last REWIND_SECONDS seconds, again only if the rate of the simulation
+     * changed, and forgets the states of the last game.
+     */
+    private void initializeRewind() {
+        if(rewindBuffer == null || rewindBuffer.window() != REWIND_SECONDS * simulationHz) {
+            rewindBuffer = new RewindBuffer(REWIND_SECONDS * simulationHz, REWIND_KEYFRAME_STEPS);
+        }
+        rewindBuffer.clear();
+        rewindKeyWasPressed = false;
+    }
+
+    /**
+     * Rewinds the game when the key of the rewind is pressed.
+     */
+    private void handleRewindKey() {
+        boolean pressed = inputListener.isKeyPressed(REWIND_KEY);
+        if(pressed && !rewindKeyWasPressed) {
+            rewind();
+        }
+        rewindKeyWasPressed = pressed;
+    }
+
+    /**
+     * Records the state of the step in the rewind buffer: the range of the world, the avatar, the stats, the
+     * zombies and the projectiles. The leaves are left out, they only fall and fade.
+     */
+    private void recordRewindStep() {
+        long start = profiler.start();
+        rewindBuffer.begin().putFloat(minCurrWindow).putFloat(maxCurrWindow);
+        writePlayerState(rewindBuffer);
+        writeZombies(rewindBuffer);
+        writeProjectiles(rewindBuffer);
+        rewindBuffer.end();
+        profiler.stop(FrameProfiler.Phase.REWIND, start);
+    }
+
+    /**
+     * Rewinds the game to the oldest state of the rewind buffer, up to REWIND_SECONDS seconds back, and empties the
+     * buffer, so the next rewind only goes back to the states recorded after this one. The terrain and the trees are
+     * only generated again if the world streamed since that state.
+     * @return whether the game was rewound, false if no state was recorded yet.
+     */
+    public boolean rewind() {
+        int steps = rewindBuffer.size();
+        if(steps == 0) return false;
+        ByteBuffer in = rewindBuffer.restore(steps - 1);
+        float min = in.getFloat();
+        float max = in.getFloat();
+        removeActors();
+        if(min != minCurrWindow || max != maxCurrWindow) {
+            removeTerrainAndTrees();
+            regenerateWorld(min, max);
+        }
+        readPlayerState(in);
+        readZombies(in);
+        readProjectiles(in);
+        rewindBuffer.clear();
+        afterWorldRestored();
+        return true;
+    }
+
+    /**
+     * Writes the kill registry to a snapshot, after its length in bytes.
+     */
+    private void writeKillRegistry(SnapshotWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            killRegistry.writeTo(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory doesn't fail
+        }
+        writer.reserve(Integer.BYTES + bytes.size()).putInt(bytes.size()).put(bytes.toByteArray());
+    }
+
+    /**
+     * Reads a kill registry written by writeKillRegistry.
+     * @throws IOException if the section isn't a kill registry.
+     */
+    private static KillRegistry readKillRegistry(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if(length < 0 || length > in.remaining()) throw new IOException("Kill registry truncated");
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return KillRegistry.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Writes the avatar, the stats and the seconds the timer of the game counted to a snapshot.
+     */
+    private void writePlayerState(SnapshotWriter writer) {
+        ByteBuffer out = writer.reserve(Avatar.SNAPSHOT_BYTES + STATS_SNAPSHOT_BYTES);
+        ((Avatar) avatarObject).writeTo(out);
+        out.putInt(gameState.lives().value()).putInt(gameState.kills().value());
+        out.putInt(gameState.energy().value()).putInt(gameState.lifeTime().value()).putFloat(lifeTimeElapsed);
+    }
+
+    /**
+     * Restores the avatar, the stats and the timer written by writePlayerState.
+     */
+    private void readPlayerState(ByteBuffer in) {
+        ((Avatar) avatarObject).readFrom(in);
+        gameState.lives().set(in.getInt());
+        gameState.kills().set(in.getInt());
+        gameState.energy().set(in.getInt());
+        gameState.lifeTime().set(in.getInt());
+        lifeTimerOwner.removeComponent(lifeTimer);
+        startLifeTimeTimer(lifeTimerOwner, in.getFloat());
+    }
+
+    /**
+     * Writes the zombies to a snapshot: the horde, or every living zombie object. The corpses are not written, they
+     * would only fade out.
+     */
+    private void writeZombies(SnapshotWriter writer) {
+        if(zombieHorde != null) {
+            zombieHorde.writeTo(writer.reserve(Integer.BYTES + zombieHorde.size() * ZombieHorde.SNAPSHOT_BYTES));
+            return;
+        }
+        ByteBuffer out = writer.reserve(Integer.BYTES);
+        int countPosition = out.position();
+        out.putInt(0);
+        int zombies = 0;
+        for(GameObject obj : gameObjects().objectsInLayer(ZOMBIE_LAYER)) {
+            out = writer.reserve(ZombieHorde.SNAPSHOT_BYTES);
+            ((Zombie) obj).writeTo(out);
+            zombies++;
+        }
+        out.putInt(countPosition, zombies);
+    }
+
+    /**
+     * Restores the zombies written by writeZombies, once the zombies of the game were removed.
+     */
+    private void readZombies(ByteBuffer in) {
+        if(zombieHorde != null) {
+            zombieHorde.readFrom(in);
+            return;
+        }
+        int zombies = in.getInt();
+        for(int i = 0; i < zombies; i++) {
+            zombiesObject.restore(in);
+        }
+    }
+
+    /**
+     * Writes the bullets and the bullet planes to a snapshot, each after a byte of its kind. The explosions are not
+     * written.
+     */
+    private void writeProjectiles(SnapshotWriter writer) {
+        ByteBuffer out = writer.reserve(Integer.BYTES);
+        int countPosition = out.position();
+        out.putInt(0);
+        int projectiles = 0;
+        for(GameObject obj : gameObjects().objectsInLayer(BULLET_LAYER)) {
+            if(obj instanceof Bullet) {
+                out = writer.reserve(1 + Bullet.SNAPSHOT_BYTES);
+                out.put(PROJECTILE_BULLET);
+                ((Bullet) obj).writeTo(out);
+                projectiles++;
+            }
+            else if(obj instanceof BulletPlane) {
+                out = writer.reserve(1 + BulletPlane.SNAPSHOT_BYTES);
+                out.put(PROJECTILE_PLANE);
+                ((BulletPlane) obj).writeTo(out);
+                projectiles++;
+            }
+        }
+        out.putInt(countPosition, projectiles);
+    }
+
+    /**
+     * Restores the projectiles written by writeProjectiles, once the projectiles of the game were removed.
+     */
+    private void readProjectiles(ByteBuffer in) {
+        int projectiles = in.getInt();
+        for(int i = 0; i < projectiles; i++) {
+            if(in.get() == PROJECTILE_BULLET) {
+                Bullet.restore(gameObjects(), BULLET_LAYER, imageReader, in);
             }
             else {
+                BulletPlane.restore(gameObjects(), BULLET_LAYER, imageReader, in);
+            }
+        }
+    }
+
+    /**
+     * Removes the terrain, the trees and the leaves.
+     */
+    private void removeTerrainAndTrees() {
+        for(int layer : new int[]{TERRAIN_LAYER, TOP_TERRAIN_BLOCKS_LAYER, TREE_LAYER, LEAF_LAYER}) {
+            for(GameObject obj : gameObjects().objectsInLayer(layer)) {
+                gameObjects().removeGameObject(obj, layer);
+            }
+        }
+    }
+
+    /**
+     * Removes the zombies, the corpses and the bullets.
+     */
+    private void removeActors() {
+        for(GameObject obj : gameObjects().objectsInLayer(BULLET_LAYER)) {
+            gameObjects().removeGameObject(obj, BULLET_LAYER);
+        }
+        for(int layer : new int[]{ZOMBIE_LAYER, CORPSE_LAYER}) {
+            for(GameObject obj : gameObjects().objectsInLayer(layer)) {
+                ((Zombie) obj).evict();
+            }
+        }
+    }
+
+    /**
+     * Generates the terrain and the trees of a range of the world again from the seed, with a generator of the
+     * zombies that doesn't create the zombies of the range, since they are restored.
+     * @param min the start of the range.
+     * @param max the end of the range.
+     */
+    private void regenerateWorld(float min, float max) {
+        minCurrWindow = min;
+        maxCurrWindow = max;
+        initializeTerrain((int) minCurrWindow, (int) maxCurrWindow);
+        initializeTrees((int) minCurrWindow, (int) maxCurrWindow);
+        createZombiesGenerator();
+    }
+
+    /**
+     * Forgets what depended on the positions of the objects before the world was restored: the interpolated
+     * positions and the time of the frame.
+     */
+    private void afterWorldRestored() {
+        renderInterpolator.clear();
+        spikeWatchdog.skipFrame();
+        metrics.skipFrame();
+    }
+
+    /**
+     * Creates the metrics of the game, and their exporter if its port is set. They are created by the first game
+     * only, so a soak run sees the metrics of all its games.
+     */
+    private void initializeMetrics() {
+        if(metrics != null) return;
+        metrics = new GameMetrics();
+        Integer port = Integer.getInteger(METRICS_PORT_PROPERTY);
+        if(port != null) {
+            try {
+                metricsServer = new MetricsServer(metrics.registry(), port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Sets the gauges of the metrics with the counts of the world.
+     */
+    private void sampleMetrics() {
+        int projectiles = 0;
+        for(GameObject obj : gameObjects().objectsInLayer(BULLET_LAYER)) {
+            if(obj instanceof BulletInterface) projectiles++;
+        }
+        int alive = zombiePool.alive();
+        int dead = zombiePool.dead();
+        if(zombieHorde != null) {
+            alive += zombieHorde.aliveCount();
+            dead += zombieHorde.deadCount();
+        }
+        metrics.sample(countObjectsPerLayer(), projectiles, alive, dead, zombiePool.pooled(), heightfield.hits(),
+                heightfield.misses());
+    }
+
+    /**
+     * Shows or hides the profiler overlay when its key is pressed. The profiler only times the frames while the
+     * overlay is shown, or always when the profile property is set.
+     */
+    private void handleProfilerKey() {
+        boolean pressed = inputListener.isKeyPressed(PROFILER_KEY);
+        if(pressed && !profilerKeyWasPressed) {
+            if(profilerOverlayShown) {
+                gameObjects().removeGameObject(profilerOverlay, Layer.UI);
+                profiler.setEnabled(profileAlways);
+            }
+            else {
+                gameObjects().addGameObject(profilerOverlay, Layer.UI);
+                profiler.setEnabled(true);
+            }
+            profilerOverlayShown = !profilerOverlayShown;
+        }
+        profilerKeyWasPressed = pressed;
+    }
+
+    /**
+     * Creates the frame profiler of the game, disabled unless the profile property is set, the overlay that shows
+     * it and the watchdog of the frame spikes.
+     */
+    private void initializeProfiler() {
+        profiler = new FrameProfiler(PROFILER_FRAMES);
+        FrameProfiler.install(profiler);
+        profileAlways = Boolean.getBoolean(PROFILE_PROPERTY);
+        profiler.setEnabled(profileAlways);
+        profilerOverlay = new ProfilerOverlay(windowDimensions, profiler);
+        profilerOverlayShown = false;
+        profilerKeyWasPressed = false;
+        if(spikeWatchdog != null) {
+            spikeWatchdog.close();
+        }
+        spikeWatchdog = new FrameSpikeWatchdog(System.getProperty(SPIKE_LOG_PROPERTY, DEFAULT_SPIKE_LOG),
+                SPIKE_FACTOR, SPIKE_MIN_MILLIS, SPIKE_INTERVAL_MILLIS, this::countObjectsPerLayer,
+                () -> avatarObject.getCenter().x(), profiler);
+    }
+
+    /**
+     * Counts the objects of every layer of the game, for benchmarks and diagnostics.
+     * @return the number of objects of every layer, by the name of the layer, in the order of the layers.
+     */
+    public Map<String, Integer> countObjectsPerLayer() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for(int i = 0; i < COUNTED_LAYERS.length; i++) {
+            int count = 0;
+            for(GameObject ignored : gameObjects().objectsInLayer(COUNTED_LAYERS[i])) {
+                count++;
+            }
+            counts.put(COUNTED_LAYER_NAMES[i], count);
+        }
+        return counts;
+    }
+
+    /**
+     * Simulates a single fixed step of the game: the objects, their collisions and the infinite world. The step
+     * ends the step of the zombie pool, which reuses the evicted zombies only once their removal was applied.
+     * @param stepTime the time of the step, in seconds.
+     */
+    private void simulate(float stepTime) {
+        long start = profiler.start();
+        zombieAi.beginFrame(avatarObject.getCenter().x());
+        profiler.stop(FrameProfiler.Phase.AI, start);
+        start = profiler.start();
+        super.update(stepTime);
+        profiler.stop(FrameProfiler.Phase.OBJECTS, start);
+        handleInfiniteWorld();
+        start = profiler.start();
+        handleCollisions();
+        profiler.stop(FrameProfiler.Phase.COLLISIONS, start);
+        recordRewindStep();
+        zombiePool.endStep();
+    }
+
+    /**
+     * Creates the fixed timestep the game is simulated with, and the interpolator of the objects that move.
+     * The rate of the simulation is read from the pepse.simulationHz system property, so a weak machine can run
+     * the simulation at 30 Hz while it still renders at the rate of its display. A replay runs at the rate of its
+     * recording.
+     */
+    private void initializeSimulationLoop() {
+        simulationHz = inputSession.isReplaying() ? inputSession.replayedHeader().simulationHz() :
+                Integer.getInteger(SIMULATION_HZ_PROPERTY, DEFAULT_SIMULATION_HZ);
+        simulationTimestep = new FixedTimestep(simulationHz, MAX_STEPS_PER_FRAME);
+        renderInterpolator = new RenderInterpolator(INTERPOLATED_LAYERS);
+    }
+
+    /**
+     * Creates the stats of the game and subscribes the end of game check to them, so the end of the game is
+     * detected at the moment a stat changes instead of polling the stats every frame.
+     */
+    private void initializeGameState() {
+        gameState = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        endGamePrompt = null;
+        gameState.kills().addListener((stat, oldValue, newValue) -> {
+            if(newValue >= MAX_KILLS && endGamePrompt == null) endGamePrompt = "You win!";
+        });
+        GameStat.Listener lose = (stat, oldValue, newValue) -> {
+            if(newValue <= 0) endGamePrompt = "You Lose!";
+        };
+        gameState.lives().addListener(lose);
+        gameState.lifeTime().addListener(lose);
+    }
+
+    /**
+     * Creates the overlay of the dialogs, closed.
+     */
+    private void initializeDialogOverlay() {
+        dialogOverlay = DialogOverlay.create(gameObjects(), DIALOG_LAYER, windowDimensions);
+        askingPlayAgain = false;
+    }
+
+    /**
+     * @return the number of dialogs the game asked the player, across the restarts.
+     */
+    public int dialogsOpened() {
+        return dialogsOpened;
+    }
+
+    /**
+     * Asks the player whether to play again once a stat ended the game, in a dialog that pauses the world, and
+     * acts on the answer in the frame it is given. The dialog is opened at the end of the frame rather than inside
+     * the listener, which may run in the middle of a collision.
+     */
+    private void checkEndGame() {
+        if(endGamePrompt != null) {
+            dialogOverlay.askYesNo(endGamePrompt + " Play again?", true);
+            endGamePrompt = null;
+            askingPlayAgain = true;
+            dialogsOpened++;
+        }
+        if(!askingPlayAgain) return;
+        Boolean playAgain = inputSession.pollDialog(dialogOverlay.answer());
+        if(playAgain != null) {
+            askingPlayAgain = false;
+            dialogOverlay.close();
+            if(!playAgain) {
                 windowController.closeWindow();
             }
+            else if(USE_WARM_RESTART) {
+                restartGame();
+            }
+            else {
+                windowController.resetGame();
+            }
         }
 
     }
 
+    /**
+     * Starts a new game in place. Resetting the game through the window initializes it again: it reads the images
+     * of the avatar and the table of the notes, and generates the first window of the world. The restart keeps all
+     * of them, with the pools and the caches, and only resets what a game changes: the stats and the timer, the
+     * avatar, the zombies, the kill registry, the bullets and the leaves. The terrain and the trees are generated
+     * again only if the world streamed away from its first window. The sun and the night go on with their cycle.
+     */
+    public void restartGame() {
+        float min = 0 - FRAME_OUT_WINDOW_INFINITY;
+        float max = windowDimensions.x() + FRAME_OUT_WINDOW_INFINITY;
+        removeActors();
+        if(zombieHorde != null) {
+            zombieHorde.clear();
+        }
+        killRegistry.clear();
+        if(min != minCurrWindow || max != maxCurrWindow) {
+            removeTerrainAndTrees();
+            minCurrWindow = min;
+            maxCurrWindow = max;
+            initializeTerrain((int) minCurrWindow, (int) maxCurrWindow);
+            initializeTrees((int) minCurrWindow, (int) maxCurrWindow);
+        }
+        else {
+            for(GameObject obj : gameObjects().objectsInLayer(LEAF_LAYER)) {
+                ((Leaf) obj).regrow();
+            }
+        }
+        initializeZombies((int) minCurrWindow, (int) maxCurrWindow);
+        ((Avatar) avatarObject).reset(initialAvatarLocation);
+        gameState.lives().set(NUM_LIVES);
+        gameState.kills().set(0);
+        gameState.energy().set(MAX_ENERGY);
+        gameState.lifeTime().set(MAX_LIFE_TIME);
+        lifeTimerOwner.removeComponent(lifeTimer);
+        startLifeTimeTimer(lifeTimerOwner, 0);
+        endGamePrompt = null;
+        askingPlayAgain = false;
+        dialogOverlay.close();
+        rewindBuffer.clear();
+        afterWorldRestored();
+    }
+
 
     private void handleInfiniteWorld() {
         float currAvatarPosition = avatarObject.getCenter().x();
         if(currAvatarPosition - minCurrWindow - Block.SIZE < windowDimensions.x() / 2  ||
                 maxCurrWindow - currAvatarPosition - Block.SIZE < windowDimensions.x() / 2) {
+            long start = profiler.start();
             if(currAvatarPosition - minCurrWindow - Block.SIZE < windowDimensions.x() / 2) {
-                initializeTerrain((int) minCurrWindow - Block.SIZE, (int) minCurrWindow);
-                initializeTrees((int) minCurrWindow - Block.SIZE, (int) minCurrWindow);
-                initializeZombies((int) minCurrWindow - Block.SIZE, (int) minCurrWindow);
+                generateRange((int) minCurrWindow - Block.SIZE, (int) minCurrWindow);
                 minCurrWindow -= Block.SIZE;
                 maxCurrWindow -= Block.SIZE;
             }
             else {
-                initializeTerrain((int) maxCurrWindow, (int) maxCurrWindow + Block.SIZE);
-                initializeTrees((int) maxCurrWindow, (int) maxCurrWindow + Block.SIZE);
-                initializeZombies((int) maxCurrWindow, (int) maxCurrWindow + Block.SIZE);
+                generateRange((int) maxCurrWindow, (int) maxCurrWindow + Block.SIZE);
                 minCurrWindow += 2 * Block.SIZE;
                 maxCurrWindow += 2 * Block.SIZE;
             }
+            profiler.stop(FrameProfiler.Phase.STREAMING, start);
+            start = profiler.start();
             deleteObjectsOutOfWindow();
+            profiler.stop(FrameProfiler.Phase.EVICTION, start);
+        }
+    }
+
+    /**
+     * Creates the terrain, trees and zombies of a range the world streams in, and records a JFR event with what
+     * was created.
+     * @param min the start of the range.
+     * @param max the end of the range.
+     */
+    private void generateRange(int min, int max) {
+        ColumnGeneratedEvent event = new ColumnGeneratedEvent();
+        event.begin();
+        initializeTerrain(min, max);
+        initializeTrees(min, max);
+        initializeZombies(min, max);
+        event.end();
+        spikeWatchdog.noteStreaming(min, terrainObject.blocksCreated() + treeObject.treesCreated() +
+                treeObject.leavesCreated() + zombiesObject.zombiesCreated());
+        if(event.shouldCommit()) {
+            event.step = simulationTimestep.steps();
+            event.minX = min;
+            event.maxX = max;
+            event.columns = terrainObject.columnsCreated();
+            event.blocks = terrainObject.blocksCreated();
+            event.trees = treeObject.treesCreated();
+            event.leaves = treeObject.leavesCreated();
+            event.zombies = zombiesObject.zombiesCreated();
+            event.commit();
         }
     }
 
@@ -304,48 +1333,89 @@ public class PepseGameManager extends GameManager {
                 AVATAR_LAYER,
                 initialAvatarLocation,
                 inputListener,
-                imageReader);
+                imageReader,
+                gameState.energy());
+        if(zombieHorde != null) {
+            zombieHorde.setAvatar(avatarObject);
+        }
     }
 
     /**
-     *
+     * Removes the objects that left the world, layer by layer, and records a JFR event for every layer.
      */
     private void deleteObjectsOutOfWindow() {
-        for (GameObject obj : gameObjects().objectsInLayer(TERRAIN_LAYER)) {
-            if (obj.getCenter().x() < minCurrWindow || obj.getCenter().x() > maxCurrWindow) {
-                gameObjects().removeGameObject(obj, TERRAIN_LAYER);
-            }
-        }
-        for (GameObject obj : gameObjects().objectsInLayer(TREE_LAYER)) {
-            if (obj.getCenter().x() < minCurrWindow || obj.getCenter().x() > maxCurrWindow) {
-                gameObjects().removeGameObject(obj, TREE_LAYER);
-            }
-        }
-        for (GameObject obj : gameObjects().objectsInLayer(AVATAR_LAYER)) {
-            if (obj.getCenter().x() < minCurrWindow || obj.getCenter().x() > maxCurrWindow) {
-                gameObjects().removeGameObject(obj, Layer.DEFAULT);
-            }
-        }
-        for (GameObject obj : gameObjects().objectsInLayer(LEAF_LAYER)) {
-            if (obj.getCenter().x() + 5 * Block.SIZE < minCurrWindow || obj.getCenter().x() - 5 * Block.SIZE > maxCurrWindow) {
-                gameObjects().removeGameObject(obj, LEAF_LAYER);
-            }
+        int evicted = evictLayer("terrain", TERRAIN_LAYER, 0,
+                obj -> gameObjects().removeGameObject(obj, TERRAIN_LAYER));
+        evicted += evictLayer("tree", TREE_LAYER, 0, obj -> gameObjects().removeGameObject(obj, TREE_LAYER));
+        evicted += evictLayer("avatar", AVATAR_LAYER, 0,
+                obj -> gameObjects().removeGameObject(obj, Layer.DEFAULT));
+        evicted += evictLayer("leaf", LEAF_LAYER, 5 * Block.SIZE,
+                obj -> gameObjects().removeGameObject(obj, LEAF_LAYER));
+        evicted += evictLayer("zombie", ZOMBIE_LAYER, 0, obj -> ((Zombie) obj).evict());
+        evicted += evictLayer("corpse", CORPSE_LAYER, 0, obj -> ((Zombie) obj).evict());
+        evicted += evictLayer("bullet", BULLET_LAYER, 0, this::evictBullet);
+        if(zombieHorde != null) {
+            ObjectsEvictedEvent event = new ObjectsEvictedEvent();
+            event.begin();
+            int removed = zombieHorde.removeOutside(minCurrWindow, maxCurrWindow);
+            commitEviction(event, "horde", ZOMBIES_LAYER, removed);
+            evicted += removed;
         }
-        if(!gameObjects().isLayerEmpty(ZOMBIE_LAYER)) {
-            for (GameObject obj : gameObjects().objectsInLayer(ZOMBIE_LAYER)) {
-                if (obj.getCenter().x() < minCurrWindow || obj.getCenter().x() > maxCurrWindow) {
-                    gameObjects().removeGameObject(obj, ZOMBIE_LAYER);
-                }
+        spikeWatchdog.noteEviction((int) minCurrWindow, evicted);
+    }
+
+    /**
+     * Removes the objects of a layer whose center is farther than a margin out of the world.
+     * @param name the name of the layer in the JFR event.
+     * @param layer the layer.
+     * @param margin the distance out of the world an object may have before it is removed.
+     * @param evict removes an object from the game.
+     * @return the number of objects removed.
+     */
+    private int evictLayer(String name, int layer, float margin, Consumer<GameObject> evict) {
+        if(gameObjects().isLayerEmpty(layer)) return 0;
+        ObjectsEvictedEvent event = new ObjectsEvictedEvent();
+        event.begin();
+        int evicted = 0;
+        for (GameObject obj : gameObjects().objectsInLayer(layer)) {
+            if (obj.getCenter().x() + margin < minCurrWindow || obj.getCenter().x() - margin > maxCurrWindow) {
+                evict.accept(obj);
+                evicted++;
             }
         }
-        if(!gameObjects().isLayerEmpty(BULLET_LAYER)) {
-            for (GameObject obj : gameObjects().objectsInLayer(BULLET_LAYER)) {
-                if (obj.getCenter().x() < minCurrWindow || obj.getCenter().x() > maxCurrWindow) {
-                    gameObjects().removeGameObject(obj, BULLET_LAYER);
-                }
-            }
+        commitEviction(event, name, layer, evicted);
+        return evicted;
+    }
+
+    /**
+     * Ends the JFR event of the eviction of a layer and commits it if it removed something.
+     */
+    private void commitEviction(ObjectsEvictedEvent event, String name, int layer, int evicted) {
+        event.end();
+        if(evicted > 0 && event.shouldCommit()) {
+            event.step = simulationTimestep.steps();
+            event.layerName = name;
+            event.layer = layer;
+            event.evicted = evicted;
+            event.commit();
         }
+    }
 
+    /**
+     * Removes a bullet, or the explosion of a shot, that left the world.
+     * @param obj the bullet or explosion.
+     */
+    private void evictBullet(GameObject obj) {
+        gameObjects().removeGameObject(obj, BULLET_LAYER);
+        if(!(obj instanceof BulletInterface)) return;
+        ProjectileRemovedEvent event = new ProjectileRemovedEvent();
+        if(event.shouldCommit()) {
+            event.kind = obj.getClass().getSimpleName();
+            event.reason = ProjectileRemovedEvent.EVICTED;
+            event.x = obj.getTopLeftCorner().x();
+            event.y = obj.getTopLeftCorner().y();
+            event.commit();
+        }
     }
 
 
@@ -368,10 +1438,18 @@ public class PepseGameManager extends GameManager {
      * The terrain is generated using the seed value.
      */
     private void initializeTerrain(int min, int max) {
-        terrainObject = new Terrain(gameObjects(), TERRAIN_LAYER, windowDimensions, seed);
+        terrainObject = new Terrain(gameObjects(), TERRAIN_LAYER, windowDimensions, seed, worldSettings);
         terrainObject.createInRange(min, max);
     }
 
+    /**
+     * Initializes the heightfield that caches the height of the terrain for every column, so systems that look
+     * up the ground every frame don't recompute the perlin noise.
+     */
+    private void initializeHeightfield() {
+        heightfield = new TerrainHeightfield(terrainObject::groundHeightAt);
+    }
+
     /**
      * Responsible for initializing the trees.
      * @param min
@@ -381,9 +1459,10 @@ public class PepseGameManager extends GameManager {
         treeObject = new Tree(gameObjects(),
                 TREE_LAYER,
                 terrainObject::groundHeightAt,
-                seed, windowController,
+                seed, dialogOverlay,
                 seedArray,
-                this::updateSeedTable);
+                this::updateSeedTable,
+                worldSettings);
         treeObject.createInRange(min, max);
     }
 
@@ -406,7 +1485,7 @@ public class PepseGameManager extends GameManager {
      * left to the player.
      */
     private void initializeHearts() {
-        graphicLifeCounter = GraphicLifeCounter.create(livesCounter,
+        graphicLifeCounter = GraphicLifeCounter.create(gameState.lives(),
                 gameObjects(),
                 imageReader,
                 NUM_LIVES,
@@ -417,6 +1496,6 @@ public class PepseGameManager extends GameManager {
      * This function initializes the numeric life counter (3 in the beginning)
      */
     private void initializeNumericLifeCounter() {
-        numericLifeCounter = NumericLifeCounter.create(livesCounter, gameObjects(), NUMERIC_LIFE_LAYER);
+        numericLifeCounter = NumericLifeCounter.create(gameState.lives(), gameObjects(), NUMERIC_LIFE_LAYER);
     }
 }
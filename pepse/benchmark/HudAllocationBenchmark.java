@@ -0,0 +1,133 @@
+package pepse.benchmark;
+
+import danogl.GameObject;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.util.GameStateBus;
+import pepse.world.ui.CounterBar;
+import pepse.world.ui.HudPanel;
+import pepse.world.ui.lives.NumericLifeCounter;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * An allocation check of the HUD, for both the HUD made of a game object per element and the HudPanel. It counts
+ * the bytes the thread allocated over many frames in two windows, which must both be zero:
+ * the steady window, where the stats don't change and the HUD is only updated, and the change window, where every
+ * stat changes in every frame, back and forth, so the listeners of the stats resize the bars, swap the text of the
+ * lives and repaint the panel inside the measured frames. Each window is run once unmeasured first, so the values
+ * the HUD caches are seen, and then measured MEASURED_ROUNDS times, keeping the round that allocated the least: the
+ * JIT compiler may allocate a few hundred bytes on the thread the first times it compiles or recompiles the loop.
+ * The check exits with status 1 when the HUD allocates.
+ * Usage: java pepse.benchmark.HudAllocationBenchmark [frames]
+ */
+public class HudAllocationBenchmark {
+    private static final int DEFAULT_FRAMES = 100_000;
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int MEASURED_ROUNDS = 3;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final Vector2 BAR_SIZE = new Vector2(54 * 1.85f, 10 * 1.85f);
+    private static final int NUM_LIVES = 3;
+    private static final int MAX_ENERGY = 200;
+    private static final int MAX_LIFE_TIME = 60;
+    private static final int MAX_KILLS = 10;
+
+    /**
+     * Runs the check.
+     * @param args optional number of measured frames.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        GameStateBus state = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        HudPanel panel = createPanel(state);
+        GameObject[] hud = {
+                new CounterBar(new Vector2(63, 92), BAR_SIZE, new RectangleRenderable(Color.YELLOW),
+                        state.energy(), MAX_ENERGY),
+                new CounterBar(new Vector2(63, 137), BAR_SIZE, new RectangleRenderable(Color.RED),
+                        state.lifeTime(), MAX_LIFE_TIME),
+                new CounterBar(new Vector2(63, 182), BAR_SIZE, new RectangleRenderable(Color.GRAY),
+                        state.kills(), MAX_KILLS),
+                new NumericLifeCounter(state.lives(), new Vector2(130, 47), new Vector2(20, 20)),
+                panel
+        };
+
+        runFrames(hud, state, WARMUP_FRAMES, false);
+        long steady = measure(threads, thread, hud, state, frames, false);
+        runFrames(hud, state, WARMUP_FRAMES, true);
+        int repaintsBefore = panel.repaints();
+        long changing = measure(threads, thread, hud, state, frames, true);
+        int repaints = (panel.repaints() - repaintsBefore) / MEASURED_ROUNDS;
+
+        System.out.printf("frames=%d steady bytes=%d (%.3f/frame) changing bytes=%d (%.3f/frame) " +
+                        "panel repaints=%d%n", frames, steady, (double) steady / frames, changing,
+                (double) changing / frames, repaints);
+        if(steady != 0 || changing != 0 || repaints == 0) {
+            System.out.println(repaints == 0 ? "FAIL: the panel never repainted while the stats changed" :
+                    "FAIL: the HUD allocates");
+            System.exit(1);
+        }
+        System.out.println("PASS: no HUD allocations, with or without stat changes");
+    }
+
+    /**
+     * Runs the HUD for MEASURED_ROUNDS rounds of a number of frames.
+     * @return the fewest bytes the thread allocated in a round.
+     */
+    private static long measure(com.sun.management.ThreadMXBean threads, long thread, GameObject[] hud,
+                                GameStateBus state, int frames, boolean changeStats) {
+        long fewest = Long.MAX_VALUE;
+        for(int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            runFrames(hud, state, frames, changeStats);
+            fewest = Math.min(fewest, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        return fewest;
+    }
+
+    /**
+     * Builds a HudPanel over the stats.
+     */
+    private static HudPanel createPanel(GameStateBus state) {
+        Renderable[] labels = new Renderable[3];
+        Renderable[] bars = {new RectangleRenderable(Color.YELLOW), new RectangleRenderable(Color.RED),
+                new RectangleRenderable(Color.GRAY)};
+        for(int i = 0; i < labels.length; i++) {
+            labels[i] = new RectangleRenderable(Color.LIGHT_GRAY);
+        }
+        return new HudPanel(new RectangleRenderable(Color.DARK_GRAY), labels, bars,
+                new RectangleRenderable(Color.PINK), state, MAX_ENERGY, MAX_LIFE_TIME, MAX_KILLS);
+    }
+
+    /**
+     * Runs the HUD for a number of frames. When the stats change, every stat goes one step down in even frames and
+     * back up in odd frames, so the values stay in the ranges the HUD caches.
+     */
+    private static void runFrames(GameObject[] hud, GameStateBus state, int frames, boolean changeStats) {
+        for(int frame = 0; frame < frames; frame++) {
+            if(changeStats) {
+                int step = frame % 2 == 0 ? -1 : 1;
+                changeBy(state.energy(), step);
+                changeBy(state.lifeTime(), step);
+                changeBy(state.kills(), -step);
+                changeBy(state.lives(), step);
+            }
+            for(GameObject object : hud) {
+                object.update(DELTA_TIME);
+            }
+        }
+    }
+
+    /**
+     * Changes a stat by a step, which fires its listeners.
+     */
+    private static void changeBy(GameStat stat, int step) {
+        stat.set(stat.value() + step);
+    }
+}
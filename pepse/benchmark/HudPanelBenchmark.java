@@ -0,0 +1,248 @@
+package pepse.benchmark;
+
+import danogl.GameObject;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.util.GameStateBus;
+import pepse.world.ui.CounterBar;
+import pepse.world.ui.HudPanel;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A comparison of the HUD made of a game object per element with the HudPanel. Both HUDs show the same stats, which
+ * change like in a game: the energy drains while the avatar flies and refills while it stands, the time left drops
+ * every second, and kills and lives change now and then. Every frame each HUD is updated and drawn into an image the
+ * size of the window, and the benchmark reports the update calls, the draw calls to the window, the draws of the
+ * panel into its own image and the time of a frame.
+ * Usage: java pepse.benchmark.HudPanelBenchmark [frames]
+ */
+public class HudPanelBenchmark {
+    private static final int DEFAULT_FRAMES = 36_000;
+    private static final int WARMUP_FRAMES = 3_600;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final int FLY_FRAMES = 90; // Frames of every flight, followed by as many standing frames
+    private static final int FRAMES_PER_KILL = 7 * FRAMES_PER_SECOND;
+    private static final int FRAMES_PER_LOST_LIFE = 23 * FRAMES_PER_SECOND;
+    private static final int MAX_ENERGY = 200;
+    private static final int MAX_LIFE_TIME = 60;
+    private static final int MAX_KILLS = 10;
+    private static final int NUM_LIVES = 3;
+    private static final Vector2 WINDOW_SIZE = new Vector2(1200, 800);
+    private static final Vector2 BAR_SIZE = new Vector2(54 * 1.85f, 10 * 1.85f);
+    private static final Vector2 LABEL_SIZE = new Vector2(144, 40);
+    private static final Vector2 HEART_SIZE = new Vector2(20, 20);
+    private static int draws; // Draws of renderables into the window
+
+    /**
+     * A renderable that counts its draws.
+     */
+    private static class CountingRenderable implements Renderable {
+        private final Renderable renderable;
+
+        /**
+         * Constructs a new CountingRenderable.
+         * @param renderable the renderable that is drawn.
+         */
+        CountingRenderable(Renderable renderable) {
+            this.renderable = renderable;
+        }
+
+        /**
+         * Draws the renderable and counts the draw.
+         */
+        @Override
+        public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                           boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+            draws++;
+            renderable.render(g, topLeftCorner, dimensions, degreesCounterClockwise, isFlippedHorizontally,
+                    isFlippedVertically, opaqueness);
+        }
+    }
+
+    /**
+     * An element of the HUD made of game objects, with the renderable it is drawn with.
+     */
+    private static class Element {
+        private final GameObject gameObject;
+        private Renderable renderable; // Renderable of the element, null while it is hidden
+
+        /**
+         * Constructs a new Element.
+         */
+        Element(GameObject gameObject, Renderable renderable) {
+            this.gameObject = gameObject;
+            this.renderable = renderable;
+        }
+    }
+
+    /**
+     * Runs the comparison.
+     * @param args optional number of measured frames.
+     */
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        BufferedImage window = new BufferedImage((int) WINDOW_SIZE.x(), (int) WINDOW_SIZE.y(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = window.createGraphics();
+
+        GameStateBus elementsState = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        List<Element> elements = createElements(elementsState);
+        runElements(elements, elementsState, g, WARMUP_FRAMES);
+        elementsState = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        elements = createElements(elementsState);
+        draws = 0;
+        long start = System.nanoTime();
+        long updates = runElements(elements, elementsState, g, frames);
+        report("game objects", frames, updates, draws, 0, 0, System.nanoTime() - start);
+
+        GameStateBus panelState = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        runPanel(createPanel(panelState), panelState, g, WARMUP_FRAMES);
+        panelState = new GameStateBus(NUM_LIVES, MAX_ENERGY, MAX_LIFE_TIME);
+        HudPanel panel = createPanel(panelState);
+        int repaintsBefore = panel.repaints();
+        int elementDrawsBefore = panel.elementDraws();
+        start = System.nanoTime();
+        updates = runPanel(panel, panelState, g, frames);
+        report("hud panel", frames, updates, frames, panel.repaints() - repaintsBefore,
+                panel.elementDraws() - elementDrawsBefore, System.nanoTime() - start);
+        g.dispose();
+    }
+
+    /**
+     * Builds the HUD as a game object per element, like the game does when the panel is off.
+     */
+    private static List<Element> createElements(GameStateBus state) {
+        List<Element> elements = new ArrayList<>();
+        addElement(elements, Vector2.ZERO, new Vector2(1.65f * 124, 1.65f * 170), Color.DARK_GRAY);
+        Vector2[] labelPositions = {new Vector2(30, 80), new Vector2(30, 125), new Vector2(30, 170)};
+        for(Vector2 labelPosition : labelPositions) {
+            addElement(elements, labelPosition, LABEL_SIZE, Color.LIGHT_GRAY);
+        }
+        Renderable energyBar = new CountingRenderable(new RectangleRenderable(Color.YELLOW));
+        elements.add(new Element(new CounterBar(new Vector2(63, 92), BAR_SIZE, energyBar, state.energy(),
+                MAX_ENERGY), energyBar));
+        Renderable lifeTimeBar = new CountingRenderable(new RectangleRenderable(Color.RED));
+        elements.add(new Element(new CounterBar(new Vector2(63, 137), BAR_SIZE, lifeTimeBar, state.lifeTime(),
+                MAX_LIFE_TIME), lifeTimeBar));
+        Renderable killsBar = new CountingRenderable(new RectangleRenderable(Color.GRAY));
+        elements.add(new Element(new CounterBar(new Vector2(63, 182), BAR_SIZE, killsBar, state.kills(),
+                MAX_KILLS), killsBar));
+        Element[] hearts = new Element[NUM_LIVES];
+        for(int i = 0; i < hearts.length; i++) {
+            hearts[i] = addElement(elements, new Vector2(50 + 22 * i, 50), HEART_SIZE, Color.PINK);
+        }
+        Renderable heart = hearts[0].renderable;
+        state.lives().addListener((stat, oldValue, newValue) -> {
+            for(int i = 0; i < hearts.length; i++) {
+                hearts[i].renderable = i < newValue ? heart : null;
+            }
+        });
+        Element livesText = new Element(new GameObject(new Vector2(130, 47), HEART_SIZE, null),
+                new CountingRenderable(new TextRenderable(String.valueOf(NUM_LIVES))));
+        state.lives().addListener((stat, oldValue, newValue) ->
+                livesText.renderable = new CountingRenderable(new TextRenderable(String.valueOf(newValue))));
+        elements.add(livesText);
+        return elements;
+    }
+
+    /**
+     * Adds an element drawn as a rectangle.
+     * @return the element.
+     */
+    private static Element addElement(List<Element> elements, Vector2 topLeftCorner, Vector2 dimensions,
+                                      Color color) {
+        Renderable renderable = new CountingRenderable(new RectangleRenderable(color));
+        Element element = new Element(new GameObject(topLeftCorner, dimensions, renderable), renderable);
+        elements.add(element);
+        return element;
+    }
+
+    /**
+     * Builds the HUD as a HudPanel.
+     */
+    private static HudPanel createPanel(GameStateBus state) {
+        Renderable[] labels = new Renderable[3];
+        Renderable[] bars = {new RectangleRenderable(Color.YELLOW), new RectangleRenderable(Color.RED),
+                new RectangleRenderable(Color.GRAY)};
+        for(int i = 0; i < labels.length; i++) {
+            labels[i] = new RectangleRenderable(Color.LIGHT_GRAY);
+        }
+        return new HudPanel(new RectangleRenderable(Color.DARK_GRAY), labels, bars,
+                new RectangleRenderable(Color.PINK), state, MAX_ENERGY, MAX_LIFE_TIME, MAX_KILLS);
+    }
+
+    /**
+     * Runs the HUD made of game objects for a number of frames.
+     * @return the number of update calls.
+     */
+    private static long runElements(List<Element> elements, GameStateBus state, Graphics2D g, int frames) {
+        long updates = 0;
+        for(int frame = 0; frame < frames; frame++) {
+            playFrame(state, frame);
+            for(Element element : elements) {
+                element.gameObject.update(DELTA_TIME);
+                updates++;
+            }
+            for(Element element : elements) {
+                if(element.renderable != null) {
+                    element.renderable.render(g, element.gameObject.getTopLeftCorner(),
+                            element.gameObject.getDimensions(), 0, false, false, 1);
+                }
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Runs the HudPanel for a number of frames.
+     * @return the number of update calls.
+     */
+    private static long runPanel(HudPanel panel, GameStateBus state, Graphics2D g, int frames) {
+        for(int frame = 0; frame < frames; frame++) {
+            playFrame(state, frame);
+            panel.update(DELTA_TIME);
+            g.drawImage(panel.image(), 0, 0, null);
+        }
+        return frames;
+    }
+
+    /**
+     * Changes the stats the way a frame of the game does. The time left and the lives wrap around so that long runs
+     * keep changing them.
+     */
+    private static void playFrame(GameStateBus state, int frame) {
+        if((frame / FLY_FRAMES) % 2 == 0) {
+            state.energy().set(Math.max(0, state.energy().value() - 1));
+        }
+        else {
+            state.energy().set(Math.min(MAX_ENERGY, state.energy().value() + 1));
+        }
+        if(frame % FRAMES_PER_SECOND == 0) {
+            state.lifeTime().set(state.lifeTime().value() > 1 ? state.lifeTime().value() - 1 : MAX_LIFE_TIME);
+        }
+        if(frame % FRAMES_PER_KILL == 0) {
+            state.kills().set((state.kills().value() + 1) % (MAX_KILLS + 1));
+        }
+        if(frame % FRAMES_PER_LOST_LIFE == 0) {
+            state.lives().set(state.lives().value() > 1 ? state.lives().value() - 1 : NUM_LIVES);
+        }
+    }
+
+    /**
+     * Prints the counts and time of a run.
+     */
+    private static void report(String name, int frames, long updates, long windowDraws, int repaints,
+                               int panelDraws, long nanos) {
+        System.out.printf("%s: frames=%d updates/frame=%.2f window draws/frame=%.2f repaints=%d " +
+                        "panel draws/frame=%.2f frame us=%.3f%n",
+                name, frames, (double) updates / frames, (double) windowDraws / frames, repaints,
+                (double) panelDraws / frames, nanos / 1e3 / frames);
+    }
+}
@@ -0,0 +1,343 @@
+package pepse.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small harness for micro benchmarks, in the spirit of JMH: every benchmark runs warmup iterations, then
+ * measured iterations, and reports the average time of an operation with its error, the bytes allocated by an
+ * operation and the garbage collections of the measured iterations (like -prof gc). The results of an operation
+ * are consumed by a Blackhole so the JIT can't remove the work. The results are written as JSON, in a shape close
+ * to the one of JMH, so every commit can be compared with the last.
+ */
+public class MicroBenchmark {
+    private static final double Z_99 = 2.576; // Quantile of the normal distribution for a 99% confidence interval
+    private static volatile long published; // Sink of the last benchmark, published so its work can't be removed
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos; // Time of an iteration of a timed benchmark
+    private final List<Result> results = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * An operation to benchmark.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         * @param blackhole consumes the results of the operation.
+         */
+        void run(Blackhole blackhole);
+    }
+
+    /**
+     * Creates the state of an iteration. It runs before every iteration and is not measured, so an operation that
+     * fills a world can start every iteration from an empty one.
+     */
+    @FunctionalInterface
+    public interface Setup {
+        /**
+         * @return the operation the iteration runs.
+         */
+        Operation create();
+    }
+
+    /**
+     * Consumes values so that the work that computed them can't be removed. Consuming a value allocates nothing.
+     */
+    public static class Blackhole {
+        private long sink; // Mix of every value consumed
+
+        /**
+         * Consumes an int.
+         * @param value the value.
+         */
+        public void consume(int value) {
+            sink = sink * 31 + value;
+        }
+
+        /**
+         * Consumes a long.
+         * @param value the value.
+         */
+        public void consume(long value) {
+            sink = sink * 31 + value;
+        }
+
+        /**
+         * Consumes a double.
+         * @param value the value.
+         */
+        public void consume(double value) {
+            sink = sink * 31 + Double.doubleToRawLongBits(value);
+        }
+
+        /**
+         * Consumes an object.
+         * @param value the value.
+         */
+        public void consume(Object value) {
+            sink = sink * 31 + System.identityHashCode(value);
+        }
+
+        /**
+         * @return the mix of every value consumed.
+         */
+        long sink() {
+            return sink;
+        }
+    }
+
+    /**
+     * The result of a benchmark.
+     */
+    public static class Result {
+        private final String name;
+        private final Map<String, String> params;
+        private final double[] nanosPerOp; // Average time of an operation in every measured iteration
+        private final double bytesPerOp;
+        private final long gcCount;
+        private final long gcMillis;
+        private final long operations;
+
+        /**
+         * Constructs a new Result.
+         */
+        Result(String name, Map<String, String> params, double[] nanosPerOp, double bytesPerOp, long gcCount,
+               long gcMillis, long operations) {
+            this.name = name;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.operations = operations;
+        }
+
+        /**
+         * @return the average time of an operation over the measured iterations, in nanoseconds.
+         */
+        public double score() {
+            double sum = 0;
+            for(double nanos : nanosPerOp) {
+                sum += nanos;
+            }
+            return sum / nanosPerOp.length;
+        }
+
+        /**
+         * @return the half width of the 99% confidence interval of the score, in nanoseconds.
+         */
+        public double scoreError() {
+            if(nanosPerOp.length < 2) return Double.NaN;
+            double mean = score();
+            double squares = 0;
+            for(double nanos : nanosPerOp) {
+                squares += (nanos - mean) * (nanos - mean);
+            }
+            return Z_99 * Math.sqrt(squares / (nanosPerOp.length - 1)) / Math.sqrt(nanosPerOp.length);
+        }
+
+        /**
+         * @return the bytes allocated by an operation.
+         */
+        public double bytesPerOp() {
+            return bytesPerOp;
+        }
+
+        /**
+         * @return the name of the benchmark followed by its parameters.
+         */
+        @Override
+        public String toString() {
+            return String.format("%-40s %-16s %14.1f +- %10.1f ns/op %12.1f B/op  gc=%d (%d ms)",
+                    name, params.isEmpty() ? "" : params.toString(), score(), scoreError(), bytesPerOp, gcCount,
+                    gcMillis);
+        }
+    }
+
+    /**
+     * Constructs a new MicroBenchmark.
+     * @param warmupIterations the number of iterations run before the measured ones.
+     * @param measurementIterations the number of measured iterations.
+     * @param iterationMillis the time of an iteration of a timed benchmark, in milliseconds.
+     */
+    public MicroBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    /**
+     * Runs an operation as many times as fits in every iteration.
+     * @param name the name of the benchmark.
+     * @param params the parameters of the benchmark, such as a width, in the order they are printed.
+     * @param operation the operation.
+     * @return the result.
+     */
+    public Result timed(String name, Map<String, String> params, Operation operation) {
+        return run(name, params, () -> operation, 0);
+    }
+
+    /**
+     * Runs an operation a fixed number of times in every iteration, on a state created before the iteration.
+     * @param name the name of the benchmark.
+     * @param params the parameters of the benchmark.
+     * @param setup creates the operation of every iteration.
+     * @param batchSize the number of operations of an iteration.
+     * @return the result.
+     */
+    public Result batched(String name, Map<String, String> params, Setup setup, int batchSize) {
+        return run(name, params, setup, batchSize);
+    }
+
+    /**
+     * @return the results of every benchmark run so far.
+     */
+    public List<Result> results() {
+        return results;
+    }
+
+    /**
+     * Runs the iterations of a benchmark. A batchSize of zero runs timed iterations.
+     */
+    private Result run(String name, Map<String, String> params, Setup setup, int batchSize) {
+        Blackhole blackhole = new Blackhole();
+        for(int iteration = 0; iteration < warmupIterations; iteration++) {
+            iterate(setup.create(), blackhole, batchSize);
+        }
+        long thread = Thread.currentThread().getId();
+        double[] nanosPerOp = new double[measurementIterations];
+        long bytes = 0;
+        long operations = 0;
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        for(int iteration = 0; iteration < measurementIterations; iteration++) {
+            Operation operation = setup.create();
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long iterationOperations = iterate(operation, blackhole, batchSize);
+            long elapsed = System.nanoTime() - start;
+            bytes += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            operations += iterationOperations;
+            nanosPerOp[iteration] = (double) elapsed / iterationOperations;
+        }
+        Result result = new Result(name, new LinkedHashMap<>(params), nanosPerOp, (double) bytes / operations,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore, operations);
+        results.add(result);
+        published = blackhole.sink();
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Runs a single iteration.
+     * @return the number of operations run.
+     */
+    private long iterate(Operation operation, Blackhole blackhole, int batchSize) {
+        if(batchSize > 0) {
+            for(int i = 0; i < batchSize; i++) {
+                operation.run(blackhole);
+            }
+            return batchSize;
+        }
+        long operations = 0;
+        long end = System.nanoTime() + iterationNanos;
+        do {
+            // Check the clock every few operations so reading it doesn't dominate the fast operations
+            for(int i = 0; i < 64; i++) {
+                operation.run(blackhole);
+            }
+            operations += 64;
+        } while(System.nanoTime() < end);
+        return operations;
+    }
+
+    /**
+     * @return the number of collections of every collector since the start of the JVM.
+     */
+    private static long gcCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return the time spent in every collector since the start of the JVM, in milliseconds.
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Writes the results as a JSON array with an entry per benchmark.
+     * @param writer the writer of the JSON.
+     * @param commit the commit the results were measured on.
+     * @throws IOException if writing fails.
+     */
+    public void writeJson(Writer writer, String commit) throws IOException {
+        writer.write("[\n");
+        for(int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            writer.write("  {\n");
+            writer.write("    \"benchmark\": " + quote(result.name) + ",\n");
+            writer.write("    \"commit\": " + quote(commit) + ",\n");
+            writer.write("    \"mode\": \"avgt\",\n");
+            writer.write("    \"params\": {");
+            int param = 0;
+            for(Map.Entry<String, String> entry : result.params.entrySet()) {
+                writer.write((param++ == 0 ? "" : ", ") + quote(entry.getKey()) + ": " + quote(entry.getValue()));
+            }
+            writer.write("},\n");
+            writer.write("    \"operations\": " + result.operations + ",\n");
+            writer.write("    \"primaryMetric\": {\"score\": " + number(result.score()) + ", \"scoreError\": " +
+                    number(result.scoreError()) + ", \"scoreUnit\": \"ns/op\", \"rawData\": [");
+            for(int iteration = 0; iteration < result.nanosPerOp.length; iteration++) {
+                writer.write((iteration == 0 ? "" : ", ") + number(result.nanosPerOp[iteration]));
+            }
+            writer.write("]},\n");
+            writer.write("    \"secondaryMetrics\": {\n");
+            writer.write("      \"gc.alloc.rate.norm\": {\"score\": " + number(result.bytesPerOp) +
+                    ", \"scoreUnit\": \"B/op\"},\n");
+            writer.write("      \"gc.count\": {\"score\": " + result.gcCount + ", \"scoreUnit\": \"counts\"},\n");
+            writer.write("      \"gc.time\": {\"score\": " + result.gcMillis + ", \"scoreUnit\": \"ms\"}\n");
+            writer.write("    }\n");
+            writer.write(i == results.size() - 1 ? "  }\n" : "  },\n");
+        }
+        writer.write("]\n");
+    }
+
+    /**
+     * @return the value as a JSON number, or null if it isn't a finite number.
+     */
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.valueOf(value) : "null";
+    }
+
+    /**
+     * @return the value as a JSON string.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for(char c : value.toCharArray()) {
+            if(c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if(c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
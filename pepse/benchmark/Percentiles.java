@@ -0,0 +1,51 @@
+package pepse.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * The distribution of a series of samples, such as the times of the frames of a run: its mean, percentiles and
+ * maximum. The samples are sorted once, when the Percentiles are created.
+ */
+public class Percentiles {
+    private final long[] sorted; // The samples, in increasing order
+
+    /**
+     * Constructs new Percentiles of a series of samples.
+     * @param samples the samples, which are not changed.
+     */
+    public Percentiles(long[] samples) {
+        sorted = samples.clone();
+        Arrays.sort(sorted);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the smallest sample that is greater than or equal to the given percent of the samples.
+     */
+    public long percentile(double percentile) {
+        if(sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+
+    /**
+     * @return the mean of the samples.
+     */
+    public double mean() {
+        return sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0);
+    }
+
+    /**
+     * @return the largest sample.
+     */
+    public long max() {
+        return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+    }
+
+    /**
+     * @return the number of samples.
+     */
+    public int count() {
+        return sorted.length;
+    }
+}
@@ -0,0 +1,43 @@
+package pepse.benchmark;
+
+import pepse.util.FrameProfiler;
+
+import java.util.Collections;
+
+/**
+ * Measures the cost of the scopes of the frame profiler, disabled and enabled, and prints it as a share of a frame
+ * of 60 frames per second for the number of scopes a frame of the game runs. The disabled cost is the one every
+ * frame pays while the overlay is hidden.
+ * Usage: java pepse.benchmark.ProfilerOverheadBenchmark [scopes per frame]
+ */
+public class ProfilerOverheadBenchmark {
+    private static final int DEFAULT_SCOPES_PER_FRAME = 2000; // Scopes of the busy layers plus the phases
+    private static final double FRAME_NANOS = 1e9 / 60;
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of scopes a frame runs.
+     */
+    public static void main(String[] args) {
+        int scopesPerFrame = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SCOPES_PER_FRAME;
+        MicroBenchmark benchmark = new MicroBenchmark(5, 10, 200);
+        report(benchmark, "profiler.scope.disabled", false, scopesPerFrame);
+        report(benchmark, "profiler.scope.enabled", true, scopesPerFrame);
+    }
+
+    /**
+     * Benchmarks a scope of a profiler and prints its share of a frame.
+     */
+    private static void report(MicroBenchmark benchmark, String name, boolean enabled, int scopesPerFrame) {
+        FrameProfiler profiler = new FrameProfiler(1);
+        profiler.setEnabled(enabled);
+        profiler.beginFrame();
+        MicroBenchmark.Result result = benchmark.timed(name, Collections.emptyMap(), blackhole -> {
+            long start = profiler.start();
+            blackhole.consume(start);
+            profiler.stop(FrameProfiler.Phase.ZOMBIES, start);
+        });
+        System.out.printf("  %d scopes per frame: %.4f%% of a 60 Hz frame%n", scopesPerFrame,
+                100 * result.score() * scopesPerFrame / FRAME_NANOS);
+    }
+}
@@ -0,0 +1,89 @@
+package pepse.benchmark;
+
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+import pepse.world.WorldSettings;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A benchmark of the quick-save and the quick-load. It builds the world of a PepseGameManager headless, runs it with
+ * the avatar running right and shooting until the window is full of objects, then times quick-saves of the world
+ * and quick-loads of the save, with a few frames between them. The quick-save is considered fast enough when its
+ * 99th percentile stays under SAVE_BUDGET_MILLIS.
+ * Usage: java pepse.benchmark.QuickSaveBenchmark [saves] [window width] [leaf probability]
+ */
+public class QuickSaveBenchmark {
+    private static final int DEFAULT_SAVES = 200;
+    private static final int WARMUP_SAVES = 50;
+    private static final int FRAMES_BEFORE_SAVES = 600;
+    private static final int FRAMES_BETWEEN_SAVES = 10;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final int DEFAULT_WINDOW_WIDTH = 1600;
+    private static final int WINDOW_HEIGHT = 900;
+    private static final double SAVE_BUDGET_MILLIS = 5;
+    private static final String QUICK_SAVE_PROPERTY = "pepse.quickSave";
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of measured saves, the width of the window and the probability of the leaves.
+     * @throws IOException if the temporary save can't be created.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int saves = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SAVES;
+        int windowWidth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WINDOW_WIDTH;
+        WorldSettings defaults = WorldSettings.DEFAULT;
+        WorldSettings settings = new WorldSettings(defaults.treeProbability(),
+                args.length > 2 ? Double.parseDouble(args[2]) : defaults.leafProbability(),
+                defaults.zombieProbability(), defaults.terrainDepth());
+        File saveFile = File.createTempFile("pepse-quicksave", ".bin");
+        saveFile.deleteOnExit();
+        System.setProperty(QUICK_SAVE_PROPERTY, saveFile.getPath());
+
+        PepseGameManager game = new PepseGameManager(settings);
+        HeadlessRunner runner = new HeadlessRunner(game, new Vector2(windowWidth, WINDOW_HEIGHT),
+                ScriptedInput.runAndShoot(), true);
+        runner.start();
+        runner.run(FRAMES_BEFORE_SAVES, DELTA_TIME);
+        for(int i = 0; i < WARMUP_SAVES; i++) {
+            game.quickSave();
+            game.quickLoad();
+            runner.run(FRAMES_BETWEEN_SAVES, DELTA_TIME);
+        }
+
+        long[] saveNanos = new long[saves];
+        long[] loadNanos = new long[saves];
+        int bytes = 0;
+        for(int i = 0; i < saves; i++) {
+            long start = System.nanoTime();
+            bytes = game.quickSave();
+            saveNanos[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            game.quickLoad();
+            loadNanos[i] = System.nanoTime() - start;
+            runner.run(FRAMES_BETWEEN_SAVES, DELTA_TIME);
+        }
+        report(settings, windowWidth, bytes, new Percentiles(saveNanos), new Percentiles(loadNanos),
+                game.countObjectsPerLayer().toString());
+    }
+
+    /**
+     * Prints the report of a run.
+     */
+    private static void report(WorldSettings settings, int windowWidth, int bytes, Percentiles saveNanos,
+                               Percentiles loadNanos, String counts) {
+        System.out.printf("%s width=%d saves=%d save bytes=%d%n", settings, windowWidth, saveNanos.count(), bytes);
+        System.out.printf("  save ms: mean=%.3f p50=%.3f p99=%.3f max=%.3f%n", saveNanos.mean() / 1e6,
+                saveNanos.percentile(50) / 1e6, saveNanos.percentile(99) / 1e6, saveNanos.max() / 1e6);
+        System.out.printf("  load ms: mean=%.3f p50=%.3f p99=%.3f max=%.3f%n", loadNanos.mean() / 1e6,
+                loadNanos.percentile(50) / 1e6, loadNanos.percentile(99) / 1e6, loadNanos.max() / 1e6);
+        System.out.printf("  objects: %s%n", counts);
+        double p99 = saveNanos.percentile(99) / 1e6;
+        System.out.printf("  save p99 %.3f ms %s the %.0f ms budget%n", p99,
+                p99 <= SAVE_BUDGET_MILLIS ? "fits" : "exceeds", SAVE_BUDGET_MILLIS);
+    }
+}
@@ -0,0 +1,284 @@
+package pepse.benchmark;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+import pepse.replay.SessionHeader;
+import pepse.world.trees.StickyNoteLeaf;
+import pepse.world.zombies.KillRegistry;
+
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A performance regression suite that replays canonical sessions of the game headless and compares their frame
+ * time percentiles and allocation rate with stored baselines. A session is the recorded log of a game, replayed
+ * through the input session of the game, so every run plays the same frames with the same random numbers. The
+ * canonical sessions are written from scripts the first time the suite runs; a session recorded by a player with
+ * -Dpepse.record in a 1600x900 window can replace any of them in the sessions directory.
+ * Every session is replayed once to warm up and then a number of times whose frames are measured together. In
+ * compare mode a session regresses when a percentile or the allocation rate is higher than its baseline by more
+ * than the tolerance, and the suite exits with status 1; in baseline mode the measures are stored as the new
+ * baselines. The frame tolerance is set by -Dpepse.suite.frameTolerance and the allocation tolerance by
+ * -Dpepse.suite.allocTolerance, as a share of the baseline.
+ * The mouse is not recorded in the sessions, so the leaf clicking session clicks the leaves from the suite, with
+ * the right button, between the frames.
+ * Usage: java pepse.benchmark.ReplayRegressionSuite [compare|baseline] [runs] [baselines file] [sessions dir]
+ */
+public class ReplayRegressionSuite {
+    private static final int DEFAULT_RUNS = 5;
+    private static final String DEFAULT_BASELINES = "benchmarks/replay-baselines.properties";
+    private static final String DEFAULT_SESSIONS = "benchmarks/sessions";
+    private static final String SESSION_EXTENSION = ".session";
+    private static final String REPLAY_PROPERTY = "pepse.replay";
+    private static final String FRAME_TOLERANCE_PROPERTY = "pepse.suite.frameTolerance";
+    private static final String ALLOC_TOLERANCE_PROPERTY = "pepse.suite.allocTolerance";
+    private static final double DEFAULT_FRAME_TOLERANCE = 0.15;
+    private static final double DEFAULT_ALLOC_TOLERANCE = 0.10;
+    // A frame time closer than this to its baseline never regresses, the timer is noisy below it
+    private static final double FRAME_SLACK_MILLIS = 0.05;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final int WORLD_SEED = 42; // Seed of the world of the scripted sessions
+    private static final long RANDOM_SEED = 1; // Seed of the random generators of the scripted sessions
+    private static final int LEAVES_CLICKED_PER_FRAME = 4;
+    private static final int MEASURES = 4;
+    private static final String[] MEASURE_NAMES = {"frameP50Ms", "frameP95Ms", "frameP99Ms", "allocBytesPerFrame"};
+    private static final List<Scenario> SCENARIOS = Arrays.asList(
+            // Streams new terrain, trees and zombies in at a steady rate
+            new Scenario("runRight", 3000, 0, (frame, keyCode) -> keyCode == KeyEvent.VK_RIGHT),
+            // Turns around every 40 frames at the edge of the world, streaming and evicting the same columns
+            new Scenario("chunkBoundary", 3000, 0, (frame, keyCode) -> {
+                boolean right = frame < 120 || (frame - 120) / 40 % 2 == 1;
+                return keyCode == (right ? KeyEvent.VK_RIGHT : KeyEvent.VK_LEFT);
+            }),
+            // Shoots every frame, walking right a third of the time to meet new zombies
+            new Scenario("sustainedFiring", 3000, 0, (frame, keyCode) -> {
+                switch(keyCode) {
+                    case KeyEvent.VK_ENTER:
+                        return true;
+                    case KeyEvent.VK_RIGHT:
+                        return frame % 180 < 60;
+                    default:
+                        return false;
+                }
+            }),
+            // Flies right and shoots bullet planes, then lands to get the energy back
+            new Scenario("flyingPlanes", 3000, 0, (frame, keyCode) -> {
+                long phase = frame % 240;
+                switch(keyCode) {
+                    case KeyEvent.VK_RIGHT:
+                        return true;
+                    case KeyEvent.VK_SPACE:
+                    case KeyEvent.VK_SHIFT:
+                        return phase < 90;
+                    case KeyEvent.VK_ENTER:
+                        return phase > 10 && phase < 90 && phase % 10 < 5;
+                    default:
+                        return false;
+                }
+            }),
+            // Walks slowly through the forest while the suite clicks the leaves off the trees
+            new Scenario("leafClicking", 3000, LEAVES_CLICKED_PER_FRAME,
+                    (frame, keyCode) -> keyCode == KeyEvent.VK_RIGHT && frame % 120 < 30)
+    );
+
+    /**
+     * Runs the suite.
+     * @param args the mode, see the usage.
+     * @throws IOException if a session or the baselines can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        boolean storeBaselines = args.length > 0 && args[0].equals("baseline");
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        File baselinesFile = new File(args.length > 2 ? args[2] : DEFAULT_BASELINES);
+        File sessions = new File(args.length > 3 ? args[3] : DEFAULT_SESSIONS);
+        double frameTolerance = doubleProperty(FRAME_TOLERANCE_PROPERTY, DEFAULT_FRAME_TOLERANCE);
+        double allocTolerance = doubleProperty(ALLOC_TOLERANCE_PROPERTY, DEFAULT_ALLOC_TOLERANCE);
+        Properties baselines = new Properties();
+        if(baselinesFile.exists()) {
+            try(Reader in = new FileReader(baselinesFile)) {
+                baselines.load(in);
+            }
+        }
+        sessions.mkdirs();
+        int regressions = 0;
+        for(Scenario scenario : SCENARIOS) {
+            File session = new File(sessions, scenario.name + SESSION_EXTENSION);
+            if(!session.exists()) {
+                new ScriptedInput(scenario.script).writeSession(session.getPath(), new SessionHeader(WORLD_SEED,
+                        Math.round(1 / DELTA_TIME), WINDOW_DIMENSIONS.x(), WINDOW_DIMENSIONS.y(), RANDOM_SEED,
+                        Collections.emptyList(), new KillRegistry()), scenario.frames, DELTA_TIME);
+            }
+            replay(scenario, session);
+            List<long[]> frameNanos = new ArrayList<>();
+            List<long[]> frameBytes = new ArrayList<>();
+            for(int run = 0; run < runs; run++) {
+                long[][] measured = replay(scenario, session);
+                frameNanos.add(measured[0]);
+                frameBytes.add(measured[1]);
+            }
+            Percentiles frames = new Percentiles(concat(frameNanos));
+            double[] measures = {frames.percentile(50) / 1e6, frames.percentile(95) / 1e6,
+                    frames.percentile(99) / 1e6, new Percentiles(concat(frameBytes)).mean()};
+            regressions += report(scenario.name, frames.count(), measures, baselines, frameTolerance,
+                    allocTolerance);
+            if(storeBaselines) {
+                for(int i = 0; i < MEASURES; i++) {
+                    baselines.setProperty(scenario.name + "." + MEASURE_NAMES[i], String.format("%.4f", measures[i]));
+                }
+            }
+        }
+        if(storeBaselines) {
+            File parent = baselinesFile.getAbsoluteFile().getParentFile();
+            parent.mkdirs();
+            try(Writer out = new FileWriter(baselinesFile)) {
+                baselines.store(out, "Baselines of pepse.benchmark.ReplayRegressionSuite, " + runs + " runs");
+            }
+            System.out.println("Stored the baselines in " + baselinesFile);
+            return;
+        }
+        System.out.printf("%d of %d scenarios regressed%n", regressions, SCENARIOS.size());
+        if(regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Replays a session in a new game until it ends, or for the frames of its scenario when it is longer.
+     * @return the time and the bytes allocated of every frame, in two arrays.
+     */
+    private static long[][] replay(Scenario scenario, File session) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        System.setProperty(REPLAY_PROPERTY, session.getPath());
+        PepseGameManager game = new PepseGameManager();
+        HeadlessRunner runner = new HeadlessRunner(game, WINDOW_DIMENSIONS, ScriptedInput.idle(), true);
+        try {
+            runner.start();
+        } finally {
+            System.clearProperty(REPLAY_PROPERTY);
+        }
+        Set<GameObject> clicked = Collections.newSetFromMap(new IdentityHashMap<>());
+        long[] frameNanos = new long[scenario.frames];
+        long[] frameBytes = new long[scenario.frames];
+        int measured = 0;
+        while(measured < scenario.frames) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            runner.step(DELTA_TIME);
+            long nanos = System.nanoTime() - start;
+            long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            if(runner.isClosed()) break; // The frame that found the end of the session
+            frameNanos[measured] = nanos;
+            frameBytes[measured] = bytes;
+            measured++;
+            clickLeaves(game, scenario.leavesClickedPerFrame, clicked);
+        }
+        return new long[][]{Arrays.copyOf(frameNanos, measured), Arrays.copyOf(frameBytes, measured)};
+    }
+
+    /**
+     * Clicks leaves of the world that were not clicked yet with the right button, which drops them.
+     */
+    private static void clickLeaves(PepseGameManager game, int leaves, Set<GameObject> clicked) {
+        if(leaves == 0) return;
+        for(GameObject obj : game.gameObjects()) {
+            if(obj instanceof StickyNoteLeaf && clicked.add(obj)) {
+                ((StickyNoteLeaf) obj).onRightClick();
+                if(--leaves == 0) return;
+            }
+        }
+    }
+
+    /**
+     * Prints the measures of a scenario next to their baselines.
+     * @return 1 if a measure regressed, 0 otherwise.
+     */
+    private static int report(String name, int frames, double[] measures, Properties baselines,
+                              double frameTolerance, double allocTolerance) {
+        System.out.printf("%s (%d frames)%n", name, frames);
+        boolean regressed = false;
+        for(int i = 0; i < MEASURES; i++) {
+            String baselineValue = baselines.getProperty(name + "." + MEASURE_NAMES[i]);
+            if(baselineValue == null) {
+                System.out.printf("  %-20s %12.3f  no baseline%n", MEASURE_NAMES[i], measures[i]);
+                continue;
+            }
+            double baseline = Double.parseDouble(baselineValue);
+            boolean isFrame = i < MEASURES - 1;
+            double limit = baseline * (1 + (isFrame ? frameTolerance : allocTolerance));
+            if(isFrame) {
+                limit = Math.max(limit, baseline + FRAME_SLACK_MILLIS);
+            }
+            boolean measureRegressed = measures[i] > limit;
+            regressed |= measureRegressed;
+            System.out.printf("  %-20s %12.3f  baseline %12.3f  %+6.1f%%  %s%n", MEASURE_NAMES[i], measures[i],
+                    baseline, baseline == 0 ? 0 : 100 * (measures[i] - baseline) / baseline,
+                    measureRegressed ? "REGRESSED" : "ok");
+        }
+        return regressed ? 1 : 0;
+    }
+
+    /**
+     * @return the samples of all the runs in a single array.
+     */
+    private static long[] concat(List<long[]> runs) {
+        int length = 0;
+        for(long[] run : runs) {
+            length += run.length;
+        }
+        long[] all = new long[length];
+        int offset = 0;
+        for(long[] run : runs) {
+            System.arraycopy(run, 0, all, offset, run.length);
+            offset += run.length;
+        }
+        return all;
+    }
+
+    /**
+     * @return the value of a system property as a double, or the default value when it is not set.
+     */
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * A canonical session: the script it is written from, its length and the leaves the suite clicks per frame.
+     */
+    private static class Scenario {
+        private final String name;
+        private final int frames;
+        private final int leavesClickedPerFrame;
+        private final ScriptedInput.Script script;
+
+        /**
+         * Constructs a new Scenario.
+         */
+        Scenario(String name, int frames, int leavesClickedPerFrame, ScriptedInput.Script script) {
+            this.name = name;
+            this.frames = frames;
+            this.leavesClickedPerFrame = leavesClickedPerFrame;
+            this.script = script;
+        }
+    }
+}
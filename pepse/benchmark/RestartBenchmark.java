@@ -0,0 +1,73 @@
+package pepse.benchmark;
+
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+
+/**
+ * A benchmark of "Play again". It runs the game of a PepseGameManager headless with the avatar running right and
+ * shooting, then times restarts of the game up to the end of their first frame: warm restarts, which reset the game
+ * in place, and cold restarts, which initialize it again like the window does. A few frames are run before every
+ * restart, so the world has streamed and changed. The warm restart is considered fast enough when its 99th
+ * percentile stays under RESTART_BUDGET_MILLIS.
+ * Usage: java pepse.benchmark.RestartBenchmark [restarts] [frames before a restart]
+ */
+public class RestartBenchmark {
+    private static final int DEFAULT_RESTARTS = 100;
+    private static final int WARMUP_RESTARTS = 20;
+    private static final int DEFAULT_FRAMES_BEFORE_RESTART = 300;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final double RESTART_BUDGET_MILLIS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args the number of measured restarts of each kind and the number of frames before a restart.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int restarts = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RESTARTS;
+        int framesBeforeRestart = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES_BEFORE_RESTART;
+
+        PepseGameManager game = new PepseGameManager();
+        HeadlessRunner runner = new HeadlessRunner(game, WINDOW_DIMENSIONS, ScriptedInput.runAndShoot(), true);
+        runner.start();
+        for(int i = 0; i < WARMUP_RESTARTS; i++) {
+            runner.run(framesBeforeRestart, DELTA_TIME);
+            game.restartGame();
+            runner.run(framesBeforeRestart, DELTA_TIME);
+            runner.start();
+        }
+
+        long[] warmNanos = new long[restarts];
+        long[] coldNanos = new long[restarts];
+        for(int i = 0; i < restarts; i++) {
+            runner.run(framesBeforeRestart, DELTA_TIME);
+            long start = System.nanoTime();
+            game.restartGame();
+            runner.step(DELTA_TIME);
+            warmNanos[i] = System.nanoTime() - start;
+            runner.run(framesBeforeRestart, DELTA_TIME);
+            start = System.nanoTime();
+            runner.start();
+            runner.step(DELTA_TIME);
+            coldNanos[i] = System.nanoTime() - start;
+        }
+        report(framesBeforeRestart, new Percentiles(warmNanos), new Percentiles(coldNanos));
+    }
+
+    /**
+     * Prints the report of a run.
+     */
+    private static void report(int framesBeforeRestart, Percentiles warmNanos, Percentiles coldNanos) {
+        System.out.printf("restarts=%d frames before a restart=%d%n", warmNanos.count(), framesBeforeRestart);
+        System.out.printf("  warm ms: mean=%.3f p50=%.3f p99=%.3f max=%.3f%n", warmNanos.mean() / 1e6,
+                warmNanos.percentile(50) / 1e6, warmNanos.percentile(99) / 1e6, warmNanos.max() / 1e6);
+        System.out.printf("  cold ms: mean=%.3f p50=%.3f p99=%.3f max=%.3f%n", coldNanos.mean() / 1e6,
+                coldNanos.percentile(50) / 1e6, coldNanos.percentile(99) / 1e6, coldNanos.max() / 1e6);
+        double p99 = warmNanos.percentile(99) / 1e6;
+        System.out.printf("  warm p99 %.3f ms %s the %.0f ms budget%n", p99,
+                p99 <= RESTART_BUDGET_MILLIS ? "fits" : "exceeds", RESTART_BUDGET_MILLIS);
+    }
+}
@@ -0,0 +1,84 @@
+package pepse.benchmark;
+
+import danogl.GameObject;
+import danogl.components.GameObjectPhysics;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.world.Block;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * A benchmark of the update loop over a world of static blocks. It updates the same number of blocks as plain
+ * game objects (the way blocks were updated before they skipped their update) and as Blocks, and reports the time
+ * of a pass over all of them.
+ * Usage: java pepse.benchmark.StaticBlockUpdateBenchmark [blocks] [frames]
+ */
+public class StaticBlockUpdateBenchmark {
+    private static final int DEFAULT_BLOCKS = 20_000;
+    private static final int DEFAULT_FRAMES = 600;
+    private static final int WARMUP_FRAMES = 300;
+    private static final int BLOCKS_PER_ROW = 500;
+    private static final float DELTA_TIME = 1f / 60;
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of blocks and number of measured frames.
+     */
+    public static void main(String[] args) {
+        int blocks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BLOCKS;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+        Renderable renderable = new RectangleRenderable(Color.GRAY);
+        GameObject[] before = new GameObject[blocks];
+        GameObject[] after = new GameObject[blocks];
+        for(int i = 0; i < blocks; i++) {
+            Vector2 topLeftCorner = new Vector2(i % BLOCKS_PER_ROW, i / BLOCKS_PER_ROW).mult(Block.SIZE);
+            before[i] = new GameObject(topLeftCorner, Vector2.ONES.mult(Block.SIZE), renderable);
+            before[i].physics().preventIntersectionsFromDirection(Vector2.ZERO);
+            before[i].physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
+            after[i] = new Block(topLeftCorner, renderable);
+        }
+        report("before (GameObject.update)", blocks, measure(before, frames));
+        report("after (Block.update)", blocks, measure(after, frames));
+    }
+
+    /**
+     * Updates all the blocks once per frame.
+     * @return the time of every measured frame, in nanoseconds.
+     */
+    private static long[] measure(GameObject[] blocks, int frames) {
+        for(int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            updateAll(blocks);
+        }
+        long[] frameNanos = new long[frames];
+        for(int frame = 0; frame < frames; frame++) {
+            long start = System.nanoTime();
+            updateAll(blocks);
+            frameNanos[frame] = System.nanoTime() - start;
+        }
+        return frameNanos;
+    }
+
+    /**
+     * Updates every block, like the update loop of the game objects collection.
+     */
+    private static void updateAll(GameObject[] blocks) {
+        for(GameObject block : blocks) {
+            block.update(DELTA_TIME);
+        }
+    }
+
+    /**
+     * Prints the percentiles of the time of a pass over all the blocks.
+     */
+    private static void report(String name, int blocks, long[] frameNanos) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1e6;
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        double p99 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)] / 1e6;
+        System.out.printf("%s: blocks=%d update ms: mean=%.3f p50=%.3f p99=%.3f%n", name, blocks, mean, p50, p99);
+    }
+}
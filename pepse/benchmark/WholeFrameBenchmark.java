@@ -0,0 +1,123 @@
+package pepse.benchmark;
+
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+import pepse.world.WorldSettings;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A macro benchmark of whole frames of the game. It builds the world of a PepseGameManager headless with the given
+ * densities and window width, steps it for a number of frames with the avatar running right and shooting, and
+ * reports the percentiles of the frame time, the bytes allocated per frame and the objects alive in every layer.
+ * In sweep mode it runs the same scenario with the trees, leaves and zombies scaled up, which draws the scaling
+ * curve of the game with its number of objects.
+ * Usage: java pepse.benchmark.WholeFrameBenchmark [frames] [window width] [tree] [leaf] [zombie] [terrain depth]
+ *        java pepse.benchmark.WholeFrameBenchmark sweep [frames]
+ */
+public class WholeFrameBenchmark {
+    private static final int DEFAULT_FRAMES = 3000; // Shorter than a game, so the measured run never restarts
+    private static final int WARMUP_FRAMES = 1200;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final int DEFAULT_WINDOW_WIDTH = 1600;
+    private static final int WINDOW_HEIGHT = 900;
+    private static final int COUNT_EVERY_FRAMES = 60;
+    private static final double[] SWEEP_SCALES = {0.5, 1, 2, 4, 8};
+
+    /**
+     * Runs the benchmark.
+     * @param args the scenario, see the usage.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        WorldSettings defaults = WorldSettings.DEFAULT;
+        if(args.length > 0 && args[0].equals("sweep")) {
+            int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+            for(double scale : SWEEP_SCALES) {
+                run(new WorldSettings(Math.min(1, defaults.treeProbability() * scale),
+                        Math.min(1, defaults.leafProbability() * scale),
+                        Math.min(1, defaults.zombieProbability() * scale),
+                        defaults.terrainDepth()), DEFAULT_WINDOW_WIDTH, frames);
+            }
+            return;
+        }
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        int windowWidth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WINDOW_WIDTH;
+        WorldSettings settings = new WorldSettings(
+                args.length > 2 ? Double.parseDouble(args[2]) : defaults.treeProbability(),
+                args.length > 3 ? Double.parseDouble(args[3]) : defaults.leafProbability(),
+                args.length > 4 ? Double.parseDouble(args[4]) : defaults.zombieProbability(),
+                args.length > 5 ? Integer.parseInt(args[5]) : defaults.terrainDepth());
+        run(settings, windowWidth, frames);
+    }
+
+    /**
+     * Warms up on a first game, then measures the frames of a second game with the same settings and prints the
+     * report.
+     */
+    private static void run(WorldSettings settings, int windowWidth, int frames) {
+        Vector2 windowDimensions = new Vector2(windowWidth, WINDOW_HEIGHT);
+        HeadlessRunner warmup = new HeadlessRunner(new PepseGameManager(settings), windowDimensions,
+                ScriptedInput.runAndShoot(), true);
+        warmup.start();
+        warmup.run(WARMUP_FRAMES, DELTA_TIME);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        PepseGameManager game = new PepseGameManager(settings);
+        HeadlessRunner runner = new HeadlessRunner(game, windowDimensions, ScriptedInput.runAndShoot(), true);
+        long initStart = System.nanoTime();
+        runner.start();
+        long initNanos = System.nanoTime() - initStart;
+        long[] frameNanos = new long[frames];
+        long[] frameBytes = new long[frames];
+        int maxObjects = 0;
+        int measured = 0;
+        for(; measured < frames && !runner.isClosed(); measured++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            runner.step(DELTA_TIME);
+            frameNanos[measured] = System.nanoTime() - start;
+            frameBytes[measured] = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            if(measured % COUNT_EVERY_FRAMES == 0) {
+                maxObjects = Math.max(maxObjects, total(game.countObjectsPerLayer()));
+            }
+        }
+        Map<String, Integer> counts = game.countObjectsPerLayer();
+        report(settings, windowWidth, measured, initNanos, new Percentiles(Arrays.copyOf(frameNanos, measured)),
+                new Percentiles(Arrays.copyOf(frameBytes, measured)), runner.resets(), counts,
+                Math.max(maxObjects, total(counts)));
+    }
+
+    /**
+     * @return the sum of the counts.
+     */
+    private static int total(Map<String, Integer> counts) {
+        int total = 0;
+        for(int count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Prints the report of a run.
+     */
+    private static void report(WorldSettings settings, int windowWidth, int frames, long initNanos,
+                               Percentiles frameNanos, Percentiles frameBytes, int resets,
+                               Map<String, Integer> counts, int maxObjects) {
+        System.out.printf("%s width=%d frames=%d resets=%d init ms=%.1f%n", settings, windowWidth, frames, resets,
+                initNanos / 1e6);
+        System.out.printf("  frame ms: mean=%.3f p50=%.3f p95=%.3f p99=%.3f max=%.3f%n",
+                frameNanos.mean() / 1e6, frameNanos.percentile(50) / 1e6, frameNanos.percentile(95) / 1e6,
+                frameNanos.percentile(99) / 1e6, frameNanos.max() / 1e6);
+        System.out.printf("  alloc bytes/frame: mean=%.0f p50=%d p99=%d max=%d%n", frameBytes.mean(),
+                frameBytes.percentile(50), frameBytes.percentile(99), frameBytes.max());
+        System.out.printf("  objects: total=%d max=%d %s%n", total(counts), maxObjects, counts);
+    }
+}
@@ -0,0 +1,235 @@
+package pepse.benchmark;
+
+import danogl.GameManager;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.Transition;
+import danogl.util.Vector2;
+import pepse.headless.HeadlessRunner;
+import pepse.headless.ScriptedInput;
+import pepse.util.ColorSupplier;
+import pepse.util.GameStat;
+import pepse.util.PerlinNoise;
+import pepse.util.SegmentCompletion;
+import pepse.world.Block;
+import pepse.world.Skill;
+import pepse.world.Terrain;
+import pepse.world.TerrainHeightfield;
+import pepse.world.WorldSettings;
+import pepse.world.trees.Tree;
+import pepse.world.zombies.KillRegistry;
+import pepse.world.zombies.ZombieAiScheduler;
+import pepse.world.zombies.ZombiePool;
+import pepse.world.zombies.Zombies;
+
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Micro benchmarks of the hot paths of the world generation: the Perlin noise in one, two and three dimensions,
+ * the height of the ground, the creation of the terrain, trees and zombies of ranges of several widths, the
+ * segment completion, the color supplier and the animation of a skill. The worlds are built by the headless
+ * runner, so the benchmarks need no display. The results are printed and written as JSON.
+ * Usage: java pepse.benchmark.WorldGenerationBenchmark [output.json] [group regex]
+ * The groups are perlin, terrain, tree, zombies, util and skill.
+ */
+public class WorldGenerationBenchmark {
+    private static final String DEFAULT_OUTPUT = "world-generation-benchmark.json";
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_MILLIS = 200;
+    private static final int RANGES_PER_ITERATION = 10;
+    private static final int[] RANGE_WIDTHS = {16 * Block.SIZE, 1600, 3 * 1600}; // A chunk, a window, three
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final int SEED = 1234;
+    private static final int LAYER = 0;
+    private static final String[] SKILL_IMAGES = {"frame0", "frame1", "frame2", "frame3", "frame4", "frame5"};
+
+    /**
+     * Runs the groups of benchmarks that match the filter and writes their results.
+     * @param args optional path of the JSON output and regular expression filtering the groups of benchmarks.
+     * @throws IOException if the results can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        String output = args.length > 0 ? args[0] : DEFAULT_OUTPUT;
+        Pattern filter = Pattern.compile(args.length > 1 ? args[1] : ".*");
+        MicroBenchmark benchmark = new MicroBenchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, ITERATION_MILLIS);
+        if(filter.matcher("perlin").find()) perlin(benchmark);
+        if(filter.matcher("terrain").find()) terrain(benchmark);
+        if(filter.matcher("tree").find()) trees(benchmark);
+        if(filter.matcher("zombies").find()) zombies(benchmark);
+        if(filter.matcher("util").find()) util(benchmark);
+        if(filter.matcher("skill").find()) skill(benchmark);
+        try(Writer writer = new FileWriter(output)) {
+            benchmark.writeJson(writer, commit());
+        }
+        System.out.println("Results written to " + output);
+    }
+
+    /**
+     * The Perlin noise in one, two and three dimensions, along a line of the world.
+     */
+    private static void perlin(MicroBenchmark benchmark) {
+        PerlinNoise perlin = new PerlinNoise(SEED);
+        double[] x = {0};
+        benchmark.timed("perlin.noise1D", Collections.emptyMap(), blackhole -> {
+            blackhole.consume(perlin.noise(x[0] += 0.37));
+        });
+        benchmark.timed("perlin.noise2D", Collections.emptyMap(), blackhole -> {
+            blackhole.consume(perlin.noise(x[0] += 0.37, 1.5));
+        });
+        benchmark.timed("perlin.noise3D", Collections.emptyMap(), blackhole -> {
+            blackhole.consume(perlin.noise(x[0] += 0.37, 1.5, 2.5));
+        });
+    }
+
+    /**
+     * The height of the ground at a column, and the creation of the terrain of ranges of several widths.
+     */
+    private static void terrain(MicroBenchmark benchmark) {
+        Terrain heights = new Terrain(null, LAYER, WINDOW_DIMENSIONS, SEED);
+        float[] x = {0};
+        benchmark.timed("terrain.groundHeightAt", Collections.emptyMap(), blackhole -> {
+            blackhole.consume(heights.groundHeightAt(x[0] += Block.SIZE));
+        });
+        for(int width : RANGE_WIDTHS) {
+            benchmark.batched("terrain.createInRange", Map.of("width", String.valueOf(width)), () -> {
+                Terrain terrain = new Terrain(emptyWorld(), LAYER, WINDOW_DIMENSIONS, SEED);
+                return nextRanges(width, terrain::createInRange);
+            }, RANGES_PER_ITERATION);
+        }
+    }
+
+    /**
+     * The creation of the trees of ranges of several widths.
+     */
+    private static void trees(MicroBenchmark benchmark) {
+        Terrain heights = new Terrain(null, LAYER, WINDOW_DIMENSIONS, SEED);
+        for(int width : RANGE_WIDTHS) {
+            benchmark.batched("tree.createInRange", Map.of("width", String.valueOf(width)), () -> {
+                Tree tree = new Tree(emptyWorld(), LAYER, heights::groundHeightAt, SEED, null, new ArrayList<>(),
+                        () -> {}, WorldSettings.DEFAULT);
+                return nextRanges(width, tree::createInRange);
+            }, RANGES_PER_ITERATION);
+        }
+    }
+
+    /**
+     * The creation of the zombies of ranges of several widths.
+     */
+    private static void zombies(MicroBenchmark benchmark) {
+        Terrain heights = new Terrain(null, LAYER, WINDOW_DIMENSIONS, SEED);
+        TerrainHeightfield heightfield = new TerrainHeightfield(heights::groundHeightAt);
+        for(int width : RANGE_WIDTHS) {
+            benchmark.batched("zombies.createInRange", Map.of("width", String.valueOf(width)), () -> {
+                HeadlessRunner runner = startWorld();
+                Zombies zombies = new Zombies(runner.game().gameObjects(), LAYER, heights::groundHeightAt, SEED,
+                        runner.imageReader(), new GameStat("lives", 3), new GameStat("kills", 0), heightfield,
+                        new ZombieAiScheduler(8, 500_000), new ZombiePool(64), LAYER + 1,
+                        new KillRegistry(), WorldSettings.DEFAULT);
+                return nextRanges(width, zombies::createInRange);
+            }, RANGES_PER_ITERATION);
+        }
+    }
+
+    /**
+     * The segment completion of a range and the color supplier.
+     */
+    private static void util(MicroBenchmark benchmark) {
+        int[] minX = {-7};
+        benchmark.timed("util.SegmentCompletion", Collections.emptyMap(), blackhole -> {
+            SegmentCompletion segmentCompletion = new SegmentCompletion(minX[0] += 13, minX[0] + 1600, Block.SIZE);
+            int startX = segmentCompletion.calculateStartX();
+            blackhole.consume(segmentCompletion.calculateNumberOfCols(startX) + startX);
+        });
+        Color base = new Color(212, 123, 74);
+        benchmark.timed("util.ColorSupplier.approximateColor", Collections.emptyMap(), blackhole -> {
+            blackhole.consume(ColorSupplier.approximateColor(base));
+        });
+    }
+
+    /**
+     * The animation of a looping skill, one frame at a time.
+     */
+    private static void skill(MicroBenchmark benchmark) {
+        HeadlessRunner runner = startWorld();
+        GameObject avatar = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+        Skill skill = new Skill(SKILL_IMAGES, Transition.TransitionType.TRANSITION_LOOP, runner.imageReader(),
+                avatar.renderer());
+        benchmark.timed("skill.getNextRender", Collections.emptyMap(), blackhole -> {
+            skill.getNextRender(false);
+            blackhole.consume(skill.isSkillActive() ? 1 : 0);
+        });
+    }
+
+    /**
+     * @return an operation that creates the next range of the given width on every run, walking right.
+     */
+    private static MicroBenchmark.Operation nextRanges(int width, RangeCreator creator) {
+        int[] minX = {0};
+        return blackhole -> {
+            creator.createInRange(minX[0], minX[0] + width);
+            minX[0] += width;
+        };
+    }
+
+    /**
+     * A method that creates the objects of a range, such as Terrain.createInRange.
+     */
+    @FunctionalInterface
+    private interface RangeCreator {
+        /**
+         * Creates the objects of a range.
+         * @param minX the start of the range.
+         * @param maxX the end of the range.
+         */
+        void createInRange(int minX, int maxX);
+    }
+
+    /**
+     * @return a headless world with nothing in it.
+     */
+    private static HeadlessRunner startWorld() {
+        HeadlessRunner runner = new HeadlessRunner(new GameManager(), WINDOW_DIMENSIONS, ScriptedInput.idle(),
+                false);
+        runner.start();
+        return runner;
+    }
+
+    /**
+     * @return the game objects of a new headless world.
+     */
+    private static GameObjectCollection emptyWorld() {
+        return startWorld().game().gameObjects();
+    }
+
+    /**
+     * @return the commit the benchmarks run on: the pepse.commit system property, else the HEAD of git, else
+     * "unknown".
+     */
+    private static String commit() {
+        String commit = System.getProperty("pepse.commit");
+        if(commit != null) return commit;
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "HEAD").redirectErrorStream(true).start();
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream()))) {
+                String line = reader.readLine();
+                if(git.waitFor() == 0 && line != null) return line.trim();
+            }
+        } catch (IOException e) {
+            // Not a git checkout, or git isn't installed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,156 @@
+package pepse.benchmark;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.world.Block;
+import pepse.world.Terrain;
+import pepse.world.TerrainHeightfield;
+import pepse.world.bullet.BulletInterface;
+import pepse.world.zombies.KillRegistry;
+import pepse.world.zombies.ZombieAiScheduler;
+import pepse.world.zombies.ZombieHorde;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A benchmark that steps and renders a ZombieHorde of thousands of live zombies on the real terrain, with the
+ * avatar standing in the middle of the horde and a stream of bullets flying through it, and reports the time of a
+ * frame. The horde is considered fast enough when the 99th percentile of the frame time fits a 60 FPS frame. The
+ * bytes the rendering of the horde allocates are counted apart, over the same number of frames, and must be zero.
+ * Usage: java pepse.benchmark.ZombieHordeBenchmark [zombies] [frames]
+ */
+public class ZombieHordeBenchmark {
+    private static final int DEFAULT_ZOMBIES = 5000;
+    private static final int DEFAULT_FRAMES = 1200;
+    private static final int WARMUP_FRAMES = 300;
+    private static final int BULLETS = 20;
+    private static final int ZOMBIES_PER_COLUMN = 2;
+    private static final float BULLET_SPEED = 750;
+    private static final float DELTA_TIME = 1f / 60;
+    private static final double FRAME_BUDGET_MILLIS = 1000.0 / 60;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private static final int SEED = 42;
+    private static final int AI_BUCKETS = 8;
+    private static final long AI_BUDGET_NANOS = 500_000;
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of zombies and number of measured frames.
+     */
+    public static void main(String[] args) {
+        int zombies = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ZOMBIES;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES;
+        Terrain terrain = new Terrain(null, 0, WINDOW_DIMENSIONS, SEED);
+        TerrainHeightfield heightfield = new TerrainHeightfield(terrain::groundHeightAt, 8192);
+        float worldWidth = (float) zombies / ZOMBIES_PER_COLUMN * Block.SIZE;
+
+        GameObject avatar = new GameObject(new Vector2(worldWidth / 2, heightfield.surfaceAt(worldWidth / 2) - 102),
+                new Vector2(100, 102), null);
+        List<GameObject> bullets = new ArrayList<>();
+        for(int i = 0; i < BULLETS; i++) {
+            float bulletX = worldWidth * i / BULLETS;
+            bullets.add(new BenchmarkBullet(new Vector2(bulletX, heightfield.surfaceAt(bulletX) - 50)));
+        }
+        GameStat lives = new GameStat("lives", Integer.MAX_VALUE);
+        GameStat kills = new GameStat("kills", 0);
+        ZombieAiScheduler scheduler = new ZombieAiScheduler(AI_BUCKETS, AI_BUDGET_NANOS);
+        ZombieHorde horde = new ZombieHorde(heightfield, () -> bullets, placeholderFrames(), lives, kills,
+                scheduler, new KillRegistry());
+        for(int i = 0; i < zombies; i++) {
+            float zombieX = (float) (i / ZOMBIES_PER_COLUMN) * Block.SIZE;
+            horde.spawn(new Vector2(zombieX, heightfield.surfaceAt(zombieX) - 100), i % 2 == 0);
+        }
+        horde.setAvatar(avatar);
+        Camera camera = new Camera(avatar, Vector2.ZERO, WINDOW_DIMENSIONS, WINDOW_DIMENSIONS);
+        horde.setCamera(camera);
+        BufferedImage screen = new BufferedImage((int) WINDOW_DIMENSIONS.x(), (int) WINDOW_DIMENSIONS.y(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = screen.createGraphics();
+
+        for(int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            runFrame(horde, scheduler, avatar, bullets, camera, graphics, worldWidth);
+        }
+        long[] frameNanos = new long[frames];
+        for(int frame = 0; frame < frames; frame++) {
+            long start = System.nanoTime();
+            runFrame(horde, scheduler, avatar, bullets, camera, graphics, worldWidth);
+            frameNanos[frame] = System.nanoTime() - start;
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for(int frame = 0; frame < frames; frame++) {
+            horde.render(graphics, camera);
+        }
+        long renderBytes = threads.getThreadAllocatedBytes(thread) - before;
+        graphics.dispose();
+        report(zombies, frameNanos, kills.value(), renderBytes);
+    }
+
+    /**
+     * Starts the frame of the AI, steps, moves the bullets and renders a single frame.
+     */
+    private static void runFrame(ZombieHorde horde, ZombieAiScheduler scheduler, GameObject avatar,
+                                 List<GameObject> bullets, Camera camera, Graphics2D graphics, float worldWidth) {
+        scheduler.beginFrame(avatar.getCenter().x());
+        for(GameObject bullet : bullets) {
+            float bulletX = bullet.getTopLeftCorner().x() + BULLET_SPEED * DELTA_TIME;
+            if(bulletX > worldWidth) bulletX = 0;
+            bullet.setTopLeftCorner(new Vector2(bulletX, bullet.getTopLeftCorner().y()));
+        }
+        horde.update(DELTA_TIME);
+        camera.update(DELTA_TIME);
+        horde.render(graphics, camera);
+    }
+
+    /**
+     * Prints the frame time percentiles and whether the horde fits a 60 FPS frame.
+     */
+    private static void report(int zombies, long[] frameNanos, int kills, long renderBytes) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1e6;
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        double p99 = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)] / 1e6;
+        double max = sorted[sorted.length - 1] / 1e6;
+        System.out.printf("zombies=%d frames=%d kills=%d%n", zombies, frameNanos.length, kills);
+        System.out.printf("frame ms: mean=%.3f p50=%.3f p99=%.3f max=%.3f%n", mean, p50, p99, max);
+        System.out.printf("60 FPS budget %.2f ms: %s%n", FRAME_BUDGET_MILLIS,
+                p99 <= FRAME_BUDGET_MILLIS ? "PASS" : "FAIL");
+        System.out.printf("render bytes=%d (%.3f/frame): %s%n", renderBytes, (double) renderBytes / frameNanos.length,
+                renderBytes == 0 ? "PASS" : "FAIL");
+    }
+
+    /**
+     * @return rectangle frames for every zombie state, so the benchmark needs no image files.
+     */
+    private static Renderable[][] placeholderFrames() {
+        Renderable[][] frames = new Renderable[3][];
+        Color[] colors = {Color.GREEN, Color.RED, Color.GRAY};
+        int[] images = {8, 8, 10};
+        for(int state = 0; state < frames.length; state++) {
+            frames[state] = new Renderable[images[state]];
+            Arrays.fill(frames[state], new RectangleRenderable(colors[state]));
+        }
+        return frames;
+    }
+
+    /**
+     * A bullet that is only a box, moved by the benchmark itself.
+     */
+    private static class BenchmarkBullet extends GameObject implements BulletInterface {
+        BenchmarkBullet(Vector2 topLeftCorner) {
+            super(topLeftCorner, new Vector2(12.5f, 15), null);
+        }
+    }
+}
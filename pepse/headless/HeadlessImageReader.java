@@ -0,0 +1,53 @@
+package pepse.headless;
+
+import danogl.gui.ImageReader;
+import danogl.gui.WindowController;
+import danogl.gui.rendering.ImageRenderable;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An image reader that reads nothing from disk. Every path gets a placeholder image of a single pixel, the same
+ * one every time the path is read, so the world can be built without the assets and without a display.
+ */
+public class HeadlessImageReader extends ImageReader {
+    private final Map<String, ImageRenderable> placeholders = new HashMap<>(); // Placeholder of every path read
+    private int reads; // Number of images read
+
+    /**
+     * Constructs a new HeadlessImageReader.
+     * @param windowController the window controller of the headless game.
+     */
+    public HeadlessImageReader(WindowController windowController) {
+        super(windowController);
+    }
+
+    /**
+     * Returns the placeholder image of a path.
+     * @param imageFilePath the path of the image.
+     * @param useTransparency ignored.
+     * @return the placeholder image.
+     */
+    @Override
+    public ImageRenderable readImage(String imageFilePath, boolean useTransparency) {
+        reads++;
+        return placeholders.computeIfAbsent(imageFilePath,
+                path -> new ImageRenderable(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)));
+    }
+
+    /**
+     * @return the number of images read.
+     */
+    public int reads() {
+        return reads;
+    }
+
+    /**
+     * @return the number of different paths read.
+     */
+    public int paths() {
+        return placeholders.size();
+    }
+}
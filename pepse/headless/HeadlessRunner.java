@@ -0,0 +1,191 @@
+package pepse.headless;
+
+import danogl.GameManager;
+import danogl.gui.UserInputListener;
+import danogl.gui.WindowController;
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+
+import java.awt.event.KeyEvent;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Runs a game without a window. The game is given stand-ins of the engine: an image reader that returns
+ * placeholder images, a scripted input that holds Y or N to answer the dialogs of the game, and a window controller
+ * that answers the dialogs of the window itself. The runner then updates the whole world for a number of frames as
+ * fast as the CPU allows, restarting the game when it asks for it, the way the window of the engine does.
+ * Usage: java pepse.headless.HeadlessRunner [frames] [deltaTime]
+ */
+public class HeadlessRunner {
+    private static final int DEFAULT_FRAMES = 36_000;
+    private static final float DEFAULT_DELTA_TIME = 1f / 60;
+    private static final Vector2 DEFAULT_WINDOW_DIMENSIONS = new Vector2(1600, 900);
+    private final GameManager game;
+    private final ScriptedInput input;
+    private final boolean playAgain; // Answer to every yes or no dialog
+    private final WindowController windowController;
+    private final UserInputListener listener; // Scripted input, with the answer to the dialogs held
+    private final HeadlessImageReader imageReader;
+    private boolean resetRequested; // Whether the game asked to be restarted in the last update
+    private boolean closed; // Whether the game closed its window
+    private int resets; // Number of times the game restarted
+    private int dialogs; // Number of dialogs the game opened
+    private long frames; // Number of frames run
+
+    /**
+     * Constructs a new HeadlessRunner.
+     * @param game the game to run.
+     * @param windowDimensions the dimensions of the window the game believes it has.
+     * @param input the scripted input of the game.
+     * @param playAgain the answer to every yes or no dialog, such as "Play again?".
+     */
+    public HeadlessRunner(GameManager game, Vector2 windowDimensions, ScriptedInput input, boolean playAgain) {
+        this.game = game;
+        this.input = input;
+        this.playAgain = playAgain;
+        windowController = StandIns.create(WindowController.class, (method, args) -> {
+            switch(method.getName()) {
+                case "getWindowDimensions":
+                    return windowDimensions;
+                case "openYesNoDialog":
+                    dialogs++;
+                    return this.playAgain;
+                case "showMessageBox":
+                    dialogs++;
+                    return null;
+                case "resetGame":
+                    resetRequested = true;
+                    return null;
+                case "closeWindow":
+                    closed = true;
+                    return null;
+                default:
+                    return StandIns.NOT_ANSWERED;
+            }
+        });
+        imageReader = new HeadlessImageReader(windowController);
+        UserInputListener scripted = input.listener();
+        listener = StandIns.create(UserInputListener.class, (method, args) -> {
+            if(method.getName().equals("isKeyPressed")) {
+                if((int) args[0] == KeyEvent.VK_Y) return this.playAgain;
+                if((int) args[0] == KeyEvent.VK_N) return !this.playAgain;
+            }
+            try {
+                return method.invoke(scripted, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Runs the game headless and prints how fast it ran.
+     * @param args optional number of frames and time of a frame in seconds.
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        float deltaTime = args.length > 1 ? Float.parseFloat(args[1]) : DEFAULT_DELTA_TIME;
+        HeadlessRunner runner = new HeadlessRunner(new PepseGameManager(), DEFAULT_WINDOW_DIMENSIONS,
+                ScriptedInput.runAndShoot(), true);
+        long start = System.nanoTime();
+        runner.start();
+        long initialized = System.nanoTime();
+        long ran = runner.run(frames, deltaTime);
+        long end = System.nanoTime();
+        System.out.printf("frames=%d init ms=%.1f run ms=%.1f frames/s=%.0f (%.1fx real time) resets=%d " +
+                        "dialogs=%d images=%d%n",
+                ran, (initialized - start) / 1e6, (end - initialized) / 1e6, ran / ((end - initialized) / 1e9),
+                ran * deltaTime / ((end - initialized) / 1e9), runner.resets(), runner.dialogs(),
+                runner.imageReader.paths());
+    }
+
+    /**
+     * Initializes the game, like the engine does when its window opens.
+     */
+    public void start() {
+        game.initializeGame(imageReader, null, listener, windowController);
+    }
+
+    /**
+     * Updates the game for a single frame, then restarts it if it asked to.
+     * @param deltaTime the time of the frame, in seconds.
+     * @return false once the game closed its window.
+     */
+    public boolean step(float deltaTime) {
+        if(closed) return false;
+        game.update(deltaTime);
+        input.nextFrame();
+        frames++;
+        if(resetRequested && !closed) {
+            resetRequested = false;
+            resets++;
+            start();
+        }
+        return !closed;
+    }
+
+    /**
+     * Updates the game for a number of frames, or until it closes its window.
+     * @param frameCount the number of frames.
+     * @param deltaTime the time of every frame, in seconds.
+     * @return the number of frames run.
+     */
+    public long run(long frameCount, float deltaTime) {
+        long ran = 0;
+        while(ran < frameCount && !closed) {
+            step(deltaTime);
+            ran++;
+        }
+        return ran;
+    }
+
+    /**
+     * @return the game.
+     */
+    public GameManager game() {
+        return game;
+    }
+
+    /**
+     * @return the image reader given to the game.
+     */
+    public HeadlessImageReader imageReader() {
+        return imageReader;
+    }
+
+    /**
+     * @return the scripted input of the game.
+     */
+    public ScriptedInput input() {
+        return input;
+    }
+
+    /**
+     * @return the number of frames run since the runner was created.
+     */
+    public long frames() {
+        return frames;
+    }
+
+    /**
+     * @return the number of times the game restarted.
+     */
+    public int resets() {
+        return resets;
+    }
+
+    /**
+     * @return the number of dialogs the game opened.
+     */
+    public int dialogs() {
+        return game instanceof PepseGameManager ? dialogs + ((PepseGameManager) game).dialogsOpened() : dialogs;
+    }
+
+    /**
+     * @return whether the game closed its window.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,130 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+import pepse.replay.InputSession;
+import pepse.replay.SessionHeader;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+
+/**
+ * The input of a headless game: a script tells which keys are held on every frame. The runner moves the input to
+ * the next frame before every update, and the listener it gives the game answers from the script.
+ */
+public class ScriptedInput {
+    private final Script script;
+    private final UserInputListener listener; // Stand-in given to the game
+    private long frame; // Frame the game is updating
+
+    /**
+     * A script of the keys held on every frame.
+     */
+    @FunctionalInterface
+    public interface Script {
+        /**
+         * @param frame the frame, counted from zero.
+         * @param keyCode the code of a key, as in KeyEvent.
+         * @return whether the key is held on the frame.
+         */
+        boolean isKeyPressed(long frame, int keyCode);
+    }
+
+    /**
+     * Constructs a new ScriptedInput.
+     * @param script the script of the keys held on every frame.
+     */
+    public ScriptedInput(Script script) {
+        this.script = script;
+        listener = StandIns.create(UserInputListener.class, (method, args) -> {
+            switch(method.getName()) {
+                case "isKeyPressed":
+                    return script.isKeyPressed(frame, (int) args[0]);
+                case "wasKeyPressedThisFrame":
+                    return script.isKeyPressed(frame, (int) args[0]) &&
+                            (frame == 0 || !script.isKeyPressed(frame - 1, (int) args[0]));
+                case "wasKeyReleasedThisFrame":
+                    return frame > 0 && script.isKeyPressed(frame - 1, (int) args[0]) &&
+                            !script.isKeyPressed(frame, (int) args[0]);
+                default:
+                    return StandIns.NOT_ANSWERED;
+            }
+        });
+    }
+
+    /**
+     * A script that keeps running right and alternates between bursts of shooting and short flights, which walks
+     * the avatar through new terrain and fights the zombies on the way.
+     * @return the script.
+     */
+    public static ScriptedInput runAndShoot() {
+        return new ScriptedInput((frame, keyCode) -> {
+            long phase = frame % 240;
+            switch(keyCode) {
+                case KeyEvent.VK_RIGHT:
+                    return true;
+                case KeyEvent.VK_ENTER:
+                    return phase < 120 && phase % 20 < 10;
+                case KeyEvent.VK_SPACE:
+                case KeyEvent.VK_SHIFT:
+                    return phase >= 180 && phase < 210;
+                default:
+                    return false;
+            }
+        });
+    }
+
+    /**
+     * A script that holds no key.
+     * @return the script.
+     */
+    public static ScriptedInput idle() {
+        return new ScriptedInput((frame, keyCode) -> false);
+    }
+
+    /**
+     * Writes the script as a recorded session, so it can be replayed like a session played by a player. No game
+     * runs, so the session holds no checksums, and it answers yes to every dialog so the game restarts when it
+     * ends. Moves the input to the end of the script.
+     * @param fileName the file of the session.
+     * @param header what the session starts from.
+     * @param frames the number of frames of the session.
+     * @param deltaTime the time of every frame, in seconds.
+     * @throws IOException if the session can't be written.
+     */
+    public void writeSession(String fileName, SessionHeader header, long frames, float deltaTime)
+            throws IOException {
+        InputSession session = InputSession.record(fileName);
+        try {
+            session.begin(header);
+            for(long i = 0; i < frames; i++) {
+                session.beginFrame(deltaTime, listener);
+                session.answerDialog(() -> true);
+                session.endFrame(null);
+                nextFrame();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Moves the input to the next frame.
+     */
+    void nextFrame() {
+        frame++;
+    }
+
+    /**
+     * @return the listener given to the game.
+     */
+    public UserInputListener listener() {
+        return listener;
+    }
+
+    /**
+     * @return the frame the game is updating.
+     */
+    public long frame() {
+        return frame;
+    }
+}
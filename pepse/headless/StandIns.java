@@ -0,0 +1,91 @@
+package pepse.headless;
+
+import danogl.util.Vector2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds stand-ins of the interfaces of the engine. A stand-in answers the methods it is given a handler for and
+ * returns a neutral value (false, zero, an empty collection, the zero vector or null) for all the others, so it
+ * keeps working when the interface grows methods the headless mode doesn't care about.
+ */
+final class StandIns {
+
+    /**
+     * The methods a stand-in answers itself.
+     */
+    @FunctionalInterface
+    interface Answers {
+        /**
+         * Answers a call to the stand-in.
+         * @param method the called method.
+         * @param args the arguments of the call, an empty array for none.
+         * @return the answer, or NOT_ANSWERED to return the neutral value of the method.
+         */
+        Object answer(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Returned by Answers for the methods it leaves to the neutral value.
+     */
+    static final Object NOT_ANSWERED = new Object();
+
+    private StandIns() {
+    }
+
+    /**
+     * Creates a stand-in of an interface.
+     * @param type the interface.
+     * @param answers the methods the stand-in answers itself.
+     * @return the stand-in.
+     */
+    static <T> T create(Class<T> type, Answers answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if(method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            Object answer = answers.answer(method, args == null ? new Object[0] : args);
+            return answer == NOT_ANSWERED ? neutralValue(method.getReturnType()) : answer;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Answers equals, hashCode and toString like an object with identity.
+     */
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch(method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "StandIn@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    /**
+     * @return the neutral value of a return type.
+     */
+    private static Object neutralValue(Class<?> type) {
+        if(type == boolean.class) return false;
+        if(type == int.class) return 0;
+        if(type == long.class) return 0L;
+        if(type == float.class) return 0f;
+        if(type == double.class) return 0d;
+        if(type == short.class) return (short) 0;
+        if(type == byte.class) return (byte) 0;
+        if(type == char.class) return (char) 0;
+        if(type == Vector2.class) return Vector2.ZERO;
+        if(type == Set.class) return Collections.emptySet();
+        if(type == List.class) return Collections.emptyList();
+        if(type == Map.class) return Collections.emptyMap();
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package pepse.replay;
+
+import danogl.gui.UserInputListener;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * The format of the logs of recorded sessions. A log is gzipped and starts with a SessionHeader, followed by a
+ * record per frame:
+ * <pre>
+ *     float deltaTime
+ *     int   flags           the keys held on the frame, one bit per tracked key, and the FLAG_ bits
+ *     long  checksum        only if FLAG_CHECKSUM is set: the hash of the game state at the end of the frame
+ * </pre>
+ * A frame takes 8 bytes before compression, 16 with a checksum.
+ */
+final class InputLog {
+    static final int MAGIC = 0x50455052; // "PEPR"
+    static final int VERSION = 1;
+    // Keys the game reads, their bit in the flags is their index. At most 24 keys, the high bits are the flags.
+    // New keys go at the end, so the logs recorded before them keep their bits.
+    static final int[] TRACKED_KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP, KeyEvent.VK_DOWN,
+            KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT, KeyEvent.VK_ENTER, KeyEvent.VK_F3, KeyEvent.VK_F5, KeyEvent.VK_F9,
+            KeyEvent.VK_R};
+    static final int KEYS_MASK = (1 << TRACKED_KEYS.length) - 1;
+    static final int FLAG_CHECKSUM = 1 << 30; // A checksum of the state follows the flags
+    static final int FLAG_DIALOG_YES = 1 << 29; // The player answered yes to the dialog of the frame
+    static final int FLAG_DIALOG_NO = 1 << 28; // The player answered no to the dialog of the frame
+    static final int FLAG_DIALOG_OPEN = 1 << 27; // A dialog was open, so the keys of the dialogs were ignored
+    static final int FLAG_WORLD_PAUSED = 1 << 26; // A dialog paused the world, so no step was simulated
+
+    /**
+     * Not instantiable.
+     */
+    private InputLog() {
+    }
+
+    /**
+     * @return the bits of the tracked keys the listener reports as held.
+     */
+    static int keyMask(UserInputListener listener) {
+        int mask = 0;
+        for(int key = 0; key < TRACKED_KEYS.length; key++) {
+            if(listener.isKeyPressed(TRACKED_KEYS[key])) {
+                mask |= 1 << key;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return whether a key is held in a mask of keys. Keys that are not tracked are never held.
+     */
+    static boolean isKeyPressed(int mask, int keyCode) {
+        for(int key = 0; key < TRACKED_KEYS.length; key++) {
+            if(TRACKED_KEYS[key] == keyCode) {
+                return (mask & (1 << key)) != 0;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,323 @@
+package pepse.replay;
+
+import danogl.gui.UserInputListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The source of the input of a game: live, recorded to a log or replayed from one. While recording or replaying,
+ * the game reads the keys from a snapshot taken once per frame instead of the keyboard, so the keys can't change in
+ * the middle of a frame, and every frame of the log holds the keys held on the frame, its deltaTime and the answer
+ * to the dialog it showed. Every CHECKSUM_FRAMES frames the recording stores a hash of the game state, which the
+ * replay compares with its own: a replay is faithful as long as all the hashes match.
+ * A frame is driven like this:
+ * <pre>
+ *     deltaTime = session.beginFrame(deltaTime, keyboard);
+ *     ... update the game, reading the keys from session.listener(keyboard) ...
+ *     session.endFrame(game::stateChecksum);
+ * </pre>
+ */
+public class InputSession {
+    private static final int CHECKSUM_FRAMES = 60; // Frames between two checksums of the state
+    private final DataOutputStream out; // Log being recorded, null unless recording
+    private final DataInputStream in; // Log being replayed, null unless replaying
+    private final SessionHeader replayedHeader; // Header of the replayed log, null unless replaying
+    private float deltaTime; // Time of the current frame
+    private int keyMask; // Keys held on the current frame
+    private int flags; // Flags of the current frame
+    private long checksum; // Checksum recorded for the current frame, when its flag is set
+    private long frame; // Number of frames begun
+    private boolean finished; // Whether the replay reached the end of its log
+    private int checksumsVerified;
+    private int mismatches;
+    private long firstMismatchFrame = -1;
+
+    /**
+     * Constructs a new InputSession.
+     */
+    private InputSession(DataOutputStream out, DataInputStream in, SessionHeader replayedHeader) {
+        this.out = out;
+        this.in = in;
+        this.replayedHeader = replayedHeader;
+    }
+
+    /**
+     * @return a session that reads the keyboard and records nothing.
+     */
+    public static InputSession live() {
+        return new InputSession(null, null, null);
+    }
+
+    /**
+     * Starts recording a session. The header must be written with begin before the first frame.
+     * @param fileName the file of the log.
+     * @return the session.
+     * @throws IOException if the file can't be created.
+     */
+    public static InputSession record(String fileName) throws IOException {
+        return new InputSession(new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(fileName)))), null, null);
+    }
+
+    /**
+     * Opens a recorded session for replay.
+     * @param fileName the file of the log.
+     * @return the session.
+     * @throws IOException if the file can't be read or is not a recorded session.
+     */
+    public static InputSession replay(String fileName) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(fileName))));
+        try {
+            return new InputSession(null, in, SessionHeader.readFrom(in));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the session is recorded.
+     */
+    public boolean isRecording() {
+        return out != null;
+    }
+
+    /**
+     * @return whether the session is replayed.
+     */
+    public boolean isReplaying() {
+        return in != null;
+    }
+
+    /**
+     * @return whether the game must run deterministically: it records or replays.
+     */
+    public boolean isDeterministic() {
+        return out != null || in != null;
+    }
+
+    /**
+     * @return the header of the replayed session, or null unless replaying.
+     */
+    public SessionHeader replayedHeader() {
+        return replayedHeader;
+    }
+
+    /**
+     * Writes the header of a recorded session. Does nothing unless recording.
+     * @param header what the session starts from.
+     */
+    public void begin(SessionHeader header) {
+        if(out == null) return;
+        try {
+            header.writeTo(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Wraps the keyboard: while recording or replaying the game reads the keys of the current frame from the
+     * snapshot, the other methods go to the keyboard.
+     * @param keyboard the input listener of the window.
+     * @return the input listener to give to the game.
+     */
+    public UserInputListener listener(UserInputListener keyboard) {
+        if(!isDeterministic()) return keyboard;
+        return (UserInputListener) Proxy.newProxyInstance(UserInputListener.class.getClassLoader(),
+                new Class<?>[]{UserInputListener.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("isKeyPressed")) {
+                        return InputLog.isKeyPressed(keyMask, (int) args[0]);
+                    }
+                    try {
+                        return method.invoke(keyboard, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Begins a frame: takes the snapshot of the keys from the keyboard, or reads the frame from the replayed log.
+     * @param deltaTime the time of the frame given by the engine.
+     * @param keyboard the input listener of the window.
+     * @return the time of the frame the game must use: the recorded one while replaying.
+     */
+    public float beginFrame(float deltaTime, UserInputListener keyboard) {
+        frame++;
+        flags = 0;
+        if(in != null) {
+            if(finished) return deltaTime;
+            try {
+                deltaTime = in.readFloat();
+                flags = in.readInt();
+                checksum = (flags & InputLog.FLAG_CHECKSUM) != 0 ? in.readLong() : 0;
+                keyMask = flags & InputLog.KEYS_MASK;
+            } catch (EOFException e) {
+                finished = true;
+                keyMask = 0;
+            } catch (IOException e) {
+                e.printStackTrace();
+                finished = true;
+                keyMask = 0;
+            }
+        }
+        else if(out != null) {
+            keyMask = InputLog.keyMask(keyboard);
+        }
+        this.deltaTime = deltaTime;
+        return deltaTime;
+    }
+
+    /**
+     * Answers a yes or no dialog: asks the player and records the answer, or replays the recorded answer.
+     * @param ask shows the dialog and returns the answer of the player.
+     * @return the answer.
+     */
+    public boolean answerDialog(BooleanSupplier ask) {
+        if(in != null) {
+            return (flags & InputLog.FLAG_DIALOG_YES) != 0;
+        }
+        boolean answer = ask.getAsBoolean();
+        flags |= answer ? InputLog.FLAG_DIALOG_YES : InputLog.FLAG_DIALOG_NO;
+        return answer;
+    }
+
+    /**
+     * Polls the answer to a yes or no dialog that stays open across frames, which the game calls on every frame
+     * the dialog is open: records the answer of the player on the frame they gave it, or replays the answer on the
+     * frame it was recorded. A log recorded with a dialog that blocked the game holds the answer on the frame the
+     * dialog opened, so it is replayed on that frame.
+     * @param answer the answer the player gave on this frame, or null if they didn't answer yet.
+     * @return the answer of the frame, or null if the dialog wasn't answered on this frame.
+     */
+    public Boolean pollDialog(Boolean answer) {
+        if(in != null) {
+            if((flags & InputLog.FLAG_DIALOG_YES) != 0) return true;
+            if((flags & InputLog.FLAG_DIALOG_NO) != 0) return false;
+            return null;
+        }
+        if(answer != null) {
+            flags |= answer ? InputLog.FLAG_DIALOG_YES : InputLog.FLAG_DIALOG_NO;
+        }
+        return answer;
+    }
+
+    /**
+     * Records whether a dialog was open on the frame, or replays it. A dialog opened by a click on a leaf is not
+     * opened again by a replay, since the mouse isn't recorded, so the replay takes the state of the recorded
+     * frame.
+     * @param open whether a dialog is open on this frame.
+     * @return whether a dialog was open on this frame: the recorded state while replaying.
+     */
+    public boolean dialogOpen(boolean open) {
+        return pollFlag(InputLog.FLAG_DIALOG_OPEN, open);
+    }
+
+    /**
+     * Records whether a dialog paused the world on the frame, or replays it, like dialogOpen.
+     * @param paused whether a dialog pauses the world on this frame.
+     * @return whether the world was paused on this frame: the recorded state while replaying.
+     */
+    public boolean worldPaused(boolean paused) {
+        return pollFlag(InputLog.FLAG_WORLD_PAUSED, paused);
+    }
+
+    /**
+     * Records a flag of the frame, or reads it from the replayed frame.
+     */
+    private boolean pollFlag(int flag, boolean value) {
+        if(in != null) return (flags & flag) != 0;
+        if(value) flags |= flag;
+        return value;
+    }
+
+    /**
+     * Ends a frame: writes it to the recorded log with a checksum every CHECKSUM_FRAMES frames, or compares the
+     * checksum of the replayed frame with the state of the game.
+     * @param stateChecksum computes the hash of the state of the game, or null to record no checksum, such as for
+     *                      a session written from a script with no game running.
+     */
+    public void endFrame(LongSupplier stateChecksum) {
+        if(out != null) {
+            try {
+                boolean withChecksum = stateChecksum != null && frame % CHECKSUM_FRAMES == 0;
+                out.writeFloat(deltaTime);
+                out.writeInt(keyMask | flags | (withChecksum ? InputLog.FLAG_CHECKSUM : 0));
+                if(withChecksum) {
+                    out.writeLong(stateChecksum.getAsLong());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        else if(in != null && !finished && (flags & InputLog.FLAG_CHECKSUM) != 0) {
+            checksumsVerified++;
+            if(stateChecksum.getAsLong() != checksum) {
+                mismatches++;
+                if(firstMismatchFrame < 0) firstMismatchFrame = frame;
+            }
+        }
+    }
+
+    /**
+     * @return whether the replay reached the end of its log.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return the number of frames begun.
+     */
+    public long frames() {
+        return frame;
+    }
+
+    /**
+     * @return the number of checksums the replay compared.
+     */
+    public int checksumsVerified() {
+        return checksumsVerified;
+    }
+
+    /**
+     * @return the number of checksums of the replay that didn't match the recorded ones.
+     */
+    public int mismatches() {
+        return mismatches;
+    }
+
+    /**
+     * @return the first frame whose checksum didn't match, or -1.
+     */
+    public long firstMismatchFrame() {
+        return firstMismatchFrame;
+    }
+
+    /**
+     * Closes the log.
+     */
+    public void close() {
+        try {
+            if(out != null) out.close();
+            if(in != null) in.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
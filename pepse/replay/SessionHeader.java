@@ -0,0 +1,158 @@
+package pepse.replay;
+
+import pepse.world.zombies.KillRegistry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a recorded session starts from besides its input: the seed of the world, the rate of the simulation, the
+ * size of the window, the seed of the random generators, the notes of the seed table and the zombies killed in
+ * earlier games. A replay starts from the header instead of the files of the player, so it doesn't depend on what
+ * was played since the recording.
+ */
+public class SessionHeader {
+    private final int worldSeed;
+    private final int simulationHz;
+    private final float windowWidth;
+    private final float windowHeight;
+    private final long randomSeed; // Seed of the random generators that aren't seeded by the world
+    private final List<String> notes; // Notes of the seed table
+    private final KillRegistry killRegistry; // Zombies killed in earlier games
+
+    /**
+     * Constructs a new SessionHeader.
+     * @param worldSeed the seed of the world.
+     * @param simulationHz the steps of the simulation per second.
+     * @param windowWidth the width of the window.
+     * @param windowHeight the height of the window.
+     * @param randomSeed the seed of the random generators that aren't seeded by the world.
+     * @param notes the notes of the seed table.
+     * @param killRegistry the zombies killed in earlier games.
+     */
+    public SessionHeader(int worldSeed, int simulationHz, float windowWidth, float windowHeight, long randomSeed,
+                         List<String> notes, KillRegistry killRegistry) {
+        this.worldSeed = worldSeed;
+        this.simulationHz = simulationHz;
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.randomSeed = randomSeed;
+        this.notes = new ArrayList<>(notes);
+        this.killRegistry = killRegistry;
+    }
+
+    /**
+     * Writes the header.
+     * @param out the output to write to.
+     * @throws IOException if writing fails.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(InputLog.MAGIC);
+        out.writeInt(InputLog.VERSION);
+        out.writeInt(worldSeed);
+        out.writeInt(simulationHz);
+        out.writeFloat(windowWidth);
+        out.writeFloat(windowHeight);
+        out.writeLong(randomSeed);
+        out.writeInt(InputLog.TRACKED_KEYS.length);
+        for(int key : InputLog.TRACKED_KEYS) {
+            out.writeInt(key);
+        }
+        out.writeInt(notes.size());
+        for(String note : notes) {
+            out.writeUTF(note);
+        }
+        killRegistry.writeTo(out);
+    }
+
+    /**
+     * Reads a header written by writeTo.
+     * @param in the input to read from.
+     * @return the header.
+     * @throws IOException if reading fails, or the log isn't a log of this version of the game.
+     */
+    static SessionHeader readFrom(DataInput in) throws IOException {
+        if(in.readInt() != InputLog.MAGIC) {
+            throw new IOException("Not a recorded session");
+        }
+        int version = in.readInt();
+        if(version != InputLog.VERSION) {
+            throw new IOException("Unsupported version of recorded session: " + version);
+        }
+        int worldSeed = in.readInt();
+        int simulationHz = in.readInt();
+        float windowWidth = in.readFloat();
+        float windowHeight = in.readFloat();
+        long randomSeed = in.readLong();
+        int keys = in.readInt();
+        if(keys > InputLog.TRACKED_KEYS.length) {
+            throw new IOException("Recorded session tracks " + keys + " keys, more than " +
+                    InputLog.TRACKED_KEYS.length);
+        }
+        // A session recorded before keys were added tracks the first keys, the others are never held in it
+        for(int key = 0; key < keys; key++) {
+            if(in.readInt() != InputLog.TRACKED_KEYS[key]) {
+                throw new IOException("Recorded session tracks other keys");
+            }
+        }
+        int noteCount = in.readInt();
+        List<String> notes = new ArrayList<>(noteCount);
+        for(int i = 0; i < noteCount; i++) {
+            notes.add(in.readUTF());
+        }
+        return new SessionHeader(worldSeed, simulationHz, windowWidth, windowHeight, randomSeed, notes,
+                KillRegistry.readFrom(in));
+    }
+
+    /**
+     * @return the seed of the world.
+     */
+    public int worldSeed() {
+        return worldSeed;
+    }
+
+    /**
+     * @return the steps of the simulation per second.
+     */
+    public int simulationHz() {
+        return simulationHz;
+    }
+
+    /**
+     * @return the width of the window.
+     */
+    public float windowWidth() {
+        return windowWidth;
+    }
+
+    /**
+     * @return the height of the window.
+     */
+    public float windowHeight() {
+        return windowHeight;
+    }
+
+    /**
+     * @return the seed of the random generators that aren't seeded by the world.
+     */
+    public long randomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * @return the notes of the seed table.
+     */
+    public List<String> notes() {
+        return notes;
+    }
+
+    /**
+     * @return the zombies killed in earlier games.
+     */
+    public KillRegistry killRegistry() {
+        return killRegistry;
+    }
+}
@@ -0,0 +1,194 @@
+package pepse.save;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The buffer and the file of a quick-save. A quick-save is a snapshot of what changed in the world since it was
+ * generated: the world itself is generated again from its seed on a quick-load, and the snapshot is applied to it.
+ * The file starts with a header:
+ * <pre>
+ *     int   MAGIC
+ *     short VERSION
+ *     byte  flags           FLAG_HORDE if the zombies were saved by a ZombieHorde
+ *     int   seed            the seed of the world
+ *     float minX, maxX      the range of the world
+ *     int   bodyLength      the number of bytes of the sections
+ * </pre>
+ * followed by the sections the game writes. A save whose sections are shorter or longer than bodyLength is
+ * rejected when it is read, before the game starts restoring it. The game encodes the snapshot into a single direct buffer, which is
+ * kept between saves and only grows, so a save allocates nothing once the buffer is large enough, and the buffer
+ * is written with a single FileChannel write to a temporary file that then replaces the save.
+ */
+public class QuickSave implements SnapshotWriter {
+    public static final int MAGIC = 0x50515356; // "PQSV"
+    public static final short VERSION = 3;
+    public static final byte FLAG_HORDE = 1; // The zombies were saved by a ZombieHorde
+    private static final int INITIAL_CAPACITY = 64 * 1024; // Bytes of the buffer before it grows
+    // Bytes of the header, and position of its bodyLength
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + 1 + Integer.BYTES + 2 * Float.BYTES +
+            Integer.BYTES;
+    private static final int BODY_LENGTH_POSITION = HEADER_BYTES - Integer.BYTES;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+    private boolean hasSnapshot; // Whether the buffer holds a whole snapshot
+    private byte flags; // Flags of the last snapshot read
+    private int seed; // Seed of the world of the last snapshot read
+    private float minX; // Start of the world of the last snapshot read
+    private float maxX; // End of the world of the last snapshot read
+
+    /**
+     * Starts a new snapshot: clears the buffer and writes the header.
+     * @param seed the seed of the world.
+     * @param minX the start of the world.
+     * @param maxX the end of the world.
+     * @param flags the flags of the snapshot.
+     * @return the buffer to write the sections to.
+     */
+    public ByteBuffer begin(int seed, float minX, float maxX, byte flags) {
+        hasSnapshot = false;
+        buffer.clear();
+        buffer.putInt(MAGIC).putShort(VERSION).put(flags).putInt(seed).putFloat(minX).putFloat(maxX).putInt(0);
+        return buffer;
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes, growing it if needed.
+     * @param bytes the number of bytes about to be written.
+     * @return the buffer to write to.
+     */
+    @Override
+    public ByteBuffer reserve(int bytes) {
+        if(buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(2 * buffer.capacity(), buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    /**
+     * Ends the snapshot begun by begin.
+     * @return the size of the snapshot, in bytes.
+     */
+    public int end() {
+        buffer.putInt(BODY_LENGTH_POSITION, buffer.position() - HEADER_BYTES);
+        buffer.flip();
+        hasSnapshot = true;
+        return buffer.limit();
+    }
+
+    /**
+     * Writes the last snapshot to a file. The snapshot is written to a temporary file first, so a crash in the
+     * middle of the write leaves the previous save intact.
+     * @param file the file of the save.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeTo(Path file) throws IOException {
+        if(!hasSnapshot) throw new IOException("No snapshot to write");
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer snapshot = buffer.duplicate();
+        snapshot.rewind();
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a save into the buffer and checks its header.
+     * @param file the file of the save.
+     * @return the buffer, positioned at the first section.
+     * @throws IOException if the file can't be read, isn't a save of this version of the game or is damaged.
+     */
+    public ByteBuffer readFrom(Path file) throws IOException {
+        hasSnapshot = false;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) throw new IOException("Save too large: " + size + " bytes");
+            buffer.clear();
+            reserve((int) size);
+            buffer.limit((int) size);
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0) throw new IOException("Save truncated");
+            }
+        }
+        buffer.flip();
+        hasSnapshot = true;
+        return readHeader();
+    }
+
+    /**
+     * Reads the last snapshot again from the buffer, without a file: the snapshot saved or read last.
+     * @return the buffer, positioned at the first section.
+     * @throws IOException if there is no snapshot.
+     */
+    public ByteBuffer reread() throws IOException {
+        if(!hasSnapshot) throw new IOException("No snapshot saved");
+        buffer.rewind();
+        return readHeader();
+    }
+
+    /**
+     * @return the flags of the snapshot read last.
+     */
+    public byte flags() {
+        return flags;
+    }
+
+    /**
+     * @return the seed of the world of the snapshot read last.
+     */
+    public int seed() {
+        return seed;
+    }
+
+    /**
+     * @return the start of the world of the snapshot read last.
+     */
+    public float minX() {
+        return minX;
+    }
+
+    /**
+     * @return the end of the world of the snapshot read last.
+     */
+    public float maxX() {
+        return maxX;
+    }
+
+    /**
+     * Reads the header at the start of the buffer.
+     * @return the buffer, positioned at the first section.
+     * @throws IOException if the header isn't the header of a save of this version of the game, or the sections
+     * don't have the length the header gives.
+     */
+    private ByteBuffer readHeader() throws IOException {
+        try {
+            if(buffer.getInt() != MAGIC) throw new IOException("Not a quick-save");
+            short version = buffer.getShort();
+            if(version != VERSION) throw new IOException("Unsupported version of quick-save: " + version);
+            flags = buffer.get();
+            seed = buffer.getInt();
+            minX = buffer.getFloat();
+            maxX = buffer.getFloat();
+            int bodyLength = buffer.getInt();
+            if(bodyLength != buffer.remaining()) {
+                throw new IOException("Quick-save damaged: " + buffer.remaining() + " bytes of sections instead of " +
+                        bodyLength);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Quick-save truncated", e);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,211 @@
+package pepse.save;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A ring buffer of the states of the last frames of the game, for the rewind. Every frame the game writes its state
+ * to the buffer, and the buffer keeps it in one of two forms: a keyframe holds the whole state, a delta frame only
+ * holds the bytes that differ from the last keyframe, as runs of changed bytes. A keyframe is stored every
+ * keyframeInterval frames, or sooner when a delta would not be smaller than the state, so restoring a frame
+ * always takes a copy of its keyframe and one pass over its runs, whatever its age.
+ * The arrays of a slot are reused when the ring wraps and only grow, so recording allocates nothing once the
+ * states stopped growing.
+ */
+public class RewindBuffer implements SnapshotWriter {
+    private static final int INITIAL_STATE_BYTES = 4096; // Bytes of the buffer of a state before it grows
+    private static final int MERGE_GAP = 8; // Unchanged bytes between two changes below which they make one run
+    private static final int RUN_BYTES = 2 * Integer.BYTES; // Bytes of the start and length of a run
+    private final int window; // Frames that can be restored
+    private final int keyframeInterval; // Maximal number of frames between two keyframes
+    private final int capacity; // Frames in the ring: the window and the delta frames of its oldest keyframe
+    private final byte[][] data; // Every slot: the state of a keyframe, or the changed bytes of a delta frame
+    private final int[][] runs; // Every slot: the start and length of the runs of a delta frame
+    private final int[] stateLength; // Every slot: the bytes of the state of the frame
+    private final int[] runCount; // Every slot: the number of runs, 0 for a keyframe
+    private final long[] keyframe; // Every slot: the number of the keyframe of the frame, its own for a keyframe
+    private ByteBuffer state = ByteBuffer.allocate(INITIAL_STATE_BYTES); // State of the frame being recorded
+    private ByteBuffer restored = ByteBuffer.allocate(INITIAL_STATE_BYTES); // State of the frame restored last
+    private long frames; // Number of frames recorded
+    private long firstFrame; // Number of the first frame recorded since the buffer was cleared
+    private long lastKeyframe = -1; // Number of the last keyframe, -1 before the first one
+
+    /**
+     * Constructs a new RewindBuffer.
+     * @param window the number of frames that can be restored.
+     * @param keyframeInterval the maximal number of frames between two keyframes.
+     */
+    public RewindBuffer(int window, int keyframeInterval) {
+        this.window = window;
+        this.keyframeInterval = keyframeInterval;
+        capacity = window + keyframeInterval;
+        data = new byte[capacity][];
+        runs = new int[capacity][];
+        stateLength = new int[capacity];
+        runCount = new int[capacity];
+        keyframe = new long[capacity];
+        for(int slot = 0; slot < capacity; slot++) {
+            data[slot] = new byte[0];
+            runs[slot] = new int[0];
+        }
+    }
+
+    /**
+     * Starts the state of a new frame.
+     * @return the buffer to write the state to.
+     */
+    public ByteBuffer begin() {
+        state.clear();
+        return state;
+    }
+
+    /**
+     * Makes sure the buffer of the state has room for the given number of bytes, growing it if needed.
+     * @param bytes the number of bytes about to be written.
+     * @return the buffer to write to.
+     */
+    @Override
+    public ByteBuffer reserve(int bytes) {
+        if(state.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * state.capacity(), state.position() + bytes));
+            state.flip();
+            grown.put(state);
+            state = grown;
+        }
+        return state;
+    }
+
+    /**
+     * Ends the state begun by begin and stores it in the ring, as a keyframe or as a delta of the last keyframe.
+     */
+    public void end() {
+        int slot = (int) (frames % capacity);
+        int length = state.position();
+        boolean isKeyframe = lastKeyframe < 0 || frames - lastKeyframe >= keyframeInterval ||
+                !encodeDelta(slot, length);
+        if(isKeyframe) {
+            data[slot] = ensure(data[slot], length);
+            System.arraycopy(state.array(), 0, data[slot], 0, length);
+            runCount[slot] = 0;
+            lastKeyframe = frames;
+        }
+        keyframe[slot] = lastKeyframe;
+        stateLength[slot] = length;
+        frames++;
+    }
+
+    /**
+     * @return the number of frames the buffer can hold for a restore.
+     */
+    public int window() {
+        return window;
+    }
+
+    /**
+     * @return the number of frames that can be restored.
+     */
+    public int size() {
+        return (int) Math.min(frames - firstFrame, window);
+    }
+
+    /**
+     * Restores the state of a recorded frame.
+     * @param framesBack the age of the frame: 0 for the last frame recorded, up to size() - 1.
+     * @return the state of the frame, from its start to its end.
+     * @throws IllegalArgumentException if the frame can't be restored.
+     */
+    public ByteBuffer restore(int framesBack) {
+        if(framesBack < 0 || framesBack >= size()) {
+            throw new IllegalArgumentException("Frame " + framesBack + " back is not in the buffer of " + size());
+        }
+        int slot = (int) ((frames - 1 - framesBack) % capacity);
+        int keySlot = (int) (keyframe[slot] % capacity);
+        int length = stateLength[slot];
+        if(restored.capacity() < length) {
+            restored = ByteBuffer.allocate(Math.max(2 * restored.capacity(), length));
+        }
+        byte[] bytes = restored.array();
+        System.arraycopy(data[keySlot], 0, bytes, 0, Math.min(length, stateLength[keySlot]));
+        int[] frameRuns = runs[slot];
+        int offset = 0;
+        for(int run = 0; run < runCount[slot]; run++) {
+            int start = frameRuns[2 * run];
+            int runLength = frameRuns[2 * run + 1];
+            System.arraycopy(data[slot], offset, bytes, start, runLength);
+            offset += runLength;
+        }
+        restored.clear();
+        restored.limit(length);
+        return restored;
+    }
+
+    /**
+     * Forgets every recorded frame. The memory of the ring is kept for the next frames.
+     */
+    public void clear() {
+        firstFrame = frames;
+        lastKeyframe = -1;
+    }
+
+    /**
+     * @return the bytes of the arrays of the ring, which bound the memory of the buffer.
+     */
+    public long memoryBytes() {
+        long bytes = state.capacity() + restored.capacity();
+        for(int slot = 0; slot < capacity; slot++) {
+            bytes += data[slot].length + (long) runs[slot].length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Stores the state as the runs of bytes that differ from the last keyframe. Two changes separated by less than
+     * MERGE_GAP unchanged bytes make a single run, which costs fewer bytes than two.
+     * @return false if the delta would not be smaller than the state, which must then be stored as a keyframe.
+     */
+    private boolean encodeDelta(int slot, int length) {
+        int keySlot = (int) (lastKeyframe % capacity);
+        byte[] key = data[keySlot];
+        int keyLength = stateLength[keySlot];
+        byte[] current = state.array();
+        int used = 0;
+        int count = 0;
+        int i = 0;
+        while(i < length) {
+            if(i < keyLength && current[i] == key[i]) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int end = i + 1; // End of the run, past its last changed byte
+            for(i = end; i < length && i - end < MERGE_GAP; i++) {
+                if(i >= keyLength || current[i] != key[i]) end = i + 1;
+            }
+            i = end;
+            if(used + (end - start) + (count + 1) * RUN_BYTES >= length) return false;
+            data[slot] = ensure(data[slot], used + end - start);
+            System.arraycopy(current, start, data[slot], used, end - start);
+            used += end - start;
+            runs[slot] = ensure(runs[slot], 2 * count + 2);
+            runs[slot][2 * count] = start;
+            runs[slot][2 * count + 1] = end - start;
+            count++;
+        }
+        runCount[slot] = count;
+        return true;
+    }
+
+    /**
+     * @return the array, or a larger copy of it if it is shorter than the given length.
+     */
+    private static byte[] ensure(byte[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(2 * array.length, length));
+    }
+
+    /**
+     * @return the array, or a larger copy of it if it is shorter than the given length.
+     */
+    private static int[] ensure(int[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(2 * array.length, length));
+    }
+}
@@ -0,0 +1,16 @@
+package pepse.save;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer the state of the game is written to, record by record, by the quick-save and the rewind buffer alike.
+ */
+public interface SnapshotWriter {
+    /**
+     * Makes sure the buffer has room for the given number of bytes. The buffer may be replaced, so the caller must
+     * go on with the returned buffer.
+     * @param bytes the number of bytes about to be written.
+     * @return the buffer to write to.
+     */
+    ByteBuffer reserve(int bytes);
+}
@@ -0,0 +1,238 @@
+package pepse.util;
+
+import danogl.collisions.GameObjectCollection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * The CollisionPolicy holds the pairs of layers that should collide, declared once, and keeps the layer matrix of
+ * the engine in sync with them. Every pair is gated by layers that must hold objects before the pair collides. The
+ * policy remembers which gating layers are populated and only reacts when one switches between empty and
+ * populated, either through the onLayerPopulated/onLayerEmptied hooks or by polling the layers that still gate a
+ * pair that may change. A sticky pair stays on once it was turned on, so after every sticky pair is on there is
+ * nothing left to poll. The last value sent to the engine for every pair is cached and a call is only made when
+ * the value changes.
+ * An optional filter (like a broad phase) can veto pairs; once set, the pairs are evaluated every frame and the
+ * sticky pairs are turned off whenever the filter vetoes them.
+ */
+public class CollisionPolicy {
+    private final GameObjectCollection gameObjects; // Game objects whose layer matrix is set
+    private final List<Pair> pairs = new ArrayList<>(); // Declared pairs of layers
+    private int[] knownLayers = new int[0]; // Gating layers whose state is known
+    private boolean[] populated = new boolean[0]; // Whether every known layer holds objects
+    private long[] polledUpdate = new long[0]; // Last update in which every known layer was polled
+    private long updates; // Number of calls to update
+    private BiPredicate<Integer, Integer> filter; // Optional filter that vetoes pairs of layers
+    private int engineCalls; // Number of calls made to the engine since the creation of the policy
+
+    /**
+     * A declared pair of layers.
+     */
+    private static final class Pair {
+        private final int layerA;
+        private final int layerB;
+        private final int[] requiredLayers; // Layers that must hold objects for the pair to collide
+        private final boolean sticky; // Whether the pair stays on once it was turned on
+        private boolean issued; // Last value sent to the engine
+        private boolean everIssued; // Whether a value was sent to the engine
+
+        private Pair(int layerA, int layerB, int[] requiredLayers, boolean sticky) {
+            this.layerA = layerA;
+            this.layerB = layerB;
+            this.requiredLayers = requiredLayers;
+            this.sticky = sticky;
+        }
+
+        /**
+         * @return true if the pair can't change anymore without a filter.
+         */
+        private boolean settled() {
+            return sticky && issued;
+        }
+    }
+
+    /**
+     * Constructs a new CollisionPolicy.
+     * @param gameObjects the game objects whose layer matrix is set.
+     */
+    public CollisionPolicy(GameObjectCollection gameObjects) {
+        this.gameObjects = gameObjects;
+    }
+
+    /**
+     * Declares a pair of layers that should collide once the required layers hold objects, and keep colliding
+     * afterwards even if the layers become empty again.
+     * @param layerA the first layer.
+     * @param layerB the second layer.
+     * @param requiredLayers the layers that must hold objects before the pair collides.
+     */
+    public void declareSticky(int layerA, int layerB, int... requiredLayers) {
+        declare(layerA, layerB, requiredLayers, true);
+    }
+
+    /**
+     * Declares a pair of layers that should collide only while the required layers hold objects.
+     * @param layerA the first layer.
+     * @param layerB the second layer.
+     * @param requiredLayers the layers that must hold objects for the pair to collide.
+     */
+    public void declareWhilePopulated(int layerA, int layerB, int... requiredLayers) {
+        declare(layerA, layerB, requiredLayers, false);
+    }
+
+    /**
+     * Sets a filter that vetoes pairs of layers, or null to remove it.
+     * @param filter returns true if the two layers should collide in this frame.
+     */
+    public void setFilter(BiPredicate<Integer, Integer> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Records that a layer received its first object. Code that knows it populated a layer can call this to save
+     * the policy a poll.
+     * @param layer the layer.
+     */
+    public void onLayerPopulated(int layer) {
+        setPopulated(layer, true);
+    }
+
+    /**
+     * Records that the last object of a layer was removed.
+     * @param layer the layer.
+     */
+    public void onLayerEmptied(int layer) {
+        setPopulated(layer, false);
+    }
+
+    /**
+     * Brings the layer matrix of the engine up to date. Polls only the gating layers of the pairs that may still
+     * change, and calls the engine only for the pairs whose value changed.
+     */
+    public void update() {
+        updates++;
+        for(Pair pair : pairs) {
+            if(filter == null && pair.settled()) continue;
+            for(int layer : pair.requiredLayers) {
+                poll(layer);
+            }
+        }
+        if(filter == null) return;
+        for(Pair pair : pairs) {
+            issue(pair, wanted(pair));
+        }
+    }
+
+    /**
+     * @param layerA a layer.
+     * @param layerB a layer.
+     * @return true if the engine was last told to test the two layers against each other.
+     */
+    public boolean isActive(int layerA, int layerB) {
+        for(Pair pair : pairs) {
+            if((pair.layerA == layerA && pair.layerB == layerB) || (pair.layerA == layerB && pair.layerB == layerA)) {
+                return pair.issued;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of calls made to the engine since the creation of the policy.
+     */
+    public int engineCalls() {
+        return engineCalls;
+    }
+
+    /**
+     * @return the active layer matrix, one declared pair per line with the value last sent to the engine.
+     */
+    @Override
+    public String toString() {
+        StringBuilder matrix = new StringBuilder();
+        for(Pair pair : pairs) {
+            matrix.append(pair.layerA).append(" x ").append(pair.layerB)
+                    .append(pair.issued ? ": on" : ": off")
+                    .append(pair.sticky ? " (sticky)" : "")
+                    .append(System.lineSeparator());
+        }
+        return matrix.toString();
+    }
+
+    /**
+     * Adds a pair to the policy.
+     */
+    private void declare(int layerA, int layerB, int[] requiredLayers, boolean sticky) {
+        pairs.add(new Pair(layerA, layerB, requiredLayers.clone(), sticky));
+        for(int layer : requiredLayers) {
+            indexOf(layer);
+        }
+    }
+
+    /**
+     * Checks whether a pair should collide now.
+     */
+    private boolean wanted(Pair pair) {
+        for(int layer : pair.requiredLayers) {
+            if(!populated[indexOf(layer)]) return false;
+        }
+        return filter == null || filter.test(pair.layerA, pair.layerB);
+    }
+
+    /**
+     * Sends a value to the engine if it differs from the last value sent for the pair.
+     */
+    private void issue(Pair pair, boolean collide) {
+        if(pair.everIssued && pair.issued == collide) return;
+        if(!pair.everIssued && !collide) return;
+        gameObjects.layers().shouldLayersCollide(pair.layerA, pair.layerB, collide);
+        pair.issued = collide;
+        pair.everIssued = true;
+        engineCalls++;
+    }
+
+    /**
+     * Polls a gating layer, at most once per update.
+     */
+    private void poll(int layer) {
+        int index = indexOf(layer);
+        if(polledUpdate[index] == updates) return;
+        polledUpdate[index] = updates;
+        setPopulated(layer, !gameObjects.isLayerEmpty(layer));
+    }
+
+    /**
+     * Records the state of a gating layer and, if it changed, updates the pairs it gates.
+     */
+    private void setPopulated(int layer, boolean isPopulated) {
+        int index = indexOf(layer);
+        if(populated[index] == isPopulated) return;
+        populated[index] = isPopulated;
+        for(Pair pair : pairs) {
+            if(filter == null && pair.settled()) continue;
+            for(int required : pair.requiredLayers) {
+                if(required == layer) {
+                    issue(pair, wanted(pair));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index of a gating layer, adding it to the known layers if needed.
+     */
+    private int indexOf(int layer) {
+        for(int index = 0; index < knownLayers.length; index++) {
+            if(knownLayers[index] == layer) return index;
+        }
+        knownLayers = Arrays.copyOf(knownLayers, knownLayers.length + 1);
+        populated = Arrays.copyOf(populated, populated.length + 1);
+        polledUpdate = Arrays.copyOf(polledUpdate, polledUpdate.length + 1);
+        knownLayers[knownLayers.length - 1] = layer;
+        return knownLayers.length - 1;
+    }
+}
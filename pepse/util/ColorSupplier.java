@@ -1,7 +1,6 @@
 package pepse.util;
 
 import java.awt.*;
-import java.util.Random;
 
 /**
  * Provides procedurally-generated colors around a pivot.
@@ -9,7 +8,6 @@ import java.util.Random;
  */
 public final class ColorSupplier {
     private static final int DEFAULT_COLOR_DELTA = 10;
-    private final static Random random = new Random();
 
     /**
      * Returns a color similar to baseColor, with a default delta.
@@ -20,6 +18,18 @@ public final class ColorSupplier {
     public static Color approximateColor(Color baseColor) {
         return approximateColor(baseColor, DEFAULT_COLOR_DELTA);
     }
+
+    /**
+     * Returns a color similar to baseColor, with a default delta, drawn from the given stream.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param random The stream the color is drawn from.
+     * @return A color similar to baseColor.
+     */
+    public static Color approximateColor(Color baseColor, RandomStream random) {
+        return approximateColor(baseColor, DEFAULT_COLOR_DELTA, random);
+    }
+
     /**
      * Returns a color similar to baseColor, with a difference of at most colorDelta.
      *
@@ -28,11 +38,24 @@ public final class ColorSupplier {
      * @return A color similar to baseColor.
      */
     public static Color approximateColor(Color baseColor, int colorDelta) {
+        return approximateColor(baseColor, colorDelta,
+                RandomStreams.installed().shared(RandomStreams.Subsystem.COLORS));
+    }
+
+    /**
+     * Returns a color similar to baseColor, with a difference of at most colorDelta, drawn from the given stream.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param colorDelta The maximal difference (per channel) between the sampled color and the base color.
+     * @param random The stream the color is drawn from.
+     * @return A color similar to baseColor.
+     */
+    public static Color approximateColor(Color baseColor, int colorDelta, RandomStream random) {
 
         return new Color(
-                randomChannelInRange(baseColor.getRed()-colorDelta, baseColor.getRed()+colorDelta),
-                randomChannelInRange(baseColor.getGreen()-colorDelta, baseColor.getGreen()+colorDelta),
-                randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta));
+                randomChannelInRange(baseColor.getRed()-colorDelta, baseColor.getRed()+colorDelta, random),
+                randomChannelInRange(baseColor.getGreen()-colorDelta, baseColor.getGreen()+colorDelta, random),
+                randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta, random));
     }
 
     /**
@@ -40,9 +63,10 @@ public final class ColorSupplier {
      *
      * @param min The lower bound of the given range.
      * @param max The upper bound of the given range.
+     * @param random The stream the value is drawn from.
      * @return A random number in the range [min, max], clipped to [0,255].
      */
-    private static int randomChannelInRange(int min, int max) {
+    private static int randomChannelInRange(int min, int max, RandomStream random) {
         int channel = random.nextInt(max-min+1) + min;
         return Math.min(255, Math.max(channel, 0));
     }
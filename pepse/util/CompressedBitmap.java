@@ -0,0 +1,193 @@
+package pepse.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of int values stored as a roaring style compressed bitmap. The values are split by their high 16 bits into
+ * chunks, and every chunk keeps its low 16 bits either as a sorted array (while the chunk is sparse) or as a plain
+ * bitmap of 65536 bits (once it holds more than 4096 values, where the bitmap becomes smaller than the array).
+ * A few values spread over millions of columns therefore cost a few bytes each, and a dense region never costs more
+ * than 8KB per chunk. Adding and looking up a value touch a single chunk.
+ */
+public class CompressedBitmap {
+    private static final int FORMAT_MAGIC = 0x524F4152; // Marks the start of a serialized bitmap
+    private static final int FORMAT_VERSION = 1; // Version of the serialized format
+    private static final int ARRAY_MAX_SIZE = 4096; // Largest chunk kept as a sorted array
+    private static final int BITMAP_WORDS = 1 << 10; // Number of longs in the bitmap of a chunk
+    private static final int INITIAL_ARRAY_SIZE = 4; // Initial size of the array of a sparse chunk
+    private static final byte ARRAY_CHUNK = 0; // Serialized type of a sparse chunk
+    private static final byte BITMAP_CHUNK = 1; // Serialized type of a dense chunk
+    private final Map<Integer, Chunk> chunks = new HashMap<>(); // Chunks by the high 16 bits of their values
+    private int cardinality; // Number of values in the set
+
+    /**
+     * The values of a single chunk, which share the same high 16 bits. A chunk is sparse while bits is null.
+     */
+    private static final class Chunk {
+        private char[] values = new char[INITIAL_ARRAY_SIZE]; // Sorted low bits of a sparse chunk
+        private long[] bits; // Bitmap of the low bits of a dense chunk
+        private int size; // Number of values in the chunk
+    }
+
+    /**
+     * Adds a value to the set.
+     * @param value the value to add.
+     * @return true if the value was not in the set before.
+     */
+    public boolean add(int value) {
+        Chunk chunk = chunks.computeIfAbsent(value >>> 16, key -> new Chunk());
+        char low = (char) value;
+        if(chunk.bits != null) {
+            long mask = 1L << low;
+            if((chunk.bits[low >>> 6] & mask) != 0) return false;
+            chunk.bits[low >>> 6] |= mask;
+        }
+        else {
+            int index = Arrays.binarySearch(chunk.values, 0, chunk.size, low);
+            if(index >= 0) return false;
+            if(chunk.size == ARRAY_MAX_SIZE) {
+                toBitmap(chunk);
+                chunk.bits[low >>> 6] |= 1L << low;
+            }
+            else {
+                insert(chunk, -index - 1, low);
+            }
+        }
+        chunk.size++;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     * @param value the value to look for.
+     * @return true if the value is in the set.
+     */
+    public boolean contains(int value) {
+        Chunk chunk = chunks.get(value >>> 16);
+        if(chunk == null) return false;
+        char low = (char) value;
+        if(chunk.bits != null) {
+            return (chunk.bits[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(chunk.values, 0, chunk.size, low) >= 0;
+    }
+
+    /**
+     * @return the number of values in the set.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Removes every value from the set.
+     */
+    public void clear() {
+        chunks.clear();
+        cardinality = 0;
+    }
+
+    /**
+     * Writes the set to the given output.
+     * @param out the output to write to.
+     * @throws IOException if the output fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(chunks.size());
+        for(Map.Entry<Integer, Chunk> entry : chunks.entrySet()) {
+            Chunk chunk = entry.getValue();
+            out.writeInt(entry.getKey());
+            out.writeInt(chunk.size);
+            if(chunk.bits != null) {
+                out.writeByte(BITMAP_CHUNK);
+                for(long word : chunk.bits) {
+                    out.writeLong(word);
+                }
+            }
+            else {
+                out.writeByte(ARRAY_CHUNK);
+                for(int i = 0; i < chunk.size; i++) {
+                    out.writeChar(chunk.values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a set written by writeTo.
+     * @param in the input to read from.
+     * @return the set that was written.
+     * @throws IOException if the input fails or does not hold a bitmap.
+     */
+    public static CompressedBitmap readFrom(DataInput in) throws IOException {
+        if(in.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Not a compressed bitmap");
+        }
+        int version = in.readInt();
+        if(version != FORMAT_VERSION) {
+            throw new IOException("Unsupported compressed bitmap version: " + version);
+        }
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int chunkCount = in.readInt();
+        for(int i = 0; i < chunkCount; i++) {
+            int key = in.readInt();
+            Chunk chunk = new Chunk();
+            chunk.size = in.readInt();
+            byte type = in.readByte();
+            if(type == BITMAP_CHUNK) {
+                chunk.values = null;
+                chunk.bits = new long[BITMAP_WORDS];
+                for(int word = 0; word < BITMAP_WORDS; word++) {
+                    chunk.bits[word] = in.readLong();
+                }
+            }
+            else if(type == ARRAY_CHUNK && chunk.size <= ARRAY_MAX_SIZE) {
+                chunk.values = new char[Math.max(INITIAL_ARRAY_SIZE, chunk.size)];
+                for(int value = 0; value < chunk.size; value++) {
+                    chunk.values[value] = in.readChar();
+                }
+            }
+            else {
+                throw new IOException("Corrupted compressed bitmap chunk: " + key);
+            }
+            bitmap.chunks.put(key, chunk);
+            bitmap.cardinality += chunk.size;
+        }
+        return bitmap;
+    }
+
+    /**
+     * Inserts a value into the sorted array of a sparse chunk, growing the array when it is full.
+     * @param chunk the chunk.
+     * @param index the index that keeps the array sorted.
+     * @param low the low bits of the value.
+     */
+    private static void insert(Chunk chunk, int index, char low) {
+        if(chunk.size == chunk.values.length) {
+            chunk.values = Arrays.copyOf(chunk.values, Math.min(ARRAY_MAX_SIZE, chunk.size * 2));
+        }
+        System.arraycopy(chunk.values, index, chunk.values, index + 1, chunk.size - index);
+        chunk.values[index] = low;
+    }
+
+    /**
+     * Turns a full sparse chunk into a dense one.
+     * @param chunk the chunk.
+     */
+    private static void toBitmap(Chunk chunk) {
+        chunk.bits = new long[BITMAP_WORDS];
+        for(int i = 0; i < chunk.size; i++) {
+            char low = chunk.values[i];
+            chunk.bits[low >>> 6] |= 1L << low;
+        }
+        chunk.values = null;
+    }
+}
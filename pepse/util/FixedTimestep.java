@@ -0,0 +1,72 @@
+package pepse.util;
+
+/**
+ * An accumulator that turns the variable time of the frames into a whole number of fixed simulation steps. The
+ * time of every frame is added to the accumulator, which then pays out as many steps of 1/stepsPerSecond seconds
+ * as it holds. The time left over is carried to the next frame, and its fraction of a step is the alpha the
+ * renderer interpolates with. When a frame is so long that it holds more than maxStepsPerFrame steps, the extra
+ * time is dropped, so a slow frame slows the game down instead of making every following frame slower.
+ */
+public class FixedTimestep {
+    private final float step; // Seconds simulated by a single step
+    private final int maxStepsPerFrame; // Most steps a single frame may pay out
+    private float accumulator; // Seconds of the frames not simulated yet
+    private long steps; // Steps paid out since the timestep was created
+    private long droppedSteps; // Steps dropped because a frame was too long
+
+    /**
+     * Constructs a new FixedTimestep.
+     * @param stepsPerSecond the rate of the simulation, in steps per second.
+     * @param maxStepsPerFrame the most steps a single frame may pay out.
+     */
+    public FixedTimestep(float stepsPerSecond, int maxStepsPerFrame) {
+        this.step = 1 / stepsPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Adds the time of a frame to the accumulator and pays out the steps it holds.
+     * @param deltaTime the time of the frame, in seconds.
+     * @return the number of steps the frame should simulate.
+     */
+    public int advance(float deltaTime) {
+        accumulator += deltaTime;
+        int frameSteps = (int) (accumulator / step);
+        if(frameSteps > maxStepsPerFrame) {
+            droppedSteps += frameSteps - maxStepsPerFrame;
+            frameSteps = maxStepsPerFrame;
+            accumulator = frameSteps * step;
+        }
+        accumulator -= frameSteps * step;
+        steps += frameSteps;
+        return frameSteps;
+    }
+
+    /**
+     * @return the seconds simulated by a single step.
+     */
+    public float step() {
+        return step;
+    }
+
+    /**
+     * @return the fraction of a step left in the accumulator, between 0 and 1.
+     */
+    public float alpha() {
+        return Math.min(1, accumulator / step);
+    }
+
+    /**
+     * @return the steps paid out since the timestep was created.
+     */
+    public long steps() {
+        return steps;
+    }
+
+    /**
+     * @return the steps dropped because a frame was too long.
+     */
+    public long droppedSteps() {
+        return droppedSteps;
+    }
+}
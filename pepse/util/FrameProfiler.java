@@ -0,0 +1,241 @@
+package pepse.util;
+
+import java.util.Arrays;
+
+/**
+ * A lightweight profiler of the frames of the game. The phases of a frame (the AI, the update of the objects, the
+ * streaming of the world, the eviction, the collisions...) and the update of the objects of the busy layers are
+ * timed by nanoTime scopes, and the times of the last frames are kept in a ring buffer from which the rolling
+ * percentiles are computed. A disabled profiler doesn't read the clock, so its scopes cost a branch; the game
+ * enables it only while the overlay shows it.
+ * A scope is used like this:
+ * <pre>
+ *     long start = profiler.start();
+ *     ...
+ *     profiler.stop(FrameProfiler.Phase.STREAMING, start);
+ * </pre>
+ * Objects of the world have no access to the game manager, so they reach the profiler of the running game
+ * through installed().
+ */
+public class FrameProfiler {
+    private static FrameProfiler installed = new FrameProfiler(1); // Profiler of the running game, disabled
+    private final int capacity; // Number of frames kept
+    private final long[][] history; // Time of every phase in the last frames, by phase then frame
+    private final long[] frameNanos; // Time between the start of every frame and the start of the next
+    private final long[] current; // Time of every phase in the current frame
+    private final long[] scratch; // Buffer the percentiles sort, so they allocate nothing
+    private boolean enabled;
+    private int head; // Index of the next frame in the ring buffer
+    private int size; // Number of frames in the ring buffer
+    private long frameStart; // Start of the current frame, 0 outside a frame
+    private long lastFrameEnd; // End of the last frame, 0 before the first frame
+
+    /**
+     * The phases of a frame. The phases of the layers are nested in OBJECTS: their time is part of it.
+     */
+    public enum Phase {
+        AI("ai", false),
+        OBJECTS("objects", false),
+        AVATAR("avatar", true),
+        ZOMBIES("zombies", true),
+        LEAVES("leaves", true),
+        BULLETS("bullets", true),
+        STREAMING("streaming", false),
+        EVICTION("eviction", false),
+        COLLISIONS("collisions", false),
+        REWIND("rewind", false),
+        INTERPOLATION("interpolation", false),
+        OUTSIDE_UPDATE("render+idle", false);
+
+        private final String label;
+        private final boolean nested;
+
+        /**
+         * Constructs a Phase.
+         * @param label the name shown by the overlay.
+         * @param nested whether the time of the phase is part of the time of OBJECTS.
+         */
+        Phase(String label, boolean nested) {
+            this.label = label;
+            this.nested = nested;
+        }
+
+        /**
+         * @return the name shown by the overlay.
+         */
+        public String label() {
+            return label;
+        }
+
+        /**
+         * @return whether the time of the phase is part of the time of OBJECTS.
+         */
+        public boolean isNested() {
+            return nested;
+        }
+    }
+
+    /**
+     * Constructs a new disabled FrameProfiler.
+     * @param capacity the number of frames kept in the ring buffer.
+     */
+    public FrameProfiler(int capacity) {
+        this.capacity = capacity;
+        history = new long[Phase.values().length][capacity];
+        frameNanos = new long[capacity];
+        current = new long[Phase.values().length];
+        scratch = new long[capacity];
+    }
+
+    /**
+     * Makes a profiler the one the objects of the world report to.
+     * @param profiler the profiler of the running game.
+     */
+    public static void install(FrameProfiler profiler) {
+        installed = profiler;
+    }
+
+    /**
+     * @return the profiler of the running game.
+     */
+    public static FrameProfiler installed() {
+        return installed;
+    }
+
+    /**
+     * Enables or disables the profiler. The frames in the ring buffer are kept.
+     * @param enabled whether the profiler times the scopes.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        frameStart = 0;
+        lastFrameEnd = 0;
+        Arrays.fill(current, 0);
+    }
+
+    /**
+     * @return whether the profiler times the scopes.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a scope.
+     * @return the start of the scope, to give to stop, or 0 when the profiler is disabled.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends a scope and adds its time to a phase of the current frame.
+     * @param phase the phase.
+     * @param start the value start returned.
+     */
+    public void stop(Phase phase, long start) {
+        if(start != 0 && frameStart != 0) {
+            current[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Starts a frame. The time since the end of the last frame, where the engine renders and waits, is the phase
+     * OUTSIDE_UPDATE of the frame.
+     */
+    public void beginFrame() {
+        if(!enabled) return;
+        frameStart = System.nanoTime();
+        if(lastFrameEnd != 0) {
+            current[Phase.OUTSIDE_UPDATE.ordinal()] = frameStart - lastFrameEnd;
+        }
+    }
+
+    /**
+     * Ends the frame and moves its times to the ring buffer.
+     */
+    public void endFrame() {
+        if(!enabled || frameStart == 0) return;
+        long now = System.nanoTime();
+        frameNanos[head] = now - frameStart + current[Phase.OUTSIDE_UPDATE.ordinal()];
+        for(int phase = 0; phase < current.length; phase++) {
+            history[phase][head] = current[phase];
+            current[phase] = 0;
+        }
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        frameStart = 0;
+        lastFrameEnd = now;
+    }
+
+    /**
+     * @return the number of frames in the ring buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of frames the ring buffer keeps.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @param framesAgo 0 for the last frame, 1 for the one before...
+     * @return the time of a frame in nanoseconds, from its start to the start of the next one.
+     */
+    public long frameNanos(int framesAgo) {
+        return frameNanos[index(framesAgo)];
+    }
+
+    /**
+     * @param phase the phase.
+     * @param framesAgo 0 for the last frame, 1 for the one before...
+     * @return the time of a phase in a frame, in nanoseconds.
+     */
+    public long phaseNanos(Phase phase, int framesAgo) {
+        return history[phase.ordinal()][index(framesAgo)];
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the percentile of the frame times in the ring buffer, in nanoseconds.
+     */
+    public long framePercentile(double percentile) {
+        return percentile(frameNanos, percentile);
+    }
+
+    /**
+     * @param phase the phase.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the percentile of the times of the phase in the ring buffer, in nanoseconds.
+     */
+    public long phasePercentile(Phase phase, double percentile) {
+        return percentile(history[phase.ordinal()], percentile);
+    }
+
+    /**
+     * @return the index in the ring buffer of a frame.
+     */
+    private int index(int framesAgo) {
+        if(framesAgo < 0 || framesAgo >= size) {
+            throw new IndexOutOfBoundsException("Frame " + framesAgo + " of " + size);
+        }
+        return Math.floorMod(head - 1 - framesAgo, capacity);
+    }
+
+    /**
+     * @return a percentile of the values of the frames in the ring buffer.
+     */
+    private long percentile(long[] values, double percentile) {
+        if(size == 0) return 0;
+        for(int i = 0; i < size; i++) {
+            scratch[i] = values[index(i)];
+        }
+        Arrays.sort(scratch, 0, size);
+        int rank = (int) Math.ceil(size * percentile / 100) - 1;
+        return scratch[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
@@ -0,0 +1,293 @@
+package pepse.util;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Watches the time of the frames and writes a diagnostic record when a frame is much longer than the usual ones.
+ * The usual frame time is the median of the last frames. A frame longer than a factor of it (and than a floor, so
+ * a fast headless game doesn't report every jitter) is a spike, and its record holds the objects of every layer,
+ * the phases of the frame when the profiler is enabled, the last streaming and eviction of the world, the last
+ * collection of every garbage collector and the x of the avatar. The records are JSON lines appended to a file.
+ * The game thread only copies the numbers; the record is formatted and written by a background thread, and at
+ * most one record is written per interval so a burst of spikes doesn't cause more of them.
+ */
+public class FrameSpikeWatchdog {
+    private static final int BASELINE_FRAMES = 120; // Frames the median is computed over
+    private static final int MEDIAN_EVERY_FRAMES = 30; // Frames between two computations of the median
+    private static final int ACTIVITIES = 8; // Streaming and eviction activities kept for the records
+    private static final int STREAMING = 0;
+    private static final int EVICTION = 1;
+    private final String file;
+    private final double factor; // A frame longer than factor times the median is a spike
+    private final long minSpikeNanos; // A frame shorter than this is never a spike
+    private final long minIntervalNanos; // Minimal time between two records
+    private final Supplier<Map<String, Integer>> layerCounts;
+    private final DoubleSupplier avatarX;
+    private final FrameProfiler profiler;
+    private final long[] baseline = new long[BASELINE_FRAMES]; // Time of the last frames, a ring buffer
+    private final long[] sorted = new long[BASELINE_FRAMES]; // Buffer the median sorts
+    private final int[] activityKind = new int[ACTIVITIES];
+    private final long[] activityFrame = new long[ACTIVITIES];
+    private final int[] activityX = new int[ACTIVITIES];
+    private final int[] activityObjects = new int[ACTIVITIES];
+    private final ExecutorService writer;
+    private int baselineSize;
+    private int baselineHead;
+    private long median;
+    private long frame; // Number of frames watched
+    private long lastFrameEnd; // End of the last frame, 0 before the first frame
+    private long lastRecord; // Time of the last record, 0 before the first record
+    private int suppressed; // Spikes not recorded since the last record because of the rate limit
+    private int activities; // Number of activities noted, the next one goes at activities % ACTIVITIES
+    private int records; // Number of records handed to the writer
+
+    /**
+     * Constructs a new FrameSpikeWatchdog.
+     * @param file the file the records are appended to.
+     * @param factor a frame longer than this factor times the median frame time is a spike.
+     * @param minSpikeMillis a frame shorter than this is never a spike, in milliseconds.
+     * @param minIntervalMillis the minimal time between two records, in milliseconds.
+     * @param layerCounts gives the number of objects of every layer.
+     * @param avatarX gives the x of the avatar.
+     * @param profiler the profiler whose phases are recorded when it is enabled.
+     */
+    public FrameSpikeWatchdog(String file, double factor, long minSpikeMillis, long minIntervalMillis,
+                              Supplier<Map<String, Integer>> layerCounts, DoubleSupplier avatarX,
+                              FrameProfiler profiler) {
+        this.file = file;
+        this.factor = factor;
+        this.minSpikeNanos = minSpikeMillis * 1_000_000;
+        this.minIntervalNanos = minIntervalMillis * 1_000_000;
+        this.layerCounts = layerCounts;
+        this.avatarX = avatarX;
+        this.profiler = profiler;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frame-spike-writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Notes that the world streamed in a range.
+     * @param minX the start of the range.
+     * @param created the number of objects created.
+     */
+    public void noteStreaming(int minX, int created) {
+        noteActivity(STREAMING, minX, created);
+    }
+
+    /**
+     * Notes that the world evicted the objects that left it.
+     * @param minX the start of the world after the eviction.
+     * @param evicted the number of objects removed.
+     */
+    public void noteEviction(int minX, int evicted) {
+        noteActivity(EVICTION, minX, evicted);
+    }
+
+    /**
+     * Ends a frame: measures the time since the end of the last frame, compares it with the median and records
+     * the frame if it is a spike. Must be called once at the end of every frame.
+     */
+    public void endFrame() {
+        long now = System.nanoTime();
+        if(lastFrameEnd != 0) {
+            long frameNanos = now - lastFrameEnd;
+            if(baselineSize >= BASELINE_FRAMES / 4 && frameNanos > minSpikeNanos &&
+                    frameNanos > factor * median) {
+                onSpike(now, frameNanos);
+            }
+            addToBaseline(frameNanos);
+        }
+        frame++;
+        lastFrameEnd = now;
+    }
+
+    /**
+     * Forgets the time of the last frame, so a pause of the game (a dialog, a restart) isn't taken for a spike.
+     */
+    public void skipFrame() {
+        lastFrameEnd = 0;
+    }
+
+    /**
+     * @return the current median frame time, in nanoseconds.
+     */
+    public long median() {
+        return median;
+    }
+
+    /**
+     * @return the number of records handed to the background writer.
+     */
+    public int records() {
+        return records;
+    }
+
+    /**
+     * Stops the background writer after the records already handed to it are written.
+     */
+    public void close() {
+        writer.shutdown();
+    }
+
+    /**
+     * Adds an activity to the ring of the last activities.
+     */
+    private void noteActivity(int kind, int x, int objects) {
+        int index = activities % ACTIVITIES;
+        activityKind[index] = kind;
+        activityFrame[index] = frame;
+        activityX[index] = x;
+        activityObjects[index] = objects;
+        activities++;
+    }
+
+    /**
+     * Adds a frame time to the baseline and recomputes the median every few frames.
+     */
+    private void addToBaseline(long frameNanos) {
+        baseline[baselineHead] = frameNanos;
+        baselineHead = (baselineHead + 1) % BASELINE_FRAMES;
+        baselineSize = Math.min(baselineSize + 1, BASELINE_FRAMES);
+        if(median == 0 || frame % MEDIAN_EVERY_FRAMES == 0) {
+            System.arraycopy(baseline, 0, sorted, 0, baselineSize);
+            Arrays.sort(sorted, 0, baselineSize);
+            median = sorted[baselineSize / 2];
+        }
+    }
+
+    /**
+     * Copies the diagnostics of a spike and hands them to the background writer, unless a record was written
+     * less than the minimal interval ago.
+     */
+    private void onSpike(long now, long frameNanos) {
+        if(lastRecord != 0 && now - lastRecord < minIntervalNanos) {
+            suppressed++;
+            return;
+        }
+        lastRecord = now;
+        Diagnostics diagnostics = new Diagnostics();
+        diagnostics.wallClockMillis = System.currentTimeMillis();
+        diagnostics.frame = frame;
+        diagnostics.frameNanos = frameNanos;
+        diagnostics.medianNanos = median;
+        diagnostics.suppressed = suppressed;
+        diagnostics.avatarX = avatarX.getAsDouble();
+        diagnostics.layerCounts = layerCounts.get();
+        if(profiler.isEnabled() && profiler.size() > 0) {
+            FrameProfiler.Phase[] phases = FrameProfiler.Phase.values();
+            diagnostics.phaseNanos = new long[phases.length];
+            for(FrameProfiler.Phase phase : phases) {
+                diagnostics.phaseNanos[phase.ordinal()] = profiler.phaseNanos(phase, 0);
+            }
+        }
+        int kept = Math.min(activities, ACTIVITIES);
+        diagnostics.activities = new String[kept];
+        for(int i = 0; i < kept; i++) {
+            int index = Math.floorMod(activities - kept + i, ACTIVITIES);
+            diagnostics.activities[i] = String.format("{\"kind\": \"%s\", \"frame\": %d, \"x\": %d, \"objects\": %d}",
+                    activityKind[index] == STREAMING ? "streaming" : "eviction", activityFrame[index],
+                    activityX[index], activityObjects[index]);
+        }
+        suppressed = 0;
+        records++;
+        try {
+            writer.execute(() -> write(diagnostics));
+        } catch (RejectedExecutionException e) {
+            // The watchdog was closed, the game is ending
+        }
+    }
+
+    /**
+     * Formats a record with the state of the garbage collectors and appends it to the file. Runs on the
+     * background thread.
+     */
+    private void write(Diagnostics diagnostics) {
+        StringBuilder record = new StringBuilder("{");
+        record.append("\"time\": ").append(diagnostics.wallClockMillis);
+        record.append(", \"frame\": ").append(diagnostics.frame);
+        record.append(", \"frameMs\": ").append(millis(diagnostics.frameNanos));
+        record.append(", \"medianMs\": ").append(millis(diagnostics.medianNanos));
+        record.append(", \"suppressed\": ").append(diagnostics.suppressed);
+        record.append(", \"avatarX\": ").append(diagnostics.avatarX);
+        record.append(", \"layers\": {");
+        int layer = 0;
+        for(Map.Entry<String, Integer> count : diagnostics.layerCounts.entrySet()) {
+            record.append(layer++ == 0 ? "" : ", ").append('"').append(count.getKey()).append("\": ")
+                    .append(count.getValue());
+        }
+        record.append('}');
+        if(diagnostics.phaseNanos != null) {
+            FrameProfiler.Phase longest = null;
+            record.append(", \"phasesMs\": {");
+            for(FrameProfiler.Phase phase : FrameProfiler.Phase.values()) {
+                long nanos = diagnostics.phaseNanos[phase.ordinal()];
+                record.append(phase.ordinal() == 0 ? "" : ", ").append('"').append(phase.label()).append("\": ")
+                        .append(millis(nanos));
+                if(!phase.isNested() && (longest == null || nanos > diagnostics.phaseNanos[longest.ordinal()])) {
+                    longest = phase;
+                }
+            }
+            record.append("}, \"longestPhase\": \"").append(longest.label()).append('"');
+        }
+        record.append(", \"activity\": [").append(String.join(", ", diagnostics.activities)).append(']');
+        record.append(", \"gc\": [");
+        int collector = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            record.append(collector++ == 0 ? "" : ", ").append("{\"name\": \"").append(gc.getName())
+                    .append("\", \"count\": ").append(gc.getCollectionCount())
+                    .append(", \"timeMs\": ").append(gc.getCollectionTime());
+            if(gc instanceof com.sun.management.GarbageCollectorMXBean) {
+                com.sun.management.GcInfo last = ((com.sun.management.GarbageCollectorMXBean) gc).getLastGcInfo();
+                if(last != null) {
+                    record.append(", \"last\": {\"id\": ").append(last.getId())
+                            .append(", \"startMs\": ").append(last.getStartTime())
+                            .append(", \"durationMs\": ").append(last.getDuration()).append('}');
+                }
+            }
+            record.append('}');
+        }
+        record.append("]}\n");
+        try(Writer out = new FileWriter(file, true)) {
+            out.write(record.toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the nanoseconds in milliseconds, rounded to a microsecond.
+     */
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+
+    /**
+     * The numbers of a spike, copied on the game thread for the background writer.
+     */
+    private static class Diagnostics {
+        private long wallClockMillis;
+        private long frame;
+        private long frameNanos;
+        private long medianNanos;
+        private int suppressed;
+        private double avatarX;
+        private Map<String, Integer> layerCounts;
+        private long[] phaseNanos; // Time of every phase of the frame, null when the profiler is disabled
+        private String[] activities; // The last streaming and eviction activities, as JSON objects
+    }
+}
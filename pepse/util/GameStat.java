@@ -0,0 +1,122 @@
+package pepse.util;
+
+import java.util.Arrays;
+
+/**
+ * A named int value of the game state (lives, kills, energy...) that tells its listeners when it changes. The
+ * value is a plain int and the listeners are kept in an array, so changing a stat allocates nothing, and a stat
+ * that is set to its current value doesn't notify anyone. Consumers subscribe once instead of polling the value
+ * every frame.
+ */
+public class GameStat {
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+    private final String name; // Name of the stat, for logs and telemetry
+    private int value; // Current value of the stat
+    private Listener[] listeners = NO_LISTENERS; // Listeners notified on every change
+
+    /**
+     * A listener of the changes of a stat.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called after the value of a stat changed.
+         * @param stat the stat that changed.
+         * @param oldValue the value before the change.
+         * @param newValue the value after the change.
+         */
+        void onChange(GameStat stat, int oldValue, int newValue);
+    }
+
+    /**
+     * Constructs a new GameStat.
+     * @param name the name of the stat.
+     * @param initialValue the initial value of the stat.
+     */
+    public GameStat(String name, int initialValue) {
+        this.name = name;
+        this.value = initialValue;
+    }
+
+    /**
+     * @return the name of the stat.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the current value of the stat.
+     */
+    public int value() {
+        return value;
+    }
+
+    /**
+     * Increases the value of the stat by one.
+     */
+    public void increment() {
+        set(value + 1);
+    }
+
+    /**
+     * Decreases the value of the stat by one.
+     */
+    public void decrement() {
+        set(value - 1);
+    }
+
+    /**
+     * Adds the given amount to the value of the stat.
+     * @param amount the amount to add, may be negative.
+     */
+    public void increaseBy(int amount) {
+        set(value + amount);
+    }
+
+    /**
+     * Sets the value of the stat and notifies the listeners if it changed.
+     * @param newValue the new value.
+     */
+    public void set(int newValue) {
+        if(newValue == value) return;
+        int oldValue = value;
+        value = newValue;
+        for(Listener listener : listeners) {
+            listener.onChange(this, oldValue, newValue);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified on every change of the stat.
+     * @param listener the listener.
+     */
+    public void addListener(Listener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Removes a listener added with addListener.
+     * @param listener the listener.
+     */
+    public void removeListener(Listener listener) {
+        for(int i = 0; i < listeners.length; i++) {
+            if(listeners[i] == listener) {
+                Listener[] remaining = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, listeners.length - i - 1);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the name and value of the stat.
+     */
+    @Override
+    public String toString() {
+        return name + "=" + value;
+    }
+}
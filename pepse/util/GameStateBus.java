@@ -0,0 +1,76 @@
+package pepse.util;
+
+/**
+ * The GameStateBus holds the stats of a single game: the lives, kills, energy and time left of the player. The HUD
+ * and the end of game check subscribe to the stat they show or watch, and telemetry or achievements can subscribe
+ * to every stat at once. A new bus is created for every game.
+ */
+public class GameStateBus {
+    private final GameStat lives; // Lives left to the player
+    private final GameStat kills; // Zombies killed by the player
+    private final GameStat energy; // Energy left to the avatar for flying
+    private final GameStat lifeTime; // Seconds left until the end of the game
+
+    /**
+     * Constructs a new GameStateBus.
+     * @param lives the initial number of lives.
+     * @param energy the initial energy of the avatar.
+     * @param lifeTime the initial number of seconds left.
+     */
+    public GameStateBus(int lives, int energy, int lifeTime) {
+        this.lives = new GameStat("lives", lives);
+        this.kills = new GameStat("kills", 0);
+        this.energy = new GameStat("energy", energy);
+        this.lifeTime = new GameStat("lifeTime", lifeTime);
+    }
+
+    /**
+     * @return the lives left to the player.
+     */
+    public GameStat lives() {
+        return lives;
+    }
+
+    /**
+     * @return the zombies killed by the player.
+     */
+    public GameStat kills() {
+        return kills;
+    }
+
+    /**
+     * @return the energy left to the avatar.
+     */
+    public GameStat energy() {
+        return energy;
+    }
+
+    /**
+     * @return the seconds left until the end of the game.
+     */
+    public GameStat lifeTime() {
+        return lifeTime;
+    }
+
+    /**
+     * Subscribes a listener to the changes of every stat.
+     * @param listener the listener, which can tell the stats apart by their name or identity.
+     */
+    public void subscribe(GameStat.Listener listener) {
+        lives.addListener(listener);
+        kills.addListener(listener);
+        energy.addListener(listener);
+        lifeTime.addListener(listener);
+    }
+
+    /**
+     * Removes a listener added with subscribe.
+     * @param listener the listener.
+     */
+    public void unsubscribe(GameStat.Listener listener) {
+        lives.removeListener(listener);
+        kills.removeListener(listener);
+        energy.removeListener(listener);
+        lifeTime.removeListener(listener);
+    }
+}
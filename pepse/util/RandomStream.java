@@ -0,0 +1,91 @@
+package pepse.util;
+
+/**
+ * A stream of pseudo random numbers (SplitMix64): a single long of state, no synchronization and no allocation
+ * per number. A stream belongs to a single thread; a stream for another thread or entity is made with split, or
+ * derived from RandomStreams, never shared.
+ */
+public final class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // Increment of the state per number
+    private long state;
+
+    /**
+     * Constructs a new RandomStream.
+     * @param seed the seed of the stream.
+     */
+    public RandomStream(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Restarts the stream from a seed, so a reused stream draws the same numbers as a new one.
+     * @param seed the seed of the stream.
+     */
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * @return the next 64 random bits.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * @return the next 32 random bits.
+     */
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * @param bound the bound of the number, positive.
+     * @return a random int between 0 included and bound excluded.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return a random float between 0 included and 1 excluded.
+     */
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * @return a random double between 0 included and 1 excluded.
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return a random boolean.
+     */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Splits off a stream for an entity or a thread: it is seeded by this stream, so it is deterministic, and its
+     * numbers don't depend on what this stream draws afterwards.
+     * @return the new stream.
+     */
+    public RandomStream split() {
+        return new RandomStream(nextLong());
+    }
+
+    /**
+     * The finalizer of SplitMix64, which spreads every bit of its input over all the bits of its output.
+     * @param z the value to mix.
+     * @return the mixed value.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,101 @@
+package pepse.util;
+
+/**
+ * The source of every random number of the game. Every subsystem draws from its own streams, so the numbers of one
+ * don't depend on how many numbers another drew, and every stream is derived from a seed:
+ * <ul>
+ *     <li>the world is generated from streams derived from the seed of the world and the column, with seedOf, so a
+ *     column looks the same whatever the order the world streams in, on any thread;</li>
+ *     <li>the gameplay (the speeds of the bullets, the colors drawn outside of the world) draws from the shared
+ *     streams of the registry of the session, seeded once per session and recorded with the replays.</li>
+ * </ul>
+ * The registry is immutable apart from its shared streams, which belong to the game thread; other threads use
+ * stream or seedOf, which derive new streams and touch no shared state.
+ * Objects of the world have no access to the game manager, so they reach the registry of the running game through
+ * installed().
+ */
+public final class RandomStreams {
+    private static volatile RandomStreams installed = new RandomStreams(System.nanoTime());
+    private final long seed;
+    private final RandomStream[] shared; // Stream of every subsystem for the game thread
+
+    /**
+     * The subsystems that draw random numbers. The salt of a subsystem comes from its name, so adding a subsystem
+     * doesn't change the streams of the others.
+     */
+    public enum Subsystem {
+        TERRAIN,
+        TREES,
+        ZOMBIES,
+        BULLETS,
+        BULLET_PLANES,
+        COLORS;
+
+        private final long salt = RandomStream.mix(name().hashCode());
+    }
+
+    /**
+     * Constructs a new RandomStreams.
+     * @param seed the seed every stream of the registry is derived from.
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        Subsystem[] subsystems = Subsystem.values();
+        shared = new RandomStream[subsystems.length];
+        for(Subsystem subsystem : subsystems) {
+            shared[subsystem.ordinal()] = new RandomStream(seedOf(seed, subsystem, 0));
+        }
+    }
+
+    /**
+     * Makes a registry the one the objects of the world draw from.
+     * @param streams the registry of the running game.
+     */
+    public static void install(RandomStreams streams) {
+        installed = streams;
+    }
+
+    /**
+     * @return the registry of the running game.
+     */
+    public static RandomStreams installed() {
+        return installed;
+    }
+
+    /**
+     * @return the seed of the registry.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @param subsystem the subsystem.
+     * @return the stream of the subsystem. Must only be used by the game thread.
+     */
+    public RandomStream shared(Subsystem subsystem) {
+        return shared[subsystem.ordinal()];
+    }
+
+    /**
+     * Derives a new stream of a subsystem for an entity. Can be called from any thread.
+     * @param subsystem the subsystem.
+     * @param key identifies the entity, such as its column.
+     * @return the stream.
+     */
+    public RandomStream stream(Subsystem subsystem, long key) {
+        return new RandomStream(seedOf(seed, subsystem, key));
+    }
+
+    /**
+     * Derives the seed of the stream of a subsystem for an entity, to reseed a stream that is reused instead of
+     * creating one. The same arguments always give the same seed.
+     * @param rootSeed the seed the streams are derived from, such as the seed of the world.
+     * @param subsystem the subsystem.
+     * @param key identifies the entity, such as its column.
+     * @return the seed.
+     */
+    public static long seedOf(long rootSeed, Subsystem subsystem, long key) {
+        return RandomStream.mix(RandomStream.mix(rootSeed ^ subsystem.salt) + key);
+    }
+}
@@ -0,0 +1,112 @@
+package pepse.util;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Moves the objects of some layers to a position between their last two simulated positions before the frame is
+ * rendered, so objects move smoothly when the simulation runs at a lower rate than the display. The positions of
+ * the simulation are restored before the next step, so the simulation never sees an interpolated position.
+ * A frame is driven like this:
+ * <pre>
+ *     interpolator.restore();
+ *     for every step: interpolator.capture(layers); simulate the step;
+ *     interpolator.apply(layers, alpha);
+ * </pre>
+ */
+public class RenderInterpolator {
+    private final int[] layers; // Layers whose objects are interpolated
+    private final Map<GameObject, Entry> entries = new IdentityHashMap<>(); // Positions of every tracked object
+    private int generation; // Number of the current capture, to find the objects that left the layers
+
+    /**
+     * The positions of a tracked object.
+     */
+    private static class Entry {
+        private Vector2 previous; // Simulated position before the last step
+        private Vector2 simulated; // Simulated position, while the object is drawn at an interpolated one
+        private int generation; // Capture the object was last seen in
+    }
+
+    /**
+     * Constructs a new RenderInterpolator.
+     * @param layers the layers whose objects are interpolated.
+     */
+    public RenderInterpolator(int... layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * Moves every interpolated object back to its simulated position. Must be called before the first step of a
+     * frame.
+     */
+    public void restore() {
+        for(Map.Entry<GameObject, Entry> tracked : entries.entrySet()) {
+            Entry entry = tracked.getValue();
+            if(entry.simulated != null) {
+                tracked.getKey().setTopLeftCorner(entry.simulated);
+                entry.simulated = null;
+            }
+        }
+    }
+
+    /**
+     * Records the positions of the objects before a step, and forgets the objects that left the layers.
+     * @param objectsInLayer gives the objects of a layer.
+     */
+    public void capture(IntFunction<Iterable<GameObject>> objectsInLayer) {
+        generation++;
+        for(int layer : layers) {
+            for(GameObject object : objectsInLayer.apply(layer)) {
+                Entry entry = entries.computeIfAbsent(object, key -> new Entry());
+                entry.previous = object.getTopLeftCorner();
+                entry.generation = generation;
+            }
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while(iterator.hasNext()) {
+            if(iterator.next().generation != generation) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Moves every object to the position a fraction alpha of the way from its previous simulated position to its
+     * current one. Objects that appeared during the last step are left where they are.
+     * @param objectsInLayer gives the objects of a layer.
+     * @param alpha the fraction of a step the display is ahead of the previous step.
+     */
+    public void apply(IntFunction<Iterable<GameObject>> objectsInLayer, float alpha) {
+        for(int layer : layers) {
+            for(GameObject object : objectsInLayer.apply(layer)) {
+                Entry entry = entries.get(object);
+                if(entry == null || entry.simulated != null) continue;
+                Vector2 simulated = object.getTopLeftCorner();
+                if(simulated.equals(entry.previous)) continue;
+                entry.simulated = simulated;
+                object.setTopLeftCorner(entry.previous.add(simulated.subtract(entry.previous).mult(alpha)));
+            }
+        }
+    }
+
+    /**
+     * Forgets every tracked object, so the objects moved outside the simulation, such as by a quick-load, are not
+     * drawn between their old and new positions. Must be called between restore and the next capture.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of tracked objects.
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,49 @@
+package pepse.util;
+
+/**
+ * Folds the values of a game state into a 64 bit hash (FNV-1a over the bits of every value), so two runs can be
+ * compared by their hashes: the same values in the same order give the same hash, and floats are hashed by their
+ * bits, so a hash only matches when the states are bit-identical.
+ */
+public class StateHasher {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private long hash = OFFSET_BASIS;
+
+    /**
+     * Adds a long to the hash.
+     * @param value the value.
+     * @return this hasher.
+     */
+    public StateHasher add(long value) {
+        for(int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return this;
+    }
+
+    /**
+     * Adds an int to the hash.
+     * @param value the value.
+     * @return this hasher.
+     */
+    public StateHasher add(int value) {
+        return add((long) value);
+    }
+
+    /**
+     * Adds the bits of a float to the hash.
+     * @param value the value.
+     * @return this hasher.
+     */
+    public StateHasher add(float value) {
+        return add(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * @return the hash of the values added so far.
+     */
+    public long value() {
+        return hash;
+    }
+}
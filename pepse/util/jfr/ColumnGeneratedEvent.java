@@ -0,0 +1,43 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when the world streams in a new range of columns: the terrain, the trees with their leaves
+ * and the zombies of the range. Its duration is the time of the generation, so a pause that starts inside it shows
+ * which range was being built.
+ */
+@Name("pepse.ColumnGenerated")
+@Label("Columns Generated")
+@Category({"Pepse", "World"})
+@Description("A range of columns of the world was generated")
+public class ColumnGeneratedEvent extends jdk.jfr.Event {
+    @Label("Simulation Step")
+    @Description("Number of the simulation step that generated the range")
+    public long step;
+
+    @Label("Min X")
+    public int minX;
+
+    @Label("Max X")
+    public int maxX;
+
+    @Label("Columns")
+    public int columns;
+
+    @Label("Blocks")
+    @Description("Blocks of terrain created")
+    public int blocks;
+
+    @Label("Trees")
+    public int trees;
+
+    @Label("Leaves")
+    public int leaves;
+
+    @Label("Zombies")
+    public int zombies;
+}
@@ -0,0 +1,27 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when the table of the sticky notes is written to its file. Its duration is the time of the
+ * write, which runs on the game thread.
+ */
+@Name("pepse.NoteTablePersisted")
+@Label("Note Table Persisted")
+@Category({"Pepse", "Persistence"})
+public class NoteTablePersistedEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    @Description("Notes written")
+    public int rows;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,30 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when the objects of a layer that left the world are removed. One event is recorded per
+ * layer and eviction, with the time the layer took.
+ */
+@Name("pepse.ObjectsEvicted")
+@Label("Objects Evicted")
+@Category({"Pepse", "World"})
+@Description("The objects of a layer that left the world were removed")
+public class ObjectsEvictedEvent extends jdk.jfr.Event {
+    @Label("Simulation Step")
+    @Description("Number of the simulation step of the eviction")
+    public long step;
+
+    @Label("Layer Name")
+    public String layerName;
+
+    @Label("Layer")
+    public int layer;
+
+    @Label("Evicted")
+    @Description("Number of objects removed from the layer")
+    public int evicted;
+}
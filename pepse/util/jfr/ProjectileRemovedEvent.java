@@ -0,0 +1,33 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when a projectile leaves the game, because it hit the ground or a tree or because it left
+ * the world. Projectiles are not pooled, so the removed projectile becomes garbage.
+ */
+@Name("pepse.ProjectileRemoved")
+@Label("Projectile Removed")
+@Category({"Pepse", "Projectiles"})
+public class ProjectileRemovedEvent extends jdk.jfr.Event {
+    /** Reason of a projectile that hit a block. */
+    public static final String HIT_BLOCK = "hit block";
+    /** Reason of a projectile that left the world. */
+    public static final String EVICTED = "evicted";
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Reason")
+    @Description("Why the projectile was removed")
+    public String reason;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+}
@@ -0,0 +1,25 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when the avatar fires a projectile.
+ */
+@Name("pepse.ProjectileSpawned")
+@Label("Projectile Spawned")
+@Category({"Pepse", "Projectiles"})
+public class ProjectileSpawnedEvent extends jdk.jfr.Event {
+    @Label("Kind")
+    public String kind;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+
+    @Label("Right")
+    public boolean right;
+}
@@ -0,0 +1,32 @@
+package pepse.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when a bullet kills a zombie.
+ */
+@Name("pepse.ZombieKilled")
+@Label("Zombie Killed")
+@Category({"Pepse", "Zombies"})
+public class ZombieKilledEvent extends jdk.jfr.Event {
+    @Label("Spawn Column")
+    @Description("Column the zombie spawned at")
+    public int spawnColumn;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+
+    @Label("Kills")
+    @Description("Kills of the game, this one included")
+    public int kills;
+
+    @Label("Horde")
+    @Description("Whether the zombie was simulated by the horde rather than as a game object")
+    public boolean horde;
+}
@@ -0,0 +1,50 @@
+package pepse.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric that only goes up, such as the number of notes written. Adding to it never blocks, so the game thread
+ * can count while the exporter reads.
+ */
+public class Counter extends Metric {
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Constructs a new Counter.
+     * @param name the name of the metric.
+     * @param labels the labels of the metric, as they are written between the braces, or an empty string.
+     */
+    Counter(String name, String labels) {
+        super(name, labels);
+    }
+
+    /**
+     * Adds one to the counter.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Adds an amount to the counter.
+     * @param amount the amount, not negative.
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * @return the value of the counter.
+     */
+    public long value() {
+        return value.sum();
+    }
+
+    /**
+     * Writes the sample of the counter.
+     */
+    @Override
+    void write(StringBuilder out) {
+        sample(out, name(), labels(), value.sum());
+    }
+}
@@ -0,0 +1,122 @@
+package pepse.util.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The metrics of a running game: the frame times, the objects of every layer, the live projectiles, the zombies
+ * alive, dead and pooled, the hit rate of the heightfield cache, the latency of the writes of the note table and the
+ * heap usage. The frame times and the writes are recorded as they happen; the counts are sampled by the game every
+ * few frames, since counting the objects of the layers walks them.
+ */
+public class GameMetrics {
+    // Upper bounds of the buckets of the frame times, in seconds, around the budgets of 120, 60 and 30 Hz
+    private static final double[] FRAME_BUCKETS = {0.001, 0.002, 0.004, 0.008, 0.0167, 0.0333, 0.05, 0.1, 0.25, 1};
+    // Upper bounds of the buckets of the writes of the note table, in seconds
+    private static final double[] WRITE_BUCKETS = {0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5};
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Map<String, Gauge> layerObjects = new HashMap<>(); // Gauge of every layer, by name
+    private final Histogram frameSeconds;
+    private final Histogram noteWriteSeconds;
+    private final Counter frames;
+    private final Gauge projectilesLive;
+    private final Gauge zombiesAlive;
+    private final Gauge zombiesDead;
+    private final Gauge zombiesPooled;
+    private final Gauge cacheHits;
+    private final Gauge cacheMisses;
+    private final Gauge cacheHitRatio;
+    private long lastFrameEnd; // End of the last frame, 0 before the first frame
+
+    /**
+     * Constructs the metrics of a game.
+     */
+    public GameMetrics() {
+        frameSeconds = registry.histogram("pepse_frame_seconds",
+                "Time from the end of a frame to the end of the next, render included.", FRAME_BUCKETS);
+        frames = registry.counter("pepse_frames_total", "Frames run.", "");
+        noteWriteSeconds = registry.histogram("pepse_note_table_write_seconds",
+                "Time to write the table of the sticky notes.", WRITE_BUCKETS);
+        projectilesLive = registry.gauge("pepse_projectiles", "Projectiles in the world, by state.",
+                "state=\"live\"");
+        zombiesAlive = registry.gauge("pepse_zombies", "Zombies, by state.", "state=\"alive\"");
+        zombiesDead = registry.gauge("pepse_zombies", "Zombies, by state.", "state=\"dead\"");
+        zombiesPooled = registry.gauge("pepse_zombies", "Zombies, by state.", "state=\"pooled\"");
+        cacheHits = registry.gauge("pepse_heightfield_lookups",
+                "Lookups of the heightfield cache of the terrain since it was created, by result.",
+                "result=\"hit\"");
+        cacheMisses = registry.gauge("pepse_heightfield_lookups",
+                "Lookups of the heightfield cache of the terrain since it was created, by result.",
+                "result=\"miss\"");
+        cacheHitRatio = registry.gauge("pepse_heightfield_hit_ratio",
+                "Share of the lookups of the heightfield answered by the cache.", "");
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("pepse_heap_bytes", "Heap of the JVM, by area.", "area=\"used\"",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("pepse_heap_bytes", "Heap of the JVM, by area.", "area=\"committed\"",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        registry.gauge("pepse_heap_bytes", "Heap of the JVM, by area.", "area=\"max\"",
+                () -> memory.getHeapMemoryUsage().getMax());
+    }
+
+    /**
+     * @return the registry of the metrics, to export.
+     */
+    public MetricsRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Ends a frame and records its time. Must be called once at the end of every frame.
+     */
+    public void endFrame() {
+        long now = System.nanoTime();
+        if(lastFrameEnd != 0) {
+            frameSeconds.observe((now - lastFrameEnd) / 1e9);
+        }
+        frames.increment();
+        lastFrameEnd = now;
+    }
+
+    /**
+     * Forgets the time of the last frame, so a pause of the game isn't recorded as a frame.
+     */
+    public void skipFrame() {
+        lastFrameEnd = 0;
+    }
+
+    /**
+     * Records a write of the table of the sticky notes.
+     * @param nanos the time of the write, in nanoseconds.
+     */
+    public void noteTableWritten(long nanos) {
+        noteWriteSeconds.observe(nanos / 1e9);
+    }
+
+    /**
+     * Sets the gauges of the counts of the world. Must be called by the game thread.
+     * @param layerCounts the number of objects of every layer, by name.
+     * @param projectiles the number of projectiles in the world.
+     * @param alive the number of living zombies.
+     * @param dead the number of corpses.
+     * @param pooled the number of zombies waiting in the pool.
+     * @param hits the lookups of the heightfield answered by the cache.
+     * @param misses the lookups of the heightfield that computed the height.
+     */
+    public void sample(Map<String, Integer> layerCounts, int projectiles, int alive, int dead, int pooled,
+                       long hits, long misses) {
+        for(Map.Entry<String, Integer> count : layerCounts.entrySet()) {
+            layerObjects.computeIfAbsent(count.getKey(), layer -> registry.gauge("pepse_layer_objects",
+                    "Objects in a layer of the game.", "layer=\"" + layer + "\"")).set(count.getValue());
+        }
+        projectilesLive.set(projectiles);
+        zombiesAlive.set(alive);
+        zombiesDead.set(dead);
+        zombiesPooled.set(pooled);
+        cacheHits.set(hits);
+        cacheMisses.set(misses);
+        cacheHitRatio.set(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+}
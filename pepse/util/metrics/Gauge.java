@@ -0,0 +1,48 @@
+package pepse.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A metric that goes up and down, such as the number of objects of a layer. The game thread sets it; the exporter
+ * reads the last value set. A gauge can instead read its value when it is exported, for values that any thread may
+ * read, such as the heap usage.
+ */
+public class Gauge extends Metric {
+    private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0)); // Bits of the double value
+    private final DoubleSupplier supplier; // Gives the value when it is exported, or null if the value is set
+
+    /**
+     * Constructs a new Gauge.
+     * @param name the name of the metric.
+     * @param labels the labels of the metric, as they are written between the braces, or an empty string.
+     * @param supplier gives the value when it is exported, or null if the value is set.
+     */
+    Gauge(String name, String labels, DoubleSupplier supplier) {
+        super(name, labels);
+        this.supplier = supplier;
+    }
+
+    /**
+     * Sets the value of the gauge.
+     * @param value the value.
+     */
+    public void set(double value) {
+        bits.lazySet(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @return the value of the gauge.
+     */
+    public double value() {
+        return supplier != null ? supplier.getAsDouble() : Double.longBitsToDouble(bits.get());
+    }
+
+    /**
+     * Writes the sample of the gauge.
+     */
+    @Override
+    void write(StringBuilder out) {
+        sample(out, name(), labels(), value());
+    }
+}
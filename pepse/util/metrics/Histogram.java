@@ -0,0 +1,73 @@
+package pepse.util.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric that counts observations, such as frame times, in buckets of fixed upper bounds. Observing a value
+ * finds its bucket and increments it atomically, so the game thread never waits for the exporter.
+ */
+public class Histogram extends Metric {
+    private final double[] upperBounds; // Upper bound of every bucket but the last, in increasing order
+    private final AtomicLongArray buckets; // Observations of every bucket, the last one has no upper bound
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Constructs a new Histogram.
+     * @param name the name of the metric.
+     * @param labels the labels of the metric, as they are written between the braces, or an empty string.
+     * @param upperBounds the upper bounds of the buckets, in increasing order.
+     */
+    Histogram(String name, String labels, double[] upperBounds) {
+        super(name, labels);
+        for(int i = 1; i < upperBounds.length; i++) {
+            if(upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Upper bounds must increase: " + upperBounds[i]);
+            }
+        }
+        this.upperBounds = upperBounds.clone();
+        buckets = new AtomicLongArray(upperBounds.length + 1);
+    }
+
+    /**
+     * Records an observation.
+     * @param value the observed value.
+     */
+    public void observe(double value) {
+        int bucket = 0;
+        while(bucket < upperBounds.length && value > upperBounds[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        sum.add(value);
+        count.increment();
+    }
+
+    /**
+     * @return the number of observations.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Writes the cumulative buckets, the sum and the count of the histogram.
+     */
+    @Override
+    void write(StringBuilder out) {
+        String separator = labels().isEmpty() ? "" : labels() + ",";
+        long cumulative = 0;
+        for(int bucket = 0; bucket < upperBounds.length; bucket++) {
+            cumulative += buckets.get(bucket);
+            String bound = BigDecimal.valueOf(upperBounds[bucket]).stripTrailingZeros().toPlainString();
+            sample(out, name() + "_bucket", separator + "le=\"" + bound + "\"", cumulative);
+        }
+        cumulative += buckets.get(upperBounds.length);
+        sample(out, name() + "_bucket", separator + "le=\"+Inf\"", cumulative);
+        sample(out, name() + "_sum", labels(), sum.sum());
+        sample(out, name() + "_count", labels(), cumulative);
+    }
+}
@@ -0,0 +1,57 @@
+package pepse.util.metrics;
+
+/**
+ * A metric of the registry, a single series of a family of metrics with the same name.
+ */
+abstract class Metric {
+    private final String name;
+    private final String labels; // Labels as they are written between the braces, or an empty string
+
+    /**
+     * Constructs a new Metric.
+     * @param name the name of the metric.
+     * @param labels the labels of the metric, as they are written between the braces, or an empty string.
+     */
+    Metric(String name, String labels) {
+        this.name = name;
+        this.labels = labels;
+    }
+
+    /**
+     * @return the name of the metric.
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return the labels of the metric, as they are written between the braces, or an empty string.
+     */
+    String labels() {
+        return labels;
+    }
+
+    /**
+     * Writes the samples of the metric in the text exposition format.
+     * @param out the text of the scrape.
+     */
+    abstract void write(StringBuilder out);
+
+    /**
+     * Writes a sample line.
+     */
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if(!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if(value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        }
+        else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,113 @@
+package pepse.util.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The metrics of the game, written in the Prometheus text exposition format. The metrics are registered once, then
+ * updated by the game thread with atomic operations and read by the exporter thread, so a scrape never blocks a
+ * frame. Series with the same name and different labels form a family that shares its help and type.
+ */
+public class MetricsRegistry {
+    private final List<Family> families = new CopyOnWriteArrayList<>();
+
+    /**
+     * The series that share a name.
+     */
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+        /**
+         * Constructs a new Family.
+         */
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Registers a counter.
+     * @param name the name of the metric, such as pepse_notes_written_total.
+     * @param help the description of the metric.
+     * @param labels the labels of the series, such as layer="tree", or an empty string.
+     * @return the counter.
+     */
+    public Counter counter(String name, String help, String labels) {
+        return register(name, help, "counter", new Counter(name, labels));
+    }
+
+    /**
+     * Registers a gauge set by the game.
+     * @param name the name of the metric.
+     * @param help the description of the metric.
+     * @param labels the labels of the series, or an empty string.
+     * @return the gauge.
+     */
+    public Gauge gauge(String name, String help, String labels) {
+        return register(name, help, "gauge", new Gauge(name, labels, null));
+    }
+
+    /**
+     * Registers a gauge that reads its value when it is exported. The supplier runs on the exporter thread.
+     * @param name the name of the metric.
+     * @param help the description of the metric.
+     * @param labels the labels of the series, or an empty string.
+     * @param supplier gives the value, safe to call from any thread.
+     * @return the gauge.
+     */
+    public Gauge gauge(String name, String help, String labels, DoubleSupplier supplier) {
+        return register(name, help, "gauge", new Gauge(name, labels, supplier));
+    }
+
+    /**
+     * Registers a histogram.
+     * @param name the name of the metric, such as pepse_frame_seconds.
+     * @param help the description of the metric.
+     * @param upperBounds the upper bounds of the buckets, in increasing order.
+     * @return the histogram.
+     */
+    public Histogram histogram(String name, String help, double... upperBounds) {
+        return register(name, help, "histogram", new Histogram(name, "", upperBounds));
+    }
+
+    /**
+     * Writes every metric in the text exposition format.
+     * @return the text of a scrape.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for(Family family : families) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for(Metric metric : family.metrics) {
+                metric.write(out);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Adds a metric to the family of its name, creating the family if needed.
+     */
+    private <T extends Metric> T register(String name, String help, String type, T metric) {
+        Family family = null;
+        for(Family existing : families) {
+            if(existing.name.equals(name)) family = existing;
+        }
+        if(family == null) {
+            family = new Family(name, help, type);
+            families.add(family);
+        }
+        else if(!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is a " + family.type + ", not a " + type);
+        }
+        family.metrics.add(metric);
+        return metric;
+    }
+}
@@ -2,18 +2,18 @@ package pepse.world;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.collisions.Layer;
 import danogl.components.Transition;
 import danogl.gui.ImageReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.rendering.Renderable;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.GameStat;
 import pepse.world.bullet.Bullet;
 import pepse.world.bullet.BulletPlane;
-import pepse.world.ui.energy.Energy;
 
 import java.awt.event.KeyEvent;
+import java.nio.ByteBuffer;
 
 /**
  * The Avatar class represents a game character that can perform various actions,
@@ -88,13 +88,14 @@ public class Avatar extends GameObject {
     };
     private static final String AVATAR_TAG = "avatar";
 
+    // Bytes of the state of the avatar in a save: position, velocity, direction and fly mode
+    public static final int SNAPSHOT_BYTES = 4 * Float.BYTES + 2;
+
     // Constants that define the avatar's behavior
     private static final float AVATAR_RUNNING_SPEED_X = 200;
     private static final float DOWN_GRAVITY = 500;
     private static final float JUMP_SPEED = -400;
     private static final float MAX_SPEED = 500;
-    private static final int MAX_ENERGY = 200;
-    private static final int ENERGY_LAYER = Layer.UI;
 
     // Whether the last key pressed by the user was the right arrow key
     private boolean lastKeyIsRight = true;
@@ -114,8 +115,8 @@ public class Avatar extends GameObject {
     // Utility for loading images
     private final ImageReader imageReader;
 
-    // Counter for the avatar's energy level
-    private Counter energyCounter;
+    // Game stat for the avatar's energy level
+    private final GameStat energyCounter;
 
     // Maximum energy level for the avatar
     private int maxEnergy = 200;
@@ -148,6 +149,7 @@ public class Avatar extends GameObject {
      * @param dimensions    Width and height in window coordinates.
      * @param renderable    The renderable representing the object. Can be null, in which case
      *                      the GameObject will not be rendered.
+     * @param energyCounter The game stat of the avatar's energy.
      */
     public Avatar(GameObjectCollection gameObjects,
                   int layer,
@@ -155,13 +157,14 @@ public class Avatar extends GameObject {
                   UserInputListener inputListener,
                   ImageReader imageReader,
                   Renderable renderable,
-                  Vector2 dimensions) {
+                  Vector2 dimensions,
+                  GameStat energyCounter) {
         super(topLeftCorner, dimensions, renderable);
         this.gameObjects = gameObjects;
         this.layer = layer;
         this.inputListener = inputListener;
         this.imageReader = imageReader;
-        initializeEnergy();
+        this.energyCounter = energyCounter;
         status = Status.STANDS;
         tempStatus = status;
         initSkills();
@@ -229,20 +232,23 @@ public class Avatar extends GameObject {
      * @param topLeftCorner a Vector2 object representing the top left corner of the avatar's position
      * @param inputListener a UserInputListener object for handling user input
      * @param imageReader an ImageReader object for reading images
+     * @param energyCounter the game stat of the avatar's energy
      * @return a reference to the newly created Avatar object
      */
     public static Avatar create(GameObjectCollection gameObjects,
                                 int layer,
                                 Vector2 topLeftCorner,
                                 UserInputListener inputListener,
-                                ImageReader imageReader) {
+                                ImageReader imageReader,
+                                GameStat energyCounter) {
         Avatar avatar = new Avatar(gameObjects,
                 layer,
                 topLeftCorner,
                 inputListener,
                 imageReader,
                 imageReader.readImage(AVATAR_IMAGES_STANDING[0], true),
-                AVATAR_DIMENSIONS);
+                AVATAR_DIMENSIONS,
+                energyCounter);
         avatar.physics().preventIntersectionsFromDirection(Vector2.ZERO);
         avatar.transform().setAccelerationY(DOWN_GRAVITY);
         gameObjects.addGameObject(avatar, layer);
@@ -250,14 +256,6 @@ public class Avatar extends GameObject {
         return avatar;
     }
 
-    /**
-     * Initializes the energy counter and creates a new Energy object, adding it to the gameObjects list.
-     */
-    private void initializeEnergy() {
-        energyCounter = new Counter(MAX_ENERGY);
-        Energy.create(gameObjects, imageReader, ENERGY_LAYER, energyCounter, MAX_ENERGY);
-    }
-
     /**
      * /**
      * Check and enforce the maximum speed of the avatar.
@@ -269,13 +267,54 @@ public class Avatar extends GameObject {
     }
 
 
+    /**
+     * Writes the state of the avatar to a save: its position, velocity, direction and fly mode. The energy is
+     * saved with the other stats of the game.
+     * @param out the buffer of the save, with at least SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putFloat(getTopLeftCorner().x()).putFloat(getTopLeftCorner().y());
+        out.putFloat(getVelocity().x()).putFloat(getVelocity().y());
+        out.put((byte) (lastKeyIsRight ? 1 : 0)).put((byte) (flyMode ? 1 : 0));
+    }
+
+    /**
+     * Restores the state of the avatar written by writeTo.
+     * @param in the buffer of the save.
+     */
+    public void readFrom(ByteBuffer in) {
+        setTopLeftCorner(new Vector2(in.getFloat(), in.getFloat()));
+        setVelocity(new Vector2(in.getFloat(), in.getFloat()));
+        lastKeyIsRight = in.get() != 0;
+        flyMode = in.get() != 0;
+        renderer().setIsFlippedHorizontally(!lastKeyIsRight);
+    }
+
+    /**
+     * Puts the avatar back at the start of a new game: standing still at the given place, facing right and out of
+     * the fly mode. The images of the skills are kept, so a restart reads none of them again.
+     * @param topLeftCorner the place of the avatar at the start of the game.
+     */
+    public void reset(Vector2 topLeftCorner) {
+        setTopLeftCorner(topLeftCorner);
+        setVelocity(Vector2.ZERO);
+        lastKeyIsRight = true;
+        flyMode = false;
+        status = Status.STANDS;
+        tempStatus = status;
+        renderer().setIsFlippedHorizontally(false);
+    }
+
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
         listenInput();
         checkMaximumSpeed();
         updateRenderImages();
         checkIfStandsToUpdateEnergy();
+        profiler.stop(FrameProfiler.Phase.AVATAR, start);
     }
 
     /**
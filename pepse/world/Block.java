@@ -1,15 +1,20 @@
 package pepse.world;
 
 import danogl.GameObject;
+import danogl.components.Component;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 
 /**
  * A class that creates the block for the ground.
+ * Blocks are immovable and have no velocity, so updating them every frame only walks their transform and
+ * components for nothing. A block skips its update (it is still rendered and collided) until a component is added
+ * to it.
  */
 public class Block extends GameObject {
     public static final int SIZE = 30;
+    private boolean ticking; // Whether the block has components that need the update of every frame
 
     /**
      * Constructor of the class that creates a new block.
@@ -22,4 +27,25 @@ public class Block extends GameObject {
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
 
     }
+
+    /**
+     * Updates the block only if it has components, a static block has nothing to update.
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        if(ticking) {
+            super.update(deltaTime);
+        }
+    }
+
+    /**
+     * Adds a component to the block, which makes the block update every frame from now on.
+     * @param component The component to add.
+     */
+    @Override
+    public void addComponent(Component component) {
+        ticking = true;
+        super.addComponent(component);
+    }
 }
\ No newline at end of file
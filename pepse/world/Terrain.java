@@ -6,6 +6,8 @@ import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
 import pepse.util.PerlinNoise;
+import pepse.util.RandomStream;
+import pepse.util.RandomStreams;
 import pepse.util.SegmentCompletion;
 
 import java.awt.*;
@@ -21,12 +23,15 @@ public class Terrain {
     private final static int X_NORMALIZE = 600;
     private final static int BLOCKS_TO_ADD_AFTER_NOISE = 10;
     private static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
-    private static final int TERRAIN_DEPTH = 12;
     private static final String TAG_GROUND = "ground";
     private final int seed;
     private int groundLayer;
     private Vector2 windowDimensions;
     private final float groundHeightAtX0;
+    private final int terrainDepth; // Blocks of terrain under the lowest surface of the window
+    private final RandomStream random = new RandomStream(0); // Colors of the blocks, reseeded for every column
+    private int columnsCreated; // Columns created by this terrain, for telemetry
+    private int blocksCreated; // Blocks created by this terrain, for telemetry
 
     /**
      * Constructor of the Terrain
@@ -36,11 +41,25 @@ public class Terrain {
      * @param seed set value that will be used tu calculate the groundHeightAt method of the class.
      */
     public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed) {
+        this(gameObjects, groundLayer, windowDimensions, seed, WorldSettings.DEFAULT);
+    }
+
+    /**
+     * Constructor of the Terrain with the given densities of the world.
+     * @param gameObjects Game objects to add.
+     * @param groundLayer Layer to locate the object in the game.
+     * @param windowDimensions Game's window dimensions.
+     * @param seed set value that will be used tu calculate the groundHeightAt method of the class.
+     * @param settings the densities of the world, which give the depth of the terrain.
+     */
+    public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed,
+                   WorldSettings settings) {
         this.gameObjects = gameObjects;
         this.groundLayer = groundLayer;
         this.windowDimensions = windowDimensions;
         this.groundHeightAtX0 = windowDimensions.y()*((float) 2 / 3);
         this.seed = seed;
+        this.terrainDepth = settings.terrainDepth();
     }
 
     /**
@@ -96,14 +115,15 @@ public class Terrain {
             // Calculate the y-coordinate for the ground at the current x-coordinate
             int coord = (int) Math.floor(groundHeightAt(currCounter) / Block.SIZE) * Block.SIZE;
             // Calculate the number of blocks to create in the current column
-            int numBlocksInCol = TERRAIN_DEPTH + (maxHeight - coord) / Block.SIZE;
+            int numBlocksInCol = terrainDepth + (maxHeight - coord) / Block.SIZE;
             // Calculate the x-coordinate for the current column
             int currX = startX + currColumn * Block.SIZE;
+            random.setSeed(RandomStreams.seedOf(seed, RandomStreams.Subsystem.TERRAIN, currX));
             // Loop through each block in the current column
             for(int i = 0; i < numBlocksInCol; i++) {
                 // Create a new block at the current position
                 Vector2 currPosition = new Vector2(currX, coord + i * Block.SIZE);
-                Renderable renderable = new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR));
+                Renderable renderable = new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR, random));
                 Block block = new Block(currPosition, renderable);
                 // Add the block to the game objects with a specific layer based on its position
                 if(i == 0 || i == 1) {
@@ -114,13 +134,29 @@ public class Terrain {
                 }
                 // Set the block's tag to "ground"
                 block.setTag(TAG_GROUND);
+                blocksCreated++;
             }
             // Update the current x-coordinate and column for the next iteration
             currCounter += Block.SIZE;
             currColumn++;
+            columnsCreated++;
         }
     }
 
+    /**
+     * @return the number of columns of blocks this terrain created.
+     */
+    public int columnsCreated() {
+        return columnsCreated;
+    }
+
+    /**
+     * @return the number of blocks this terrain created.
+     */
+    public int blocksCreated() {
+        return blocksCreated;
+    }
+
 
 
 }
@@ -0,0 +1,97 @@
+package pepse.world;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A cache of the terrain height for every block column. The terrain height is computed with perlin noise, which
+ * is expensive compared to the per frame work of moving thousands of objects, so every column is computed once
+ * and kept in a direct mapped table of primitive arrays. Systems that need to ask "where is the ground at x" every
+ * frame (like the zombie horde) read the heights from here instead of querying blocks or the noise function.
+ */
+public class TerrainHeightfield {
+    private static final int DEFAULT_CAPACITY = 1024; // Number of columns kept in the cache (power of two)
+    private static final int EMPTY_COLUMN = Integer.MIN_VALUE; // Marks a slot that holds no column yet
+    private final Function<Float, Float> groundHeightAt; // Function that returns the height of the ground at x
+    private final int[] columns; // Column stored in every slot of the cache
+    private final float[] surfaces; // Top of the highest block of the column stored in every slot
+    private final int mask; // Mask that maps a column to its slot
+    private long hits; // Number of lookups answered by the cache
+    private long misses; // Number of lookups that had to compute the height
+
+    /**
+     * Constructs a new heightfield with the default capacity.
+     * @param groundHeightAt a function that returns the height of the ground at a given x-position
+     */
+    public TerrainHeightfield(Function<Float, Float> groundHeightAt) {
+        this(groundHeightAt, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new heightfield.
+     * @param groundHeightAt a function that returns the height of the ground at a given x-position
+     * @param capacity the number of columns to keep cached, must be a power of two
+     */
+    public TerrainHeightfield(Function<Float, Float> groundHeightAt, int capacity) {
+        if(capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Heightfield capacity must be a power of two: " + capacity);
+        }
+        this.groundHeightAt = groundHeightAt;
+        this.columns = new int[capacity];
+        this.surfaces = new float[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(columns, EMPTY_COLUMN);
+    }
+
+    /**
+     * Returns the column of blocks that contains the given x coordinate.
+     * @param x x coordinate in world coordinates.
+     * @return the index of the column (column * Block.SIZE is the left side of the column).
+     */
+    public static int columnOf(float x) {
+        return (int) Math.floor(x / Block.SIZE);
+    }
+
+    /**
+     * Returns the y coordinate of the top of the terrain in the given column, exactly as the Terrain class lays the
+     * top block of that column.
+     * @param column index of the column.
+     * @return y coordinate of the top of the ground.
+     */
+    public float surfaceAtColumn(int column) {
+        int slot = column & mask;
+        if(columns[slot] == column) {
+            hits++;
+            return surfaces[slot];
+        }
+        misses++;
+        float height = groundHeightAt.apply((float) column * Block.SIZE);
+        float surface = (float) Math.floor(height / Block.SIZE) * Block.SIZE;
+        columns[slot] = column;
+        surfaces[slot] = surface;
+        return surface;
+    }
+
+    /**
+     * Returns the y coordinate of the top of the terrain below the given x coordinate.
+     * @param x x coordinate in world coordinates.
+     * @return y coordinate of the top of the ground.
+     */
+    public float surfaceAt(float x) {
+        return surfaceAtColumn(columnOf(x));
+    }
+
+    /**
+     * @return number of lookups answered from the cache since creation.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that computed the height since creation.
+     */
+    public long misses() {
+        return misses;
+    }
+}
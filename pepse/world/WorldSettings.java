@@ -0,0 +1,85 @@
+package pepse.world;
+
+/**
+ * The densities the world is generated with: how likely a column holds a tree or a zombie, how likely a leaf
+ * grows around the top of a tree, and how many blocks of terrain lie under the surface. The game runs with the
+ * defaults, and benchmarks build denser or sparser worlds to measure how the game scales with its objects.
+ */
+public class WorldSettings {
+    /**
+     * The densities of the game.
+     */
+    public static final WorldSettings DEFAULT = new WorldSettings(0.05, 0.45, 0.1, 12);
+    private final double treeProbability; // Probability that a column holds a tree
+    private final double leafProbability; // Probability that a leaf grows on a block of the top of a tree
+    private final double zombieProbability; // Probability that a column holds a zombie
+    private final int terrainDepth; // Blocks of terrain under the lowest surface of the window
+
+    /**
+     * Constructs new WorldSettings.
+     * @param treeProbability the probability that a column holds a tree.
+     * @param leafProbability the probability that a leaf grows on a block of the top of a tree.
+     * @param zombieProbability the probability that a column holds a zombie.
+     * @param terrainDepth the blocks of terrain under the lowest surface of the window.
+     */
+    public WorldSettings(double treeProbability, double leafProbability, double zombieProbability,
+                         int terrainDepth) {
+        checkProbability("tree", treeProbability);
+        checkProbability("leaf", leafProbability);
+        checkProbability("zombie", zombieProbability);
+        if(terrainDepth < 0) {
+            throw new IllegalArgumentException("Terrain depth must not be negative: " + terrainDepth);
+        }
+        this.treeProbability = treeProbability;
+        this.leafProbability = leafProbability;
+        this.zombieProbability = zombieProbability;
+        this.terrainDepth = terrainDepth;
+    }
+
+    /**
+     * Throws if a probability is not between 0 and 1.
+     */
+    private static void checkProbability(String name, double probability) {
+        if(!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability of " + name + " must be between 0 and 1: " +
+                    probability);
+        }
+    }
+
+    /**
+     * @return the probability that a column holds a tree.
+     */
+    public double treeProbability() {
+        return treeProbability;
+    }
+
+    /**
+     * @return the probability that a leaf grows on a block of the top of a tree.
+     */
+    public double leafProbability() {
+        return leafProbability;
+    }
+
+    /**
+     * @return the probability that a column holds a zombie.
+     */
+    public double zombieProbability() {
+        return zombieProbability;
+    }
+
+    /**
+     * @return the blocks of terrain under the lowest surface of the window.
+     */
+    public int terrainDepth() {
+        return terrainDepth;
+    }
+
+    /**
+     * @return the densities, for reports.
+     */
+    @Override
+    public String toString() {
+        return String.format("trees=%.3f leaves=%.3f zombies=%.3f depth=%d", treeProbability, leafProbability,
+                zombieProbability, terrainDepth);
+    }
+}
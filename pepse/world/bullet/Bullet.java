@@ -7,10 +7,14 @@ import danogl.components.Transition;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.RandomStreams;
+import pepse.util.jfr.ProjectileRemovedEvent;
+import pepse.util.jfr.ProjectileSpawnedEvent;
 import pepse.world.Block;
 import pepse.world.Skill;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
  * Bullet class represents a bullet in a game. It has instance variables for a skill, game object collection, and layer,
@@ -22,6 +26,7 @@ import java.util.Random;
  * method that removes the bullet from the gameObjects collection.
  */
 public class Bullet extends GameObject implements BulletInterface {
+    public static final int SNAPSHOT_BYTES = 4 * Float.BYTES; // Bytes of the bullet in a snapshot of the game
     private static final String BULLET_TAG = "bullet";
     private static final Vector2 BULLET_DIMENSIONS = new Vector2(12.5f, 15);
     private static final int BULLET_SPEED = 750;
@@ -29,7 +34,6 @@ public class Bullet extends GameObject implements BulletInterface {
     private static final int DIRECTION_FACTOR_Y = 30;
     private static final int FACTOR_RANDOM_VELOCITY = 100;
     private final Skill bulletSkill;
-    private static Random random;
     private static final String[] bulletImages = {
             "assets/avatar/Objects/Bullet_000.png",
             "assets/avatar/Objects/Bullet_001.png",
@@ -67,8 +71,8 @@ public class Bullet extends GameObject implements BulletInterface {
         this.layer = layer;
         renderer().setIsFlippedHorizontally(!right);
         int direction = right ? 1 : -1;
-        random = new Random();
-        transform().setVelocityX(direction * BULLET_SPEED + FACTOR_RANDOM_VELOCITY * random.nextFloat());
+        transform().setVelocityX(direction * BULLET_SPEED + FACTOR_RANDOM_VELOCITY *
+                RandomStreams.installed().shared(RandomStreams.Subsystem.BULLETS).nextFloat());
         bulletSkill = new Skill(bulletImages, Transition.TransitionType.TRANSITION_LOOP, imageReader,
                         renderer());
     }
@@ -101,9 +105,47 @@ public class Bullet extends GameObject implements BulletInterface {
                 imageReader);
         gameObjects.addGameObject(bullet, layer);
         bullet.setTag(BULLET_TAG);
+        ProjectileSpawnedEvent event = new ProjectileSpawnedEvent();
+        if(event.shouldCommit()) {
+            event.kind = Bullet.class.getSimpleName();
+            event.x = topLeftCorner.x();
+            event.y = topLeftCorner.y();
+            event.right = right;
+            event.commit();
+        }
+        return bullet;
+    }
+
+    /**
+     * Creates a Bullet written by writeTo in a snapshot of the game, without the effects of a shot, and adds it
+     * to the given collection.
+     * @param gameObjects the collection of game objects that this bullet belongs to.
+     * @param layer the layer that this bullet is on.
+     * @param imageReader an object that can read images from files.
+     * @param in the buffer of the snapshot, positioned at the state of the bullet.
+     * @return the restored Bullet.
+     */
+    public static Bullet restore(GameObjectCollection gameObjects, int layer, ImageReader imageReader,
+                                 ByteBuffer in) {
+        Vector2 topLeftCorner = new Vector2(in.getFloat(), in.getFloat());
+        Vector2 velocity = new Vector2(in.getFloat(), in.getFloat());
+        Bullet bullet = new Bullet(topLeftCorner, BULLET_DIMENSIONS, imageReader.readImage(bulletImages[0], true),
+                imageReader, velocity.x() > 0, gameObjects, layer);
+        bullet.setVelocity(velocity);
+        gameObjects.addGameObject(bullet, layer);
+        bullet.setTag(BULLET_TAG);
         return bullet;
     }
 
+    /**
+     * Writes the position and velocity of the bullet to a snapshot of the game.
+     * @param out the buffer of the snapshot, with at least SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putFloat(getTopLeftCorner().x()).putFloat(getTopLeftCorner().y());
+        out.putFloat(getVelocity().x()).putFloat(getVelocity().y());
+    }
+
     /**
      *  Update is a method that updates the state of the bullet.
      * @param deltaTime The time elapsed, in seconds, since the last frame. Can
@@ -115,8 +157,11 @@ public class Bullet extends GameObject implements BulletInterface {
      */
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
         bulletSkill.getNextRender(false);
+        profiler.stop(FrameProfiler.Phase.BULLETS, start);
     }
 
     /**
@@ -131,6 +176,14 @@ public class Bullet extends GameObject implements BulletInterface {
         super.onCollisionEnter(other, collision);
         if(other instanceof Block) {
             gameObjects.removeGameObject(this, layer);
+            ProjectileRemovedEvent event = new ProjectileRemovedEvent();
+            if(event.shouldCommit()) {
+                event.kind = getClass().getSimpleName();
+                event.reason = ProjectileRemovedEvent.HIT_BLOCK;
+                event.x = getTopLeftCorner().x();
+                event.y = getTopLeftCorner().y();
+                event.commit();
+            }
         }
     }
 }
@@ -209,10 +262,13 @@ class Explode extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
         explodeSkill.getNextRender(false);
         if(!explodeSkill.isSkillActive()) {
             gameObjects.removeGameObject(this, layer);
         }
+        profiler.stop(FrameProfiler.Phase.BULLETS, start);
     }
 }
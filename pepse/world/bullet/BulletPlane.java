@@ -7,10 +7,14 @@ import danogl.components.Transition;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.RandomStreams;
+import pepse.util.jfr.ProjectileRemovedEvent;
+import pepse.util.jfr.ProjectileSpawnedEvent;
 import pepse.world.Block;
 import pepse.world.Skill;
-import java.util.Random;
 
+import java.nio.ByteBuffer;
 
 /**
  * A class representing a bullet in a game.
@@ -18,12 +22,12 @@ import java.util.Random;
  * certain objects.
  */
 public class BulletPlane extends GameObject implements BulletInterface {
+    public static final int SNAPSHOT_BYTES = 4 * Float.BYTES; // Bytes of the bullet in a snapshot of the game
     private static final String BULLET_TAG = "bullet";
     private static final Vector2 BULLET_DIMENSIONS = new Vector2(110 * 0.3f, 115 * 0.3f);
     private static final int BULLET_SPEED = 850;
     private static final int FACTOR_RANDOM_VELOCITY = 100;
     private final Skill bulletSkill;
-    private static Random random;
     private static final String[] bulletImages = {
             "assets/avatar/Objects/BulletPlane (1).png",
             "assets/avatar/Objects/BulletPlane (2).png",
@@ -54,8 +58,8 @@ public class BulletPlane extends GameObject implements BulletInterface {
         this.layer = layer;
         renderer().setIsFlippedHorizontally(!right);
         int direction = right ? 1 : -1;
-        random = new Random();
-        transform().setVelocityX(direction * BULLET_SPEED + FACTOR_RANDOM_VELOCITY * random.nextFloat());
+        transform().setVelocityX(direction * BULLET_SPEED + FACTOR_RANDOM_VELOCITY *
+                RandomStreams.installed().shared(RandomStreams.Subsystem.BULLET_PLANES).nextFloat());
         bulletSkill = new Skill(bulletImages, Transition.TransitionType.TRANSITION_LOOP,
                             imageReader, renderer());
     }
@@ -81,9 +85,47 @@ public class BulletPlane extends GameObject implements BulletInterface {
                 imageReader, right, gameObjects, layer);
         gameObjects.addGameObject(bulletPlane, layer);
         bulletPlane.setTag(BULLET_TAG);
+        ProjectileSpawnedEvent event = new ProjectileSpawnedEvent();
+        if(event.shouldCommit()) {
+            event.kind = BulletPlane.class.getSimpleName();
+            event.x = topLeftCorner.x();
+            event.y = topLeftCorner.y();
+            event.right = right;
+            event.commit();
+        }
         return bulletPlane;
     }
 
+    /**
+     * Creates a BulletPlane written by writeTo in a snapshot of the game, without the effects of a shot, and adds it
+     * to the given collection.
+     * @param gameObjects the collection of game objects that this bullet belongs to.
+     * @param layer the layer that this bullet is on.
+     * @param imageReader an object that can read images from files.
+     * @param in the buffer of the snapshot, positioned at the state of the bullet.
+     * @return the restored BulletPlane.
+     */
+    public static BulletPlane restore(GameObjectCollection gameObjects, int layer, ImageReader imageReader,
+                                      ByteBuffer in) {
+        Vector2 topLeftCorner = new Vector2(in.getFloat(), in.getFloat());
+        Vector2 velocity = new Vector2(in.getFloat(), in.getFloat());
+        BulletPlane bullet = new BulletPlane(topLeftCorner, BULLET_DIMENSIONS,
+                imageReader.readImage(bulletImages[0], true), imageReader, velocity.x() > 0, gameObjects, layer);
+        bullet.setVelocity(velocity);
+        gameObjects.addGameObject(bullet, layer);
+        bullet.setTag(BULLET_TAG);
+        return bullet;
+    }
+
+    /**
+     * Writes the position and velocity of the bullet to a snapshot of the game.
+     * @param out the buffer of the snapshot, with at least SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putFloat(getTopLeftCorner().x()).putFloat(getTopLeftCorner().y());
+        out.putFloat(getVelocity().x()).putFloat(getVelocity().y());
+    }
+
     /**
      * Update is a method that updates the state of the bullet.
      * @param deltaTime The time elapsed, in seconds, since the last frame. Can
@@ -95,8 +137,11 @@ public class BulletPlane extends GameObject implements BulletInterface {
      */
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
         bulletSkill.getNextRender(false);
+        profiler.stop(FrameProfiler.Phase.BULLETS, start);
     }
 
     /**
@@ -111,6 +156,14 @@ public class BulletPlane extends GameObject implements BulletInterface {
         super.onCollisionEnter(other, collision);
         if(other instanceof Block) {
             gameObjects.removeGameObject(this, layer);
+            ProjectileRemovedEvent event = new ProjectileRemovedEvent();
+            if(event.shouldCommit()) {
+                event.kind = getClass().getSimpleName();
+                event.reason = ProjectileRemovedEvent.HIT_BLOCK;
+                event.x = getTopLeftCorner().x();
+                event.y = getTopLeftCorner().y();
+                event.commit();
+            }
         }
     }
 }
\ No newline at end of file
@@ -6,13 +6,18 @@ import danogl.components.ScheduledTask;
 import danogl.components.Transition;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.RandomStream;
 import pepse.world.Block;
-import java.util.Random;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
 
 /**
  * A class that extends GameObject and creates a leaf. It represents a static leaf inside the top of the tree.
  */
 public class Leaf extends GameObject {
+    // Bytes of the state of a leaf in a save: original position, phase, time left, center, velocity and opacity
+    public static final int SNAPSHOT_BYTES = 2 * Float.BYTES + 1 + 6 * Float.BYTES;
     private static final String TAG_LEAF = "leaf";
     private static final Float ANGLE_MOVEMENT = 10f;
     private static final float TIME_TRANSITION_ANGLE_MOVEMENT = 2;
@@ -28,21 +33,27 @@ public class Leaf extends GameObject {
     private static final float DROP_SPEED = 120;
     private static final float TIME_TRANSITION_HORIZONTAL_MOVEMENT = 2;
     private static final float HORIZONTAL_TRANSITION_FALL = 30;
-    private final Random random;
+    private final RandomStream random;
     private final Vector2 originalPosition;
     private float timeTransitionAngleMovement;
     private Float angleMovement;
     private Transition<Float> horizontalTransition;
     private Transition<Float> angleTransition;
+    private Phase phase; // Phase of the life of the leaf
+    private float phaseTimeLeft; // Seconds until the leaf leaves its phase
 
+    /**
+     * The phases of the life of a leaf: on the tree, falling while it fades out, and dead until it grows again.
+     */
+    private enum Phase {ATTACHED, FALLING, DEAD}
 
     /**
      * Constructor of the class that initializes the leaf object.
      * @param position Vector2 leaf's position.
-     * @param random random function.
+     * @param random the own stream of the leaf, which draws its timers.
      * @param renderable Render value.
      */
-    Leaf(Vector2 position, Random random, Renderable renderable) {
+    Leaf(Vector2 position, RandomStream random, Renderable renderable) {
         super(position, new Vector2(Block.SIZE, Block.SIZE), renderable);
         this.originalPosition = position;
         this.random = random;
@@ -55,12 +66,36 @@ public class Leaf extends GameObject {
 
     }
 
+    /**
+     * Counts down the time left in the phase of the leaf, and moves it to its next phase when the time is over.
+     * The phases are counted here rather than by scheduled tasks, so their timers can be saved and restored.
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        phaseTimeLeft -= deltaTime;
+        if(phaseTimeLeft > 0) return;
+        switch (phase) {
+            case ATTACHED:
+                dropLeaf();
+                break;
+            case FALLING:
+                deadCall();
+                break;
+            case DEAD:
+                this.renderer().fadeIn(FADE_IN_TIME_LEAF_DEAD);
+                newLeafLife();
+                break;
+        }
+    }
+
     /**
      * Gives a new life to leaf starting a new cycle.
      */
     private void newLeafLife() {
-        new ScheduledTask(this, getLifeTime(),
-                false, this::dropLeaf);
+        phase = Phase.ATTACHED;
+        phaseTimeLeft = getLifeTime();
     }
 
     /**
@@ -70,7 +105,9 @@ public class Leaf extends GameObject {
      protected void dropLeaf() {
         this.transform().setVelocityY(DROP_SPEED);
         this.setHorizontalTransition();
-        this.renderer().fadeOut(FADEOUT_TIME, this::deadCall);
+        this.renderer().fadeOut(FADEOUT_TIME);
+        phase = Phase.FALLING;
+        phaseTimeLeft = FADEOUT_TIME;
     }
 
     /**
@@ -80,12 +117,86 @@ public class Leaf extends GameObject {
         this.transform().setVelocity(Vector2.ZERO);
         this.setCenter(originalPosition);
         removeComponent(horizontalTransition);
-        new ScheduledTask(this, getDeadTime(), false,
-                () -> {
-                    this.renderer().fadeIn(FADE_IN_TIME_LEAF_DEAD);
-                    this.newLeafLife();
-                }
-        );
+        phase = Phase.DEAD;
+        phaseTimeLeft = getDeadTime();
+    }
+
+    /**
+     * Grows the leaf again on its tree, at the start of a new life, wherever it was in its life.
+     */
+    public void regrow() {
+        if(horizontalTransition != null) {
+            removeComponent(horizontalTransition);
+        }
+        transform().setVelocity(Vector2.ZERO);
+        setTopLeftCorner(originalPosition);
+        renderer().fadeIn(FADE_IN_TIME_LEAF_DEAD);
+        newLeafLife();
+    }
+
+    /**
+     * @return a key of the original position of the leaf, which finds the leaf again in a regenerated world.
+     */
+    public long positionKey() {
+        return positionKey(originalPosition.x(), originalPosition.y());
+    }
+
+    /**
+     * Writes the state of the leaf to a save: its original position, which identifies it, its phase with the time
+     * left in it, and where it is while it falls.
+     * @param out the buffer of the save, with at least SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putFloat(originalPosition.x()).putFloat(originalPosition.y());
+        out.put((byte) phase.ordinal()).putFloat(phaseTimeLeft);
+        out.putFloat(getCenter().x()).putFloat(getCenter().y());
+        out.putFloat(getVelocity().x()).putFloat(getVelocity().y());
+        out.putFloat(renderer().getOpaqueness());
+    }
+
+    /**
+     * Reads the state of a leaf written by writeTo, and restores it on the leaf of the world at the same original
+     * position. The state is skipped if the world has no such leaf.
+     * @param in the buffer of the save.
+     * @param leaves the leaves of the world, by the key of their original position.
+     */
+    public static void restore(ByteBuffer in, Map<Long, Leaf> leaves) {
+        Leaf leaf = leaves.get(positionKey(in.getFloat(), in.getFloat()));
+        Phase phase = Phase.values()[in.get()];
+        float timeLeft = in.getFloat();
+        Vector2 center = new Vector2(in.getFloat(), in.getFloat());
+        Vector2 velocity = new Vector2(in.getFloat(), in.getFloat());
+        float opacity = in.getFloat();
+        if(leaf != null) {
+            leaf.restore(phase, timeLeft, center, velocity, opacity);
+        }
+    }
+
+    /**
+     * Puts the leaf in a phase of its life, at the given place.
+     */
+    private void restore(Phase phase, float timeLeft, Vector2 center, Vector2 velocity, float opacity) {
+        if(horizontalTransition != null) {
+            removeComponent(horizontalTransition);
+        }
+        this.phase = phase;
+        phaseTimeLeft = timeLeft;
+        setCenter(center);
+        transform().setVelocity(velocity);
+        renderer().setOpaqueness(opacity);
+        if(phase == Phase.FALLING) {
+            if(velocity.y() != 0) {
+                setHorizontalTransition();
+            }
+            renderer().fadeOut(timeLeft);
+        }
+    }
+
+    /**
+     * @return the key of an original position.
+     */
+    private static long positionKey(float x, float y) {
+        return (long) Float.floatToIntBits(x) << 32 | (Float.floatToIntBits(y) & 0xffffffffL);
     }
 
     /**
@@ -1,14 +1,14 @@
 package pepse.world.trees;
 
-import danogl.gui.WindowController;
 import danogl.gui.mouse.MouseActionParams;
 import danogl.gui.mouse.MouseButton;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.RandomStream;
+import pepse.world.ui.DialogOverlay;
 
-import javax.swing.*;
 import java.util.ArrayList;
-import java.util.Random;
 
 
 /**
@@ -18,11 +18,11 @@ import java.util.Random;
  */
 public class StickyNoteLeaf extends Leaf {
     private static final float PROBABILITY_OF_NOTE_APPEARANCE = 0.05f;
-    private final Random random;
+    private final RandomStream random;
     private int indexSeed;
     private boolean containsMessage;
     private String currNote;
-    private final WindowController windowController;
+    private final DialogOverlay dialogs;
     private final ArrayList<String> seedArray;
     private final Runnable updateTable;
     private static final Float CONTAINS_MESSAGE_ANGLE = 45f;
@@ -33,27 +33,27 @@ public class StickyNoteLeaf extends Leaf {
     /**
      * Constructs a new StickyNoteLeaf instance with the given parameters.
      * It sets the position of the leaf using the superclass's constructor and initializes the random,
-     * windowController, seedArray, and updateTable instance variables with the corresponding parameters.
+     * dialogs, seedArray, and updateTable instance variables with the corresponding parameters.
      * It also sets the containsMessage instance variable to false and the currNote instance variable to
      * an empty string. If the seedArray is not empty and the probability of note appearance is satisfied,
      * the containsMessage variable is set to true and the currNote variable is set to a random element of
      * the seedArray. It also updates the angle of the leaf to the "contains message" angle.
      * @param position The position of the leaf, in window coordinates (pixels).
-     * @param random A random number generator.
+     * @param random The own stream of the leaf.
      * @param renderable The renderable representing the leaf.
-     * @param windowController The window controller for the game window
+     * @param dialogs The overlay that shows the dialogs of the game over the world
      * @param seedArray  An array of strings containing the possible messages that can appear on the leaves.
      * @param updateTable  A runnable that updates the table of messages in the game window.
      */
     StickyNoteLeaf(Vector2 position,
-                   Random random,
+                   RandomStream random,
                    Renderable renderable,
-                   WindowController windowController,
+                   DialogOverlay dialogs,
                    ArrayList<String> seedArray,
                    Runnable updateTable) {
         super(position, random, renderable);
         this.random = random;
-        this.windowController = windowController;
+        this.dialogs = dialogs;
         this.seedArray = seedArray;
         this.updateTable = updateTable;
         containsMessage = false;
@@ -88,14 +88,17 @@ public class StickyNoteLeaf extends Leaf {
      */
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
+        profiler.stop(FrameProfiler.Phase.LEAVES, start);
     }
 
     /**
      * The onMouseAction method is a callback method that is called when a mouse event occurs on the object.
      * In this case, the method checks if the left mouse button was pressed and, if so,
-     * either shows an input dialog to the user to write a new secret message,
-     * or displays the current message in a message box. If the right mouse button was pressed,
+     * either opens a dialog for the user to write a new secret message, pausing the world while they write,
+     * or displays the current message in a dialog over the running world. If the right mouse button was pressed,
      * the method removes the current message from the seedArray if it exists, updates the table,
      * drops the leaf and updates the angle of the leaf.
      * @param params info regarding the mouse's parameters in this frame and the action that occurred.
@@ -103,26 +106,31 @@ public class StickyNoteLeaf extends Leaf {
     @Override
     public void onMouseAction(MouseActionParams params) {
         super.onMouseAction(params);
-        if(params.getButton() == MouseButton.LEFT_BUTTON) {
+        if(params.getButton() == MouseButton.LEFT_BUTTON && !dialogs.isOpen()) {
             if(!containsMessage) {
-                String newMessage = JOptionPane.showInputDialog("Write your secret message");
-                if(newMessage != null) {
-                    writeMessage(newMessage);
-                }
+                dialogs.askText("Write your secret message", true, this::writeMessage);
             }
-            else windowController.showMessageBox(currNote);
+            else dialogs.showMessage(currNote, false);
 
         }
         if(params.getButton() == MouseButton.RIGHT_BUTTON) {
-            if(containsMessage) {
-                seedArray.remove(indexSeed);
-                updateTable.run();
-            }
-            dropLeaf();
-            updateLeafAngle(NOT_CONTAINS_MESSAGE_ANGLE, NOT_CONTAINS_MESSAGE_TIME_TRANSITION_ANGLE);
-            containsMessage = false;
-            currNote = "";
+            onRightClick();
+        }
+    }
+
+    /**
+     * Handles a click with the right mouse button: removes the current message from the seedArray if it exists,
+     * updates the table and drops the leaf. Public so the headless benchmarks can click leaves without a mouse.
+     */
+    public void onRightClick() {
+        if(containsMessage) {
+            seedArray.remove(indexSeed);
+            updateTable.run();
         }
+        dropLeaf();
+        updateLeafAngle(NOT_CONTAINS_MESSAGE_ANGLE, NOT_CONTAINS_MESSAGE_TIME_TRANSITION_ANGLE);
+        containsMessage = false;
+        currNote = "";
     }
 
     /**
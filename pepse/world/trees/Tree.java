@@ -1,13 +1,16 @@
 package pepse.world.trees;
 
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.WindowController;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
+import pepse.util.RandomStream;
+import pepse.util.RandomStreams;
 import pepse.util.SegmentCompletion;
 import pepse.world.Block;
+import pepse.world.WorldSettings;
+import pepse.world.ui.DialogOverlay;
 
 import java.awt.*;
 import java.util.*;
@@ -19,10 +22,7 @@ import java.util.function.Function;
 public class Tree {
     static final Color TREE_COLOR = new Color(100, 50, 20);
     static final Color LEAVES_COLOR = new Color(50, 200, 30);
-    static final Random random = new Random();
     private static final String TAG_TREE = "tree";
-    private static final double PROBABILITY_OF_TREE_APPEAREANCE = 0.05;
-    private static final double PROBABILITY_OF_LEAF_APPEAREANCE = 0.45;
     private static final float SCALE_TREE_TOP_SIZE = 1.5f;
     private static final int MAXIMUM_TREE_BLOCKS_HEIGHT = 18;
     private static final int MINIMUM_TREE_BLOCKS_HEIGHT = 6;
@@ -30,10 +30,14 @@ public class Tree {
     private final int treeLayer;
     private final Function<Float, Float> getTreeHeight;
     private final int seed;
-    private final WindowController windowController;
+    private final DialogOverlay dialogs;
     private final ArrayList<String> seedArray;
     private final Runnable updateTable;
+    private final WorldSettings settings; // Probabilities of the trees and leaves
+    private final RandomStream random = new RandomStream(0); // Reseeded for every column
     private float lastCheck = -1f;
+    private int treesCreated; // Trees created by this object, for telemetry
+    private int leavesCreated; // Leaves created by this object, for telemetry
 
     /**
      * Constructor of Tree class that initializes all the parameters as fields of the class.
@@ -42,21 +46,24 @@ public class Tree {
      * @param getTreeHeight Function that returns the height of the terrain on a specific column.
      * @param seed Seed that will be passed to the random functions (all program runs with same seed,
      *             will output the same heights and positions for random calculations)
+     * @param settings The densities of the world, which give the probabilities of the trees and leaves.
      */
     public Tree(GameObjectCollection gameObjects,
                 int treeLayer,
                 Function<Float,Float> getTreeHeight,
                 int seed,
-                WindowController windowController,
+                DialogOverlay dialogs,
                 ArrayList<String> seedArray,
-                Runnable updateTable) {
+                Runnable updateTable,
+                WorldSettings settings) {
         this.gameObjects = gameObjects;
         this.treeLayer = treeLayer;
         this.getTreeHeight = getTreeHeight;
         this.seed = seed;
-        this.windowController = windowController;
+        this.dialogs = dialogs;
         this.seedArray = seedArray;
         this.updateTable = updateTable;
+        this.settings = settings;
     }
 
     /**
@@ -77,7 +84,7 @@ public class Tree {
             // Calculates the x current position.
             int currX = startX + col * Block.SIZE;
             // Set the seed to the random function which is used for the tree's appeareance and height.
-            random.setSeed(Objects.hash(currX, seed));
+            random.setSeed(RandomStreams.seedOf(seed, RandomStreams.Subsystem.TREES, currX));
             // Adds a new tree to the game if it should appear.
             if(checkIfTree()) {
                 createTree(currX);
@@ -94,12 +101,27 @@ public class Tree {
         int treeBlocks = treeBlocksRandomHeight();
         for(int j = 0; j < treeBlocks; j++) {
             Vector2 currPosition = new Vector2(currX, startTerrainInColumn - ((j + 1) * Block.SIZE));
-            Renderable renderable = new RectangleRenderable(ColorSupplier.approximateColor(TREE_COLOR));
+            Renderable renderable = new RectangleRenderable(ColorSupplier.approximateColor(TREE_COLOR, random));
             Block blockTree = new Block(currPosition, renderable);
             gameObjects.addGameObject(blockTree, treeLayer);
             blockTree.setTag(TAG_TREE);
         }
         addLeaves(currX, startTerrainInColumn - treeBlocks * Block.SIZE, treeBlocks);
+        treesCreated++;
+    }
+
+    /**
+     * @return the number of trees this object created.
+     */
+    public int treesCreated() {
+        return treesCreated;
+    }
+
+    /**
+     * @return the number of leaves this object created.
+     */
+    public int leavesCreated() {
+        return leavesCreated;
     }
 
     /**
@@ -124,10 +146,11 @@ public class Tree {
      */
     private void addLeaf(Vector2 position) {
         Leaf leaf = new StickyNoteLeaf(position,
-                random,
-                new RectangleRenderable(ColorSupplier.approximateColor(LEAVES_COLOR)),
-                windowController, seedArray, updateTable);
+                random.split(),
+                new RectangleRenderable(ColorSupplier.approximateColor(LEAVES_COLOR, random)),
+                dialogs, seedArray, updateTable);
         gameObjects.addGameObject(leaf, treeLayer + 1);
+        leavesCreated++;
     }
 
     /**
@@ -149,7 +172,7 @@ public class Tree {
             return false;
         }
         lastCheck = a;
-        return random.nextDouble() >= 1 - PROBABILITY_OF_TREE_APPEAREANCE;
+        return random.nextDouble() >= 1 - settings.treeProbability();
     }
 
     /**
@@ -157,6 +180,6 @@ public class Tree {
      * @return int true if there is a tree, false otherwise.
      */
     private boolean checkIfLeaf() {
-        return random.nextDouble() >= 1 - PROBABILITY_OF_LEAF_APPEAREANCE;
+        return random.nextDouble() >= 1 - settings.leafProbability();
     }
 }
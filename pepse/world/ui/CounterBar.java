@@ -0,0 +1,87 @@
+package pepse.world.ui;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.GameStat;
+
+/**
+ * The CounterBar class is a subclass of GameObject that represents a bar whose length shows the value of a game
+ * stat. The bar listens to the stat and only resizes when it changes, so it has nothing to do in its update and a
+ * HUD that doesn't change allocates nothing. The position and dimensions of a value are computed once, so a stat
+ * that goes back and forth allocates nothing either.
+ */
+public class CounterBar extends GameObject {
+    private final static int ADD_TO_INITIAL_X = 3;
+    private final static int FACTOR_X = 10;
+    private final Vector2 initialPosition;
+    private final Vector2 initialDimension;
+    private final int maxValue;
+    // Position and dimensions of the bar for every value up to its max value, computed when first shown
+    private final Vector2[] topLeftCorners;
+    private final Vector2[] barDimensions;
+
+    /**
+     * Constructor of CounterBar
+     * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
+     * @param dimensions a Vector2 object representing the dimensions of the full bar
+     * @param renderable a Renderable object representing the visual representation of the object
+     * @param stat a GameStat object whose value the bar shows
+     * @param maxValue an int representing the value of the stat for which the bar is full
+     */
+    public CounterBar(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
+                      GameStat stat,
+                      int maxValue) {
+        super(topLeftCorner, dimensions, renderable);
+        this.maxValue = maxValue;
+        initialPosition = topLeftCorner;
+        initialDimension = dimensions;
+        topLeftCorners = new Vector2[Math.max(0, maxValue) + 1];
+        barDimensions = new Vector2[topLeftCorners.length];
+        reRenderBar(stat.value());
+        stat.addListener((changed, oldValue, newValue) -> reRenderBar(newValue));
+    }
+
+    /**
+     * Private method for updating the dimensions and position of the bar based on the value of the stat. The
+     * vectors of the values outside 0 to the max value are not kept.
+     * @param value the value of the stat.
+     */
+    private void reRenderBar(int value) {
+        boolean cached = value >= 0 && value < topLeftCorners.length;
+        Vector2 topLeftCorner = cached ? topLeftCorners[value] : null;
+        Vector2 dimensions = cached ? barDimensions[value] : null;
+        if(topLeftCorner == null) {
+            topLeftCorner = new Vector2(barX(initialPosition.x(), value, maxValue), initialPosition.y());
+            dimensions = new Vector2(barWidth(initialDimension.x(), value, maxValue), initialDimension.y());
+            if(cached) {
+                topLeftCorners[value] = topLeftCorner;
+                barDimensions[value] = dimensions;
+            }
+        }
+        setDimensions(dimensions);
+        setTopLeftCorner(topLeftCorner);
+    }
+
+    /**
+     * Computes the x coordinate of the left side of a bar that shows a value.
+     * @param initialX the x coordinate of the bar when it was created.
+     * @param value the value of the stat.
+     * @param maxValue the value of the stat for which the bar is full.
+     * @return the x coordinate of the left side of the bar.
+     */
+    public static float barX(float initialX, int value, int maxValue) {
+        return initialX + ADD_TO_INITIAL_X + FACTOR_X * (float) ((maxValue - value) / maxValue);
+    }
+
+    /**
+     * Computes the width of a bar that shows a value.
+     * @param fullWidth the width of the full bar.
+     * @param value the value of the stat.
+     * @param maxValue the value of the stat for which the bar is full.
+     * @return the width of the bar.
+     */
+    public static float barWidth(float fullWidth, int value, int maxValue) {
+        return value * fullWidth / maxValue;
+    }
+}
@@ -0,0 +1,273 @@
+package pepse.world.ui;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.gui.UserInputListener;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A camera-space dialog drawn over the world, which replaces the modal dialogs of the window: a message, a yes or
+ * no question, or a line of text to write. The modal dialogs block the loop of the game until they close, which
+ * freezes the world and then hands the physics the whole time they were open as the time of a single frame. The
+ * overlay instead reads its keys once per frame while the loop goes on, and a dialog can ask the game to pause the
+ * world while it is open. The keys are read by their state in every frame, so a key is typed once per press, and
+ * the keys held when a message or a text opens are only read once they are released, since they were held for the
+ * game. The keys of a question aren't keys of the game, so they answer it even if they were held.
+ * A message closes with Backspace, since Enter fires and the world goes on under a message, a question is answered
+ * with Y or N, and a text is confirmed with Enter, or cancelled with Enter while it is empty. A text pauses the
+ * world, which stays paused after Enter closed it until Enter is released, so the avatar doesn't fire with it.
+ * Escape is left alone, the engine closes the window with it.
+ */
+public class DialogOverlay extends GameObject {
+    private static final Vector2 SIZE = new Vector2(520, 120);
+    private static final float MARGIN = 16;
+    private static final int MAX_TEXT_LENGTH = 80;
+    private static final float CURSOR_BLINK_TIME = 0.5f; // Seconds the cursor is shown, then hidden
+    private static final Color BACKGROUND = new Color(0, 0, 0, 200);
+    private static final Color BORDER = new Color(240, 240, 240);
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+    private static final String MESSAGE_HINT = "Backspace to close";
+    private static final String QUESTION_HINT = "Y for yes, N for no";
+    private static final String TEXT_HINT = "Enter to confirm, or to cancel while empty";
+    // Keys that type a character, and the character they type without and with shift
+    private static final int[] TYPED_KEYS = {KeyEvent.VK_SPACE, KeyEvent.VK_PERIOD, KeyEvent.VK_COMMA,
+            KeyEvent.VK_MINUS, KeyEvent.VK_SLASH, KeyEvent.VK_QUOTE};
+    private static final String TYPED_CHARS = " .,-/'";
+    private static final String SHIFTED_CHARS = " ><_?\"";
+    private static final String SHIFTED_DIGITS = ")!@#$%^&*(";
+    private static final int KEY_CODES = 256;
+    private final Panel panel; // Renderable of the overlay
+    private final boolean[] wasPressed = new boolean[KEY_CODES]; // Keys held in the last frame the dialog read
+    private Kind kind; // Kind of the open dialog, null while no dialog is open
+    private boolean pausesWorld; // Whether the game must pause its world while the dialog is open
+    private boolean primed; // Whether the keys held when the dialog opened were read
+    private Boolean answer; // Answer to the open question, null until the player answered
+    private Consumer<String> onText; // Receives the text once it is confirmed
+    private final StringBuilder text = new StringBuilder(); // Text written in the open dialog
+    private float cursorTime; // Seconds since the cursor of the text blinked
+    private boolean holdingEnter; // Whether the world stays paused until the Enter that closed a text is released
+
+    /**
+     * The kinds of dialogs.
+     */
+    private enum Kind {MESSAGE, QUESTION, TEXT}
+
+    /**
+     * Constructs a new DialogOverlay in the middle of the window.
+     * @param windowDimensions the dimensions of the window.
+     */
+    public DialogOverlay(Vector2 windowDimensions) {
+        this(windowDimensions, new Panel());
+    }
+
+    /**
+     * Constructs a new DialogOverlay drawn by the given panel.
+     */
+    private DialogOverlay(Vector2 windowDimensions, Panel panel) {
+        super(windowDimensions.subtract(SIZE).mult(0.5f), SIZE, panel);
+        this.panel = panel;
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+    }
+
+    /**
+     * Creates a new DialogOverlay and adds it to the game. It draws nothing until a dialog opens.
+     * @param gameObjects the objects of the game.
+     * @param layer the layer of the overlay, above the HUD.
+     * @param windowDimensions the dimensions of the window.
+     * @return the overlay.
+     */
+    public static DialogOverlay create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions) {
+        DialogOverlay overlay = new DialogOverlay(windowDimensions);
+        gameObjects.addGameObject(overlay, layer);
+        return overlay;
+    }
+
+    /**
+     * Opens a message, in place of the dialog that was open.
+     * @param message the message.
+     * @param pause whether the world must pause while the message is open.
+     */
+    public void showMessage(String message, boolean pause) {
+        open(Kind.MESSAGE, message, MESSAGE_HINT, pause);
+    }
+
+    /**
+     * Opens a yes or no question, in place of the dialog that was open. The question stays open until the game
+     * closes it, once it took the answer.
+     * @param question the question.
+     * @param pause whether the world must pause while the question is open.
+     */
+    public void askYesNo(String question, boolean pause) {
+        open(Kind.QUESTION, question, QUESTION_HINT, pause);
+    }
+
+    /**
+     * Opens a line of text to write, in place of the dialog that was open.
+     * @param prompt what the text is for.
+     * @param pause whether the world must pause while the text is written.
+     * @param onText receives the text once the player confirmed it, and isn't called if the player cancelled.
+     */
+    public void askText(String prompt, boolean pause, Consumer<String> onText) {
+        open(Kind.TEXT, prompt, TEXT_HINT, pause);
+        this.onText = onText;
+    }
+
+    /**
+     * Closes the open dialog, if any.
+     */
+    public void close() {
+        kind = null;
+        pausesWorld = false;
+        answer = null;
+        onText = null;
+        text.setLength(0);
+        panel.lines = null;
+    }
+
+    /**
+     * @return whether a dialog is open.
+     */
+    public boolean isOpen() {
+        return kind != null;
+    }
+
+    /**
+     * @return whether the game must pause its world: a dialog that pauses it is open.
+     */
+    public boolean pausesWorld() {
+        return pausesWorld || holdingEnter;
+    }
+
+    /**
+     * @return the answer to the open question, or null while the player didn't answer or no question is open.
+     */
+    public Boolean answer() {
+        return answer;
+    }
+
+    /**
+     * Reads the keys of the frame into the open dialog. Called by the game once per frame, whether the world is
+     * paused or not.
+     * @param keyboard the keys of the window.
+     * @param deltaTime the time of the frame, in seconds.
+     */
+    public void handleKeys(UserInputListener keyboard, float deltaTime) {
+        if(holdingEnter && !keyboard.isKeyPressed(KeyEvent.VK_ENTER)) {
+            holdingEnter = false;
+        }
+        if(kind == null) return;
+        if(!primed) {
+            primed = true;
+            for(int key = 0; key < KEY_CODES; key++) {
+                wasPressed[key] = keyboard.isKeyPressed(key);
+            }
+        }
+        switch (kind) {
+            case MESSAGE:
+                if(pressed(keyboard, KeyEvent.VK_BACK_SPACE)) close();
+                break;
+            case QUESTION:
+                if(pressed(keyboard, KeyEvent.VK_Y)) answer = true;
+                else if(pressed(keyboard, KeyEvent.VK_N)) answer = false;
+                break;
+            case TEXT:
+                handleTextKeys(keyboard, deltaTime);
+                break;
+        }
+    }
+
+    /**
+     * Types the keys pressed in the frame into the text, and confirms or cancels it.
+     */
+    private void handleTextKeys(UserInputListener keyboard, float deltaTime) {
+        if(pressed(keyboard, KeyEvent.VK_ENTER)) {
+            Consumer<String> confirmed = onText;
+            String written = text.toString();
+            boolean paused = pausesWorld;
+            close();
+            holdingEnter = paused;
+            if(!written.isEmpty()) confirmed.accept(written);
+            return;
+        }
+        boolean shift = keyboard.isKeyPressed(KeyEvent.VK_SHIFT);
+        if(pressed(keyboard, KeyEvent.VK_BACK_SPACE) && text.length() > 0) {
+            text.setLength(text.length() - 1);
+        }
+        for(int key = KeyEvent.VK_A; key <= KeyEvent.VK_Z; key++) {
+            if(pressed(keyboard, key)) type((char) (shift ? key : Character.toLowerCase(key)));
+        }
+        for(int key = KeyEvent.VK_0; key <= KeyEvent.VK_9; key++) {
+            if(pressed(keyboard, key)) type(shift ? SHIFTED_DIGITS.charAt(key - KeyEvent.VK_0) : (char) key);
+        }
+        for(int i = 0; i < TYPED_KEYS.length; i++) {
+            if(pressed(keyboard, TYPED_KEYS[i])) type((shift ? SHIFTED_CHARS : TYPED_CHARS).charAt(i));
+        }
+        cursorTime = (cursorTime + deltaTime) % (2 * CURSOR_BLINK_TIME);
+        panel.lines[1] = "> " + text + (cursorTime < CURSOR_BLINK_TIME ? "_" : "");
+    }
+
+    /**
+     * Adds a character to the text, unless it is full.
+     */
+    private void type(char c) {
+        if(text.length() < MAX_TEXT_LENGTH) text.append(c);
+    }
+
+    /**
+     * @return whether the key went down since the last frame the dialog read.
+     */
+    private boolean pressed(UserInputListener keyboard, int key) {
+        boolean isPressed = keyboard.isKeyPressed(key);
+        boolean wentDown = isPressed && !wasPressed[key];
+        wasPressed[key] = isPressed;
+        return wentDown;
+    }
+
+    /**
+     * Opens a dialog.
+     */
+    private void open(Kind kind, String title, String hint, boolean pause) {
+        close();
+        this.kind = kind;
+        pausesWorld = pause;
+        cursorTime = 0;
+        primed = kind == Kind.QUESTION;
+        Arrays.fill(wasPressed, false);
+        panel.lines = new String[]{title, kind == Kind.TEXT ? "> _" : "", hint};
+    }
+
+    /**
+     * Draws the open dialog: a box with its title, the text written in it and a hint of its keys.
+     */
+    private static class Panel implements Renderable {
+        private String[] lines; // Lines of the open dialog, null while no dialog is open
+
+        /**
+         * Draws the dialog in its rectangle.
+         */
+        @Override
+        public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                           boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+            String[] shown = lines;
+            if(shown == null) return;
+            int x = (int) topLeftCorner.x();
+            int y = (int) topLeftCorner.y();
+            g.setColor(BACKGROUND);
+            g.fillRect(x, y, (int) dimensions.x(), (int) dimensions.y());
+            g.setColor(BORDER);
+            g.drawRect(x, y, (int) dimensions.x(), (int) dimensions.y());
+            g.setFont(FONT);
+            int lineHeight = g.getFontMetrics().getHeight() + (int) MARGIN / 2;
+            for(int i = 0; i < shown.length; i++) {
+                g.drawString(shown[i], x + (int) MARGIN, y + (int) MARGIN + (i + 1) * lineHeight);
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package pepse.world.ui;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.components.CoordinateSpace;
+import danogl.gui.ImageReader;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.util.GameStateBus;
+import pepse.world.ui.lives.GraphicLifeCounter;
+import pepse.world.ui.lives.NumericLifeCounter;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The HudPanel is the whole HUD as a single game object: the board, the labels and bars of the energy, time left and
+ * kills, the hearts and the number of lives are painted into an off-screen image that the panel renders as one
+ * image. The panel listens to the stats of the game and repaints the image in its next update only when one of
+ * them changed, so a frame where nothing changed costs one update and one draw instead of one per HUD element.
+ */
+public class HudPanel extends GameObject {
+    private static final String BOARD_IMAGE = "assets/ui/board-info.png";
+    private static final String[] LABEL_IMAGES = {"assets/ui/energy-label.png", "assets/ui/life-label.png",
+            "assets/ui/dead-label.png"};
+    private static final String[] BAR_IMAGES = {"assets/ui/energy-bar.png", "assets/ui/life-bar.png",
+            "assets/ui/dead-bar.png"};
+    private static final String HEART_IMAGE = "assets/ui/heart.png";
+    private static final Vector2 BOARD_SIZE = new Vector2(1.65f * 124, 1.65f * 170);
+    private static final Vector2[] LABEL_POSITIONS = {new Vector2(30, 80), new Vector2(30, 125),
+            new Vector2(30, 170)};
+    private static final Vector2 LABEL_SIZE = new Vector2(144, 40);
+    private static final Vector2 BAR_SIZE = new Vector2(54 * 1.85f, 10 * 1.85f);
+    private static final Vector2 BAR_OFFSET = new Vector2(33, 12);
+    private static final Vector2[] BAR_POSITIONS = barPositions(); // Positions of the full bars
+    private static final Vector2 FIRST_HEART_POSITION = new Vector2(50, 50);
+    private static final float HEART_SPACING = 22;
+    private static final Vector2 HEART_SIZE = new Vector2(20, 20);
+    private static final Vector2[] HEART_POSITIONS = heartPositions();
+    private static final Vector2 LIVES_TEXT_POSITION = new Vector2(130, 47);
+    private static final Vector2 LIVES_TEXT_SIZE = new Vector2(20, 20);
+    // Shortest time between two repaints. The energy changes almost every frame, and a bar that follows it a few
+    // frames late can't be told apart from one that follows it every frame.
+    private static final float REPAINT_INTERVAL = 1f / 15;
+    private final Renderable board;
+    private final Renderable[] labels; // Labels of the energy, time left and kills
+    private final Renderable[] bars; // Bars of the energy, time left and kills
+    private final Renderable heart;
+    private final GameStat[] barStats; // Stats shown by the bars, in the order of the bars
+    private final int[] barMaxValues; // Value of every stat for which its bar is full
+    // Position and dimensions of every bar for every value up to its max value, computed when first drawn
+    private final Vector2[][] barTopLeftCorners;
+    private final Vector2[][] barDimensions;
+    private final GameStat lives;
+    private final Map<Integer, TextRenderable> livesTexts = new HashMap<>(); // Text of every number of lives shown
+    private final BufferedImage image; // Off-screen image the HUD is painted into
+    private final Graphics2D graphics; // Graphics of the image, kept for every repaint
+    private boolean dirty = true; // Whether a stat changed since the image was painted
+    private float sinceRepaint = REPAINT_INTERVAL; // Seconds since the image was painted
+    private int repaints; // Number of times the image was painted
+    private int elementDraws; // Number of HUD elements drawn into the image
+
+    /**
+     * Constructs a new HudPanel.
+     * @param board the renderable of the board.
+     * @param labels the renderables of the energy, time left and kills labels.
+     * @param bars the renderables of the energy, time left and kills bars.
+     * @param heart the renderable of a heart.
+     * @param gameState the stats of the game.
+     * @param maxEnergy the energy for which the energy bar is full.
+     * @param maxLifeTime the time left for which the time bar is full.
+     * @param maxKills the kills for which the kills bar is full.
+     */
+    public HudPanel(Renderable board, Renderable[] labels, Renderable[] bars, Renderable heart,
+                    GameStateBus gameState, int maxEnergy, int maxLifeTime, int maxKills) {
+        this(board, labels, bars, heart, gameState, maxEnergy, maxLifeTime, maxKills,
+                new BufferedImage((int) Math.ceil(BOARD_SIZE.x()), (int) Math.ceil(BOARD_SIZE.y()),
+                        BufferedImage.TYPE_INT_ARGB));
+    }
+
+    /**
+     * Constructs a new HudPanel that renders the given off-screen image.
+     */
+    private HudPanel(Renderable board, Renderable[] labels, Renderable[] bars, Renderable heart,
+                     GameStateBus gameState, int maxEnergy, int maxLifeTime, int maxKills, BufferedImage image) {
+        super(Vector2.ZERO, BOARD_SIZE, new ImageRenderable(image));
+        this.image = image;
+        graphics = image.createGraphics();
+        this.board = board;
+        this.labels = labels;
+        this.bars = bars;
+        this.heart = heart;
+        barStats = new GameStat[]{gameState.energy(), gameState.lifeTime(), gameState.kills()};
+        barMaxValues = new int[]{maxEnergy, maxLifeTime, maxKills};
+        barTopLeftCorners = new Vector2[barMaxValues.length][];
+        barDimensions = new Vector2[barMaxValues.length][];
+        for(int i = 0; i < barMaxValues.length; i++) {
+            barTopLeftCorners[i] = new Vector2[barMaxValues[i] + 1];
+            barDimensions[i] = new Vector2[barMaxValues[i] + 1];
+        }
+        lives = gameState.lives();
+        repaint();
+        gameState.subscribe((stat, oldValue, newValue) -> dirty = true);
+    }
+
+    /**
+     * The create method is a static factory method for creating and adding a new HudPanel to a collection of
+     * GameObjects.
+     * @param gameObjects the collection the panel is added to.
+     * @param imageReader the image reader used to read the images of the HUD.
+     * @param layer the layer the panel is added to.
+     * @param gameState the stats of the game.
+     * @param maxEnergy the energy for which the energy bar is full.
+     * @param maxLifeTime the time left for which the time bar is full.
+     * @param maxKills the kills for which the kills bar is full.
+     * @return the HudPanel.
+     */
+    public static HudPanel create(GameObjectCollection gameObjects,
+                                  ImageReader imageReader,
+                                  int layer,
+                                  GameStateBus gameState,
+                                  int maxEnergy,
+                                  int maxLifeTime,
+                                  int maxKills) {
+        Renderable[] labels = new Renderable[LABEL_IMAGES.length];
+        Renderable[] bars = new Renderable[BAR_IMAGES.length];
+        for(int i = 0; i < labels.length; i++) {
+            labels[i] = imageReader.readImage(LABEL_IMAGES[i], true);
+            bars[i] = imageReader.readImage(BAR_IMAGES[i], true);
+        }
+        HudPanel hudPanel = new HudPanel(imageReader.readImage(BOARD_IMAGE, true),
+                labels,
+                bars,
+                imageReader.readImage(HEART_IMAGE, true),
+                gameState,
+                maxEnergy,
+                maxLifeTime,
+                maxKills);
+        hudPanel.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+        gameObjects.addGameObject(hudPanel, layer);
+        return hudPanel;
+    }
+
+    /**
+     * Repaints the image if a stat changed since it was painted, at most once every REPAINT_INTERVAL seconds.
+     * Changes between two repaints cost a single repaint.
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        sinceRepaint += deltaTime;
+        if(dirty && sinceRepaint >= REPAINT_INTERVAL) {
+            repaint();
+        }
+    }
+
+    /**
+     * @return the off-screen image the HUD is painted into.
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * @return the number of times the image was painted.
+     */
+    public int repaints() {
+        return repaints;
+    }
+
+    /**
+     * @return the number of HUD elements drawn into the image since the panel was created.
+     */
+    public int elementDraws() {
+        return elementDraws;
+    }
+
+    /**
+     * Clears the image and paints every element of the HUD into it, in the order of their layers.
+     */
+    private void repaint() {
+        Graphics2D g = graphics;
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        draw(g, board, Vector2.ZERO, BOARD_SIZE);
+        for(int i = 0; i < labels.length; i++) {
+            draw(g, labels[i], LABEL_POSITIONS[i], LABEL_SIZE);
+        }
+        for(int i = 0; i < bars.length; i++) {
+            drawBar(g, i);
+        }
+        int hearts = Math.max(0, Math.min(lives.value(), GraphicLifeCounter.LIMIT_LIVES));
+        for(int i = 0; i < hearts; i++) {
+            draw(g, heart, HEART_POSITIONS[i], HEART_SIZE);
+        }
+        draw(g, livesTexts.computeIfAbsent(lives.value(), NumericLifeCounter::createTextRenderable),
+                LIVES_TEXT_POSITION, LIVES_TEXT_SIZE);
+        dirty = false;
+        sinceRepaint = 0;
+        repaints++;
+    }
+
+    /**
+     * Paints a bar with the length and position a CounterBar gives to the same value. The vectors of a value are
+     * computed once, except for the values above the max value, which only the kills reach.
+     * @param g the graphics of the image.
+     * @param bar the index of the bar.
+     */
+    private void drawBar(Graphics2D g, int bar) {
+        int value = barStats[bar].value();
+        int maxValue = barMaxValues[bar];
+        if(value <= 0) return;
+        boolean cached = value <= maxValue;
+        Vector2 topLeftCorner = cached ? barTopLeftCorners[bar][value] : null;
+        Vector2 dimensions = cached ? barDimensions[bar][value] : null;
+        if(topLeftCorner == null) {
+            topLeftCorner = new Vector2(CounterBar.barX(BAR_POSITIONS[bar].x(), value, maxValue),
+                    BAR_POSITIONS[bar].y());
+            dimensions = new Vector2(CounterBar.barWidth(BAR_SIZE.x(), value, maxValue), BAR_SIZE.y());
+            if(cached) {
+                barTopLeftCorners[bar][value] = topLeftCorner;
+                barDimensions[bar][value] = dimensions;
+            }
+        }
+        draw(g, bars[bar], topLeftCorner, dimensions);
+    }
+
+    /**
+     * Paints a single element of the HUD.
+     */
+    private void draw(Graphics2D g, Renderable renderable, Vector2 topLeftCorner, Vector2 dimensions) {
+        renderable.render(g, topLeftCorner, dimensions, 0, false, false, 1);
+        elementDraws++;
+    }
+
+    /**
+     * @return the positions of the full bars, next to their labels.
+     */
+    private static Vector2[] barPositions() {
+        Vector2[] positions = new Vector2[LABEL_POSITIONS.length];
+        for(int i = 0; i < positions.length; i++) {
+            positions[i] = LABEL_POSITIONS[i].add(BAR_OFFSET);
+        }
+        return positions;
+    }
+
+    /**
+     * @return the positions of the hearts, from left to right.
+     */
+    private static Vector2[] heartPositions() {
+        Vector2[] positions = new Vector2[GraphicLifeCounter.LIMIT_LIVES];
+        for(int i = 0; i < positions.length; i++) {
+            positions[i] = FIRST_HEART_POSITION.add(new Vector2(HEART_SPACING * i, 0));
+        }
+        return positions;
+    }
+}
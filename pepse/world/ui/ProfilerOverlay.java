@@ -0,0 +1,139 @@
+package pepse.world.ui;
+
+import danogl.GameObject;
+import danogl.components.CoordinateSpace;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+
+import java.awt.*;
+
+/**
+ * A camera-space overlay that shows the frame profiler: a graph of the time of the last frames, with lines at
+ * the times of 60 and 30 frames per second, and the time of every phase in the last frame with its rolling
+ * percentiles. The numbers are computed a few times per second, not every frame, so they can be read.
+ */
+public class ProfilerOverlay extends GameObject {
+    private static final Vector2 SIZE = new Vector2(340, 330);
+    private static final float MARGIN = 10;
+    private static final int GRAPH_HEIGHT = 90;
+    private static final long GRAPH_MAX_NANOS = 50_000_000; // Frame time at the top of the graph
+    private static final long FRAME_60_HZ_NANOS = 16_666_667;
+    private static final long FRAME_30_HZ_NANOS = 33_333_333;
+    private static final float REFRESH_INTERVAL = 0.25f; // Seconds between two refreshes of the numbers
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color BAR = new Color(120, 220, 120);
+    private static final Color SLOW_BAR = new Color(240, 90, 60);
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private final FrameProfiler profiler;
+    private final Graph graph; // Renderable of the overlay
+    private float sinceRefresh = REFRESH_INTERVAL; // Seconds since the numbers were computed
+
+    /**
+     * Constructs a new ProfilerOverlay at the top right corner of the window.
+     * @param windowDimensions the dimensions of the window.
+     * @param profiler the profiler to show.
+     */
+    public ProfilerOverlay(Vector2 windowDimensions, FrameProfiler profiler) {
+        this(windowDimensions, profiler, new Graph(profiler));
+    }
+
+    /**
+     * Constructs a new ProfilerOverlay drawn by the given graph.
+     */
+    private ProfilerOverlay(Vector2 windowDimensions, FrameProfiler profiler, Graph graph) {
+        super(new Vector2(windowDimensions.x() - SIZE.x() - MARGIN, MARGIN), SIZE, graph);
+        this.profiler = profiler;
+        this.graph = graph;
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+    }
+
+    /**
+     * Computes the numbers of the overlay every REFRESH_INTERVAL seconds.
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        sinceRefresh += deltaTime;
+        if(sinceRefresh >= REFRESH_INTERVAL && profiler.size() > 0) {
+            sinceRefresh = 0;
+            refresh();
+        }
+    }
+
+    /**
+     * Computes the lines of text: the frame time and every phase, with their last value and percentiles.
+     */
+    private void refresh() {
+        FrameProfiler.Phase[] phases = FrameProfiler.Phase.values();
+        String[] newLines = new String[phases.length + 2];
+        newLines[0] = String.format("%-15s %6s %6s %6s %6s", "ms", "last", "p50", "p95", "p99");
+        newLines[1] = String.format("%-15s %6.2f %6.2f %6.2f %6.2f", "frame", millis(profiler.frameNanos(0)),
+                millis(profiler.framePercentile(50)), millis(profiler.framePercentile(95)),
+                millis(profiler.framePercentile(99)));
+        for(int i = 0; i < phases.length; i++) {
+            FrameProfiler.Phase phase = phases[i];
+            newLines[i + 2] = String.format("%-15s %6.2f %6.2f %6.2f %6.2f",
+                    (phase.isNested() ? "  " : "") + phase.label(), millis(profiler.phaseNanos(phase, 0)),
+                    millis(profiler.phasePercentile(phase, 50)), millis(profiler.phasePercentile(phase, 95)),
+                    millis(profiler.phasePercentile(phase, 99)));
+        }
+        graph.lines = newLines;
+    }
+
+    /**
+     * Draws the overlay: the background, the graph of the frame times and the lines of text.
+     */
+    private static class Graph implements Renderable {
+        private final FrameProfiler profiler;
+        private String[] lines = new String[0]; // Lines of text shown under the graph
+
+        /**
+         * Constructs a new Graph.
+         * @param profiler the profiler to show.
+         */
+        Graph(FrameProfiler profiler) {
+            this.profiler = profiler;
+        }
+
+        /**
+         * Draws the overlay in its rectangle.
+         */
+        @Override
+        public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                           boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+            int x = (int) topLeftCorner.x();
+            int y = (int) topLeftCorner.y();
+            int width = (int) dimensions.x();
+            g.setColor(BACKGROUND);
+            g.fillRect(x, y, width, (int) dimensions.y());
+            int graphBottom = y + (int) MARGIN + GRAPH_HEIGHT;
+            int frames = Math.min(profiler.size(), width - 2 * (int) MARGIN);
+            for(int i = 0; i < frames; i++) {
+                long nanos = profiler.frameNanos(i);
+                int barHeight = (int) Math.min(GRAPH_HEIGHT, nanos * GRAPH_HEIGHT / GRAPH_MAX_NANOS);
+                g.setColor(nanos > FRAME_60_HZ_NANOS ? SLOW_BAR : BAR);
+                g.drawLine(x + width - (int) MARGIN - i, graphBottom, x + width - (int) MARGIN - i,
+                        graphBottom - barHeight);
+            }
+            g.setColor(Color.WHITE);
+            for(long budget : new long[]{FRAME_60_HZ_NANOS, FRAME_30_HZ_NANOS}) {
+                int lineY = graphBottom - (int) (budget * GRAPH_HEIGHT / GRAPH_MAX_NANOS);
+                g.drawLine(x + (int) MARGIN, lineY, x + width - (int) MARGIN, lineY);
+            }
+            g.setFont(FONT);
+            int lineHeight = g.getFontMetrics().getHeight();
+            for(int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], x + (int) MARGIN, graphBottom + (int) MARGIN + (i + 1) * lineHeight);
+            }
+        }
+    }
+
+    /**
+     * @return the nanoseconds in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
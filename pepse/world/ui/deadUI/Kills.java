@@ -5,8 +5,9 @@ import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.world.ui.CounterBar;
 
 /**
  * The Kills class is a subclass of GameObject, which represents an object in the game world.
@@ -39,14 +40,14 @@ public class Kills extends GameObject {
      * @param imageReader  an ImageReader object used to read in image files
      * @param layer an integer representing the layer on which the Kills object should be
      *              added to the GameObjectCollection
-     * @param energyCounter a Counter object representing the current number of energy
+     * @param energyCounter a GameStat object representing the current number of energy
      * @param maxKills an integer representing the maximum number of kills the player can achieve
      * @return Kills object
      */
     public static Kills create(GameObjectCollection gameObjects,
                               ImageReader imageReader,
                               int layer,
-                              Counter energyCounter,
+                              GameStat energyCounter,
                               int maxKills) {
         Kills killsLabel = new Kills(ENERGY_LABEL_POSITION,
                 LABEL_ENERGY_SIZE,
@@ -66,17 +67,11 @@ public class Kills extends GameObject {
 }
 
 /**
- * The BarKills class is a subclass of GameObject that represents a bar that visually displays the player's
+ * The BarKills class is a subclass of CounterBar that represents a bar that visually displays the player's
  * number of kills.
  */
-class BarKills extends GameObject {
+class BarKills extends CounterBar {
     private final static String BAR_ENERGY_IMAGE = "assets/ui/dead-bar.png";
-    private final Vector2 initialPosition;
-    private final Vector2 initialDimension;
-    private final Counter killsCounter;
-    private final int maxKills;
-    private final static int ADD_TO_INITIAL_X = 3;
-    private final static int FACTOR_X = 10;
 
     /**
      * Constructor of BarKills
@@ -84,19 +79,15 @@ class BarKills extends GameObject {
      *      *                      the object
      * @param dimensions a Vector2 object representing the dimensions of the object
      * @param renderable a Renderable object representing the visual representation of the object
-     * @param killsCounter a Counter object that tracks the player's kills
+     * @param killsCounter a GameStat object that tracks the player's kills
      * @param maxKills an int representing the maximum number of kills the user need to achieve
      */
     public BarKills(Vector2 topLeftCorner,
                     Vector2 dimensions,
                     Renderable renderable,
-                     Counter killsCounter,
+                     GameStat killsCounter,
                      int maxKills) {
-        super(topLeftCorner, dimensions, renderable);
-        this.killsCounter = killsCounter;
-        this.maxKills = maxKills;
-        initialPosition = topLeftCorner;
-        initialDimension = dimensions;
+        super(topLeftCorner, dimensions, renderable, killsCounter, maxKills);
     }
 
     /**
@@ -106,7 +97,7 @@ class BarKills extends GameObject {
      * @param imageReader an ImageReader object used to read the image file for the bar
      * @param layer  an int representing the layer on which the object should be added to the gameObjects
      *              collection
-     * @param energyCounter a Counter object that tracks the player's energy
+     * @param energyCounter a GameStat object that tracks the player's energy
      * @param maxEnergy an int representing the maximum energy that the bar should represent
      * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
      * @param barDimension  a Vector2 object representing the dimensions of the object
@@ -114,7 +105,7 @@ class BarKills extends GameObject {
      */
     public static BarKills create(GameObjectCollection gameObjects,
                                    ImageReader imageReader,
-                                   int layer, Counter energyCounter,
+                                   int layer, GameStat energyCounter,
                                    int maxEnergy,
                                    Vector2 topLeftCorner,
                                    Vector2 barDimension) {
@@ -126,36 +117,4 @@ class BarKills extends GameObject {
         barKills.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         return barKills;
     }
-
-    /**
-     * The update method is used to update the dimensions and position of the bar based on the
-     * current number of kills
-     * @param deltaTime The time elapsed, in seconds, since the last frame. Can
-     *                  be used to determine a new position/velocity by multiplying
-     *                  this delta with the velocity/acceleration respectively
-     *                  and adding to the position/velocity:
-     *                  velocity += deltaTime*acceleration
-     *                  pos += deltaTime*velocity
-     */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        reRenderBar();
-    }
-
-    /**
-     *The reRenderBar method is a private method for updating the dimensions and position of
-     * the bar based on the current number of kills.
-     */
-    private void reRenderBar() {
-        Vector2 newBarDimension = new Vector2(killsCounter.value() * initialDimension.x() / maxKills,
-                getDimensions().y());
-        setDimensions(newBarDimension);
-        Vector2 newPositionCalc = new Vector2(initialPosition.x() + ADD_TO_INITIAL_X +
-                FACTOR_X * (float)((maxKills - killsCounter.value()) / maxKills),
-                initialPosition.y());
-        setTopLeftCorner(newPositionCalc);
-    }
-
 }
-
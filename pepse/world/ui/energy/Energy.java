@@ -5,8 +5,9 @@ import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
-import danogl.util.Counter;
 import danogl.util  .Vector2;
+import pepse.util.GameStat;
+import pepse.world.ui.CounterBar;
 
 /**
  * The Energy class is a subclass of GameObject that represents a visual label for the player's energy bar
@@ -39,14 +40,14 @@ public class Energy extends GameObject {
      * @param imageReader an ImageReader object used to read the image files for the label and bar
      * @param layer an int representing the layer on which the objects should be added to the gameObjects
      *             collection
-     * @param energyCounter a Counter object that tracks the player's energy
+     * @param energyCounter a GameStat object that tracks the player's energy
      * @param maxEnergy  an int representing the maximum energy that the bar should represent
      * @return Energy object
      */
     public static Energy create(GameObjectCollection gameObjects,
                                 ImageReader imageReader,
                                 int layer,
-                                Counter energyCounter,
+                                GameStat energyCounter,
                                 int maxEnergy) {
         Energy energyLabel = new Energy(ENERGY_LABEL_POSITION,
                 LABEL_ENERGY_SIZE,
@@ -66,35 +67,25 @@ public class Energy extends GameObject {
 }
 
 /**
- * The BarEnergy class is a subclass of GameObject that represents a bar that visually displays the player's
+ * The BarEnergy class is a subclass of CounterBar that represents a bar that visually displays the player's
  * energy.
  */
-class BarEnergy extends GameObject {
+class BarEnergy extends CounterBar {
     private final static String BAR_ENERGY_IMAGE = "assets/ui/energy-bar.png";
-    private final Vector2 initialPosition;
-    private final Vector2 initialDimension;
-    private final Counter energyCounter;
-    private final int maxEnergy;
-    private final static int ADD_TO_INITIAL_X = 3;
-    private final static int FACTOR_X = 10;
 
     /**
      * Constructor of BarEnergy
      * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
      * @param dimensions a Vector2 object representing the dimensions of the object
      * @param renderable a Renderable object representing the visual representation of the object
-     * @param energyCounter a Counter object that tracks the player's energy
+     * @param energyCounter a GameStat object that tracks the player's energy
      * @param maxEnergy an int representing the maximum amount of energy that the bar should represent
      */
     public BarEnergy(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
-                     Counter energyCounter,
+                     GameStat energyCounter,
                      int maxEnergy) {
-        super(topLeftCorner, dimensions, renderable);
-        this.energyCounter = energyCounter;
-        this.maxEnergy = maxEnergy;
+        super(topLeftCorner, dimensions, renderable, energyCounter, maxEnergy);
         energyCounter.decrement();
-        initialPosition = topLeftCorner;
-        initialDimension = dimensions;
     }
 
     /**
@@ -104,7 +95,7 @@ class BarEnergy extends GameObject {
      * @param imageReader an ImageReader object used to read the image file for the bar
      * @param layer an int representing the layer on which the object should be added to the gameObjects
      *             collection
-     * @param energyCounter a Counter object that tracks the player's energy
+     * @param energyCounter a GameStat object that tracks the player's energy
      * @param maxEnergy an int representing the maximum amount of energy that the bar should represent
      * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
      * @param barDimension a Vector2 object representing the dimensions of the object
@@ -112,7 +103,7 @@ class BarEnergy extends GameObject {
      */
     public static BarEnergy create(GameObjectCollection gameObjects,
                                    ImageReader imageReader,
-                                   int layer, Counter energyCounter,
+                                   int layer, GameStat energyCounter,
                                    int maxEnergy,
                                    Vector2 topLeftCorner,
                                    Vector2 barDimension) {
@@ -124,35 +115,4 @@ class BarEnergy extends GameObject {
         barEnergy.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         return barEnergy;
     }
-
-    /**
-     * The update method is used to update the dimensions and position of the bar based on the current
-     * amount of energy.
-     * @param deltaTime The time elapsed, in seconds, since the last frame. Can
-     *                  be used to determine a new position/velocity by multiplying
-     *                  this delta with the velocity/acceleration respectively
-     *                  and adding to the position/velocity:
-     *                  velocity += deltaTime*acceleration
-     *                  pos += deltaTime*velocity
-     */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        reRenderBar();
-    }
-
-    /**
-     * Private method for updating the dimensions and position of the bar based on the current amount of
-     * energy.
-     */
-    private void reRenderBar() {
-        Vector2 newBarDimension = new Vector2(energyCounter.value() * initialDimension.x() / maxEnergy,
-                getDimensions().y());
-        setDimensions(newBarDimension);
-        Vector2 newPositionCalc = new Vector2(initialPosition.x() + ADD_TO_INITIAL_X +
-                FACTOR_X * (float)((maxEnergy - energyCounter.value()) / maxEnergy),
-                initialPosition.y());
-        setTopLeftCorner(newPositionCalc);
-    }
-
-}
\ No newline at end of file
+}
@@ -5,8 +5,9 @@ import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.world.ui.CounterBar;
 
 
 /**
@@ -40,14 +41,14 @@ public class LifeTime extends GameObject {
      * @param imageReader an ImageReader object used to read the image files
      * @param layer an int representing the layer on which the objects should be added to the gameObjects
      *      *             collection
-     * @param lifeTimeCounter a Counter object that tracks the player's lifeTime
+     * @param lifeTimeCounter a GameStat object that tracks the player's lifeTime
      * @param maxEnergy  an int representing the maximum energy that the bar should represent
      * @return LifeTime object
      */
     public static LifeTime create(GameObjectCollection gameObjects,
                                 ImageReader imageReader,
                                 int layer,
-                                Counter lifeTimeCounter,
+                                GameStat lifeTimeCounter,
                                 int maxEnergy) {
         LifeTime lifeTimeLabel = new LifeTime(ENERGY_LABEL_POSITION,
                 LABEL_ENERGY_SIZE,
@@ -67,35 +68,25 @@ public class LifeTime extends GameObject {
 }
 
 /**
- * The BarEnergy class is a subclass of GameObject that represents a bar that visually displays the player's
+ * The BarEnergy class is a subclass of CounterBar that represents a bar that visually displays the player's
  * time left.
  */
-class BarLifeTime extends GameObject {
+class BarLifeTime extends CounterBar {
     private final static String BAR_ENERGY_IMAGE = "assets/ui/life-bar.png";
-    private final Vector2 initialPosition;
-    private final Vector2 initialDimension;
-    private final Counter lifeTimeCounter;
-    private final int maxEnergy;
-    private final static int ADD_TO_INITIAL_X = 3;
-    private final static int FACTOR_X = 10;
 
     /**
      * Constructor of BarLifeTime
      * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
      * @param dimensions a Vector2 object representing the dimensions of the object
      * @param renderable a Renderable object representing the visual representation of the object
-     * @param lifeTimeCounter a Counter object that tracks the player's time
+     * @param lifeTimeCounter a GameStat object that tracks the player's time
      * @param maxEnergy an int representing the maximum amount of energy that the bar should represent
      */
     public BarLifeTime(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
-                     Counter lifeTimeCounter,
+                     GameStat lifeTimeCounter,
                      int maxEnergy) {
-        super(topLeftCorner, dimensions, renderable);
-        this.lifeTimeCounter = lifeTimeCounter;
-        this.maxEnergy = maxEnergy;
+        super(topLeftCorner, dimensions, renderable, lifeTimeCounter, maxEnergy);
         lifeTimeCounter.decrement();
-        initialPosition = topLeftCorner;
-        initialDimension = dimensions;
     }
     /**
      * The create method is a static factory method for creating and adding a new BarLifeTime object to
@@ -104,7 +95,7 @@ class BarLifeTime extends GameObject {
      * @param imageReader an ImageReader object used to read the image file for the bar
      * @param layer an int representing the layer on which the object should be added to the gameObjects
      *             collection
-     * @param energyCounter a Counter object that tracks the player's energy
+     * @param energyCounter a GameStat object that tracks the player's energy
      * @param maxEnergy an int representing the maximum amount of energy that the bar should represent
      * @param topLeftCorner a Vector2 object representing the position of the top-left corner of the object
      * @param barDimension a Vector2 object representing the dimensions of the object
@@ -112,7 +103,7 @@ class BarLifeTime extends GameObject {
      */
     public static BarLifeTime create(GameObjectCollection gameObjects,
                                    ImageReader imageReader,
-                                   int layer, Counter energyCounter,
+                                   int layer, GameStat energyCounter,
                                    int maxEnergy,
                                    Vector2 topLeftCorner,
                                    Vector2 barDimension) {
@@ -124,35 +115,4 @@ class BarLifeTime extends GameObject {
         barLifeTime.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         return barLifeTime;
     }
-
-    /**
-     * The update method is used to update the dimensions and position of the bar based on the current
-     * amount of energy.
-     * @param deltaTime The time elapsed, in seconds, since the last frame. Can
-     *                  be used to determine a new position/velocity by multiplying
-     *                  this delta with the velocity/acceleration respectively
-     *                  and adding to the position/velocity:
-     *                  velocity += deltaTime*acceleration
-     *                  pos += deltaTime*velocity
-     */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        reRenderBar();
-    }
-
-    /**
-     * Private method for updating the dimensions and position of the bar based on the current amount of
-     * time left.
-     */
-    private void reRenderBar() {
-        Vector2 newBarDimension = new Vector2(lifeTimeCounter.value() * initialDimension.x() / maxEnergy,
-                getDimensions().y());
-        setDimensions(newBarDimension);
-        Vector2 newPositionCalc = new Vector2(initialPosition.x() + ADD_TO_INITIAL_X +
-                FACTOR_X * (float) ((maxEnergy - lifeTimeCounter.value()) / maxEnergy),
-                initialPosition.y());
-        setTopLeftCorner(newPositionCalc);
-    }
-
-}
\ No newline at end of file
+}
@@ -5,9 +5,9 @@ import danogl.components.CoordinateSpace;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
-import danogl.util.Counter;
+import pepse.util.GameStat;
 /**
- * This is the class Graphic life counter. It checks every frame when a player lost a life, and updates
+ * This is the class Graphic life counter. It listens to the lives of the player, and when a life is lost it updates
  * the number of hearts in the window. When it takes the bonus heart, it applies it and actualizes the
  * number of hearts also.
  */
@@ -17,17 +17,17 @@ public class GraphicLifeCounter extends GameObject {
     private static final float MARGIN_Y = 30;
     private final GameObjectCollection gameObjectCollection;
     private final int heartLayer;
-    public Counter livesCounter;
+    public GameStat livesCounter;
     public int numOfLives;
     public final GameObject[] hearts;
-    private final int LIMIT_LIVES = 4;
+    public static final int LIMIT_LIVES = 4; // Most hearts shown, with the bonus heart
     private final static int HEART_DIMENSIONS = 20;
     private final static int NUM_LIFE_BEGINNING = 3;
 
 
     /**
      * This is the constructor for the graphic lives counter.
-     * It creates a 0x0 sized object (to be able to call its update method in game),
+     * It creates a 0x0 sized object that listens to the lives counter,
      * Creates numOfLives hearts, and adds them to the game.
      * @param widgetTopLeftCorner the top left corner of the left most heart
      * @param widgetDimensions  the dimension of each heart
@@ -37,7 +37,7 @@ public class GraphicLifeCounter extends GameObject {
      * @param numOfLives number of current lives
      */
     public GraphicLifeCounter(Vector2 widgetTopLeftCorner, Vector2 widgetDimensions,
-                              Counter livesCounter, Renderable widgetRenderable,
+                              GameStat livesCounter, Renderable widgetRenderable,
                               GameObjectCollection gameObjectsCollection, int numOfLives, int layer) {
         super(Vector2.ZERO, Vector2.ZERO, null);
         this.livesCounter = livesCounter;
@@ -45,6 +45,7 @@ public class GraphicLifeCounter extends GameObject {
         this.numOfLives = numOfLives;
         this.hearts = new GameObject[LIMIT_LIVES];
         heartLayer = layer;
+        livesCounter.addListener((stat, oldValue, newValue) -> updateHearts());
         // give position to all hearts
         Vector2[] positionHearts = new Vector2[LIMIT_LIVES];
         for(int i = 0 ; i < LIMIT_LIVES; i++) {
@@ -60,7 +61,7 @@ public class GraphicLifeCounter extends GameObject {
     /**
      * The create method is a static factory method for creating and adding a new GraphicLifeCounter object
      * to a collection of GameObjects.
-     * @param livesCounter a Counter object that tracks the player's lives
+     * @param livesCounter a GameStat object that tracks the player's lives
      * @param gameObjects a GameObjectCollection object where the new GraphicLifeCounter object will be added
      * @param imageReader an ImageReader object used to read the image file for the heart icons
      * @param numOfLives an int representing the number of lives that the player has
@@ -68,7 +69,7 @@ public class GraphicLifeCounter extends GameObject {
      *               collection
      * @return GraphicLifeCounter
      */
-    public static GraphicLifeCounter create(Counter livesCounter,
+    public static GraphicLifeCounter create(GameStat livesCounter,
                                             GameObjectCollection gameObjects,
                                             ImageReader imageReader,
                                             int numOfLives,
@@ -88,22 +89,19 @@ public class GraphicLifeCounter extends GameObject {
     }
 
     /**
-     * This method is overwritten from GameObject.
      * It removes hearts from the screen if there are more
-     * hearts than there are lives left
-     * @param deltaTime The time elapsed, in seconds, since the last frame. Can
-     *                  be used to determine a new position/velocity by multiplying
-     *                  this delta with the velocity/acceleration respectively
-     *                  and adding to the position/velocity:
-     *                  velocity += deltaTime*acceleration
-     *                  pos += deltaTime*velocity
+     * hearts than there are lives left, and adds them back when lives are given back, such as on a restart.
      */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        if(this.numOfLives > this.livesCounter.value()) {
-            this.gameObjectCollection.removeGameObject(this.hearts[livesCounter.value()], heartLayer);
-            numOfLives = livesCounter.value();
+    private void updateHearts() {
+        int livesLeft = Math.min(LIMIT_LIVES, Math.max(0, livesCounter.value()));
+        while(this.numOfLives > livesLeft) {
+            numOfLives--;
+            this.gameObjectCollection.removeGameObject(this.hearts[numOfLives], heartLayer);
+        }
+        while(this.numOfLives < livesLeft) {
+            hearts[numOfLives].setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+            this.gameObjectCollection.addGameObject(this.hearts[numOfLives], heartLayer);
+            numOfLives++;
         }
     }
-}
\ No newline at end of file
+}
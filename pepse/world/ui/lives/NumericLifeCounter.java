@@ -4,9 +4,11 @@ import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.rendering.TextRenderable;
 import danogl.util.Vector2;
-import danogl.util.Counter;
+import pepse.util.GameStat;
 
 import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class is the numeric life counter that have the player of the game. It corresponds to the number of
@@ -15,7 +17,7 @@ import java.awt.*;
 public class NumericLifeCounter extends GameObject {
     private static final int NUMERIC_COUNTER_DIMENSIONS = 20;
     private static final Vector2 INITIAL_POSITION = new Vector2(130,47);
-    private final Counter livesCounter;
+    private final Map<Integer, TextRenderable> textRenderables = new HashMap<>(); // Text of every value shown
 
     /**
      * The constructor of the textual representation object of how many strikes are left in the game.
@@ -23,22 +25,23 @@ public class NumericLifeCounter extends GameObject {
      * @param topLeftCorner the top left corner of the position of the text object
      * @param dimensions the size of the text object
      */
-    public NumericLifeCounter(Counter livesCounter, Vector2 topLeftCorner,
+    public NumericLifeCounter(GameStat livesCounter, Vector2 topLeftCorner,
                               Vector2 dimensions) {
         super(topLeftCorner,dimensions,null);
-        this.livesCounter = livesCounter;
+        showLives(livesCounter.value());
+        livesCounter.addListener((stat, oldValue, newValue) -> showLives(newValue));
     }
 
     /**
      * The create method is a static factory method for creating and adding a new NumericLifeCounter
      * object to a collection of GameObjects
-     * @param livesCounter a Counter object that tracks the player's lives
+     * @param livesCounter a GameStat object that tracks the player's lives
      * @param gameObjects  a GameObjectCollection object where the new NumericLifeCounter object will be added
      * @param layer an int representing the layer on which the object should be added to the gameObjects
      *              collection
      * @return  NumericLifeCounter object.
      */
-    static public NumericLifeCounter create(Counter livesCounter, GameObjectCollection gameObjects, int layer) {
+    static public NumericLifeCounter create(GameStat livesCounter, GameObjectCollection gameObjects, int layer) {
         Vector2 vectorNumericDimensions = new Vector2(NUMERIC_COUNTER_DIMENSIONS, NUMERIC_COUNTER_DIMENSIONS);
         NumericLifeCounter numericLifeCounter = new NumericLifeCounter(livesCounter,
                 INITIAL_POSITION,
@@ -49,22 +52,24 @@ public class NumericLifeCounter extends GameObject {
     }
 
     /**
-     * This method is overwritten from GameObject.
-     * It sets the string value of the text object to the number of current lives left.
-     * @param deltaTime The time elapsed, in seconds, since the last frame. Can
-     *                  be used to determine a new position/velocity by multiplying
-     *                  this delta with the velocity/acceleration respectively
-     *                  and adding to the position/velocity:
-     *                  velocity += deltaTime*acceleration
-     *                  pos += deltaTime*velocity
+     * Sets the text object to the number of lives left. The text of every value is built once.
+     * @param lives the number of lives left.
      */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        TextRenderable textRenderable = new TextRenderable(String.format("%d", livesCounter.value()));
-        if(livesCounter.value() == 3 || livesCounter.value() == 4) textRenderable.setColor(Color.green);
-        if(livesCounter.value() == 2) textRenderable.setColor(Color.yellow);
-        if(livesCounter.value() == 1) textRenderable.setColor(Color.red);
-        this.renderer().setRenderable(textRenderable);
+    private void showLives(int lives) {
+        this.renderer().setRenderable(textRenderables.computeIfAbsent(lives,
+                NumericLifeCounter::createTextRenderable));
+    }
+
+    /**
+     * Builds the text of a number of lives, colored by how many lives are left. The HudPanel draws the same text.
+     * @param lives the number of lives.
+     * @return the text renderable.
+     */
+    public static TextRenderable createTextRenderable(int lives) {
+        TextRenderable textRenderable = new TextRenderable(String.format("%d", lives));
+        if(lives == 3 || lives == 4) textRenderable.setColor(Color.green);
+        if(lives == 2) textRenderable.setColor(Color.yellow);
+        if(lives == 1) textRenderable.setColor(Color.red);
+        return textRenderable;
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package pepse.world.zombies;
+
+import pepse.util.CompressedBitmap;
+import pepse.world.TerrainHeightfield;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The KillRegistry remembers the columns whose zombie was killed. The zombies of a column are generated again with
+ * the same seed every time the avatar comes back to it, so the registry is what keeps a cleared region cleared: the
+ * Zombies generator skips every column it holds. The columns are kept in a compressed bitmap, which stays tiny even
+ * after the avatar crossed millions of columns. The registry belongs to a single game: "Play again" clears it, and
+ * it is only kept beyond the game in a quick-save and in the header of a recorded session.
+ */
+public class KillRegistry {
+    private CompressedBitmap killedColumns; // Spawn columns of the killed zombies
+
+    /**
+     * Constructs a new empty KillRegistry.
+     */
+    public KillRegistry() {
+        this(new CompressedBitmap());
+    }
+
+    /**
+     * Constructs a new KillRegistry over the given columns.
+     * @param killedColumns the spawn columns of the killed zombies
+     */
+    private KillRegistry(CompressedBitmap killedColumns) {
+        this.killedColumns = killedColumns;
+    }
+
+    /**
+     * Writes the registry.
+     * @param out the output to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        killedColumns.writeTo(out);
+    }
+
+    /**
+     * Reads a registry written by writeTo.
+     * @param in the input to read from.
+     * @return the registry.
+     * @throws IOException if reading fails or the data is not a registry.
+     */
+    public static KillRegistry readFrom(DataInput in) throws IOException {
+        return new KillRegistry(CompressedBitmap.readFrom(in));
+    }
+
+    /**
+     * Replaces the columns of the registry with those of another registry, in place, so the generators that hold
+     * this registry see the change.
+     * @param other the registry to copy, which must not be changed afterwards.
+     */
+    public void replaceWith(KillRegistry other) {
+        killedColumns = other.killedColumns;
+    }
+
+    /**
+     * Forgets every killed zombie, for a new game.
+     */
+    public void clear() {
+        killedColumns.clear();
+    }
+
+    /**
+     * Returns the spawn column of a zombie that appeared at the given x coordinate.
+     * @param spawnX the x coordinate of the left side of the zombie when it appeared
+     * @return the spawn column
+     */
+    public static int columnOf(float spawnX) {
+        return TerrainHeightfield.columnOf(spawnX);
+    }
+
+    /**
+     * Records that the zombie of the given column was killed.
+     * @param spawnColumn the spawn column of the zombie
+     */
+    public void markKilled(int spawnColumn) {
+        killedColumns.add(spawnColumn);
+    }
+
+    /**
+     * Checks whether the zombie of the given column was killed.
+     * @param spawnColumn the spawn column of the zombie
+     * @return true if the zombie was killed, and should not appear again
+     */
+    public boolean isKilled(int spawnColumn) {
+        return killedColumns.contains(spawnColumn);
+    }
+
+    /**
+     * @return the number of killed zombies recorded.
+     */
+    public int size() {
+        return killedColumns.cardinality();
+    }
+}
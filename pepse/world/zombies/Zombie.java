@@ -6,13 +6,17 @@ import danogl.collisions.GameObjectCollection;
 import danogl.components.Transition;
 import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.GameStat;
+import pepse.util.RandomStream;
+import pepse.util.jfr.ZombieKilledEvent;
 import pepse.world.Avatar;
 import pepse.world.Skill;
+import pepse.world.TerrainHeightfield;
 import pepse.world.bullet.BulletInterface;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
  * The Zombie class represents a zombie enemy in the game world.
@@ -23,19 +27,28 @@ import java.util.Random;
 public class Zombie extends GameObject {
     private static final Vector2 ZOMBIES_DIMENSIONS = new Vector2(82, 100); // Default dimensions for the zombie
     private static final float AVATAR_RUNNING_SPEED_X = 200; // Default speed for the zombie along the x-axis
-    private static final float AVATAR_RUNNING_SPEED_Y = -200; // Default speed for the zombie along the y-axis
-    private static final float PROBABILITY_OF_JUMP_ACTION = 0.01f; // Probability of the zombie jumping
     private static final float DOWN_GRAVITY = 500; // Gravity applied to the zombie when it is falling
     private static final String ZOMBIE_TAG = "zombie"; // Tag for identifying zombie objects
+    private static final float CORPSE_FADE_OUT_TIME = 2; // Time it takes a corpse to fade out, in seconds
     private static final float ZOMBIE_RIGHT_DIRECTION_PROBABILITY = 0.5f; // Probability of the
     // zombie facing right at the start of the game
-    private static Random random; // Random number generator for determining the zombie's initial
-    // direction and jump actions
-    private static Counter killsCounter; // Counter for keeping track of the number of zombies killed
+    private GameStat killsCounter; // GameStat for keeping track of the number of zombies killed
     private float directionSpeed; // Speed at which the zombie should move along the x-axis
     private Skill runSkill; // Skill object for handling the zombie's running state
     private Skill attackSkill; // Skill object for handling the zombie's attacking state
     private Skill deadSkill; // Skill object for handling the zombie's dead state
+    private final TerrainHeightfield heightfield; // Heights of the terrain, read to find steps ahead
+    private final ZombieAiScheduler scheduler; // Scheduler that tells the zombie when to decide
+    private final int ticket; // Ticket of the zombie in the scheduler
+    private long lastDecisionFrame = ZombieAiScheduler.never(); // Frame of the last decision of the zombie
+    private int jumpColumn = ZombiePlanner.NO_JUMP; // Column the zombie plans to jump at
+    private float jumpSpeed; // Vertical speed of the planned jump
+    private final ZombiePool pool; // Pool the zombie returns to when it leaves the world
+    private final int corpseLayer; // Layer without collisions that holds the zombie once it is dead
+    private boolean fading; // Whether the corpse of the zombie is fading out
+    private Transition<Float> fadeOut; // Fade out of the corpse, null unless it is fading
+    private final KillRegistry killRegistry; // Registry of the columns whose zombie was killed
+    private int spawnColumn; // Column the zombie appeared at
 
     /**
      * An enumeration for the three different states the zombie can be in: running, attacking, and dead.
@@ -80,7 +93,7 @@ public class Zombie extends GameObject {
     private GameObjectCollection gameObjects; // Collection of game objects in the game world
     private int layer; // Layer on which the zombie is rendered
     private final ImageReader imageReader; // ImageReader object for reading in the zombie images
-    private Counter livesCounter; // Counter for keeping track of the player's lives
+    private GameStat livesCounter; // GameStat for keeping track of the player's lives
 
     /**
      * Constructor for the Zombie class.
@@ -91,7 +104,14 @@ public class Zombie extends GameObject {
      * @param imageReader      An ImageReader object for reading in the zombie images.
      * @param dimensions       A Vector2 representing the dimensions of the zombie.
      * @param renderable       A Renderable object for rendering the zombie.
-     * @param livesCounter     A Counter for keeping track of the player's lives.
+     * @param livesCounter     A GameStat for keeping track of the player's lives.
+     * @param killsCounter     A GameStat for keeping track of the number of zombies killed.
+     * @param heightfield      The heights of the terrain, read to find the steps ahead of the zombie.
+     * @param scheduler        The scheduler that tells the zombie when to decide.
+     * @param pool             The pool the zombie returns to when it leaves the world.
+     * @param corpseLayer      The layer without collisions that holds the zombie once it is dead.
+     * @param killRegistry     The registry that records the columns whose zombie was killed.
+     * @param random           The stream of the column of the zombie, which draws its initial direction.
      */
     public Zombie(GameObjectCollection gameObjects,
                   int layer,
@@ -99,14 +119,29 @@ public class Zombie extends GameObject {
                   ImageReader imageReader,
                   Vector2 dimensions,
                   Renderable renderable,
-                  Counter livesCounter) {
+                  GameStat livesCounter,
+                  GameStat killsCounter,
+                  TerrainHeightfield heightfield,
+                  ZombieAiScheduler scheduler,
+                  ZombiePool pool,
+                  int corpseLayer,
+                  KillRegistry killRegistry,
+                  RandomStream random) {
         super(topLeftCorner, dimensions, renderable);
         this.gameObjects = gameObjects;
         this.layer = layer;
         this.imageReader = imageReader;
         this.livesCounter = livesCounter;
+        this.killsCounter = killsCounter;
+        this.heightfield = heightfield;
+        this.scheduler = scheduler;
+        this.ticket = scheduler.nextTicket();
+        this.pool = pool;
+        this.corpseLayer = corpseLayer;
+        this.killRegistry = killRegistry;
+        this.spawnColumn = KillRegistry.columnOf(topLeftCorner.x());
         status = Status.RUNS;
-        directionSpeed = getZombieDirection();
+        directionSpeed = getZombieDirection(random);
         if(directionSpeed == 1) {
             renderer().setIsFlippedHorizontally(false);
         }
@@ -140,26 +175,42 @@ public class Zombie extends GameObject {
      * @param layer          The layer on which the zombie will be rendered.
      * @param topLeftCorner  The top left corner of the zombie's bounding box.
      * @param imageReader    The image reader for loading images.
-     * @param random         The random number generator.
+     * @param random         The stream of the column of the zombie.
      * @param livesCounter   The counter for keeping track of lives.
      * @param killsCounter   The counter for keeping track of kills.
+     * @param heightfield    The heights of the terrain, read to find the steps ahead of the zombie.
+     * @param scheduler      The scheduler that tells the zombie when to decide.
+     * @param pool           The pool the zombie returns to when it leaves the world.
+     * @param corpseLayer    The layer without collisions that holds the zombie once it is dead.
+     * @param killRegistry   The registry that records the columns whose zombie was killed.
      * @return                A new Zombie instance.
      */
     public static Zombie create(GameObjectCollection gameObjects,
                                 int layer,
                                 Vector2 topLeftCorner,
                                 ImageReader imageReader,
-                                Random random,
-                                Counter livesCounter,
-                                Counter killsCounter) {
-        Zombie.random = random;
-        Zombie.killsCounter = killsCounter;
+                                RandomStream random,
+                                GameStat livesCounter,
+                                GameStat killsCounter,
+                                TerrainHeightfield heightfield,
+                                ZombieAiScheduler scheduler,
+                                ZombiePool pool,
+                                int corpseLayer,
+                                KillRegistry killRegistry) {
         Zombie zombie = new Zombie(gameObjects,
                 layer,
                 topLeftCorner,
                 imageReader,
                 ZOMBIES_DIMENSIONS,
-                imageReader.readImage(ZOMBIES_IMAGES_RUNNING[0], true), livesCounter);
+                imageReader.readImage(ZOMBIES_IMAGES_RUNNING[0], true),
+                livesCounter,
+                killsCounter,
+                heightfield,
+                scheduler,
+                pool,
+                corpseLayer,
+                killRegistry,
+                random);
         zombie.physics().preventIntersectionsFromDirection(Vector2.ZERO);
         zombie.transform().setAccelerationY(DOWN_GRAVITY);
         gameObjects.addGameObject(zombie, layer);
@@ -167,7 +218,72 @@ public class Zombie extends GameObject {
         return zombie;
     }
 
+    /**
+     * Brings a zombie taken out of the pool back to life at a new position and adds it to the game.
+     *
+     * @param topLeftCorner  The top left corner of the zombie's bounding box.
+     * @param random         The stream of the column of the zombie.
+     * @param killsCounter   The counter for keeping track of kills.
+     */
+    void respawn(Vector2 topLeftCorner, RandomStream random, GameStat killsCounter) {
+        this.killsCounter = killsCounter;
+        setTopLeftCorner(topLeftCorner);
+        spawnColumn = KillRegistry.columnOf(topLeftCorner.x());
+        transform().setVelocity(Vector2.ZERO);
+        transform().setAccelerationY(DOWN_GRAVITY);
+        renderer().setOpaqueness(1);
+        status = Status.RUNS;
+        fading = false;
+        lastDecisionFrame = ZombieAiScheduler.never();
+        jumpColumn = ZombiePlanner.NO_JUMP;
+        directionSpeed = getZombieDirection(random);
+        renderer().setIsFlippedHorizontally(directionSpeed != 1);
+        runSkill.getNextRender(true);
+        gameObjects.addGameObject(this, layer);
+    }
+
+    /**
+     * Removes the zombie from the game because it left the window, and returns it to the pool. The fade out of a
+     * corpse is cancelled first, so it doesn't go on, or recycle the zombie again, after the zombie respawns.
+     */
+    public void evict() {
+        gameObjects.removeGameObject(this, status == Status.DEAD ? corpseLayer : layer);
+        pool.onRemove(status == Status.DEAD);
+        if(fading) {
+            removeComponent(fadeOut);
+            fadeOut = null;
+            fading = false;
+        }
+        pool.release(this);
+    }
+
+
 
+    /**
+     * Writes the state of a living zombie to a save, in the records of ZombieHorde: its position, velocity, state,
+     * direction, opacity and spawn column.
+     * @param out the buffer of the save, with at least ZombieHorde.SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putFloat(getTopLeftCorner().x()).putFloat(getTopLeftCorner().y());
+        out.putFloat(getVelocity().x()).putFloat(getVelocity().y());
+        out.put(status == Status.ATTACK ? ZombieHorde.ATTACK : ZombieHorde.RUNS).put((byte) directionSpeed);
+        out.putFloat(renderer().getOpaqueness()).putInt(spawnColumn);
+    }
+
+    /**
+     * Restores the state of a living zombie written by writeTo, on a zombie just added to the game.
+     * @param in the buffer of the save.
+     */
+    void readFrom(ByteBuffer in) {
+        setTopLeftCorner(new Vector2(in.getFloat(), in.getFloat()));
+        transform().setVelocity(new Vector2(in.getFloat(), in.getFloat()));
+        status = in.get() == ZombieHorde.ATTACK ? Status.ATTACK : Status.RUNS;
+        directionSpeed = in.get() > 0 ? 1 : -1;
+        renderer().setIsFlippedHorizontally(directionSpeed != 1);
+        renderer().setOpaqueness(in.getFloat());
+        spawnColumn = in.getInt();
+    }
 
     /**
      * Updates the zombie's state.
@@ -176,19 +292,80 @@ public class Zombie extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
         super.update(deltaTime);
         updateRenderImages();
         setSpeedX();
+        if(status == Status.DEAD) {
+            updateCorpse();
+        }
+        profiler.stop(FrameProfiler.Phase.ZOMBIES, start);
     }
 
     /**
-     * Sets the speed of the zombie along the x-axis.
+     * Kills the zombie: it leaves the collision layers at once, plays the dead animation where it stands and fades
+     * out afterwards.
+     */
+    private void die() {
+        status = Status.DEAD;
+        killsCounter.increment();
+        pool.onDeath();
+        killRegistry.markKilled(spawnColumn);
+        deadSkill.getNextRender(true);
+        gameObjects.removeGameObject(this, layer);
+        gameObjects.addGameObject(this, corpseLayer);
+        ZombieKilledEvent event = new ZombieKilledEvent();
+        if(event.shouldCommit()) {
+            event.spawnColumn = spawnColumn;
+            event.x = getTopLeftCorner().x();
+            event.y = getTopLeftCorner().y();
+            event.kills = killsCounter.value();
+            event.commit();
+        }
+    }
+
+    /**
+     * Keeps the corpse on the ground (it does not collide with the terrain anymore) and starts fading it out once
+     * the dead animation ended.
+     */
+    private void updateCorpse() {
+        float ground = heightfield.surfaceAt(getCenter().x());
+        if(getTopLeftCorner().y() + getDimensions().y() >= ground) {
+            transform().setVelocity(Vector2.ZERO);
+            setTopLeftCorner(new Vector2(getTopLeftCorner().x(), ground - getDimensions().y()));
+        }
+        if(!fading && !deadSkill.isSkillActive()) {
+            fading = true;
+            // A transition of its own rather than renderer().fadeOut, so evict can cancel it
+            fadeOut = new Transition<>(this, renderer()::setOpaqueness, 1f, 0f, Transition.LINEAR_INTERPOLATOR_FLOAT,
+                    CORPSE_FADE_OUT_TIME, Transition.TransitionType.TRANSITION_ONCE, this::recycle);
+        }
+    }
+
+    /**
+     * Removes the faded corpse from the game and returns the zombie to the pool.
+     */
+    private void recycle() {
+        gameObjects.removeGameObject(this, corpseLayer);
+        pool.onRemove(true);
+        removeComponent(fadeOut);
+        fadeOut = null;
+        fading = false;
+        pool.release(this);
+    }
+
+    /**
+     * Sets the speed of the zombie along the x-axis, and makes it jump when it reaches the column its plan jumps at.
      */
     private void setSpeedX() {
         if(status != Status.DEAD) {
+            decideIfDue();
             transform().setVelocityX(directionSpeed * AVATAR_RUNNING_SPEED_X);
-            if (checkIfJump()) {
-                transform().setVelocityY(AVATAR_RUNNING_SPEED_Y);
+            if(getVelocity().y() == 0 &&
+                    ZombiePlanner.reachedJumpColumn(leadingX(), jumpColumn, (int) directionSpeed)) {
+                transform().setVelocityY(jumpSpeed);
+                jumpColumn = ZombiePlanner.NO_JUMP;
             }
         }
         else {
@@ -196,12 +373,40 @@ public class Zombie extends GameObject {
         }
     }
 
+    /**
+     * Makes a new plan if the scheduler says the zombie is due: turns toward the avatar and looks ahead for a step
+     * to jump over.
+     */
+    private void decideIfDue() {
+        if(!scheduler.tryDecide(ticket, lastDecisionFrame)) return;
+        lastDecisionFrame = scheduler.frame();
+        int direction = ZombiePlanner.chooseDirection(getCenter().x(), scheduler.targetX(), (int) directionSpeed);
+        if(direction != directionSpeed) {
+            directionSpeed = direction;
+            renderer().setIsFlippedHorizontally(direction < 0);
+        }
+        float feetY = getTopLeftCorner().y() + getDimensions().y();
+        jumpColumn = ZombiePlanner.findJumpColumn(heightfield, leadingX(), feetY, direction);
+        if(jumpColumn != ZombiePlanner.NO_JUMP) {
+            jumpSpeed = ZombiePlanner.jumpSpeed(heightfield, jumpColumn, feetY, direction, DOWN_GRAVITY);
+        }
+        scheduler.decisionDone();
+    }
+
+    /**
+     * @return the x coordinate of the side of the zombie that faces its direction.
+     */
+    private float leadingX() {
+        return directionSpeed > 0 ? getTopLeftCorner().x() + getDimensions().x() : getTopLeftCorner().x();
+    }
+
     /**
      * Gets the direction of the zombie.
      *
+     * @param random The stream the direction is drawn from.
      * @return  A float representing the direction of the zombie.
      */
-    private float getZombieDirection() {
+    private float getZombieDirection(RandomStream random) {
         return random.nextFloat() > ZOMBIE_RIGHT_DIRECTION_PROBABILITY ? 1 : -1;
     }
 
@@ -235,11 +440,8 @@ public class Zombie extends GameObject {
         if(other instanceof Avatar && status != Status.DEAD) {
             livesCounter.decrement();
         }
-        if(other instanceof BulletInterface) {
-            if(status != Status.DEAD) {
-                killsCounter.increment();
-            }
-            status = Status.DEAD;
+        if(other instanceof BulletInterface && status != Status.DEAD) {
+            die();
         }
     }
 
@@ -276,14 +478,4 @@ public class Zombie extends GameObject {
         }
     }
 
-
-    /**
-     * Determines if the zombie should jump.
-     *
-     * @return  A boolean indicating whether the zombie should jump.
-     */
-    private boolean checkIfJump() {
-        return random.nextDouble() >= 1 - PROBABILITY_OF_JUMP_ACTION;
-    }
-
 }
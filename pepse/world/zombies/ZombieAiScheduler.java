@@ -0,0 +1,141 @@
+package pepse.world.zombies;
+
+/**
+ * The ZombieAiScheduler spreads the decisions of the zombies over several frames. Every zombie gets a ticket and
+ * the tickets are split in round-robin buckets, one bucket is due every frame, so a zombie plans once every
+ * "buckets" frames and runs its last plan in between. The decisions of a frame also share a time budget: once it is
+ * spent the remaining zombies keep their plan and become overdue. The zombies decide in the order the engine
+ * updates them, so the scheduler can't serve the overdue ones first by itself: instead the zombies whose last
+ * decision is the oldest of those deferred in the last frame get priority in the next frame. Part of the budget,
+ * as long as their decisions take on average, is kept for them, and only they may spend it. A zombie deferred again
+ * and again ends up among the oldest, so every zombie decides in the end, wherever it is in the order.
+ */
+public class ZombieAiScheduler {
+    private static final long NEVER = Long.MIN_VALUE / 2; // Decision frame of a zombie that never decided
+    private static final long NO_PRIORITY = Long.MIN_VALUE; // Priority frame of a frame with no deferred zombie
+    private static final int AVERAGE_WEIGHT = 8; // Number of decisions the average cost of a decision follows
+    private final int buckets; // Number of frames between two decisions of a zombie
+    private final long budgetNanos; // Time the decisions of a single frame may take
+    private long frame; // Number of the current frame
+    private long spentNanos; // Time spent deciding in the current frame
+    private long decisionStart; // Start time of the current decision
+    private long averageDecisionNanos; // Running average of the time a decision takes
+    private long priorityFrame = NO_PRIORITY; // Zombies whose last decision is at or before it have priority
+    private long reservedNanos; // Part of the budget left for the zombies with priority
+    private long oldestDeferred = Long.MAX_VALUE; // Oldest last decision of the zombies deferred in this frame
+    private int oldestDeferredCount; // Number of zombies deferred in this frame with that last decision
+    private int nextTicket; // Ticket of the next zombie
+    private float targetX; // x coordinate of the avatar in the current frame
+
+    /**
+     * Constructs a new scheduler.
+     *
+     * @param buckets      The number of round-robin buckets, which is the number of frames between two
+     *                     decisions of a zombie.
+     * @param budgetNanos  The time in nanoseconds all the decisions of a single frame may take.
+     */
+    public ZombieAiScheduler(int buckets, long budgetNanos) {
+        if(buckets <= 0) {
+            throw new IllegalArgumentException("Number of buckets must be positive: " + buckets);
+        }
+        this.buckets = buckets;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * @return the decision frame of a zombie that never decided, which makes its first decision due at once.
+     */
+    public static long never() {
+        return NEVER;
+    }
+
+    /**
+     * @return a new ticket for a zombie, which places it in the next bucket.
+     */
+    public int nextTicket() {
+        return nextTicket++;
+    }
+
+    /**
+     * Starts a new frame: moves to the next bucket, renews the time budget, gives priority to the oldest zombies
+     * deferred in the last frame and records where the avatar is.
+     *
+     * @param targetX  The x coordinate of the avatar.
+     */
+    public void beginFrame(float targetX) {
+        frame++;
+        spentNanos = 0;
+        if(oldestDeferredCount > 0) {
+            priorityFrame = oldestDeferred;
+            reservedNanos = Math.min(budgetNanos, oldestDeferredCount * averageDecisionNanos);
+        }
+        else {
+            priorityFrame = NO_PRIORITY;
+            reservedNanos = 0;
+        }
+        oldestDeferred = Long.MAX_VALUE;
+        oldestDeferredCount = 0;
+        this.targetX = targetX;
+    }
+
+    /**
+     * Checks whether a zombie should decide in this frame. A zombie is due when the frame is of its bucket or when
+     * it missed its bucket, and it decides only if the budget of the frame is not spent yet, without the part kept
+     * for the zombies with priority unless it has priority itself. When this method returns true the caller must
+     * call decisionDone once it finished deciding.
+     *
+     * @param ticket             The ticket of the zombie.
+     * @param lastDecisionFrame  The frame of the last decision of the zombie.
+     * @return                   true if the zombie should decide now.
+     */
+    public boolean tryDecide(int ticket, long lastDecisionFrame) {
+        boolean due = frame - lastDecisionFrame >= buckets || Math.floorMod(ticket, buckets) == frame % buckets;
+        if(!due) return false;
+        boolean priority = lastDecisionFrame <= priorityFrame;
+        if(spentNanos >= (priority ? budgetNanos : budgetNanos - reservedNanos)) {
+            defer(lastDecisionFrame);
+            return false;
+        }
+        if(priority) {
+            reservedNanos = Math.max(0, reservedNanos - averageDecisionNanos);
+        }
+        decisionStart = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Ends the decision started by the last successful call to tryDecide and charges its time to the budget.
+     */
+    public void decisionDone() {
+        long decisionNanos = System.nanoTime() - decisionStart;
+        spentNanos += decisionNanos;
+        averageDecisionNanos += (decisionNanos - averageDecisionNanos) / AVERAGE_WEIGHT;
+    }
+
+    /**
+     * Records a due decision deferred to a later frame, keeping the oldest of them.
+     */
+    private void defer(long lastDecisionFrame) {
+        if(lastDecisionFrame < oldestDeferred) {
+            oldestDeferred = lastDecisionFrame;
+            oldestDeferredCount = 1;
+        }
+        else if(lastDecisionFrame == oldestDeferred) {
+            oldestDeferredCount++;
+        }
+    }
+
+    /**
+     * @return the number of the current frame, to be stored as the last decision frame of a zombie.
+     */
+    public long frame() {
+        return frame;
+    }
+
+    /**
+     * @return the x coordinate of the avatar in the current frame.
+     */
+    public float targetX() {
+        return targetX;
+    }
+}
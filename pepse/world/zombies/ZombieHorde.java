@@ -0,0 +1,787 @@
+package pepse.world.zombies;
+
+import danogl.GameObject;
+import danogl.gui.ImageReader;
+import danogl.gui.rendering.Camera;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.FrameProfiler;
+import pepse.util.GameStat;
+import pepse.util.StateHasher;
+import pepse.util.jfr.ZombieKilledEvent;
+import pepse.world.TerrainHeightfield;
+import pepse.world.bullet.BulletInterface;
+
+import java.awt.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The ZombieHorde class simulates a large number of zombies without creating a GameObject per zombie.
+ * Every zombie is a slot in a set of primitive arrays (position, velocity, state, animation cursor and direction),
+ * all the zombies are stepped in a single loop, the ground is resolved from the terrain heightfield and the contacts
+ * with the avatar and the bullets are resolved with a one dimensional sweep over the zombies sorted by x.
+ * The horde itself is a single GameObject that draws every visible zombie with frame renderables shared by all of
+ * them. A killed zombie stops colliding at once, plays its dead animation, fades out and frees its slot.
+ */
+public class ZombieHorde extends GameObject {
+    public static final byte RUNS = 0; // State of a zombie that walks
+    public static final byte ATTACK = 1; // State of a zombie that touches the avatar
+    public static final byte DEAD = 2; // State of a zombie that was killed by a bullet
+    // Bytes of a zombie in a save: position, velocity, state, direction, opacity and spawn column
+    public static final int SNAPSHOT_BYTES = 4 * Float.BYTES + 2 + Float.BYTES + Integer.BYTES;
+    private static final float ZOMBIE_WIDTH = 82; // Width of a single zombie
+    private static final float ZOMBIE_HEIGHT = 100; // Height of a single zombie
+    private static final Vector2 ZOMBIE_DIMENSIONS = new Vector2(ZOMBIE_WIDTH, ZOMBIE_HEIGHT);
+    private static final float RUNNING_SPEED_X = 200; // Speed of the zombie along the x-axis
+    private static final float DOWN_GRAVITY = 500; // Gravity applied to the zombies
+    private static final int RENDER_IMAGES_FRAME = 5; // Number of frames to show each image of an animation
+    private static final float CORPSE_FADE_OUT_TIME = 2; // Time it takes a corpse to fade out, in seconds
+    private static final int INITIAL_CAPACITY = 256; // Number of zombies the arrays hold before growing
+    private static final int INITIAL_BULLETS_CAPACITY = 64; // Number of bullets the arrays hold before growing
+
+    private static final String[] ZOMBIES_IMAGES_RUNNING = {
+            "assets/zombie/Walk (1).png",
+            "assets/zombie/Walk (2).png",
+            "assets/zombie/Walk (3).png",
+            "assets/zombie/Walk (4).png",
+            "assets/zombie/Walk (5).png",
+            "assets/zombie/Walk (6).png",
+            "assets/zombie/Walk (7).png",
+            "assets/zombie/Walk (8).png"
+    };
+
+    private static final String[] ZOMBIES_IMAGES_ATTACK = {
+            "assets/zombie/Attack (1).png",
+            "assets/zombie/Attack (2).png",
+            "assets/zombie/Attack (3).png",
+            "assets/zombie/Attack (4).png",
+            "assets/zombie/Attack (5).png",
+            "assets/zombie/Attack (6).png",
+            "assets/zombie/Attack (7).png",
+            "assets/zombie/Attack (8).png"
+    };
+
+    private static final String[] ZOMBIES_IMAGES_DEAD = {
+            "assets/zombie/Dead (1).png",
+            "assets/zombie/Dead (2).png",
+            "assets/zombie/Dead (3).png",
+            "assets/zombie/Dead (4).png",
+            "assets/zombie/Dead (5).png",
+            "assets/zombie/Dead (6).png",
+            "assets/zombie/Dead (7).png",
+            "assets/zombie/Dead (8).png",
+            "assets/zombie/Dead (9).png",
+            "assets/zombie/Dead (10).png",
+    };
+
+    private final TerrainHeightfield heightfield; // Heights of the terrain used to resolve the ground
+    private final Supplier<Iterable<GameObject>> bullets; // Source of the bullets that can kill zombies
+    private final GameStat livesCounter; // GameStat for keeping track of the player's lives
+    private final GameStat killsCounter; // GameStat for keeping track of the number of zombies killed
+    private final Renderable[][] frames; // Frames of every state, shared by all the zombies
+    private final ZombieAiScheduler scheduler; // Scheduler that tells every zombie when to decide
+    private final KillRegistry killRegistry; // Columns whose zombie was killed
+    private GameObject avatar; // The avatar the zombies attack
+    private Camera camera; // The camera used to translate the zombies into window coordinates
+
+    // The zombies, one slot per zombie in every array
+    private int count;
+    private float[] x;
+    private float[] y;
+    private float[] velocityX;
+    private float[] velocityY;
+    private byte[] state;
+    private byte[] direction;
+    private int[] animationImage;
+    private int[] animationFrame;
+    private boolean[] touchesAvatar;
+    private float[] opacity; // Opacity of every zombie, lowered while its corpse fades out
+    private int deadCount; // Number of corpses in the horde
+    private int[] order; // Indices of the zombies sorted by x
+    private int[] touching; // Indices of the zombies that touched the avatar in the last frame
+    private int[] ticket; // Ticket of every zombie in the scheduler
+    private long[] lastDecisionFrame; // Frame of the last decision of every zombie
+    private int[] jumpColumn; // Column every zombie plans to jump at
+    private float[] jumpSpeed; // Vertical speed of the planned jump of every zombie
+    private int[] spawnColumn; // Column every zombie appeared at
+    private int touchingCount;
+
+    // The bullets of the current frame sorted by their left side
+    private int bulletsCount;
+    private float[] bulletMinX;
+    private float[] bulletMaxX;
+    private float[] bulletMinY;
+    private float[] bulletMaxY;
+
+    /**
+     * Constructor for the ZombieHorde class.
+     *
+     * @param heightfield   The heights of the terrain used to put the zombies on the ground.
+     * @param bullets       A supplier of the game objects that may be bullets (only BulletInterface objects kill).
+     * @param frames        The frames of every state, indexed by RUNS, ATTACK and DEAD.
+     * @param livesCounter  A GameStat for keeping track of the player's lives.
+     * @param killsCounter  A GameStat for keeping track of the number of zombies killed.
+     * @param scheduler     The scheduler that spreads the decisions of the zombies over the frames.
+     * @param killRegistry  The registry that records the columns whose zombie was killed.
+     */
+    public ZombieHorde(TerrainHeightfield heightfield,
+                       Supplier<Iterable<GameObject>> bullets,
+                       Renderable[][] frames,
+                       GameStat livesCounter,
+                       GameStat killsCounter,
+                       ZombieAiScheduler scheduler,
+                       KillRegistry killRegistry) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.heightfield = heightfield;
+        this.bullets = bullets;
+        this.frames = frames;
+        this.livesCounter = livesCounter;
+        this.killsCounter = killsCounter;
+        this.scheduler = scheduler;
+        this.killRegistry = killRegistry;
+        allocateZombies(INITIAL_CAPACITY);
+        bulletMinX = new float[INITIAL_BULLETS_CAPACITY];
+        bulletMaxX = new float[INITIAL_BULLETS_CAPACITY];
+        bulletMinY = new float[INITIAL_BULLETS_CAPACITY];
+        bulletMaxY = new float[INITIAL_BULLETS_CAPACITY];
+    }
+
+    /**
+     * Creates a new ZombieHorde whose frames are read once with the given image reader.
+     *
+     * @param heightfield   The heights of the terrain used to put the zombies on the ground.
+     * @param bullets       A supplier of the game objects that may be bullets.
+     * @param imageReader   The image reader for loading images.
+     * @param livesCounter  The counter for keeping track of lives.
+     * @param killsCounter  The counter for keeping track of kills.
+     * @param scheduler     The scheduler that spreads the decisions of the zombies over the frames.
+     * @param killRegistry  The registry that records the columns whose zombie was killed.
+     * @return              A new ZombieHorde instance.
+     */
+    public static ZombieHorde create(TerrainHeightfield heightfield,
+                                     Supplier<Iterable<GameObject>> bullets,
+                                     ImageReader imageReader,
+                                     GameStat livesCounter,
+                                     GameStat killsCounter,
+                                     ZombieAiScheduler scheduler,
+                                     KillRegistry killRegistry) {
+        Renderable[][] frames = {
+                readFrames(ZOMBIES_IMAGES_RUNNING, imageReader),
+                readFrames(ZOMBIES_IMAGES_ATTACK, imageReader),
+                readFrames(ZOMBIES_IMAGES_DEAD, imageReader)
+        };
+        return new ZombieHorde(heightfield, bullets, frames, livesCounter, killsCounter, scheduler, killRegistry);
+    }
+
+    /**
+     * Reads the images of an animation.
+     *
+     * @param imagesLocation  The file locations of the images.
+     * @param imageReader     The image reader for loading images.
+     * @return                The renderables of the animation.
+     */
+    private static Renderable[] readFrames(String[] imagesLocation, ImageReader imageReader) {
+        Renderable[] renderables = new Renderable[imagesLocation.length];
+        for(int i = 0; i < imagesLocation.length; i++) {
+            renderables[i] = imageReader.readImage(imagesLocation[i], true);
+        }
+        return renderables;
+    }
+
+    /**
+     * Sets the avatar the zombies attack. Until it is set the zombies never touch the avatar.
+     *
+     * @param avatar  The avatar game object.
+     */
+    public void setAvatar(GameObject avatar) {
+        this.avatar = avatar;
+    }
+
+    /**
+     * Sets the camera used to translate the zombies into window coordinates when rendering.
+     *
+     * @param camera  The camera of the game.
+     */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Adds a new zombie to the horde.
+     *
+     * @param topLeftCorner  The top left corner of the zombie.
+     * @param right          Whether the zombie walks to the right.
+     * @return               The slot of the new zombie.
+     */
+    public int spawn(Vector2 topLeftCorner, boolean right) {
+        if(count == x.length) {
+            growZombies();
+        }
+        int zombie = count++;
+        x[zombie] = topLeftCorner.x();
+        y[zombie] = topLeftCorner.y();
+        spawnColumn[zombie] = KillRegistry.columnOf(topLeftCorner.x());
+        velocityX[zombie] = 0;
+        velocityY[zombie] = 0;
+        state[zombie] = RUNS;
+        direction[zombie] = (byte) (right ? 1 : -1);
+        animationImage[zombie] = 0;
+        animationFrame[zombie] = 0;
+        touchesAvatar[zombie] = false;
+        opacity[zombie] = 1;
+        order[zombie] = zombie;
+        ticket[zombie] = scheduler.nextTicket();
+        lastDecisionFrame[zombie] = ZombieAiScheduler.never();
+        jumpColumn[zombie] = ZombiePlanner.NO_JUMP;
+        return zombie;
+    }
+
+    /**
+     * Removes every zombie whose center is outside the given range on the x axis, together with the corpses that
+     * faded out.
+     *
+     * @param minX  The minimal x to keep.
+     * @param maxX  The maximal x to keep.
+     * @return the number of zombies removed.
+     */
+    public int removeOutside(float minX, float maxX) {
+        return removeZombies(minX, maxX);
+    }
+
+    /**
+     * Removes every zombie whose center is outside the given range on the x axis or whose corpse faded out, and
+     * packs the remaining zombies at the start of the arrays.
+     *
+     * @param minX  The minimal x to keep.
+     * @param maxX  The maximal x to keep.
+     * @return the number of zombies removed.
+     */
+    private int removeZombies(float minX, float maxX) {
+        int kept = 0;
+        for(int zombie = 0; zombie < count; zombie++) {
+            float center = x[zombie] + ZOMBIE_WIDTH / 2;
+            if(center >= minX && center <= maxX && opacity[zombie] > 0) {
+                moveZombie(zombie, kept++);
+            }
+            else if(state[zombie] == DEAD) {
+                deadCount--;
+            }
+        }
+        int removed = count - kept;
+        if(kept != count) {
+            count = kept;
+            touchingCount = 0;
+            for(int zombie = 0; zombie < count; zombie++) {
+                order[zombie] = zombie;
+                if(touchesAvatar[zombie]) touching[touchingCount++] = zombie;
+            }
+            sortZombies();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every zombie of the horde, dead or alive. The arrays are kept for the next zombies.
+     */
+    public void clear() {
+        count = 0;
+        deadCount = 0;
+        touchingCount = 0;
+    }
+
+    /**
+     * Adds the state of every zombie of the horde to a hash of the game state.
+     * @param hasher the hash of the game state.
+     */
+    public void hashState(StateHasher hasher) {
+        hasher.add(count);
+        for(int zombie = 0; zombie < count; zombie++) {
+            hasher.add(x[zombie]).add(y[zombie]).add(velocityX[zombie]).add(velocityY[zombie])
+                    .add(state[zombie]).add(direction[zombie]).add(opacity[zombie]).add(lastDecisionFrame[zombie]);
+        }
+    }
+
+    /**
+     * Writes every zombie of the horde to a save: their number, then a record of SNAPSHOT_BYTES bytes per zombie.
+     * @param out the buffer of the save, with at least Integer.BYTES + size() * SNAPSHOT_BYTES bytes remaining.
+     */
+    public void writeTo(ByteBuffer out) {
+        out.putInt(count);
+        for(int zombie = 0; zombie < count; zombie++) {
+            out.putFloat(x[zombie]).putFloat(y[zombie]).putFloat(velocityX[zombie]).putFloat(velocityY[zombie]);
+            out.put(state[zombie]).put(direction[zombie]).putFloat(opacity[zombie]).putInt(spawnColumn[zombie]);
+        }
+    }
+
+    /**
+     * Replaces the zombies of the horde with the zombies written by writeTo. A corpse that was fading out goes on
+     * fading from its saved opacity.
+     * @param in the buffer of the save.
+     */
+    public void readFrom(ByteBuffer in) {
+        count = 0;
+        deadCount = 0;
+        touchingCount = 0;
+        int saved = in.getInt();
+        for(int i = 0; i < saved; i++) {
+            int zombie = spawn(new Vector2(in.getFloat(), in.getFloat()), true);
+            velocityX[zombie] = in.getFloat();
+            velocityY[zombie] = in.getFloat();
+            state[zombie] = in.get();
+            direction[zombie] = in.get();
+            opacity[zombie] = in.getFloat();
+            spawnColumn[zombie] = in.getInt();
+            if(state[zombie] == DEAD) {
+                deadCount++;
+                if(opacity[zombie] < 1) animationImage[zombie] = frames[DEAD].length - 1;
+            }
+        }
+        sortZombies();
+    }
+
+    /**
+     * @return the number of zombies in the horde, dead or alive.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the number of living zombies in the horde.
+     */
+    public int aliveCount() {
+        return count - deadCount;
+    }
+
+    /**
+     * @return the number of corpses in the horde.
+     */
+    public int deadCount() {
+        return deadCount;
+    }
+
+    /**
+     * Returns the state of a zombie.
+     *
+     * @param zombie  The slot of the zombie.
+     * @return        RUNS, ATTACK or DEAD.
+     */
+    public byte stateOf(int zombie) {
+        return state[zombie];
+    }
+
+    /**
+     * Updates the horde.
+     *
+     * @param deltaTime  The time elapsed since the last frame, in seconds.
+     */
+    @Override
+    public void update(float deltaTime) {
+        FrameProfiler profiler = FrameProfiler.installed();
+        long start = profiler.start();
+        super.update(deltaTime);
+        step(deltaTime);
+        profiler.stop(FrameProfiler.Phase.ZOMBIES, start);
+    }
+
+    /**
+     * Advances every zombie by a single frame: moves them, puts them on the ground, advances their animation and
+     * resolves their contacts with the avatar and the bullets.
+     *
+     * @param deltaTime  The time elapsed since the last frame, in seconds.
+     */
+    public void step(float deltaTime) {
+        boolean faded = false;
+        for(int zombie = 0; zombie < count; zombie++) {
+            moveOnTerrain(zombie, deltaTime);
+            advanceAnimation(zombie);
+            if(state[zombie] == DEAD) {
+                faded |= fadeCorpse(zombie, deltaTime);
+            }
+        }
+        if(faded) {
+            removeZombies(Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
+        }
+        sortZombies();
+        resolveAvatarContacts();
+        resolveBulletContacts();
+    }
+
+    /**
+     * Moves a single zombie and resolves its position against the terrain heightfield: the zombie lands on the top
+     * of the column below it, and a column that is higher than its feet stops it like a wall. A living zombie runs
+     * its plan, making a new one first if the scheduler says it is due.
+     *
+     * @param zombie     The slot of the zombie.
+     * @param deltaTime  The time elapsed since the last frame, in seconds.
+     */
+    private void moveOnTerrain(int zombie, float deltaTime) {
+        float bottom = y[zombie] + ZOMBIE_HEIGHT;
+        boolean onGround = bottom >= heightfield.surfaceAt(x[zombie] + ZOMBIE_WIDTH / 2);
+        if(state[zombie] != DEAD) {
+            decideIfDue(zombie, bottom);
+            velocityX[zombie] = direction[zombie] * RUNNING_SPEED_X;
+            if(onGround && ZombiePlanner.reachedJumpColumn(leadingX(zombie), jumpColumn[zombie], direction[zombie])) {
+                velocityY[zombie] = jumpSpeed[zombie];
+                jumpColumn[zombie] = ZombiePlanner.NO_JUMP;
+            }
+        }
+        else {
+            velocityX[zombie] = 0;
+        }
+        velocityY[zombie] += DOWN_GRAVITY * deltaTime;
+        float nextX = x[zombie] + velocityX[zombie] * deltaTime;
+        float leadingEdge = direction[zombie] > 0 ? nextX + ZOMBIE_WIDTH : nextX;
+        if(heightfield.surfaceAt(leadingEdge) >= bottom) {
+            x[zombie] = nextX;
+        }
+        y[zombie] += velocityY[zombie] * deltaTime;
+        float ground = heightfield.surfaceAt(x[zombie] + ZOMBIE_WIDTH / 2);
+        if(y[zombie] + ZOMBIE_HEIGHT >= ground && velocityY[zombie] >= 0) {
+            y[zombie] = ground - ZOMBIE_HEIGHT;
+            velocityY[zombie] = 0;
+        }
+    }
+
+    /**
+     * Makes a new plan for a zombie if the scheduler says it is due: turns it toward the avatar and looks ahead for
+     * a step to jump over.
+     *
+     * @param zombie  The slot of the zombie.
+     * @param feetY   The y coordinate of the bottom of the zombie.
+     */
+    private void decideIfDue(int zombie, float feetY) {
+        if(!scheduler.tryDecide(ticket[zombie], lastDecisionFrame[zombie])) return;
+        lastDecisionFrame[zombie] = scheduler.frame();
+        direction[zombie] = (byte) ZombiePlanner.chooseDirection(x[zombie] + ZOMBIE_WIDTH / 2,
+                scheduler.targetX(), direction[zombie]);
+        jumpColumn[zombie] = ZombiePlanner.findJumpColumn(heightfield, leadingX(zombie), feetY, direction[zombie]);
+        if(jumpColumn[zombie] != ZombiePlanner.NO_JUMP) {
+            jumpSpeed[zombie] = ZombiePlanner.jumpSpeed(heightfield, jumpColumn[zombie], feetY, direction[zombie],
+                    DOWN_GRAVITY);
+        }
+        scheduler.decisionDone();
+    }
+
+    /**
+     * Returns the x coordinate of the side of a zombie that faces its direction.
+     *
+     * @param zombie  The slot of the zombie.
+     * @return        The x coordinate of the leading side.
+     */
+    private float leadingX(int zombie) {
+        return direction[zombie] > 0 ? x[zombie] + ZOMBIE_WIDTH : x[zombie];
+    }
+
+    /**
+     * Advances the animation cursor of a zombie, looping while it runs and holding the last image of the attack and
+     * dead animations.
+     *
+     * @param zombie  The slot of the zombie.
+     */
+    private void advanceAnimation(int zombie) {
+        if(++animationFrame[zombie] == RENDER_IMAGES_FRAME) {
+            animationFrame[zombie] = 0;
+            int images = frames[state[zombie]].length;
+            if(++animationImage[zombie] == images) {
+                animationImage[zombie] = state[zombie] == RUNS ? 0 : images - 1;
+            }
+        }
+    }
+
+    /**
+     * Fades out a corpse once its dead animation reached the last image.
+     *
+     * @param zombie     The slot of the zombie.
+     * @param deltaTime  The time elapsed since the last frame, in seconds.
+     * @return           true if the corpse faded out completely and its slot should be freed.
+     */
+    private boolean fadeCorpse(int zombie, float deltaTime) {
+        if(animationImage[zombie] < frames[DEAD].length - 1) return false;
+        opacity[zombie] = Math.max(0, opacity[zombie] - deltaTime / CORPSE_FADE_OUT_TIME);
+        return opacity[zombie] == 0;
+    }
+
+    /**
+     * Changes the state of a zombie and restarts its animation.
+     *
+     * @param zombie    The slot of the zombie.
+     * @param newState  RUNS, ATTACK or DEAD.
+     */
+    private void setState(int zombie, byte newState) {
+        if(state[zombie] != newState) {
+            state[zombie] = newState;
+            animationImage[zombie] = 0;
+            animationFrame[zombie] = 0;
+        }
+    }
+
+    /**
+     * Sorts the order array by x with an insertion sort. The zombies move very little between frames, so the
+     * array is almost sorted and the sort runs in close to linear time.
+     */
+    private void sortZombies() {
+        for(int i = 1; i < count; i++) {
+            int zombie = order[i];
+            float key = x[zombie];
+            int j = i - 1;
+            while(j >= 0 && x[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = zombie;
+        }
+    }
+
+    /**
+     * Returns the first position in the order array whose zombie has x greater or equal to the given value.
+     *
+     * @param value  The x to search.
+     * @return       A position in the order array, count if there is no such zombie.
+     */
+    private int lowerBound(float value) {
+        int low = 0;
+        int high = count;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(x[order[middle]] < value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Resolves the contacts between the zombies and the avatar, with the same semantic as the Zombie class: a living
+     * zombie that starts touching the avatar takes one life, attacks while it keeps touching it and runs again
+     * when the contact ends. Only the zombies that touched the avatar in the last frame and the zombies whose x
+     * falls in the range of the avatar are tested.
+     */
+    private void resolveAvatarContacts() {
+        if(avatar == null) return;
+        Vector2 topLeft = avatar.getTopLeftCorner();
+        Vector2 dimensions = avatar.getDimensions();
+        float minX = topLeft.x();
+        float maxX = topLeft.x() + dimensions.x();
+        float minY = topLeft.y();
+        float maxY = topLeft.y() + dimensions.y();
+        int kept = 0;
+        for(int i = 0; i < touchingCount; i++) {
+            int zombie = touching[i];
+            if(overlaps(zombie, minX, maxX, minY, maxY)) {
+                touching[kept++] = zombie;
+            }
+            else {
+                touchesAvatar[zombie] = false;
+                if(state[zombie] != DEAD) setState(zombie, RUNS);
+            }
+        }
+        touchingCount = kept;
+        for(int position = lowerBound(minX - ZOMBIE_WIDTH);
+            position < count && x[order[position]] < maxX;
+            position++) {
+            int zombie = order[position];
+            if(state[zombie] == DEAD || !overlaps(zombie, minX, maxX, minY, maxY)) continue;
+            if(touchesAvatar[zombie]) {
+                if(state[zombie] == RUNS) setState(zombie, ATTACK);
+                continue;
+            }
+            touchesAvatar[zombie] = true;
+            touching[touchingCount++] = zombie;
+            if(state[zombie] != DEAD) {
+                livesCounter.decrement();
+                setState(zombie, ATTACK);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a zombie overlaps a box.
+     *
+     * @param zombie  The slot of the zombie.
+     * @param minX    The left side of the box.
+     * @param maxX    The right side of the box.
+     * @param minY    The top side of the box.
+     * @param maxY    The bottom side of the box.
+     * @return        true if the zombie and the box overlap.
+     */
+    private boolean overlaps(int zombie, float minX, float maxX, float minY, float maxY) {
+        return x[zombie] < maxX && x[zombie] + ZOMBIE_WIDTH > minX &&
+                y[zombie] < maxY && y[zombie] + ZOMBIE_HEIGHT > minY;
+    }
+
+    /**
+     * Resolves the contacts between the zombies and the bullets. The bullets of the frame are sorted by their left
+     * side and for every bullet only the zombies whose x falls in its range are tested.
+     */
+    private void resolveBulletContacts() {
+        collectBullets();
+        for(int bullet = 0; bullet < bulletsCount; bullet++) {
+            for(int position = lowerBound(bulletMinX[bullet] - ZOMBIE_WIDTH);
+                position < count && x[order[position]] < bulletMaxX[bullet];
+                position++) {
+                int zombie = order[position];
+                if(state[zombie] != DEAD &&
+                        x[zombie] + ZOMBIE_WIDTH > bulletMinX[bullet] &&
+                        y[zombie] < bulletMaxY[bullet] &&
+                        y[zombie] + ZOMBIE_HEIGHT > bulletMinY[bullet]) {
+                    killsCounter.increment();
+                    killRegistry.markKilled(spawnColumn[zombie]);
+                    setState(zombie, DEAD);
+                    deadCount++;
+                    recordKill(zombie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the JFR event of the death of a zombie of the horde.
+     */
+    private void recordKill(int zombie) {
+        ZombieKilledEvent event = new ZombieKilledEvent();
+        if(event.shouldCommit()) {
+            event.spawnColumn = spawnColumn[zombie];
+            event.x = x[zombie];
+            event.y = y[zombie];
+            event.kills = killsCounter.value();
+            event.horde = true;
+            event.commit();
+        }
+    }
+
+    /**
+     * Copies the bounds of the bullets of this frame into the bullet arrays, sorted by their left side.
+     */
+    private void collectBullets() {
+        bulletsCount = 0;
+        if(bullets == null) return;
+        for(GameObject object : bullets.get()) {
+            if(!(object instanceof BulletInterface)) continue;
+            if(bulletsCount == bulletMinX.length) {
+                int capacity = bulletsCount * 2;
+                bulletMinX = Arrays.copyOf(bulletMinX, capacity);
+                bulletMaxX = Arrays.copyOf(bulletMaxX, capacity);
+                bulletMinY = Arrays.copyOf(bulletMinY, capacity);
+                bulletMaxY = Arrays.copyOf(bulletMaxY, capacity);
+            }
+            Vector2 topLeft = object.getTopLeftCorner();
+            Vector2 dimensions = object.getDimensions();
+            int j = bulletsCount - 1;
+            while(j >= 0 && bulletMinX[j] > topLeft.x()) {
+                bulletMinX[j + 1] = bulletMinX[j];
+                bulletMaxX[j + 1] = bulletMaxX[j];
+                bulletMinY[j + 1] = bulletMinY[j];
+                bulletMaxY[j + 1] = bulletMaxY[j];
+                j--;
+            }
+            bulletMinX[j + 1] = topLeft.x();
+            bulletMaxX[j + 1] = topLeft.x() + dimensions.x();
+            bulletMinY[j + 1] = topLeft.y();
+            bulletMaxY[j + 1] = topLeft.y() + dimensions.y();
+            bulletsCount++;
+        }
+    }
+
+    /**
+     * Renders every zombie inside the camera with the shared frame renderables, without allocating: the graphics
+     * are translated to each zombie instead of building its position as a Vector2.
+     *
+     * @param g       The graphics to render into.
+     * @param camera  The camera of the engine (the camera set with setCamera is used instead, since the horde
+     *                covers the whole world).
+     */
+    @Override
+    public void render(Graphics2D g, Camera camera) {
+        if(this.camera == null) return;
+        Vector2 cameraTopLeft = this.camera.getTopLeftCorner();
+        float cameraMaxX = cameraTopLeft.x() + this.camera.getDimensions().x();
+        for(int position = lowerBound(cameraTopLeft.x() - ZOMBIE_WIDTH);
+            position < count && x[order[position]] < cameraMaxX;
+            position++) {
+            int zombie = order[position];
+            Renderable frame = frames[state[zombie]][animationImage[zombie]];
+            // The graphics are moved to the zombie rather than building a Vector2 of its position every frame
+            int dx = Math.round(x[zombie] - cameraTopLeft.x());
+            int dy = Math.round(y[zombie] - cameraTopLeft.y());
+            g.translate(dx, dy);
+            frame.render(g, Vector2.ZERO, ZOMBIE_DIMENSIONS, 0, direction[zombie] < 0, false, opacity[zombie]);
+            g.translate(-dx, -dy);
+        }
+    }
+
+    /**
+     * Allocates the zombie arrays.
+     *
+     * @param capacity  The number of zombies the arrays can hold.
+     */
+    private void allocateZombies(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        state = new byte[capacity];
+        direction = new byte[capacity];
+        animationImage = new int[capacity];
+        animationFrame = new int[capacity];
+        touchesAvatar = new boolean[capacity];
+        opacity = new float[capacity];
+        order = new int[capacity];
+        touching = new int[capacity];
+        ticket = new int[capacity];
+        lastDecisionFrame = new long[capacity];
+        jumpColumn = new int[capacity];
+        jumpSpeed = new float[capacity];
+        spawnColumn = new int[capacity];
+    }
+
+    /**
+     * Doubles the capacity of the zombie arrays.
+     */
+    private void growZombies() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        state = Arrays.copyOf(state, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        animationImage = Arrays.copyOf(animationImage, capacity);
+        animationFrame = Arrays.copyOf(animationFrame, capacity);
+        touchesAvatar = Arrays.copyOf(touchesAvatar, capacity);
+        opacity = Arrays.copyOf(opacity, capacity);
+        order = Arrays.copyOf(order, capacity);
+        touching = Arrays.copyOf(touching, capacity);
+        ticket = Arrays.copyOf(ticket, capacity);
+        lastDecisionFrame = Arrays.copyOf(lastDecisionFrame, capacity);
+        jumpColumn = Arrays.copyOf(jumpColumn, capacity);
+        jumpSpeed = Arrays.copyOf(jumpSpeed, capacity);
+        spawnColumn = Arrays.copyOf(spawnColumn, capacity);
+    }
+
+    /**
+     * Copies a zombie from one slot to another.
+     *
+     * @param from  The slot to copy.
+     * @param to    The slot to override.
+     */
+    private void moveZombie(int from, int to) {
+        if(from == to) return;
+        x[to] = x[from];
+        y[to] = y[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        state[to] = state[from];
+        direction[to] = direction[from];
+        animationImage[to] = animationImage[from];
+        animationFrame[to] = animationFrame[from];
+        touchesAvatar[to] = touchesAvatar[from];
+        opacity[to] = opacity[from];
+        ticket[to] = ticket[from];
+        lastDecisionFrame[to] = lastDecisionFrame[from];
+        jumpColumn[to] = jumpColumn[from];
+        jumpSpeed[to] = jumpSpeed[from];
+        spawnColumn[to] = spawnColumn[from];
+    }
+}
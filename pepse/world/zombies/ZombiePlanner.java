@@ -0,0 +1,86 @@
+package pepse.world.zombies;
+
+import pepse.world.Block;
+import pepse.world.TerrainHeightfield;
+
+/**
+ * The decisions of a pursuing zombie, shared by the Zombie game object and the ZombieHorde. A decision turns the
+ * zombie toward the avatar and looks a few columns ahead in the terrain heightfield for a step it has to jump over.
+ * The result is a plan (a direction, a column to jump at and a jump speed) that the zombie runs every frame until
+ * its next decision, which only costs a comparison of columns.
+ */
+final class ZombiePlanner {
+    static final int NO_JUMP = Integer.MIN_VALUE; // Jump column of a plan without a jump
+    private static final int LOOKAHEAD_COLUMNS = 4; // Number of columns ahead searched for a step
+    private static final float MIN_STEP_HEIGHT = Block.SIZE; // Lowest rise of the ground worth jumping over
+    private static final float TURN_DISTANCE = Block.SIZE; // Distance from the avatar under which a zombie won't turn
+    private static final float JUMP_MARGIN = Block.SIZE / 2f; // Height the zombie clears above the step
+    private static final float MAX_JUMP_SPEED = 400; // Speed of the highest jump of a zombie
+
+    private ZombiePlanner() {
+    }
+
+    /**
+     * Chooses the direction of a zombie: toward the avatar, unless the zombie is already under it.
+     *
+     * @param centerX           The x coordinate of the center of the zombie.
+     * @param targetX           The x coordinate of the avatar.
+     * @param currentDirection  The current direction of the zombie, 1 for right and -1 for left.
+     * @return                  The new direction, 1 for right and -1 for left.
+     */
+    static int chooseDirection(float centerX, float targetX, int currentDirection) {
+        float distance = targetX - centerX;
+        if(Math.abs(distance) < TURN_DISTANCE) return currentDirection;
+        return distance > 0 ? 1 : -1;
+    }
+
+    /**
+     * Looks ahead of a zombie in the heightfield for the first column that rises above its feet.
+     *
+     * @param heightfield  The heights of the terrain.
+     * @param leadingX     The x coordinate of the side of the zombie that faces its direction.
+     * @param feetY        The y coordinate of the bottom of the zombie.
+     * @param direction    The direction of the zombie, 1 for right and -1 for left.
+     * @return             The column just before the step, where the zombie should jump, or NO_JUMP.
+     */
+    static int findJumpColumn(TerrainHeightfield heightfield, float leadingX, float feetY, int direction) {
+        int leadingColumn = TerrainHeightfield.columnOf(leadingX);
+        for(int i = 1; i <= LOOKAHEAD_COLUMNS; i++) {
+            int column = leadingColumn + i * direction;
+            if(feetY - heightfield.surfaceAtColumn(column) >= MIN_STEP_HEIGHT) {
+                return column - direction;
+            }
+        }
+        return NO_JUMP;
+    }
+
+    /**
+     * Computes the vertical speed of a jump that clears the step after the jump column.
+     *
+     * @param heightfield  The heights of the terrain.
+     * @param jumpColumn   The column before the step.
+     * @param feetY        The y coordinate of the bottom of the zombie.
+     * @param direction    The direction of the zombie, 1 for right and -1 for left.
+     * @param gravity      The gravity applied to the zombie.
+     * @return             The (negative) vertical speed of the jump.
+     */
+    static float jumpSpeed(TerrainHeightfield heightfield, int jumpColumn, float feetY, int direction,
+                           float gravity) {
+        float stepHeight = feetY - heightfield.surfaceAtColumn(jumpColumn + direction) + JUMP_MARGIN;
+        return -Math.min(MAX_JUMP_SPEED, (float) Math.sqrt(2 * gravity * stepHeight));
+    }
+
+    /**
+     * Checks whether a zombie that runs its plan reached the column it should jump at.
+     *
+     * @param leadingX    The x coordinate of the side of the zombie that faces its direction.
+     * @param jumpColumn  The jump column of the plan.
+     * @param direction   The direction of the zombie, 1 for right and -1 for left.
+     * @return            true if the zombie should jump now.
+     */
+    static boolean reachedJumpColumn(float leadingX, int jumpColumn, int direction) {
+        if(jumpColumn == NO_JUMP) return false;
+        int leadingColumn = TerrainHeightfield.columnOf(leadingX);
+        return direction > 0 ? leadingColumn >= jumpColumn : leadingColumn <= jumpColumn;
+    }
+}
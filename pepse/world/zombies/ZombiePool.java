@@ -0,0 +1,116 @@
+package pepse.world.zombies;
+
+import java.util.ArrayDeque;
+
+/**
+ * The ZombiePool keeps the zombies that left the world (their corpse faded out, or they were evicted with the
+ * window) so new zombies reuse them instead of building a new game object with three skills. It also keeps count
+ * of how many zombies are alive, how many corpses are still in the world and how many zombies were recycled.
+ * The engine may only apply the removal of an object at the end of its frame, so a released zombie is not reused
+ * until a whole step of the game ran after its release: a zombie evicted by a quick-load, a rewind or a restart
+ * would otherwise be added back to the world in the same frame it was removed from it.
+ */
+public class ZombiePool {
+    private final ArrayDeque<Zombie> free = new ArrayDeque<>(); // Zombies ready to be reused
+    private final ArrayDeque<Zombie> released = new ArrayDeque<>(); // Zombies released in the current step
+    private final ArrayDeque<Zombie> settling = new ArrayDeque<>(); // Zombies released in the last step
+    private final int capacity; // Maximal number of zombies kept for reuse
+    private int alive; // Number of living zombies in the world
+    private int dead; // Number of corpses in the world
+    private long recycled; // Number of zombies reused since the start of the game
+
+    /**
+     * Constructs a new ZombiePool.
+     * @param capacity the maximal number of zombies kept for reuse, extra zombies are left to the garbage collector
+     */
+    public ZombiePool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes a zombie out of the pool.
+     * @return a zombie to respawn, or null if the pool is empty
+     */
+    Zombie acquire() {
+        Zombie zombie = free.poll();
+        if(zombie != null) {
+            recycled++;
+        }
+        return zombie;
+    }
+
+    /**
+     * Puts a zombie that left the world back into the pool. It can be reused once the step after this one ended.
+     * @param zombie the zombie, which was removed from its layer
+     */
+    void release(Zombie zombie) {
+        if(pooled() < capacity) {
+            released.push(zombie);
+        }
+    }
+
+    /**
+     * Ends a step of the game: the zombies released before the last step ended, whose removal the engine applied
+     * in this step, can be reused, and the zombies released in this step wait for the next one.
+     */
+    public void endStep() {
+        while(!settling.isEmpty()) {
+            free.push(settling.poll());
+        }
+        while(!released.isEmpty()) {
+            settling.push(released.poll());
+        }
+    }
+
+    /**
+     * Records that a zombie entered the world.
+     */
+    void onSpawn() {
+        alive++;
+    }
+
+    /**
+     * Records that a living zombie was killed and became a corpse.
+     */
+    void onDeath() {
+        alive--;
+        dead++;
+    }
+
+    /**
+     * Records that a zombie left the world.
+     * @param wasDead whether the zombie was a corpse
+     */
+    void onRemove(boolean wasDead) {
+        if(wasDead) dead--;
+        else alive--;
+    }
+
+    /**
+     * @return the number of living zombies in the world.
+     */
+    public int alive() {
+        return alive;
+    }
+
+    /**
+     * @return the number of corpses in the world.
+     */
+    public int dead() {
+        return dead;
+    }
+
+    /**
+     * @return the number of zombies waiting in the pool, including those not yet reusable.
+     */
+    public int pooled() {
+        return free.size() + released.size() + settling.size();
+    }
+
+    /**
+     * @return the number of zombies reused since the start of the game.
+     */
+    public long recycled() {
+        return recycled;
+    }
+}
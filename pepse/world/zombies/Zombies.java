@@ -2,31 +2,43 @@ package pepse.world.zombies;
 
 import danogl.collisions.GameObjectCollection;
 import danogl.gui.ImageReader;
-import danogl.util.Counter;
 import danogl.util.Vector2;
+import pepse.util.GameStat;
+import pepse.util.RandomStream;
+import pepse.util.RandomStreams;
 import pepse.util.SegmentCompletion;
 import pepse.world.Block;
+import pepse.world.TerrainHeightfield;
+import pepse.world.WorldSettings;
 
-import java.util.Objects;
-import java.util.Random;
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 
 
 /**
  * This class is responsible for generating and managing the zombies in the game. It uses a seed value and a
  * probability of zombie appearance to determine whether to create a new zombie at a given position. The
- * Zombies class also tracks the lives and kills of the player using the given Counter objects.
+ * Zombies class also tracks the lives and kills of the player using the given GameStat objects. A column whose
+ * zombie was killed stays empty: the kill registry is checked before a zombie is created.
  */
 public class Zombies {
-    private static final double PROBABILITY_OF_ZOMBIE_APPEAREANCE = 0.1;
+    private static final float ZOMBIE_RIGHT_DIRECTION_PROBABILITY = 0.5f;
     private final ImageReader imageReader;
-    private Counter livesCounter;
-    private Counter killsCounter;
+    private GameStat livesCounter;
+    private GameStat killsCounter;
     private final GameObjectCollection gameObjects;
     private final int zombiesLayer;
     private final Function<Float, Float> getTreeHeight;
     private final int seed;
-    private final Random random = new Random();
+    private final RandomStream random = new RandomStream(0); // Reseeded for every column
+    private final ZombieHorde horde;
+    private final TerrainHeightfield heightfield;
+    private final ZombieAiScheduler scheduler;
+    private final ZombiePool pool;
+    private final int corpseLayer;
+    private final KillRegistry killRegistry;
+    private final WorldSettings settings; // Probability of the zombies
+    private int zombiesCreated; // Zombies created by this object, for telemetry
 
 
     /**
@@ -38,14 +50,26 @@ public class Zombies {
      * @param imageReader an image reader to use for reading images from disk
      * @param livesCounter a counter for tracking the lives of the player
      * @param killsCounter a counter for tracking the number of kills made by the player
+     * @param heightfield the heights of the terrain, read by the zombies to find steps ahead
+     * @param scheduler the scheduler that spreads the decisions of the zombies over the frames
+     * @param pool the pool of zombies to reuse, which also counts the living and dead zombies
+     * @param corpseLayer the layer without collisions that holds the dead zombies
+     * @param killRegistry the registry of the columns whose zombie was killed
+     * @param settings the densities of the world, which give the probability of the zombies
      */
     public Zombies(GameObjectCollection gameObjects,
                    int zombiesLayer,
                    Function<Float,Float> getTreeHeight,
                    int seed,
                    ImageReader imageReader,
-                   Counter livesCounter,
-                   Counter killsCounter) {
+                   GameStat livesCounter,
+                   GameStat killsCounter,
+                   TerrainHeightfield heightfield,
+                   ZombieAiScheduler scheduler,
+                   ZombiePool pool,
+                   int corpseLayer,
+                   KillRegistry killRegistry,
+                   WorldSettings settings) {
         this.gameObjects = gameObjects;
         this.zombiesLayer = zombiesLayer;
         this.getTreeHeight = getTreeHeight;
@@ -53,6 +77,38 @@ public class Zombies {
         this.imageReader = imageReader;
         this.livesCounter = livesCounter;
         this.killsCounter = killsCounter;
+        this.heightfield = heightfield;
+        this.scheduler = scheduler;
+        this.pool = pool;
+        this.corpseLayer = corpseLayer;
+        this.killRegistry = killRegistry;
+        this.settings = settings;
+        this.horde = null;
+    }
+
+    /**
+     * Constructs a new Zombies object that adds the zombies it builds to a horde instead of creating a game object
+     * for every zombie. The columns in which zombies appear and their directions are the same in both modes.
+     * @param horde the horde to add the zombies to
+     * @param getTreeHeight a function that returns the height of a tree at a given x-position
+     * @param seed the seed value to use for generating the zombies
+     * @param killRegistry the registry of the columns whose zombie was killed
+     * @param settings the densities of the world, which give the probability of the zombies
+     */
+    public Zombies(ZombieHorde horde, Function<Float,Float> getTreeHeight, int seed, KillRegistry killRegistry,
+                   WorldSettings settings) {
+        this.gameObjects = null;
+        this.zombiesLayer = 0;
+        this.getTreeHeight = getTreeHeight;
+        this.seed = seed;
+        this.imageReader = null;
+        this.heightfield = null;
+        this.scheduler = null;
+        this.pool = null;
+        this.corpseLayer = 0;
+        this.killRegistry = killRegistry;
+        this.settings = settings;
+        this.horde = horde;
     }
 
     /**
@@ -73,26 +129,68 @@ public class Zombies {
             // Calculates the x current position.
             int currX = startX + col * Block.SIZE;
             // Set the seed to the random function which is used for the zombie's appeareance and height.
-            random.setSeed(Objects.hash(currX, seed));
+            random.setSeed(RandomStreams.seedOf(seed, RandomStreams.Subsystem.ZOMBIES, currX));
             // Adds a new zombie to the game if it should appear.
-            if(checkIfZombie()) {
+            if(checkIfZombie() && !killRegistry.isKilled(KillRegistry.columnOf(currX))) {
                 createZombie(currX);
+                zombiesCreated++;
             }
         }
     }
 
+    /**
+     * @return the number of zombies this object created.
+     */
+    public int zombiesCreated() {
+        return zombiesCreated;
+    }
+
+    /**
+     * Adds a zombie saved by Zombie.writeTo to the game, reused from the pool when it holds one. The zombie is
+     * restored as it was saved rather than generated, so it may stand in a column whose zombie was killed.
+     * @param in the buffer of the save, positioned at the record of the zombie.
+     */
+    public void restore(ByteBuffer in) {
+        pool.onSpawn();
+        Zombie zombie = pool.acquire();
+        if(zombie != null) {
+            zombie.respawn(Vector2.ZERO, random, killsCounter);
+        }
+        else {
+            zombie = Zombie.create(gameObjects, zombiesLayer + 1, Vector2.ZERO, imageReader, random, livesCounter,
+                    killsCounter, heightfield, scheduler, pool, corpseLayer, killRegistry);
+        }
+        zombie.readFrom(in);
+    }
+
     /**
      * Creates a new Zombie object at the given x-position.
      * @param currX the x-position at which to create the Zombie
      */
     private void createZombie(int currX) {
-        Zombie zombie = Zombie.create(gameObjects,
+        Vector2 topLeftCorner = new Vector2(currX, getTreeHeight.apply((float) currX) - 3 * Block.SIZE);
+        if(horde != null) {
+            horde.spawn(topLeftCorner, random.nextFloat() > ZOMBIE_RIGHT_DIRECTION_PROBABILITY);
+            return;
+        }
+        pool.onSpawn();
+        Zombie pooled = pool.acquire();
+        if(pooled != null) {
+            pooled.respawn(topLeftCorner, random, killsCounter);
+            return;
+        }
+        Zombie.create(gameObjects,
                 zombiesLayer + 1,
-                new Vector2(currX, getTreeHeight.apply((float) currX) - 3 * Block.SIZE),
+                topLeftCorner,
                 imageReader,
                 random,
                 livesCounter,
-                killsCounter);
+                killsCounter,
+                heightfield,
+                scheduler,
+                pool,
+                corpseLayer,
+                killRegistry);
     }
 
     /**
@@ -101,6 +199,6 @@ public class Zombies {
      * @return true if a Zombie should appear, false otherwise
      */
     private boolean checkIfZombie() {
-        return random.nextDouble() >= 1 - PROBABILITY_OF_ZOMBIE_APPEAREANCE;
+        return random.nextDouble() >= 1 - settings.zombieProbability();
     }
 }